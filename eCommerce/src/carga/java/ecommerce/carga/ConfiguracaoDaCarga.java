@@ -0,0 +1,52 @@
+package ecommerce.carga;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Parâmetros do teste de carga, lidos das propriedades de sistema carga.*
+ * (definidas no perfil Maven carga e sobrescritas com -D).
+ *
+ * p99Maximo e falhasMaximo são os limites de aprovação; nulos não são
+ * verificados. aplicacao traz propriedades extras (chave=valor) da aplicação
+ * sob carga, como o modo de finalização ou o agrupamento de pagamentos.
+ * endpoint é /finalizar (servlet bloqueante) ou /v2/finalizar (reativo).
+ */
+record ConfiguracaoDaCarga(String endpoint, List<Integer> taxas, Duration duracao, Duration aquecimento,
+		int clientes, int produtos, int carrinhos, int itensPorCarrinho, Duration p99Maximo, Double falhasMaximo,
+		List<String> aplicacao, Path relatorio) {
+
+	static ConfiguracaoDaCarga dasPropriedades() {
+		List<Integer> taxas = Arrays.stream(propriedade("carga.taxas", "100,200,400").split(","))
+				.map(String::trim)
+				.map(Integer::valueOf)
+				.toList();
+		List<String> aplicacao = Arrays.stream(propriedade("carga.aplicacao", "").split(";"))
+				.map(String::trim)
+				.filter(p -> !p.isEmpty())
+				.toList();
+		String p99Maximo = propriedade("carga.p99-maximo", "");
+		String falhasMaximo = propriedade("carga.falhas-maximo", "");
+
+		return new ConfiguracaoDaCarga(propriedade("carga.endpoint", "/finalizar"), taxas,
+				DurationStyle.detectAndParse(propriedade("carga.duracao", "30s")),
+				DurationStyle.detectAndParse(propriedade("carga.aquecimento", "10s")),
+				Integer.parseInt(propriedade("carga.clientes", "10000")),
+				Integer.parseInt(propriedade("carga.produtos", "5000")),
+				Integer.parseInt(propriedade("carga.carrinhos", "20000")),
+				Integer.parseInt(propriedade("carga.itens-por-carrinho", "8")),
+				p99Maximo.isBlank() ? null : DurationStyle.detectAndParse(p99Maximo),
+				falhasMaximo.isBlank() ? null : Double.valueOf(falhasMaximo),
+				aplicacao,
+				Path.of(propriedade("carga.relatorio", "target/carga")));
+	}
+
+	private static String propriedade(String nome, String padrao) {
+		String valor = System.getProperty(nome);
+		return valor == null ? padrao : valor.trim();
+	}
+}
@@ -0,0 +1,146 @@
+package ecommerce.carga;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ecommerce.dto.CompraDTO;
+
+/**
+ * Dispara POST no endpoint de finalização em modelo aberto: as chegadas seguem a taxa
+ * configurada, com intervalo fixo, independentemente de quantas requisições
+ * ainda estão sem resposta.
+ *
+ * As requisições são enviadas com o HttpClient assíncrono do JDK, sem uma
+ * thread por requisição em andamento; um pool de threads bloqueantes
+ * limitaria a concorrência e voltaria a fechar o modelo. Acima de maximoEmAndamento requisições sem resposta, as
+ * novas chegadas são contadas como descartadas em vez de esperar.
+ */
+final class GeradorDeCarga {
+
+	private static final Duration PRAZO_REQUISICAO = Duration.ofSeconds(30);
+
+	private final HttpClient http;
+	private final ObjectMapper objectMapper;
+	private final URI base;
+	private final String endpoint;
+	private final SemeadorDeDados.Carrinhos carrinhos;
+	private final MonitorDoPool monitor;
+	private final int maximoEmAndamento;
+
+	GeradorDeCarga(HttpClient http, ObjectMapper objectMapper, URI base, String endpoint,
+			SemeadorDeDados.Carrinhos carrinhos, MonitorDoPool monitor, int maximoEmAndamento) {
+		this.http = http;
+		this.objectMapper = objectMapper;
+		this.base = base;
+		this.endpoint = endpoint;
+		this.carrinhos = carrinhos;
+		this.monitor = monitor;
+		this.maximoEmAndamento = maximoEmAndamento;
+	}
+
+	ResultadoDaEtapa executar(int taxa, Duration duracao) throws InterruptedException {
+		ResultadoDaEtapa resultado = new ResultadoDaEtapa(endpoint, taxa, duracao);
+		SplittableRandom random = new SplittableRandom(taxa);
+		AtomicInteger emAndamento = new AtomicInteger();
+		Phaser pendentes = new Phaser(1);
+
+		long intervalo = TimeUnit.SECONDS.toNanos(1) / taxa;
+		long chegadas = duracao.toNanos() / intervalo;
+
+		// Pico de threads da JVM na etapa: no endpoint bloqueante cresce com as requisições em andamento
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		threads.resetPeakThreadCount();
+		monitor.iniciar();
+		long inicio = System.nanoTime();
+		for (long i = 0; i < chegadas; i++) {
+			long previsto = inicio + i * intervalo;
+			long espera = previsto - System.nanoTime();
+			if (espera > 0) {
+				LockSupport.parkNanos(espera);
+			}
+			resultado.enviada();
+			if (emAndamento.incrementAndGet() > maximoEmAndamento) {
+				emAndamento.decrementAndGet();
+				resultado.falha(ResultadoDaEtapa.DESCARTADA, -1);
+				continue;
+			}
+			int sorteado = random.nextInt(carrinhos.tamanho());
+			pendentes.register();
+			enviar(carrinhos.carrinhosIds()[sorteado], carrinhos.clientesIds()[sorteado], previsto, resultado)
+					.whenComplete((ignorado, erro) -> {
+						emAndamento.decrementAndGet();
+						pendentes.arriveAndDeregister();
+					});
+		}
+
+		// Espera as respostas que faltam, limitado ao prazo de cada requisição
+		try {
+			pendentes.awaitAdvanceInterruptibly(pendentes.arrive(), PRAZO_REQUISICAO.toMillis() * 2,
+					TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			System.err.println("Etapa de " + taxa + "/s encerrada com requisições sem resposta.");
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		resultado.encerrar(segundos, monitor.parar(), threads.getPeakThreadCount());
+		return resultado;
+	}
+
+	private CompletableFuture<Void> enviar(long carrinhoId, long clienteId, long previsto,
+			ResultadoDaEtapa resultado) {
+		HttpRequest requisicao = HttpRequest.newBuilder(
+				base.resolve(endpoint + "?carrinhoId=" + carrinhoId + "&clienteId=" + clienteId))
+				.timeout(PRAZO_REQUISICAO)
+				.POST(HttpRequest.BodyPublishers.noBody())
+				.build();
+
+		return http.sendAsync(requisicao, HttpResponse.BodyHandlers.ofByteArray())
+				.handle((resposta, erro) -> {
+					long latencia = System.nanoTime() - previsto;
+					if (erro != null) {
+						Throwable causa = erro instanceof CompletionException && erro.getCause() != null
+								? erro.getCause()
+								: erro;
+						resultado.falha(causa.getClass().getSimpleName(), latencia);
+					} else {
+						registrar(resposta, latencia, resultado);
+					}
+					return null;
+				});
+	}
+
+	private void registrar(HttpResponse<byte[]> resposta, long latencia, ResultadoDaEtapa resultado) {
+		CompraDTO compra;
+		try {
+			compra = objectMapper.readValue(resposta.body(), CompraDTO.class);
+		} catch (IOException e) {
+			resultado.falha("HTTP " + resposta.statusCode() + " sem CompraDTO", latencia);
+			return;
+		}
+		if (resposta.statusCode() == 200 && Boolean.TRUE.equals(compra.sucesso())) {
+			resultado.sucesso(latencia);
+		} else if (resposta.statusCode() == 200) {
+			resultado.falha(compra.mensagem(), latencia);
+		} else if (resposta.statusCode() == 429) {
+			// Recusa do controle de admissão: conta como falha, fora do histograma
+			resultado.falha("HTTP 429: " + compra.mensagem(), -1);
+		} else {
+			resultado.falha("HTTP " + resposta.statusCode() + ": " + compra.mensagem(), latencia);
+		}
+	}
+}
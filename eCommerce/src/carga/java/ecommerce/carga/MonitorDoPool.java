@@ -0,0 +1,77 @@
+package ecommerce.carga;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Amostra o pool de conexões (Hikari) a cada 50 ms durante uma etapa: conexões
+ * ativas, threads esperando conexão e a fração das amostras em que o pool
+ * estava saturado (todas as conexões em uso ou alguém esperando).
+ */
+final class MonitorDoPool implements AutoCloseable {
+
+	private static final long INTERVALO_MS = 50;
+
+	record Amostragem(int tamanhoMaximo, double ativasMedia, int ativasMaximo, int aguardandoMaximo,
+			double fracaoSaturado) {
+	}
+
+	private final HikariDataSource dataSource;
+	private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+		Thread thread = new Thread(tarefa, "carga-monitor-pool");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private ScheduledFuture<?> amostragem;
+	private long amostras;
+	private long somaAtivas;
+	private int ativasMaximo;
+	private int aguardandoMaximo;
+	private long amostrasSaturadas;
+
+	MonitorDoPool(HikariDataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	synchronized void iniciar() {
+		amostras = 0;
+		somaAtivas = 0;
+		ativasMaximo = 0;
+		aguardandoMaximo = 0;
+		amostrasSaturadas = 0;
+		amostragem = agendador.scheduleAtFixedRate(this::amostrar, 0, INTERVALO_MS, TimeUnit.MILLISECONDS);
+	}
+
+	synchronized Amostragem parar() {
+		amostragem.cancel(false);
+		return new Amostragem(dataSource.getMaximumPoolSize(), amostras == 0 ? 0 : (double) somaAtivas / amostras,
+				ativasMaximo, aguardandoMaximo, amostras == 0 ? 0 : (double) amostrasSaturadas / amostras);
+	}
+
+	@Override
+	public void close() {
+		agendador.shutdownNow();
+	}
+
+	private synchronized void amostrar() {
+		HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+		if (pool == null) {
+			return; // pool ainda não iniciado
+		}
+		int ativas = pool.getActiveConnections();
+		int aguardando = pool.getThreadsAwaitingConnection();
+		amostras++;
+		somaAtivas += ativas;
+		ativasMaximo = Math.max(ativasMaximo, ativas);
+		aguardandoMaximo = Math.max(aguardandoMaximo, aguardando);
+		if (aguardando > 0 || ativas >= dataSource.getMaximumPoolSize()) {
+			amostrasSaturadas++;
+		}
+	}
+}
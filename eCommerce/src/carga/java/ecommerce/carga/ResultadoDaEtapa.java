@@ -0,0 +1,123 @@
+package ecommerce.carga;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Contadores e histograma de latência de uma etapa do teste de carga.
+ *
+ * A latência de cada requisição é medida a partir do instante em que ela
+ * deveria ter sido enviada pelo modelo aberto, não de quando foi enviada de
+ * fato: se o gerador ou o servidor atrasar, o atraso aparece na latência
+ * (sem omissão coordenada). Falhas são agrupadas pela mensagem do CompraDTO,
+ * pelo status HTTP quando a resposta não traz CompraDTO, ou pelo tipo da
+ * exceção. Recusas com 429 do controle de admissão contam como falha mas não
+ * entram no histograma, que fica só com as requisições admitidas.
+ */
+final class ResultadoDaEtapa {
+
+	static final String DESCARTADA = "Descartada pelo gerador (limite de requisições em andamento)";
+
+	private final String endpoint;
+	private final int taxa;
+	private final Duration duracao;
+	private final Recorder latencias = new Recorder(3);
+	private final LongAdder enviadas = new LongAdder();
+	private final LongAdder sucessos = new LongAdder();
+	private final Map<String, LongAdder> falhas = new ConcurrentHashMap<>();
+
+	private Histogram histograma;
+	private MonitorDoPool.Amostragem pool;
+	private double segundosMedidos;
+	private int picoThreads;
+
+	ResultadoDaEtapa(String endpoint, int taxa, Duration duracao) {
+		this.endpoint = endpoint;
+		this.taxa = taxa;
+		this.duracao = duracao;
+	}
+
+	void enviada() {
+		enviadas.increment();
+	}
+
+	void sucesso(long latenciaNanos) {
+		latencias.recordValue(latenciaNanos / 1000);
+		sucessos.increment();
+	}
+
+	void falha(String motivo, long latenciaNanos) {
+		if (latenciaNanos >= 0) {
+			latencias.recordValue(latenciaNanos / 1000);
+		}
+		falhas.computeIfAbsent(motivo, m -> new LongAdder()).increment();
+	}
+
+	void encerrar(double segundosMedidos, MonitorDoPool.Amostragem pool, int picoThreads) {
+		this.segundosMedidos = segundosMedidos;
+		this.picoThreads = picoThreads;
+		this.histograma = latencias.getIntervalHistogram();
+		this.pool = pool;
+	}
+
+	long totalFalhas() {
+		return falhas.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	long concluidas() {
+		return sucessos.sum() + totalFalhas();
+	}
+
+	double fracaoFalhas() {
+		long concluidas = concluidas();
+		return concluidas == 0 ? 0 : (double) totalFalhas() / concluidas;
+	}
+
+	Duration p99() {
+		return Duration.ofNanos(histograma.getValueAtPercentile(99) * 1000);
+	}
+
+	int taxa() {
+		return taxa;
+	}
+
+	void imprimir(PrintStream saida) {
+		saida.printf("%n== %s: %d chegadas/s por %ds ==%n", endpoint, taxa, duracao.toSeconds());
+		saida.printf("Enviadas: %d  Concluídas: %d  Sucessos: %d  Vazão: %.1f/s%n", enviadas.sum(), concluidas(),
+				sucessos.sum(), concluidas() / segundosMedidos);
+		saida.printf("Latência (ms): p50 %.2f  p90 %.2f  p99 %.2f  p99,9 %.2f  máx %.2f%n", ms(50), ms(90), ms(99),
+				ms(99.9), histograma.getMaxValue() / 1000.0);
+		saida.printf("Falhas: %d (%.2f%%)%n", totalFalhas(), 100 * fracaoFalhas());
+		falhas.entrySet().stream()
+				.sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+				.forEach(e -> saida.printf("  %6d  %s%n", e.getValue().sum(), e.getKey()));
+		saida.printf("Pool de conexões (máximo %d): ativas média %.1f, máximo %d; threads aguardando no máximo %d;"
+				+ " saturado em %.1f%% das amostras%n", pool.tamanhoMaximo(), pool.ativasMedia(), pool.ativasMaximo(),
+				pool.aguardandoMaximo(), 100 * pool.fracaoSaturado());
+		saida.printf("Threads da JVM: pico %d; heap máximo %d MB%n", picoThreads,
+				Runtime.getRuntime().maxMemory() / (1024 * 1024));
+	}
+
+	// Distribuição completa em ms, no formato .hgrm do HdrHistogram (/v2/finalizar vira v2-finalizar-<taxa>)
+	void gravarHistograma(Path diretorio) throws IOException {
+		Files.createDirectories(diretorio);
+		String nome = endpoint.replaceFirst("^/", "").replace('/', '-') + "-" + taxa + ".hgrm";
+		try (PrintStream arquivo = new PrintStream(Files.newOutputStream(diretorio.resolve(nome)))) {
+			histograma.outputPercentileDistribution(arquivo, 1000.0);
+		}
+	}
+
+	private double ms(double percentil) {
+		return histograma.getValueAtPercentile(percentil) / 1000.0;
+	}
+}
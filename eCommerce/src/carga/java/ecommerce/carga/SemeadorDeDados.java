@@ -0,0 +1,114 @@
+package ecommerce.carga;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+
+/**
+ * Popula o H2 com clientes, produtos e carrinhos gerados com semente fixa, para
+ * que duas execuções com os mesmos parâmetros usem os mesmos dados.
+ *
+ * Os clientes seguem a proporção 60% BRONZE, 30% PRATA e 10% OURO; cada
+ * carrinho tem itensPorCarrinho produtos distintos, com quantidade de 1 a 3.
+ */
+final class SemeadorDeDados {
+
+	private static final long SEMENTE = 42L;
+	private static final int TAMANHO_LOTE = 1000;
+
+	/** Carrinhos gravados, com o cliente dono de cada um na mesma posição. */
+	record Carrinhos(long[] carrinhosIds, long[] clientesIds) {
+
+		int tamanho() {
+			return carrinhosIds.length;
+		}
+	}
+
+	private final ClienteRepository clienteRepository;
+	private final ProdutoRepository produtoRepository;
+	private final CarrinhoDeComprasRepository carrinhoRepository;
+
+	SemeadorDeDados(ClienteRepository clienteRepository, ProdutoRepository produtoRepository,
+			CarrinhoDeComprasRepository carrinhoRepository) {
+		this.clienteRepository = clienteRepository;
+		this.produtoRepository = produtoRepository;
+		this.carrinhoRepository = carrinhoRepository;
+	}
+
+	Carrinhos semear(ConfiguracaoDaCarga configuracao) {
+		Random random = new Random(SEMENTE);
+		List<Cliente> clientes = gravarClientes(configuracao.clientes(), random);
+		List<Produto> produtos = gravarProdutos(configuracao.produtos(), random);
+
+		int total = configuracao.carrinhos();
+		long[] carrinhosIds = new long[total];
+		long[] clientesIds = new long[total];
+		List<CarrinhoDeCompras> lote = new ArrayList<>(TAMANHO_LOTE);
+		int gravados = 0;
+		for (int i = 0; i < total; i++) {
+			Cliente cliente = clientes.get(random.nextInt(clientes.size()));
+			lote.add(novoCarrinho(cliente, produtos, configuracao.itensPorCarrinho(), random));
+			if (lote.size() == TAMANHO_LOTE || i == total - 1) {
+				for (CarrinhoDeCompras carrinho : carrinhoRepository.saveAll(lote)) {
+					carrinhosIds[gravados] = carrinho.getId();
+					clientesIds[gravados++] = carrinho.getCliente().getId();
+				}
+				lote.clear();
+			}
+		}
+		return new Carrinhos(carrinhosIds, clientesIds);
+	}
+
+	private List<Cliente> gravarClientes(int total, Random random) {
+		List<Cliente> clientes = new ArrayList<>(total);
+		for (int i = 1; i <= total; i++) {
+			int sorteio = random.nextInt(10);
+			TipoCliente tipo = sorteio < 6 ? TipoCliente.BRONZE : sorteio < 9 ? TipoCliente.PRATA : TipoCliente.OURO;
+			clientes.add(new Cliente(null, "Cliente " + i, "Endereço " + i, tipo));
+		}
+		return gravarEmLotes(clientes, clienteRepository::saveAll);
+	}
+
+	private List<Produto> gravarProdutos(int total, Random random) {
+		TipoProduto[] tipos = TipoProduto.values();
+		List<Produto> produtos = new ArrayList<>(total);
+		for (int i = 1; i <= total; i++) {
+			BigDecimal preco = BigDecimal.valueOf(100 + random.nextInt(20_000), 2); // R$ 1,00 a R$ 200,99
+			produtos.add(new Produto(null, "Produto " + i, "Descrição " + i, preco, 1 + random.nextInt(5),
+					tipos[i % tipos.length]));
+		}
+		return gravarEmLotes(produtos, produtoRepository::saveAll);
+	}
+
+	// Itens adicionados como pela API de carrinho, com subtotal e peso total mantidos
+	private static CarrinhoDeCompras novoCarrinho(Cliente cliente, List<Produto> produtos, int itens, Random random) {
+		CarrinhoDeCompras carrinho = new CarrinhoDeCompras(null, cliente, new ArrayList<>(itens), LocalDate.now());
+		int inicio = random.nextInt(produtos.size());
+		// Produtos consecutivos a partir de um sorteado: distintos sem precisar de conjunto
+		for (int i = 0; i < Math.min(itens, produtos.size()); i++) {
+			Produto produto = produtos.get((inicio + i) % produtos.size());
+			carrinho.adicionarItem(produto, 1L + random.nextInt(3));
+		}
+		return carrinho;
+	}
+
+	private static <T> List<T> gravarEmLotes(List<T> entidades, Function<List<T>, List<T>> gravar) {
+		List<T> gravadas = new ArrayList<>(entidades.size());
+		for (int i = 0; i < entidades.size(); i += TAMANHO_LOTE) {
+			gravadas.addAll(gravar.apply(entidades.subList(i, Math.min(i + TAMANHO_LOTE, entidades.size()))));
+		}
+		return gravadas;
+	}
+}
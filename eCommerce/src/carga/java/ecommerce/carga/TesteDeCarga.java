@@ -0,0 +1,120 @@
+package ecommerce.carga;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
+import ecommerce.CompraApplication;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+
+/**
+ * Teste de carga de POST /finalizar (ou /v2/finalizar, com carga.endpoint) com
+ * a aplicação completa (H2 em memória, porta aleatória).
+ *
+ * Popula os dados, faz um aquecimento na primeira taxa (descartado) e executa
+ * uma etapa por taxa configurada, imprimindo vazão, percentis de latência,
+ * falhas por motivo e saturação do pool de conexões. Os histogramas ficam em
+ * carga.relatorio. Se carga.p99-maximo ou carga.falhas-maximo forem
+ * excedidos em alguma etapa, o processo termina com código 1.
+ */
+public final class TesteDeCarga {
+
+	// Requisições sem resposta acima disto são descartadas pelo gerador
+	private static final int MAXIMO_EM_ANDAMENTO = 4096;
+
+	private TesteDeCarga() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		ConfiguracaoDaCarga configuracao = ConfiguracaoDaCarga.dasPropriedades();
+
+		List<String> propriedades = new ArrayList<>();
+		propriedades.add("server.port=0");
+		propriedades.add("ecommerce.log.amostragem.por-segundo=1");
+		propriedades.addAll(configuracao.aplicacao());
+		ConfigurableApplicationContext contexto = new SpringApplicationBuilder(CompraApplication.class)
+				.properties(propriedades.toArray(String[]::new))
+				.run(args);
+
+		int codigo;
+		try (MonitorDoPool monitor = new MonitorDoPool(contexto.getBean(DataSource.class)
+				.unwrap(HikariDataSource.class))) {
+			codigo = executar(configuracao, contexto, monitor);
+		} finally {
+			SpringApplication.exit(contexto);
+		}
+		System.exit(codigo);
+	}
+
+	private static int executar(ConfiguracaoDaCarga configuracao, ConfigurableApplicationContext contexto,
+			MonitorDoPool monitor) throws Exception {
+		System.out.printf("Populando %d clientes, %d produtos e %d carrinhos...%n", configuracao.clientes(),
+				configuracao.produtos(), configuracao.carrinhos());
+		SemeadorDeDados.Carrinhos carrinhos = new SemeadorDeDados(contexto.getBean(ClienteRepository.class),
+				contexto.getBean(ProdutoRepository.class), contexto.getBean(CarrinhoDeComprasRepository.class))
+				.semear(configuracao);
+
+		int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+		HttpClient http = HttpClient.newBuilder()
+				.executor(Executors.newFixedThreadPool(4))
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		GeradorDeCarga gerador = new GeradorDeCarga(http, contexto.getBean(ObjectMapper.class),
+				URI.create("http://localhost:" + porta), configuracao.endpoint(), carrinhos, monitor,
+				MAXIMO_EM_ANDAMENTO);
+
+		if (!configuracao.aquecimento().isZero()) {
+			System.out.printf("Aquecimento: %d chegadas/s por %ds%n", configuracao.taxas().get(0),
+					configuracao.aquecimento().toSeconds());
+			gerador.executar(configuracao.taxas().get(0), configuracao.aquecimento());
+		}
+
+		List<String> violacoes = new ArrayList<>();
+		for (int taxa : configuracao.taxas()) {
+			ResultadoDaEtapa resultado = gerador.executar(taxa, configuracao.duracao());
+			resultado.imprimir(System.out);
+			resultado.gravarHistograma(configuracao.relatorio());
+			violacoes.addAll(verificar(configuracao, resultado));
+		}
+
+		System.out.println();
+		System.out.println("Histogramas em " + configuracao.relatorio().toAbsolutePath());
+		if (violacoes.isEmpty()) {
+			System.out.println("Limites de aprovação respeitados.");
+			return 0;
+		}
+		System.out.println("Limites de aprovação excedidos:");
+		violacoes.forEach(v -> System.out.println("  " + v));
+		return 1;
+	}
+
+	private static List<String> verificar(ConfiguracaoDaCarga configuracao, ResultadoDaEtapa resultado) {
+		List<String> violacoes = new ArrayList<>();
+		Duration p99Maximo = configuracao.p99Maximo();
+		if (p99Maximo != null && resultado.p99().compareTo(p99Maximo) > 0) {
+			violacoes.add(String.format("%d/s: p99 de %d ms acima de %d ms", resultado.taxa(),
+					resultado.p99().toMillis(), p99Maximo.toMillis()));
+		}
+		Double falhasMaximo = configuracao.falhasMaximo();
+		if (falhasMaximo != null && resultado.fracaoFalhas() > falhasMaximo) {
+			violacoes.add(String.format("%d/s: %.2f%% de falhas acima de %.2f%%", resultado.taxa(),
+					100 * resultado.fracaoFalhas(), 100 * falhasMaximo));
+		}
+		return violacoes;
+	}
+}
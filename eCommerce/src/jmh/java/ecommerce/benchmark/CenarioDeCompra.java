@@ -0,0 +1,72 @@
+package ecommerce.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Monta carrinhos determinísticos para os benchmarks, variando a quantidade de
+ * itens, o tipo do cliente e a faixa de peso usada no cálculo do frete.
+ */
+public final class CenarioDeCompra {
+
+	/** Faixas de peso total do carrinho, uma para cada regra de frete. */
+	public enum FaixaPeso {
+		LEVE(2), // abaixo de 5: sem frete
+		MEDIO(7), // de 5 a 9: R$ 2,00 por unidade de peso
+		PESADO(30), // de 10 a 50: R$ 4,00 por unidade de peso
+		MUITO_PESADO(80); // acima de 50: R$ 7,00 por unidade de peso
+
+		private final int pesoTotal;
+
+		FaixaPeso(int pesoTotal) {
+			this.pesoTotal = pesoTotal;
+		}
+
+		public int getPesoTotal() {
+			return pesoTotal;
+		}
+	}
+
+	private static final long SEMENTE = 42L;
+
+	private CenarioDeCompra() {
+	}
+
+	public static CarrinhoDeCompras novoCarrinho(Long carrinhoId, Cliente cliente, int tamanho, FaixaPeso faixaPeso) {
+		Random random = new Random(SEMENTE);
+		TipoProduto[] tipos = TipoProduto.values();
+		List<ItemCompra> itens = new ArrayList<>(tamanho);
+
+		// Distribui o peso alvo entre os itens para que o total caia sempre na mesma faixa
+		int pesoBase = faixaPeso.getPesoTotal() / tamanho;
+		int resto = faixaPeso.getPesoTotal() % tamanho;
+
+		for (int i = 0; i < tamanho; i++) {
+			long id = i + 1L;
+			BigDecimal preco = BigDecimal.valueOf(100 + random.nextInt(20_000), 2); // R$ 1,00 a R$ 200,99
+			int peso = pesoBase + (i < resto ? 1 : 0);
+			Produto produto = new Produto(id, "Produto " + id, "Descrição " + id, preco, peso,
+					tipos[i % tipos.length]);
+			itens.add(new ItemCompra(id, produto, 1L));
+		}
+
+		CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+		carrinho.setId(carrinhoId);
+		carrinho.setCliente(cliente);
+		carrinho.setItens(itens);
+		return carrinho;
+	}
+
+	public static Cliente novoCliente(Long clienteId, TipoCliente tipo) {
+		return new Cliente(clienteId, "Cliente " + clienteId, "Endereço " + clienteId, tipo);
+	}
+}
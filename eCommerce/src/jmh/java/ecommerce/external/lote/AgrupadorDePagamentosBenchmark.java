@@ -0,0 +1,117 @@
+package ecommerce.external.lote;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.dto.AutorizacaoPagamentoDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IPagamentoExternal;
+
+/**
+ * Autorizações de pagamento com 64 threads contra um gateway que atende no
+ * máximo 4 chamadas ao mesmo tempo, cada uma custando 1 ms de ida e volta mais
+ * 10 µs por autorização.
+ *
+ * tamanhoMaximoLote=0 chama o gateway direto, uma autorização por chamada;
+ * os demais valores passam pelo {@link AgrupadorDePagamentos} com a janela
+ * indicada em microssegundos. O modo sample mostra quanto da latência de cada
+ * compra é espera pela janela e pela fila.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class AgrupadorDePagamentosBenchmark {
+
+	private static final int CHAMADAS_SIMULTANEAS = 4;
+	private static final long IDA_E_VOLTA_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long POR_AUTORIZACAO_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+	// Gateway com custo fixo por chamada e concorrência limitada, como um pool de conexões
+	static class GatewayDePagamento implements IPagamentoExternal {
+
+		private final Semaphore conexoes = new Semaphore(CHAMADAS_SIMULTANEAS);
+
+		@Override
+		public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+			chamar(1);
+			return new PagamentoDTO(true, clienteId);
+		}
+
+		@Override
+		public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+		}
+
+		@Override
+		public List<PagamentoDTO> autorizarPagamentos(List<AutorizacaoPagamentoDTO> autorizacoes) {
+			chamar(autorizacoes.size());
+			PagamentoDTO[] pagamentos = new PagamentoDTO[autorizacoes.size()];
+			for (int i = 0; i < pagamentos.length; i++) {
+				pagamentos[i] = new PagamentoDTO(true, autorizacoes.get(i).clienteId());
+			}
+			return List.of(pagamentos);
+		}
+
+		private void chamar(int autorizacoes) {
+			conexoes.acquireUninterruptibly();
+			try {
+				LockSupport.parkNanos(IDA_E_VOLTA_NANOS + autorizacoes * POR_AUTORIZACAO_NANOS);
+			} finally {
+				conexoes.release();
+			}
+		}
+	}
+
+	@Param({ "0", "8", "32", "128" })
+	public int tamanhoMaximoLote;
+
+	@Param({ "500", "2000" })
+	public long janelaMicros;
+
+	private GatewayDePagamento gateway;
+	private AgrupadorDePagamentos agrupador;
+
+	@Setup
+	public void setup() {
+		gateway = new GatewayDePagamento();
+		if (tamanhoMaximoLote > 0) {
+			agrupador = new AgrupadorDePagamentos(gateway, tamanhoMaximoLote, Duration.ofNanos(janelaMicros * 1000),
+					1024, CHAMADAS_SIMULTANEAS, Duration.ofSeconds(1));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (agrupador != null) {
+			agrupador.close();
+		}
+	}
+
+	@Benchmark
+	public PagamentoDTO autorizar() {
+		if (agrupador == null) {
+			return gateway.autorizarPagamento(1L, 100.0);
+		}
+		return agrupador.autorizar(1L, 100.0);
+	}
+}
@@ -0,0 +1,63 @@
+package ecommerce.external.memoria;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.external.Reserva;
+
+/**
+ * Vazão de reserva + confirmação com carrinhos concorrentes que se sobrepõem.
+ * Rode com -t 1, -t 4, -t 16... para ver a escala por núcleo; quanto menos
+ * produtos, maior a disputa pelas mesmas listras.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EstoqueEmMemoriaBenchmark {
+
+	@Param({ "10", "1000", "100000" })
+	public int produtos;
+
+	@Param({ "1", "5" })
+	public int itensPorCarrinho;
+
+	private EstoqueEmMemoria estoque;
+
+	@Setup
+	public void setup() {
+		// Saldo praticamente infinito: mede a disputa, não a falta de estoque
+		estoque = new EstoqueEmMemoria(produtos, 1024, Long.MAX_VALUE / 2);
+	}
+
+	@Benchmark
+	public boolean reservarEConfirmar() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		List<Long> ids = new ArrayList<>(itensPorCarrinho);
+		List<Long> quantidades = new ArrayList<>(itensPorCarrinho);
+		for (int i = 0; i < itensPorCarrinho; i++) {
+			ids.add(random.nextLong(1, produtos + 1L));
+			quantidades.add(1L);
+		}
+
+		Reserva reserva = estoque.reservar(ids, quantidades);
+		estoque.confirmar(reserva);
+		return reserva.efetuada();
+	}
+}
@@ -0,0 +1,73 @@
+package ecommerce.external.memoria;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.benchmark.CenarioDeCompra;
+import ecommerce.benchmark.CenarioDeCompra.FaixaPeso;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.TipoCliente;
+
+/**
+ * Verificação de disponibilidade de carrinhos grandes: duas List&lt;Long&gt;
+ * montadas com boxing (forma antiga) contra um {@link LoteEstoque}. Compare
+ * gc.alloc.rate.norm entre os dois.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoteEstoqueBenchmark {
+
+	@Param({ "100", "10000" })
+	public int tamanhoCarrinho;
+
+	private List<ItemCompra> itens;
+	private EstoqueEmMemoria estoque;
+
+	@Setup
+	public void setup() {
+		CarrinhoDeCompras carrinho = CenarioDeCompra.novoCarrinho(1L,
+				CenarioDeCompra.novoCliente(1L, TipoCliente.BRONZE), tamanhoCarrinho, FaixaPeso.LEVE);
+		itens = carrinho.getItens();
+		estoque = new EstoqueEmMemoria(tamanhoCarrinho, 1024, 1_000_000);
+	}
+
+	@Benchmark
+	public DisponibilidadeDTO listas() {
+		List<Long> produtosIds = new ArrayList<>(itens.size());
+		List<Long> produtosQtds = new ArrayList<>(itens.size());
+		for (ItemCompra item : itens) {
+			produtosIds.add(item.getProduto().getId());
+			produtosQtds.add(item.getQuantidade());
+		}
+		return estoque.verificarDisponibilidade(produtosIds, produtosQtds);
+	}
+
+	@Benchmark
+	public DisponibilidadeDTO lote() {
+		LoteEstoque lote = new LoteEstoque(itens.size());
+		for (ItemCompra item : itens) {
+			lote.adicionar(item.getProduto().getId(), item.getQuantidade());
+		}
+		return estoque.verificarDisponibilidade(lote);
+	}
+}
@@ -0,0 +1,108 @@
+package ecommerce.external.remoto;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.ItensEstoqueDTO;
+import ecommerce.dto.LoteEstoque;
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import feign.hc5.ApacheHttp5Client;
+import feign.jackson.JacksonDecoder;
+import feign.jackson.JacksonEncoder;
+
+/**
+ * Vazão do {@link EstoqueClient} com 16 threads contra o {@link ServidorStub}:
+ * PADRAO usa o cliente do Feign sem configuração (HttpURLConnection, poucas
+ * conexões ociosas guardadas por host); POOL usa o Apache HttpClient 5 com
+ * pool e keep-alive, como em application-remoto.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ClientesFeignBenchmark {
+
+	public enum Configuracao {
+		PADRAO, POOL
+	}
+
+	@Param
+	public Configuracao configuracao;
+
+	@Param({ "10", "1000" })
+	public int tamanhoLote;
+
+	private ServidorStub stub;
+	private CloseableHttpClient httpClient;
+	private EstoqueClient estoque;
+	private ItensEstoqueDTO itens;
+
+	@Setup
+	public void setup() throws IOException {
+		stub = ServidorStub.iniciar(32);
+
+		Client client;
+		if (configuracao == Configuracao.POOL) {
+			httpClient = HttpClients.custom()
+					.setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+							.setMaxConnTotal(200)
+							.setMaxConnPerRoute(100)
+							.build())
+					.build();
+			client = new ApacheHttp5Client(httpClient);
+		} else {
+			client = new Client.Default(null, null);
+		}
+
+		estoque = Feign.builder()
+				.client(client)
+				.contract(new SpringMvcContract())
+				.encoder(new JacksonEncoder())
+				.decoder(new JacksonDecoder())
+				.options(new Request.Options(500, TimeUnit.MILLISECONDS, 1500, TimeUnit.MILLISECONDS, true))
+				.target(EstoqueClient.class, stub.url());
+
+		LoteEstoque lote = new LoteEstoque(tamanhoLote);
+		for (long produtoId = 1; produtoId <= tamanhoLote; produtoId++) {
+			lote.adicionar(produtoId, 1 + produtoId % 5);
+		}
+		itens = ItensEstoqueDTO.de(lote);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		if (httpClient != null) {
+			httpClient.close();
+		}
+		stub.close();
+	}
+
+	@Benchmark
+	public DisponibilidadeDTO verificarDisponibilidade() {
+		return estoque.verificarDisponibilidade(itens);
+	}
+}
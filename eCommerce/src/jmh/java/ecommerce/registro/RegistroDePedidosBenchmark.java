@@ -0,0 +1,108 @@
+package ecommerce.registro;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import ecommerce.registro.PedidoRegistrado.Situacao;
+
+/**
+ * Vazão de {@link RegistroDePedidos#registrar} com 8 threads, gravando em
+ * target/benchmark-pedidos com segmentos de 64 MB.
+ *
+ * EM_GRUPO é a configuração da aplicação (fsync periódico cobrindo todos os
+ * pedidos do intervalo); POR_PEDIDO sincroniza com o disco depois de cada
+ * pedido, como faria um registro sem agrupamento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RegistroDePedidosBenchmark {
+
+	public enum Fsync {
+		EM_GRUPO, POR_PEDIDO
+	}
+
+	@Param
+	public Fsync fsync;
+
+	@Param({ "1", "20" })
+	public int itens;
+
+	private Path diretorio;
+	private RegistroDePedidos registro;
+	private PedidoRegistrado[] pedidos;
+	private final AtomicLong proximo = new AtomicLong();
+
+	@Setup
+	public void setup() throws IOException {
+		diretorio = Path.of("target", "benchmark-pedidos");
+		apagar(diretorio);
+		registro = new RegistroDePedidos(diretorio, DataSize.ofMegabytes(64), Duration.ofMillis(10));
+		registro.iniciar();
+
+		// Alguns clientes diferentes, para o índice não ter uma só chave
+		pedidos = new PedidoRegistrado[64];
+		for (int p = 0; p < pedidos.length; p++) {
+			long[] produtosIds = new long[itens];
+			long[] quantidades = new long[itens];
+			long[] precos = new long[itens];
+			for (int i = 0; i < itens; i++) {
+				produtosIds[i] = i + 1;
+				quantidades[i] = 1 + i % 3;
+				precos[i] = 1990 + 100L * i;
+			}
+			pedidos[p] = new PedidoRegistrado(System.currentTimeMillis(), Situacao.CONCLUIDA, p, p % 16, (long) p,
+					produtosIds, quantidades, precos, 100000L, 10000L, 2000L, 92000L, "Compra finalizada com sucesso.");
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		registro.close();
+		apagar(diretorio);
+	}
+
+	@Benchmark
+	public void registrar() {
+		registro.registrar(pedidos[(int) (proximo.getAndIncrement() & (pedidos.length - 1))]);
+		if (fsync == Fsync.POR_PEDIDO) {
+			registro.sincronizar();
+		}
+	}
+
+	private static void apagar(Path diretorio) throws IOException {
+		if (!Files.exists(diretorio)) {
+			return;
+		}
+		try (Stream<Path> arquivos = Files.walk(diretorio)) {
+			for (Path arquivo : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(arquivo);
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package ecommerce.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import ecommerce.CompraApplication;
+import ecommerce.dto.NovoCarrinhoDTO;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.CarrinhoDeComprasService;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tempo e comandos SQL para gravar um carrinho de {@code itens} itens com
+ * {@link CarrinhoDeComprasService#criarCarrinhos}, com o contexto Spring
+ * completo e H2 em memória.
+ *
+ * tamanhoLoteJdbc=1 desliga os lotes e reproduz o comportamento com ids
+ * IDENTITY (um comando por insert); 50 é a configuração da aplicação. Os
+ * contadores auxiliares comandosSql e carrinhos dão os comandos preparados por
+ * carrinho (comandosSql / carrinhos), incluindo as consultas às sequências.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CriacaoDeCarrinhoBenchmark {
+
+	@Param({ "1", "50" })
+	public int tamanhoLoteJdbc;
+
+	@Param({ "1000" })
+	public int itens;
+
+	private ConfigurableApplicationContext contexto;
+	private CarrinhoDeComprasService carrinhoService;
+	private JdbcTemplate jdbc;
+	private Statistics estatisticas;
+	private List<NovoCarrinhoDTO> carrinho;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Comandos {
+		public long comandosSql;
+		public long carrinhos;
+
+		@Setup(Level.Iteration)
+		public void zerar() {
+			comandosSql = 0;
+			carrinhos = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		contexto = new SpringApplicationBuilder(CompraApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties("spring.jpa.properties.hibernate.jdbc.batch_size=" + tamanhoLoteJdbc,
+						"spring.jpa.properties.hibernate.generate_statistics=true",
+						"logging.level.root=WARN")
+				.run();
+		carrinhoService = contexto.getBean(CarrinhoDeComprasService.class);
+		jdbc = contexto.getBean(JdbcTemplate.class);
+		estatisticas = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+		Cliente cliente = contexto.getBean(ClienteRepository.class)
+				.save(new Cliente(null, "Cliente", "Endereço", TipoCliente.PRATA));
+		List<Produto> produtos = new ArrayList<>(itens);
+		for (int i = 0; i < itens; i++) {
+			produtos.add(new Produto(null, "Produto " + i, "Descrição " + i, BigDecimal.valueOf(100 + i, 2), 1 + i % 5,
+					TipoProduto.ELETRONICO));
+		}
+		long[] produtosIds = contexto.getBean(ProdutoRepository.class).saveAll(produtos).stream()
+				.mapToLong(Produto::getId)
+				.toArray();
+		long[] quantidades = new long[itens];
+		Arrays.fill(quantidades, 1L);
+		carrinho = List.of(new NovoCarrinhoDTO(cliente.getId(), produtosIds, quantidades));
+	}
+
+	@TearDown(Level.Iteration)
+	public void apagarCarrinhos() {
+		jdbc.execute("DELETE FROM item_compra");
+		jdbc.execute("DELETE FROM carrinho_de_compras");
+	}
+
+	@TearDown
+	public void tearDown() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public Object criarCarrinho(Comandos comandos) {
+		long antes = estatisticas.getPrepareStatementCount();
+		Object criados = carrinhoService.criarCarrinhos(carrinho);
+		comandos.comandosSql += estatisticas.getPrepareStatementCount() - antes;
+		comandos.carrinhos++;
+		return criados;
+	}
+}
@@ -0,0 +1,80 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Leitura concorrente e atualização incremental do catálogo. O setup imprime a
+ * memória ocupada pelo snapshot para o tamanho de catálogo medido.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CatalogoProdutosBenchmark {
+
+	@Param({ "1000000" })
+	public int tamanhoCatalogo;
+
+	private CatalogoProdutos catalogo;
+	private Produto alterado;
+
+	@Setup
+	public void setup() {
+		TipoProduto[] tipos = TipoProduto.values();
+		List<Produto> produtos = new ArrayList<>(tamanhoCatalogo);
+		for (long id = 1; id <= tamanhoCatalogo; id++) {
+			produtos.add(new Produto(id, null, null, BigDecimal.valueOf(id % 20_000, 2), (int) (id % 50),
+					tipos[(int) (id % tipos.length)]));
+		}
+
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long antes = runtime.totalMemory() - runtime.freeMemory();
+		catalogo = new CatalogoProdutos();
+		catalogo.atualizar(produtos);
+		produtos = null;
+		System.gc();
+		long depois = runtime.totalMemory() - runtime.freeMemory();
+
+		System.out.printf("%nCatálogo com %d produtos: %d bytes estimados, ~%d bytes medidos no heap%n",
+				tamanhoCatalogo, catalogo.snapshot().bytesEstimados(), depois - antes);
+
+		alterado = new Produto(tamanhoCatalogo / 2L, null, null, new BigDecimal("9.99"), 1, TipoProduto.LIVRO);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long lerPrecoEPeso() {
+		long id = ThreadLocalRandom.current().nextLong(1, tamanhoCatalogo + 1L);
+		CatalogoSnapshot snapshot = catalogo.snapshot();
+		return snapshot.precoEmCentavos(id) + snapshot.peso(id);
+	}
+
+	@Benchmark
+	public CatalogoSnapshot atualizarUmProduto() {
+		catalogo.atualizar(alterado);
+		return catalogo.snapshot();
+	}
+}
@@ -0,0 +1,174 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.benchmark.CenarioDeCompra;
+import ecommerce.benchmark.CenarioDeCompra.FaixaPeso;
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+
+/**
+ * Benchmarks do cálculo de preço e da finalização de compra.
+ *
+ * Mode.Throughput informa operações por microssegundo e Mode.SampleTime os
+ * percentis de latência; a taxa de alocação por operação vem do profiler
+ * "gc" configurado no perfil Maven "benchmark".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompraServiceBenchmark {
+
+	private static final Long CARRINHO_ID = 1L;
+	private static final Long CLIENTE_ID = 1L;
+
+	@Param({ "1", "10", "100", "1000", "10000" })
+	public int tamanhoCarrinho;
+
+	@Param
+	public TipoCliente tipoCliente;
+
+	@Param
+	public FaixaPeso faixaPeso;
+
+	@Param
+	public MotorPrecificacao motorPrecificacao;
+
+	private CarrinhoDeCompras carrinho;
+	private CarrinhoDeCompras carrinhoComTotais;
+	private BigDecimal subtotal;
+	private CompraService compraService;
+
+	@Setup
+	public void setup() {
+		Cliente cliente = CenarioDeCompra.novoCliente(CLIENTE_ID, tipoCliente);
+		carrinho = CenarioDeCompra.novoCarrinho(CARRINHO_ID, cliente, tamanhoCarrinho, faixaPeso);
+		subtotal = carrinho.getItens().stream()
+				.map(item -> item.getProduto().getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())))
+				.reduce(BigDecimal.ZERO, BigDecimal::add);
+
+		// Mesmos itens adicionados um a um, com subtotal e peso total mantidos
+		carrinhoComTotais = new CarrinhoDeCompras(CARRINHO_ID, cliente, new ArrayList<>(), null);
+		for (ItemCompra item : carrinho.getItens()) {
+			carrinhoComTotais.adicionarItem(item.getProduto(), item.getQuantidade());
+		}
+
+		CatalogoProdutos catalogo = new CatalogoProdutos();
+		catalogo.atualizar(carrinho.getItens().stream().map(ItemCompra::getProduto).toList());
+
+		compraService = new CompraService(new CarrinhoFixo(carrinho), new ClienteFixo(cliente),
+				new EstoqueSempreDisponivel(), new PagamentoSempreAutorizado(), motorPrecificacao, catalogo,
+				ModoFinalizacao.SEQUENCIAL, null, null, null, null, null);
+	}
+
+	@Benchmark
+	public BigDecimal calcularCustoTotal() {
+		return compraService.calcularCustoTotal(carrinho);
+	}
+
+	// O(1) no tamanho do carrinho: comparar com calcularCustoTotal
+	@Benchmark
+	public BigDecimal calcularCustoTotalPelosTotais() {
+		return compraService.calcularCustoTotal(carrinhoComTotais.getSubtotal(), carrinhoComTotais.getPesoTotal(),
+				tipoCliente);
+	}
+
+	@Benchmark
+	public BigDecimal calcularFrete() {
+		return compraService.calcularFrete(carrinho);
+	}
+
+	@Benchmark
+	public BigDecimal aplicarDescontos() {
+		return compraService.aplicarDescontos(subtotal);
+	}
+
+	@Benchmark
+	public CompraDTO finalizarCompra() {
+		return compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+	}
+
+	// Fakes em processo: isolam o custo do serviço do acesso ao banco e da rede
+
+	static class ClienteFixo extends ClienteService {
+		private final Cliente cliente;
+
+		ClienteFixo(Cliente cliente) {
+			super(null, null);
+			this.cliente = cliente;
+		}
+
+		@Override
+		public Cliente buscarPorId(Long clienteId) {
+			return cliente;
+		}
+	}
+
+	static class CarrinhoFixo extends CarrinhoDeComprasService {
+		private final CarrinhoDeCompras carrinho;
+
+		CarrinhoFixo(CarrinhoDeCompras carrinho) {
+			super(null, null, null);
+			this.carrinho = carrinho;
+		}
+
+		@Override
+		public CarrinhoDeCompras buscarPorCarrinhoIdEClienteId(Long carrinhoId, Cliente cliente) {
+			return carrinho;
+		}
+	}
+
+	static class EstoqueSempreDisponivel implements IEstoqueExternal {
+		private static final DisponibilidadeDTO DISPONIVEL = new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS);
+		private static final EstoqueBaixaDTO SUCESSO = new EstoqueBaixaDTO(true);
+
+		@Override
+		public EstoqueBaixaDTO darBaixa(LoteEstoque lote) {
+			return SUCESSO;
+		}
+
+		@Override
+		public DisponibilidadeDTO verificarDisponibilidade(LoteEstoque lote) {
+			return DISPONIVEL;
+		}
+	}
+
+	static class PagamentoSempreAutorizado implements IPagamentoExternal {
+		private static final PagamentoDTO AUTORIZADO = new PagamentoDTO(true, 1L);
+
+		@Override
+		public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+			return AUTORIZADO;
+		}
+
+		@Override
+		public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+		}
+	}
+}
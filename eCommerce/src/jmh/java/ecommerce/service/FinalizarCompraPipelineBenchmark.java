@@ -0,0 +1,137 @@
+package ecommerce.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.benchmark.CenarioDeCompra;
+import ecommerce.benchmark.CenarioDeCompra.FaixaPeso;
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+
+/**
+ * Compara a latência de finalizarCompra nos modos SEQUENCIAL e PIPELINE com
+ * atraso injetado nas chamadas de estoque e de pagamento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FinalizarCompraPipelineBenchmark {
+
+	private static final Long CARRINHO_ID = 1L;
+	private static final Long CLIENTE_ID = 1L;
+
+	@Param
+	public ModoFinalizacao modo;
+
+	@Param({ "0", "5", "20" })
+	public long latenciaEstoqueMs;
+
+	@Param({ "0", "5", "20" })
+	public long latenciaPagamentoMs;
+
+	@Param({ "true", "false" })
+	public boolean disponivel;
+
+	private ExecutorService executor;
+	private CompraService compraService;
+
+	@Setup
+	public void setup() {
+		Cliente cliente = CenarioDeCompra.novoCliente(CLIENTE_ID, TipoCliente.PRATA);
+		CarrinhoDeCompras carrinho = CenarioDeCompra.novoCarrinho(CARRINHO_ID, cliente, 100, FaixaPeso.PESADO);
+
+		executor = Executors.newFixedThreadPool(4);
+		compraService = new CompraService(new CompraServiceBenchmark.CarrinhoFixo(carrinho),
+				new CompraServiceBenchmark.ClienteFixo(cliente), new EstoqueComLatencia(latenciaEstoqueMs, disponivel),
+				new PagamentoComLatencia(latenciaPagamentoMs), MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), modo, executor,
+				null, null, null, null);
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public CompraDTO finalizarCompra() {
+		return compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+	}
+
+	static void aguardar(long millis) {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static class EstoqueComLatencia implements IEstoqueExternal {
+		private final long latenciaMs;
+		private final DisponibilidadeDTO disponibilidade;
+
+		EstoqueComLatencia(long latenciaMs, boolean disponivel) {
+			this.latenciaMs = latenciaMs;
+			this.disponibilidade = new DisponibilidadeDTO(disponivel,
+					disponivel ? DisponibilidadeDTO.SEM_INDISPONIVEIS : new long[] { 1L });
+		}
+
+		@Override
+		public EstoqueBaixaDTO darBaixa(LoteEstoque lote) {
+			aguardar(latenciaMs);
+			return new EstoqueBaixaDTO(true);
+		}
+
+		@Override
+		public DisponibilidadeDTO verificarDisponibilidade(LoteEstoque lote) {
+			aguardar(latenciaMs);
+			return disponibilidade;
+		}
+	}
+
+	static class PagamentoComLatencia implements IPagamentoExternal {
+		private final long latenciaMs;
+
+		PagamentoComLatencia(long latenciaMs) {
+			this.latenciaMs = latenciaMs;
+		}
+
+		@Override
+		public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+			aguardar(latenciaMs);
+			return new PagamentoDTO(true, 1L);
+		}
+
+		@Override
+		public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+			aguardar(latenciaMs);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package ecommerce.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ecommerce.benchmark.CenarioDeCompra;
+import ecommerce.benchmark.CenarioDeCompra.FaixaPeso;
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.fake.EstoqueSimulado;
+import ecommerce.external.fake.PagamentoSimulado;
+import ecommerce.log.AmostradorDeLog;
+
+/**
+ * Vazão de finalizarCompra com 8 threads usando o estoque e o pagamento
+ * simulados, que logam a cada chamada.
+ *
+ * SINCRONO com logsPorSegundo=0 reproduz o comportamento anterior (toda
+ * chamada escreve, serializada no appender); ASSINCRONO com amostragem é a
+ * configuração da aplicação. O log vai para target/benchmark-log.txt para não
+ * misturar com a saída do JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LogDeCompraBenchmark {
+
+	private static final Long CARRINHO_ID = 1L;
+	private static final Long CLIENTE_ID = 1L;
+
+	public enum Appenders {
+		SINCRONO, ASSINCRONO
+	}
+
+	@Param
+	public Appenders appender;
+
+	@Param({ "0", "10" })
+	public int logsPorSegundo;
+
+	private LoggerContext contexto;
+	private CompraService compraService;
+
+	@Setup
+	public void setup() {
+		configurarLog();
+
+		Cliente cliente = CenarioDeCompra.novoCliente(CLIENTE_ID, TipoCliente.PRATA);
+		CarrinhoDeCompras carrinho = CenarioDeCompra.novoCarrinho(CARRINHO_ID, cliente, 100, FaixaPeso.MEDIO);
+		AmostradorDeLog amostrador = new AmostradorDeLog(logsPorSegundo);
+
+		compraService = new CompraService(new CompraServiceBenchmark.CarrinhoFixo(carrinho),
+				new CompraServiceBenchmark.ClienteFixo(cliente), new EstoqueSimuladoDisponivel(amostrador),
+				new PagamentoSimulado(amostrador, Duration.ZERO), MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(),
+				ModoFinalizacao.SEQUENCIAL, null, null, null, null, null);
+	}
+
+	@TearDown
+	public void tearDown() {
+		// Esvazia a fila do AsyncAppender e fecha o arquivo
+		contexto.stop();
+	}
+
+	@Benchmark
+	public CompraDTO finalizarCompra() {
+		return compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+	}
+
+	private void configurarLog() {
+		contexto = (LoggerContext) LoggerFactory.getILoggerFactory();
+		contexto.reset();
+
+		PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+		encoder.setContext(contexto);
+		encoder.setPattern("%d %5level [%thread] %logger{36} : %msg%n");
+		encoder.start();
+
+		FileAppender<ILoggingEvent> arquivo = new FileAppender<>();
+		arquivo.setContext(contexto);
+		arquivo.setFile("target/benchmark-log.txt");
+		arquivo.setAppend(false);
+		arquivo.setEncoder(encoder);
+		arquivo.start();
+
+		Appender<ILoggingEvent> destino = arquivo;
+		if (appender == Appenders.ASSINCRONO) {
+			// Mesma configuração do logback-spring.xml
+			AsyncAppender assincrono = new AsyncAppender();
+			assincrono.setContext(contexto);
+			assincrono.setQueueSize(8192);
+			assincrono.setNeverBlock(true);
+			assincrono.setIncludeCallerData(false);
+			assincrono.addAppender(arquivo);
+			assincrono.start();
+			destino = assincrono;
+		}
+
+		Logger raiz = contexto.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+		raiz.setLevel(Level.INFO);
+		raiz.addAppender(destino);
+	}
+
+	// Estoque simulado que sempre tem os itens, para a compra chegar à baixa e ao pagamento
+	static class EstoqueSimuladoDisponivel extends EstoqueSimulado {
+		private static final DisponibilidadeDTO DISPONIVEL = new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS);
+
+		EstoqueSimuladoDisponivel(AmostradorDeLog amostrador) {
+			super(amostrador, Duration.ZERO);
+		}
+
+		@Override
+		public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades) {
+			return DISPONIVEL;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.benchmark.CenarioDeCompra;
+import ecommerce.benchmark.CenarioDeCompra.FaixaPeso;
+import ecommerce.dto.CompraDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.TipoCliente;
+
+/**
+ * Tempo para atender {@code concorrencia} finalizações simultâneas, cada uma
+ * com três chamadas bloqueantes de {@code latenciaMs} a estoque e pagamento.
+ *
+ * PLATAFORMA reproduz o Tomcat padrão: um pool fixo de 200 threads, em que as
+ * compras além disso esperam na fila. VIRTUAL reproduz
+ * spring.threads.virtual.enabled=true: uma thread virtual por compra. O
+ * contador compras dá as finalizações por segundo; a concorrência em que
+ * PLATAFORMA deixa de acompanhar VIRTUAL é o limite do pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThreadsVirtuaisBenchmark {
+
+	private static final Long CARRINHO_ID = 1L;
+	private static final Long CLIENTE_ID = 1L;
+	private static final int THREADS_TOMCAT = 200;
+
+	public enum ModoDeThreads {
+		PLATAFORMA, VIRTUAL
+	}
+
+	@Param
+	public ModoDeThreads modo;
+
+	@Param({ "200", "1000", "5000" })
+	public int concorrencia;
+
+	@Param({ "20" })
+	public long latenciaMs;
+
+	private ExecutorService requisicoes;
+	private CompraService compraService;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Compras {
+		public long compras;
+
+		@Setup(Level.Iteration)
+		public void zerar() {
+			compras = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		Cliente cliente = CenarioDeCompra.novoCliente(CLIENTE_ID, TipoCliente.PRATA);
+		CarrinhoDeCompras carrinho = CenarioDeCompra.novoCarrinho(CARRINHO_ID, cliente, 10, FaixaPeso.LEVE);
+
+		requisicoes = modo == ModoDeThreads.VIRTUAL ? Executors.newVirtualThreadPerTaskExecutor()
+				: Executors.newFixedThreadPool(THREADS_TOMCAT);
+		compraService = new CompraService(new CompraServiceBenchmark.CarrinhoFixo(carrinho),
+				new CompraServiceBenchmark.ClienteFixo(cliente),
+				new FinalizarCompraPipelineBenchmark.EstoqueComLatencia(latenciaMs, true),
+				new FinalizarCompraPipelineBenchmark.PagamentoComLatencia(latenciaMs), MotorPrecificacao.BIGDECIMAL,
+				new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, Runnable::run, null, null, null, null);
+	}
+
+	@TearDown
+	public void tearDown() {
+		requisicoes.shutdownNow();
+	}
+
+	@Benchmark
+	public int finalizarSimultaneas(Compras contador) throws InterruptedException, ExecutionException {
+		List<Future<CompraDTO>> compras = new ArrayList<>(concorrencia);
+		for (int i = 0; i < concorrencia; i++) {
+			compras.add(requisicoes.submit(() -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID)));
+		}
+		int sucessos = 0;
+		for (Future<CompraDTO> compra : compras) {
+			if (compra.get().sucesso()) {
+				sucessos++;
+			}
+		}
+		contador.compras += sucessos;
+		return sucessos;
+	}
+}
@@ -0,0 +1,205 @@
+package ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.benchmark.CenarioDeCompra;
+import ecommerce.benchmark.CenarioDeCompra.FaixaPeso;
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.memoria.EstoqueEmMemoria;
+import ecommerce.external.promocao.VendaRelampago;
+
+/**
+ * {@code compradores} compras simultâneas (uma thread virtual cada) do mesmo
+ * produto, com {@code unidades} unidades em estoque.
+ *
+ * O estoque segura uma trava única do produto por {@code travaMicros} em cada
+ * consulta e baixa, como a linha do produto travada num banco. DIRETO é a
+ * finalização normal: toda compra consulta, paga e baixa na mesma trava.
+ * PROMOCAO liga {@link VendaRelampago} com um ingresso por unidade: as
+ * compras além do saldo são recusadas antes do pagamento e as baixas saem em
+ * lotes pela fila do produto. Os contadores dão compras vendidas, recusadas
+ * e as que chegaram ao pagamento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VendaRelampagoBenchmark {
+
+	private static final Long CARRINHO_ID = 1L;
+	private static final Long CLIENTE_ID = 1L;
+	private static final long PRODUTO_ID = 1L;
+
+	public enum Modo {
+		DIRETO, PROMOCAO
+	}
+
+	@Param
+	public Modo modo;
+
+	@Param({ "10000" })
+	public int compradores;
+
+	@Param({ "1000", "10000" })
+	public long unidades;
+
+	@Param({ "50" })
+	public long travaMicros;
+
+	private ExecutorService requisicoes;
+	private CarrinhoDeCompras carrinho;
+	private Cliente cliente;
+
+	private VendaRelampago vendaRelampago;
+	private PagamentoContado pagamento;
+	private CompraService compraService;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Resultados {
+		public long vendidas;
+		public long recusadas;
+		public long pagamentos;
+
+		@Setup(Level.Iteration)
+		public void zerar() {
+			vendidas = 0;
+			recusadas = 0;
+			pagamentos = 0;
+		}
+	}
+
+	// Estoque em memória atrás de uma trava única, segurada por travaMicros
+	static class EstoqueComLinhaTravada implements IEstoqueExternal {
+		private final EstoqueEmMemoria memoria;
+		private final ReentrantLock linha = new ReentrantLock();
+		private final long travaNanos;
+
+		EstoqueComLinhaTravada(long unidades, long travaMicros) {
+			this.memoria = new EstoqueEmMemoria(16, 4, unidades);
+			this.travaNanos = TimeUnit.MICROSECONDS.toNanos(travaMicros);
+		}
+
+		@Override
+		public EstoqueBaixaDTO darBaixa(LoteEstoque lote) {
+			linha.lock();
+			try {
+				LockSupport.parkNanos(travaNanos);
+				return memoria.darBaixa(lote);
+			} finally {
+				linha.unlock();
+			}
+		}
+
+		@Override
+		public DisponibilidadeDTO verificarDisponibilidade(LoteEstoque lote) {
+			linha.lock();
+			try {
+				LockSupport.parkNanos(travaNanos);
+				return memoria.verificarDisponibilidade(lote);
+			} finally {
+				linha.unlock();
+			}
+		}
+	}
+
+	static class PagamentoContado implements IPagamentoExternal {
+		final AtomicLong autorizacoes = new AtomicLong();
+
+		@Override
+		public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+			return new PagamentoDTO(true, autorizacoes.incrementAndGet());
+		}
+
+		@Override
+		public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+		}
+	}
+
+	@Setup
+	public void setup() {
+		cliente = CenarioDeCompra.novoCliente(CLIENTE_ID, TipoCliente.PRATA);
+		carrinho = CenarioDeCompra.novoCarrinho(CARRINHO_ID, cliente, 1, FaixaPeso.LEVE);
+		requisicoes = Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	// Estoque e ingressos novos a cada rodada de compradores
+	@Setup(Level.Invocation)
+	public void abrirVenda() {
+		EstoqueComLinhaTravada estoque = new EstoqueComLinhaTravada(unidades, travaMicros);
+		vendaRelampago = modo == Modo.PROMOCAO
+				? new VendaRelampago(estoque, Map.of(PRODUTO_ID, unidades), 256)
+				: null;
+		pagamento = new PagamentoContado();
+		compraService = new CompraService(new CompraServiceBenchmark.CarrinhoFixo(carrinho),
+				new CompraServiceBenchmark.ClienteFixo(cliente), estoque, pagamento, MotorPrecificacao.BIGDECIMAL,
+				new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, Runnable::run, null, null, null,
+				vendaRelampago);
+	}
+
+	@TearDown(Level.Invocation)
+	public void encerrarVenda() {
+		if (vendaRelampago != null) {
+			vendaRelampago.close();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		requisicoes.shutdownNow();
+	}
+
+	@Benchmark
+	public long comprarMesmoProduto(Resultados resultados) throws InterruptedException, ExecutionException {
+		List<Future<CompraDTO>> compras = new ArrayList<>(compradores);
+		for (int i = 0; i < compradores; i++) {
+			compras.add(requisicoes.submit(() -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID)));
+		}
+		long vendidas = 0;
+		for (Future<CompraDTO> compra : compras) {
+			if (compra.get().sucesso()) {
+				vendidas++;
+			}
+		}
+		resultados.vendidas += vendidas;
+		resultados.recusadas += compradores - vendidas;
+		resultados.pagamentos += pagamento.autorizacoes.get();
+		return vendidas;
+	}
+}
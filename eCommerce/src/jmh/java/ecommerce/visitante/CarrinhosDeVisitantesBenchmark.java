@@ -0,0 +1,172 @@
+package ecommerce.visitante;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Rotatividade de carrinhos de visitantes com {@code carrinhos} carrinhos
+ * vivos: cada operação descarta o carrinho mais antigo e cria um novo com
+ * {@code itens} itens.
+ *
+ * FORA_DO_HEAP usa {@link CarrinhosDeVisitantes}; HEAP guarda entidades
+ * {@link CarrinhoDeCompras} num mapa, como uma sessão em memória guardaria. O
+ * setup imprime a memória por milhão de carrinhos (heap medido mais os slabs);
+ * o teardown imprime o número e o tempo total das coletas durante as medições.
+ * gc.time e gc.count do profiler gc dão o mesmo por iteração.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx3g", "-XX:MaxDirectMemorySize=1g" })
+public class CarrinhosDeVisitantesBenchmark {
+
+	private static final int PRODUTOS = 10_000;
+
+	public enum Armazenamento {
+		FORA_DO_HEAP, HEAP
+	}
+
+	@Param
+	public Armazenamento armazenamento;
+
+	@Param({ "1000000" })
+	public int carrinhos;
+
+	@Param({ "4" })
+	public int itens;
+
+	private CarrinhosDeVisitantes foraDoHeap;
+	private Map<Long, CarrinhoDeCompras> heap;
+	private Produto[] produtos;
+	private long[] vivos;
+	private int maisAntigo;
+	private long proximoId;
+	private long proximoProduto;
+
+	private long coletasAntes;
+	private long tempoColetasAntes;
+
+	@Setup
+	public void setup() {
+		produtos = new Produto[PRODUTOS];
+		for (int i = 0; i < PRODUTOS; i++) {
+			produtos[i] = new Produto((long) i, null, null, BigDecimal.valueOf(100 + i, 2), 1 + i % 20,
+					TipoProduto.LIVRO);
+		}
+
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long antes = runtime.totalMemory() - runtime.freeMemory();
+		if (armazenamento == Armazenamento.FORA_DO_HEAP) {
+			foraDoHeap = new CarrinhosDeVisitantes(DataSize.ofMegabytes(1), DataSize.ofGigabytes(1),
+					Duration.ofDays(1), Clock.systemUTC());
+		} else {
+			heap = new HashMap<>();
+		}
+		vivos = new long[carrinhos];
+		for (int i = 0; i < carrinhos; i++) {
+			vivos[i] = criar();
+		}
+		System.gc();
+		long noHeap = runtime.totalMemory() - runtime.freeMemory() - antes;
+		long foraHeap = foraDoHeap == null ? 0 : foraDoHeap.bytesAlocados();
+
+		System.out.printf("%n%s com %d carrinhos de %d itens: ~%d bytes no heap + %d fora do heap"
+				+ " (~%d MB por milhão de carrinhos)%n", armazenamento, carrinhos, itens, noHeap, foraHeap,
+				(noHeap + foraHeap) * 1_000_000 / carrinhos / (1024 * 1024));
+	}
+
+	@Setup(Level.Iteration)
+	public void marcarColetas() {
+		coletasAntes = coletas(false);
+		tempoColetasAntes = coletas(true);
+	}
+
+	@TearDown(Level.Iteration)
+	public void imprimirColetas() {
+		System.out.printf("%n%s: %d coletas, %d ms em coletas%n", armazenamento, coletas(false) - coletasAntes,
+				coletas(true) - tempoColetasAntes);
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (foraDoHeap != null) {
+			foraDoHeap.close();
+		}
+	}
+
+	@Benchmark
+	public long trocarCarrinho() {
+		long antigo = vivos[maisAntigo];
+		if (foraDoHeap != null) {
+			foraDoHeap.remover(antigo);
+		} else {
+			heap.remove(antigo);
+		}
+		long novo = criar();
+		vivos[maisAntigo] = novo;
+		maisAntigo = (maisAntigo + 1) % carrinhos;
+		return novo;
+	}
+
+	private long criar() {
+		if (foraDoHeap != null) {
+			long id = foraDoHeap.criar();
+			for (int i = 0; i < itens; i++) {
+				Produto produto = proximoProduto();
+				foraDoHeap.adicionarItem(id, produto.getId(), 1 + i, produto.getPrecoEmCentavos(),
+						produto.getPeso());
+			}
+			return id;
+		}
+		CarrinhoDeCompras carrinho = new CarrinhoDeCompras(proximoId++, null, new ArrayList<>(itens), null);
+		for (int i = 0; i < itens; i++) {
+			carrinho.adicionarItem(proximoProduto(), 1 + i);
+		}
+		heap.put(carrinho.getId(), carrinho);
+		return carrinho.getId();
+	}
+
+	private Produto proximoProduto() {
+		return produtos[(int) (proximoProduto++ % PRODUTOS)];
+	}
+
+	private static long coletas(boolean tempo) {
+		List<GarbageCollectorMXBean> coletores = ManagementFactory.getGarbageCollectorMXBeans();
+		long total = 0;
+		for (GarbageCollectorMXBean coletor : coletores) {
+			total += Math.max(0, tempo ? coletor.getCollectionTime() : coletor.getCollectionCount());
+		}
+		return total;
+	}
+}
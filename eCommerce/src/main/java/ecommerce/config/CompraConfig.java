@@ -0,0 +1,35 @@
+package ecommerce.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class CompraConfig {
+
+	// Threads das etapas executadas em paralelo no modo PIPELINE; com threads
+	// virtuais, uma por etapa, sem limite de pool
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService compraExecutor(@Value("${ecommerce.compra.pipeline.threads:16}") int threads,
+			@Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais) {
+		if (threadsVirtuais) {
+			return Executors.newVirtualThreadPerTaskExecutor();
+		}
+		return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("compra-pipeline-"));
+	}
+
+	// Threads que carregam cliente e carrinho via JPA na finalização reativa. O
+	// limite acompanha o pool de conexões; acima da fila, a compra é recusada.
+	@Bean(destroyMethod = "dispose")
+	public Scheduler compraJpaScheduler(@Value("${ecommerce.compra.reativa.threads-jpa:10}") int threads,
+			@Value("${ecommerce.compra.reativa.fila-jpa:1000}") int fila) {
+		return Schedulers.newBoundedElastic(threads, fila, "compra-jpa");
+	}
+}
@@ -0,0 +1,44 @@
+package ecommerce.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Entrega conexões da réplica dentro de transações readOnly e da primária no
+ * resto (transações de escrita e acesso sem transação, como a criação do
+ * esquema). Precisa estar atrás de um LazyConnectionDataSourceProxy: o
+ * gerenciador de transações pede a conexão antes de marcar a transação como
+ * readOnly, e o proxy só a obtém no primeiro comando.
+ */
+class DataSourceRoteado extends AbstractRoutingDataSource {
+
+	enum Destino {
+		PRIMARIA, REPLICA
+	}
+
+	private final Map<Destino, Counter> conexoes = new EnumMap<>(Destino.class);
+
+	DataSourceRoteado(MeterRegistry registry) {
+		for (Destino destino : Destino.values()) {
+			conexoes.put(destino, Counter.builder("datasource.roteamento.conexoes")
+					.description("Conexões entregues por destino do roteamento")
+					.tag("destino", destino.name().toLowerCase())
+					.register(registry));
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		Destino destino = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				? Destino.REPLICA
+				: Destino.PRIMARIA;
+		conexoes.get(destino).increment();
+		return destino;
+	}
+}
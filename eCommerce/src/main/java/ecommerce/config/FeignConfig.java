@@ -0,0 +1,12 @@
+package ecommerce.config;
+
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Configuration;
+
+import ecommerce.external.remoto.EstoqueClient;
+
+// Clientes Feign dos serviços remotos; pool, keep-alive e prazos em application-remoto.properties
+@Configuration
+@EnableFeignClients(basePackageClasses = EstoqueClient.class)
+public class FeignConfig {
+}
@@ -0,0 +1,68 @@
+package ecommerce.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import ecommerce.config.DataSourceRoteado.Destino;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Dois pools Hikari, primária (spring.datasource.*) e réplica
+ * (ecommerce.datasource.replica.*), atrás de um {@link DataSourceRoteado}.
+ * Os serviços marcam as consultas com @Transactional(readOnly = true); nessas
+ * transações o Hibernate também carrega as entidades sem cópia para dirty
+ * checking e não faz flush.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.datasource.replica.habilitada", havingValue = "true")
+public class ReplicaConfig {
+
+	@Bean
+	public HikariDataSource primariaDataSource(DataSourceProperties properties, Environment environment) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primaria");
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+		return dataSource;
+	}
+
+	@Bean
+	public HikariDataSource replicaDataSource(Environment environment) {
+		Binder binder = Binder.get(environment);
+		DataSourceProperties properties = binder.bind("ecommerce.datasource.replica", DataSourceProperties.class)
+				.orElseGet(DataSourceProperties::new);
+		if (properties.getUrl() == null) {
+			throw new IllegalStateException("ecommerce.datasource.replica.url não configurada");
+		}
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("replica");
+		// A réplica só recebe transações readOnly
+		dataSource.setReadOnly(true);
+		binder.bind("ecommerce.datasource.replica.hikari", Bindable.ofInstance(dataSource));
+		return dataSource;
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primariaDataSource") HikariDataSource primaria,
+			@Qualifier("replicaDataSource") HikariDataSource replica, MeterRegistry registry) {
+		DataSourceRoteado roteado = new DataSourceRoteado(registry);
+		roteado.setTargetDataSources(Map.of(Destino.PRIMARIA, primaria, Destino.REPLICA, replica));
+		roteado.setDefaultTargetDataSource(primaria);
+		roteado.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(roteado);
+	}
+}
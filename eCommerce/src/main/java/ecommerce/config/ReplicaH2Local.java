@@ -0,0 +1,63 @@
+package ecommerce.config;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Réplica para desenvolvimento local (perfil "replica"): uma segunda instância
+ * H2 em memória em que cada tabela da primária aparece como LINKED TABLE
+ * READONLY. A réplica enxerga os dados da primária sem atraso e recusa
+ * qualquer escrita, então um comando de escrita roteado para ela falha.
+ *
+ * Recebe o EntityManagerFactory só para rodar depois que o Hibernate criou as
+ * tabelas na primária.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.datasource.replica.h2-local", havingValue = "true")
+public class ReplicaH2Local {
+
+	@Autowired
+	public ReplicaH2Local(EntityManagerFactory entityManagerFactory,
+			@Qualifier("primariaDataSource") HikariDataSource primaria,
+			@Qualifier("replicaDataSource") HikariDataSource replica) throws SQLException {
+		List<String> tabelas = new ArrayList<>();
+		try (Connection conexao = primaria.getConnection();
+				Statement comando = conexao.createStatement();
+				ResultSet resultado = comando.executeQuery("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES"
+						+ " WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'")) {
+			while (resultado.next()) {
+				tabelas.add(resultado.getString(1));
+			}
+		}
+
+		// Conexão direta: o pool da réplica é somente leitura
+		try (Connection conexao = DriverManager.getConnection(replica.getJdbcUrl(), replica.getUsername(),
+				replica.getPassword());
+				Statement comando = conexao.createStatement()) {
+			for (String tabela : tabelas) {
+				comando.execute(String.format(
+						"CREATE LINKED TABLE IF NOT EXISTS \"%s\"('org.h2.Driver', '%s', '%s', '%s', 'PUBLIC', '%s')"
+								+ " READONLY",
+						tabela, primaria.getJdbcUrl(), primaria.getUsername(), senha(primaria), tabela));
+			}
+		}
+	}
+
+	private static String senha(HikariDataSource dataSource) {
+		return dataSource.getPassword() == null ? "" : dataSource.getPassword().replace("'", "''");
+	}
+}
@@ -0,0 +1,124 @@
+package ecommerce.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IEstoqueExternalReativo;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.IPagamentoExternalReativo;
+import ecommerce.external.resiliencia.ChamadaProtegida;
+import ecommerce.external.resiliencia.EstoqueReativoResiliente;
+import ecommerce.external.resiliencia.EstoqueResiliente;
+import ecommerce.external.resiliencia.PagamentoReativoResiliente;
+import ecommerce.external.resiliencia.PagamentoResiliente;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Envolve o estoque e o pagamento configurados em {@link ChamadaProtegida}.
+ * Os beans envolventes são @Primary, então o CompraService recebe as versões
+ * protegidas; cada método recebe a implementação concreta, porque o Spring
+ * não injeta um bean em si mesmo. Circuit breaker, bulkhead e prazo de cada
+ * dependência vêm das propriedades resilience4j.* com as instâncias
+ * "estoque" e "pagamento". Com spring.threads.virtual.enabled=true, as
+ * chamadas rodam em threads virtuais, limitadas pelo bulkhead de semáforo
+ * (resilience4j.bulkhead.*) em vez do pool de threads
+ * (resilience4j.thread-pool-bulkhead.*).
+ */
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.resiliencia.habilitada", havingValue = "true", matchIfMissing = true)
+public class ResilienciaConfig {
+
+	private final boolean threadsVirtuais;
+	private final BulkheadRegistry semaforos;
+
+	@Autowired
+	public ResilienciaConfig(@Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais,
+			BulkheadRegistry semaforos) {
+		this.threadsVirtuais = threadsVirtuais;
+		this.semaforos = semaforos;
+	}
+
+	// Dispara os prazos do TimeLimiter
+	@Bean(destroyMethod = "shutdown")
+	public ScheduledExecutorService resilienciaAgendador() {
+		return Executors.newScheduledThreadPool(2, new CustomizableThreadFactory("resiliencia-prazo-"));
+	}
+
+	// Threads das chamadas, só no modo de threads virtuais
+	@Bean(destroyMethod = "shutdown")
+	@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+	public ExecutorService resilienciaThreadsVirtuais() {
+		return Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	@Bean
+	@Primary
+	public IEstoqueExternal estoqueResiliente(IEstoqueExternal estoque, CircuitBreakerRegistry circuitBreakers,
+			ThreadPoolBulkheadRegistry bulkheads, TimeLimiterRegistry timeLimiters,
+			@Qualifier("resilienciaAgendador") ScheduledExecutorService agendador,
+			@Qualifier("resilienciaThreadsVirtuais") ObjectProvider<ExecutorService> virtuais, MeterRegistry registry) {
+		return new EstoqueResiliente(estoque,
+				chamada("estoque", circuitBreakers, bulkheads, timeLimiters, agendador, virtuais, registry));
+	}
+
+	@Bean
+	@Primary
+	public IPagamentoExternal pagamentoResiliente(IPagamentoExternal pagamento, CircuitBreakerRegistry circuitBreakers,
+			ThreadPoolBulkheadRegistry bulkheads, TimeLimiterRegistry timeLimiters,
+			@Qualifier("resilienciaAgendador") ScheduledExecutorService agendador,
+			@Qualifier("resilienciaThreadsVirtuais") ObjectProvider<ExecutorService> virtuais, MeterRegistry registry) {
+		return new PagamentoResiliente(pagamento,
+				chamada("pagamento", circuitBreakers, bulkheads, timeLimiters, agendador, virtuais, registry));
+	}
+
+	// Versões reativas (POST /v2/finalizar), com os mesmos circuit breakers e prazos
+	@Bean
+	@Primary
+	public IEstoqueExternalReativo estoqueReativoResiliente(IEstoqueExternalReativo estoque,
+			CircuitBreakerRegistry circuitBreakers, ThreadPoolBulkheadRegistry bulkheads,
+			TimeLimiterRegistry timeLimiters, @Qualifier("resilienciaAgendador") ScheduledExecutorService agendador,
+			@Qualifier("resilienciaThreadsVirtuais") ObjectProvider<ExecutorService> virtuais,
+			MeterRegistry registry) {
+		return new EstoqueReativoResiliente(estoque,
+				chamada("estoque", circuitBreakers, bulkheads, timeLimiters, agendador, virtuais, registry));
+	}
+
+	@Bean
+	@Primary
+	public IPagamentoExternalReativo pagamentoReativoResiliente(IPagamentoExternalReativo pagamento,
+			CircuitBreakerRegistry circuitBreakers, ThreadPoolBulkheadRegistry bulkheads,
+			TimeLimiterRegistry timeLimiters, @Qualifier("resilienciaAgendador") ScheduledExecutorService agendador,
+			@Qualifier("resilienciaThreadsVirtuais") ObjectProvider<ExecutorService> virtuais,
+			MeterRegistry registry) {
+		return new PagamentoReativoResiliente(pagamento,
+				chamada("pagamento", circuitBreakers, bulkheads, timeLimiters, agendador, virtuais, registry));
+	}
+
+	private ChamadaProtegida chamada(String dependencia, CircuitBreakerRegistry circuitBreakers,
+			ThreadPoolBulkheadRegistry bulkheads, TimeLimiterRegistry timeLimiters, ScheduledExecutorService agendador,
+			ObjectProvider<ExecutorService> virtuais, MeterRegistry registry) {
+		if (threadsVirtuais) {
+			return new ChamadaProtegida(dependencia, circuitBreakers.circuitBreaker(dependencia),
+					semaforos.bulkhead(dependencia), virtuais.getObject(), timeLimiters.timeLimiter(dependencia), agendador,
+					registry);
+		}
+		return new ChamadaProtegida(dependencia, circuitBreakers.circuitBreaker(dependencia),
+				bulkheads.bulkhead(dependencia), timeLimiters.timeLimiter(dependencia), agendador, registry);
+	}
+}
@@ -0,0 +1,77 @@
+package ecommerce.controller;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.*;
+
+import ecommerce.dto.CarrinhoResumoDTO;
+import ecommerce.service.CarrinhoDeComprasService;
+import ecommerce.service.CompraService;
+
+// Itens do carrinho. Toda alteração devolve o resumo com os totais já atualizados.
+@RestController
+@RequestMapping("/carrinhos")
+public class CarrinhoController {
+
+	private final CarrinhoDeComprasService carrinhoService;
+	private final CompraService compraService;
+
+	@Autowired
+	public CarrinhoController(CarrinhoDeComprasService carrinhoService, CompraService compraService) {
+		this.carrinhoService = carrinhoService;
+		this.compraService = compraService;
+	}
+
+	@PostMapping("/{carrinhoId}/itens")
+	public ResponseEntity<CarrinhoResumoDTO> adicionarItem(@PathVariable Long carrinhoId, @RequestParam Long clienteId,
+			@RequestParam Long produtoId, @RequestParam Long quantidade) {
+		return responder(() -> compraService.resumir(
+				carrinhoService.adicionarItem(carrinhoId, clienteId, produtoId, quantidade), false));
+	}
+
+	@PutMapping("/{carrinhoId}/itens/{itemId}")
+	public ResponseEntity<CarrinhoResumoDTO> alterarQuantidade(@PathVariable Long carrinhoId,
+			@PathVariable Long itemId, @RequestParam Long clienteId, @RequestParam Long quantidade) {
+		return responder(() -> compraService.resumir(
+				carrinhoService.alterarQuantidade(carrinhoId, clienteId, itemId, quantidade), false));
+	}
+
+	@DeleteMapping("/{carrinhoId}/itens/{itemId}")
+	public ResponseEntity<CarrinhoResumoDTO> removerItem(@PathVariable Long carrinhoId, @PathVariable Long itemId,
+			@RequestParam Long clienteId) {
+		return responder(() -> compraService.resumir(carrinhoService.removerItem(carrinhoId, clienteId, itemId),
+				false));
+	}
+
+	// Com conferir=true, os totais mantidos são comparados com a soma completa dos itens
+	@GetMapping("/{carrinhoId}/resumo")
+	public ResponseEntity<CarrinhoResumoDTO> resumir(@PathVariable Long carrinhoId, @RequestParam Long clienteId,
+			@RequestParam(defaultValue = "false") boolean conferir) {
+		return responder(() -> compraService.resumirCarrinho(carrinhoId, clienteId, conferir));
+	}
+
+	@PostMapping("/{carrinhoId}/totais/recalcular")
+	public ResponseEntity<CarrinhoResumoDTO> recalcularTotais(@PathVariable Long carrinhoId,
+			@RequestParam Long clienteId) {
+		return responder(() -> compraService.resumir(carrinhoService.recalcularTotais(carrinhoId, clienteId), true));
+	}
+
+	private static ResponseEntity<CarrinhoResumoDTO> responder(Supplier<CarrinhoResumoDTO> acao) {
+		try {
+			return ResponseEntity.ok(acao.get());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(CarrinhoResumoDTO.erro(e.getMessage()));
+		} catch (ObjectOptimisticLockingFailureException e) {
+			// Outra alteração do mesmo carrinho foi gravada antes: o cliente deve tentar de novo
+			return ResponseEntity.status(HttpStatus.CONFLICT)
+					.body(CarrinhoResumoDTO.erro("Carrinho alterado por outra requisição."));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(CarrinhoResumoDTO.erro("Erro ao processar carrinho."));
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package ecommerce.controller;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import ecommerce.dto.CarrinhoDeVisitanteDTO;
+import ecommerce.dto.CarrinhoResumoDTO;
+import ecommerce.service.CarrinhoDeVisitanteService;
+import ecommerce.service.CompraService;
+
+// Carrinhos de visitantes, fora do banco. Itens são identificados pelo produto.
+@RestController
+@RequestMapping("/visitantes/carrinhos")
+@ConditionalOnProperty(name = "ecommerce.visitantes.carrinhos.habilitado", havingValue = "true")
+public class CarrinhoDeVisitanteController {
+
+	private final CarrinhoDeVisitanteService visitanteService;
+	private final CompraService compraService;
+
+	@Autowired
+	public CarrinhoDeVisitanteController(CarrinhoDeVisitanteService visitanteService, CompraService compraService) {
+		this.visitanteService = visitanteService;
+		this.compraService = compraService;
+	}
+
+	@PostMapping
+	public ResponseEntity<CarrinhoDeVisitanteDTO> criar() {
+		return responder(visitanteService::criar);
+	}
+
+	@GetMapping("/{carrinhoId}")
+	public ResponseEntity<CarrinhoDeVisitanteDTO> buscar(@PathVariable long carrinhoId) {
+		return responder(() -> visitanteService.buscar(carrinhoId));
+	}
+
+	@PostMapping("/{carrinhoId}/itens")
+	public ResponseEntity<CarrinhoDeVisitanteDTO> adicionarItem(@PathVariable long carrinhoId,
+			@RequestParam long produtoId, @RequestParam long quantidade) {
+		return responder(() -> visitanteService.adicionarItem(carrinhoId, produtoId, quantidade));
+	}
+
+	@PutMapping("/{carrinhoId}/itens/{produtoId}")
+	public ResponseEntity<CarrinhoDeVisitanteDTO> alterarQuantidade(@PathVariable long carrinhoId,
+			@PathVariable long produtoId, @RequestParam long quantidade) {
+		return responder(() -> visitanteService.alterarQuantidade(carrinhoId, produtoId, quantidade));
+	}
+
+	@DeleteMapping("/{carrinhoId}/itens/{produtoId}")
+	public ResponseEntity<CarrinhoDeVisitanteDTO> removerItem(@PathVariable long carrinhoId,
+			@PathVariable long produtoId) {
+		return responder(() -> visitanteService.removerItem(carrinhoId, produtoId));
+	}
+
+	// No login: o carrinho passa a ser do cliente, com o resumo do carrinho criado
+	@PostMapping("/{carrinhoId}/materializar")
+	public ResponseEntity<CarrinhoResumoDTO> materializar(@PathVariable long carrinhoId,
+			@RequestParam Long clienteId) {
+		try {
+			return ResponseEntity.ok(compraService.resumir(visitanteService.materializar(carrinhoId, clienteId),
+					false));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(CarrinhoResumoDTO.erro(e.getMessage()));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(CarrinhoResumoDTO.erro("Erro ao processar carrinho."));
+		}
+	}
+
+	private static ResponseEntity<CarrinhoDeVisitanteDTO> responder(Supplier<CarrinhoDeVisitanteDTO> acao) {
+		try {
+			return ResponseEntity.ok(acao.get());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(CarrinhoDeVisitanteDTO.erro(e.getMessage()));
+		} catch (IllegalStateException e) {
+			// Memória dos carrinhos de visitantes esgotada
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.body(CarrinhoDeVisitanteDTO.erro(e.getMessage()));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(CarrinhoDeVisitanteDTO.erro("Erro ao processar carrinho."));
+		}
+	}
+}
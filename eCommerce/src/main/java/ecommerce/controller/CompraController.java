@@ -3,34 +3,122 @@ package ecommerce.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
 
 import ecommerce.dto.CompraDTO;
+import ecommerce.limite.ControleDeAdmissao;
+import ecommerce.limite.ControleDeAdmissao.Decisao;
+import ecommerce.service.CompraReativaService;
 import ecommerce.service.CompraService;
+import ecommerce.service.IdempotenciaDeCompras;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/")
 public class CompraController {
 
 	private final CompraService compraService;
+	private final IdempotenciaDeCompras idempotencia;
+	private final CompraReativaService compraReativaService;
+	private final ControleDeAdmissao controleDeAdmissao;
 
 	@Autowired
-	public CompraController(CompraService compraService) {
+	public CompraController(CompraService compraService, IdempotenciaDeCompras idempotencia,
+			CompraReativaService compraReativaService, @Nullable ControleDeAdmissao controleDeAdmissao) {
 		this.compraService = compraService;
+		this.idempotencia = idempotencia;
+		this.compraReativaService = compraReativaService;
+		this.controleDeAdmissao = controleDeAdmissao;
 	}
 
+	// Com o header Idempotency-Key, repetições da mesma requisição devolvem o
+	// resultado da primeira execução em vez de finalizar a compra de novo.
 	@PostMapping("/finalizar")
-	public ResponseEntity<CompraDTO> finalizarCompra(@RequestParam Long carrinhoId, @RequestParam Long clienteId) {
+	public ResponseEntity<CompraDTO> finalizarCompra(@RequestParam Long carrinhoId, @RequestParam Long clienteId,
+			@RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
+		// Repetição de uma compra já concluída devolve o resultado guardado sem
+		// passar pelo controle de admissão nem gastar a cota do cliente
+		if (chaveIdempotencia != null) {
+			try {
+				CompraDTO guardado = idempotencia.buscar(chaveIdempotencia, carrinhoId, clienteId);
+				if (guardado != null) {
+					return ResponseEntity.ok(guardado);
+				}
+			} catch (Exception e) {
+				return responderErro(e);
+			}
+		}
+		// Com o controle de admissão habilitado, o excesso é recusado antes de tocar no carrinho
+		Decisao decisao = controleDeAdmissao == null ? Decisao.ADMITIDA : controleDeAdmissao.admitir(clienteId);
+		if (decisao != Decisao.ADMITIDA) {
+			return recusar(decisao);
+		}
+		long inicio = System.nanoTime();
 		try {
-			CompraDTO compraDTO = compraService.finalizarCompra(carrinhoId, clienteId);
+			CompraDTO compraDTO = chaveIdempotencia == null
+					? compraService.finalizarCompra(carrinhoId, clienteId)
+					: idempotencia.executar(chaveIdempotencia, carrinhoId, clienteId,
+							() -> compraService.finalizarCompra(carrinhoId, clienteId));
 			return ResponseEntity.ok(compraDTO);
-		} catch (IllegalArgumentException e) {
+		} catch (Exception e) {
+			return responderErro(e);
+		} finally {
+			if (controleDeAdmissao != null) {
+				controleDeAdmissao.liberar(System.nanoTime() - inicio);
+			}
+		}
+	}
+
+	// Mesma finalização sem bloquear a thread do servlet enquanto estoque e
+	// pagamento respondem; a resposta é escrita quando o Mono termina. Idempotency-Key,
+	// controle de admissão e respostas de erro como em /finalizar.
+	@PostMapping("/v2/finalizar")
+	public Mono<ResponseEntity<CompraDTO>> finalizarCompraReativa(@RequestParam Long carrinhoId,
+			@RequestParam Long clienteId,
+			@RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
+		return Mono.defer(() -> {
+			// Repetição de uma compra já concluída não passa pelo controle de admissão
+			if (chaveIdempotencia != null) {
+				CompraDTO guardado = idempotencia.buscar(chaveIdempotencia, carrinhoId, clienteId);
+				if (guardado != null) {
+					return Mono.just(ResponseEntity.ok(guardado));
+				}
+			}
+			Decisao decisao = controleDeAdmissao == null ? Decisao.ADMITIDA : controleDeAdmissao.admitir(clienteId);
+			if (decisao != Decisao.ADMITIDA) {
+				return Mono.just(recusar(decisao));
+			}
+			long inicio = System.nanoTime();
+			Mono<CompraDTO> compra = chaveIdempotencia == null
+					? compraReativaService.finalizarCompra(carrinhoId, clienteId)
+					: idempotencia.executar(chaveIdempotencia, carrinhoId, clienteId,
+							compraReativaService.finalizarCompra(carrinhoId, clienteId));
+			// A vaga é liberada quando o Mono termina, com erro ou cancelado
+			return compra.map(ResponseEntity::ok)
+					.doFinally(sinal -> {
+						if (controleDeAdmissao != null) {
+							controleDeAdmissao.liberar(System.nanoTime() - inicio);
+						}
+					});
+		}).onErrorResume(e -> Mono.just(responderErro(e)));
+	}
+
+	private static ResponseEntity<CompraDTO> recusar(Decisao decisao) {
+		String mensagem = decisao == Decisao.LIMITE_DO_CLIENTE
+				? "Limite de compras do cliente excedido. Tente novamente em instantes."
+				: "Sistema sobrecarregado. Tente novamente em instantes.";
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(new CompraDTO(false, null, mensagem));
+	}
+
+	private static ResponseEntity<CompraDTO> responderErro(Throwable e) {
+		if (e instanceof IllegalArgumentException) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new CompraDTO(false, null, e.getMessage()));
-		} catch (IllegalStateException e) {
+		}
+		if (e instanceof IllegalStateException) {
 			return ResponseEntity.status(HttpStatus.CONFLICT).body(new CompraDTO(false, null, e.getMessage()));
-		} catch (Exception e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-					.body(new CompraDTO(false, null, "Erro ao processar compra."));
 		}
+		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+				.body(new CompraDTO(false, null, "Erro ao processar compra."));
 	}
 }
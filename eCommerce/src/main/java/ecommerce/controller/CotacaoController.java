@@ -0,0 +1,34 @@
+package ecommerce.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.service.CotacaoService;
+
+// Preço do carrinho sem finalizar a compra, para o front-end atualizar o total
+@RestController
+@RequestMapping("/cotacao")
+public class CotacaoController {
+
+	private final CotacaoService cotacaoService;
+
+	@Autowired
+	public CotacaoController(CotacaoService cotacaoService) {
+		this.cotacaoService = cotacaoService;
+	}
+
+	@GetMapping
+	public ResponseEntity<CotacaoDTO> cotar(@RequestParam Long carrinhoId, @RequestParam Long clienteId) {
+		try {
+			return ResponseEntity.ok(cotacaoService.cotar(carrinhoId, clienteId));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(CotacaoDTO.erro(e.getMessage()));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(CotacaoDTO.erro("Erro ao cotar carrinho."));
+		}
+	}
+}
@@ -0,0 +1,4 @@
+package ecommerce.dto;
+
+public record AutorizacaoPagamentoDTO(Long clienteId, Double custoTotal) {
+}
@@ -0,0 +1,4 @@
+package ecommerce.dto;
+
+public record CancelamentoPagamentoDTO(Long clienteId, Long transacaoId) {
+}
@@ -0,0 +1,12 @@
+package ecommerce.dto;
+
+import java.math.BigDecimal;
+
+// Itens em arrays paralelos, com o subtotal pelos preços guardados; mensagem, em caso de erro
+public record CarrinhoDeVisitanteDTO(Long carrinhoId, long[] produtosIds, long[] quantidades, BigDecimal subtotal,
+		Long pesoTotal, String mensagem) {
+
+	public static CarrinhoDeVisitanteDTO erro(String mensagem) {
+		return new CarrinhoDeVisitanteDTO(null, null, null, null, null, mensagem);
+	}
+}
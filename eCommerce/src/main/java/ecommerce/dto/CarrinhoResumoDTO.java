@@ -0,0 +1,12 @@
+package ecommerce.dto;
+
+import java.math.BigDecimal;
+
+// totaisConferem só é preenchido quando a conferência é pedida; mensagem, em caso de erro
+public record CarrinhoResumoDTO(Long carrinhoId, BigDecimal subtotal, Long pesoTotal, BigDecimal total,
+		Boolean totaisConferem, String mensagem) {
+
+	public static CarrinhoResumoDTO erro(String mensagem) {
+		return new CarrinhoResumoDTO(null, null, null, null, null, mensagem);
+	}
+}
@@ -1,4 +1,16 @@
 package ecommerce.dto;
 
-public record CompraDTO(Boolean sucesso, Long transacaoPagamentoId, String mensagem) {
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// transitoria marca a recusa por dependência indisponível, sem decisão sobre a
+// compra: repetir pode dar outro resultado. Não sai na resposta.
+public record CompraDTO(Boolean sucesso, Long transacaoPagamentoId, String mensagem, @JsonIgnore boolean transitoria) {
+
+	public CompraDTO(Boolean sucesso, Long transacaoPagamentoId, String mensagem) {
+		this(sucesso, transacaoPagamentoId, mensagem, false);
+	}
+
+	public static CompraDTO indisponivel(String mensagem) {
+		return new CompraDTO(false, null, mensagem, true);
+	}
 }
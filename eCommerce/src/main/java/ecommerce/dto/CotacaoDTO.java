@@ -0,0 +1,12 @@
+package ecommerce.dto;
+
+import java.math.BigDecimal;
+
+// Valores que a finalização cobraria agora; mensagem, em caso de erro
+public record CotacaoDTO(Long carrinhoId, BigDecimal subtotal, BigDecimal frete, BigDecimal desconto,
+		BigDecimal total, String mensagem) {
+
+	public static CotacaoDTO erro(String mensagem) {
+		return new CotacaoDTO(null, null, null, null, null, mensagem);
+	}
+}
@@ -1,6 +1,14 @@
 package ecommerce.dto;
 
-import java.util.List;
+// Ids em long[], sem boxing; sem indisponíveis (o caso comum), o array vazio
+// compartilhado, também quando a resposta vem sem a lista
+public record DisponibilidadeDTO(boolean disponivel, long[] idsProdutosIndisponiveis) {
 
-public record DisponibilidadeDTO(Boolean disponivel, List<Long> idsProdutosIndisponiveis) {
+	public static final long[] SEM_INDISPONIVEIS = new long[0];
+
+	public DisponibilidadeDTO {
+		if (idsProdutosIndisponiveis == null || idsProdutosIndisponiveis.length == 0) {
+			idsProdutosIndisponiveis = SEM_INDISPONIVEIS;
+		}
+	}
 }
@@ -0,0 +1,13 @@
+package ecommerce.dto;
+
+/**
+ * Corpo das chamadas ao serviço de estoque remoto. Dois arrays paralelos
+ * ({"produtosIds":[1,2],"quantidades":[3,1]}) em vez de uma lista de objetos:
+ * o JSON fica menor e é montado sem boxing a partir de um {@link LoteEstoque}.
+ */
+public record ItensEstoqueDTO(long[] produtosIds, long[] quantidades) {
+
+	public static ItensEstoqueDTO de(LoteEstoque lote) {
+		return new ItensEstoqueDTO(lote.copiaDosProdutosIds(), lote.copiaDasQuantidades());
+	}
+}
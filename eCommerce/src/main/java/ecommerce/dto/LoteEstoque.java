@@ -0,0 +1,165 @@
+package ecommerce.dto;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Ids e quantidades de produtos em dois arrays de long paralelos, sem boxing.
+ *
+ * É o contrato de {@link ecommerce.external.IEstoqueExternal}: as assinaturas
+ * com listas convertem para um lote com {@link #de}, que desembrulha sem cópia
+ * as visões List&lt;Long&gt; de {@link #produtosIds()} e {@link #quantidades()}.
+ * Dois lotes são iguais se tiverem os mesmos itens na mesma ordem. O lote pode
+ * ser reaproveitado com {@link #limpar()}.
+ */
+public final class LoteEstoque {
+
+	private long[] produtosIds;
+	private long[] quantidades;
+	private int tamanho;
+
+	public LoteEstoque(int capacidade) {
+		this.produtosIds = new long[Math.max(capacidade, 1)];
+		this.quantidades = new long[Math.max(capacidade, 1)];
+	}
+
+	/**
+	 * Devolve o lote por trás das duas listas quando elas são visões do mesmo
+	 * lote; caso contrário copia as listas para um lote novo.
+	 */
+	public static LoteEstoque de(List<Long> produtosIds, List<Long> produtosQuantidades) {
+		if (produtosIds instanceof Visao ids && produtosQuantidades instanceof Visao qtds && ids.lote() == qtds.lote()
+				&& ids.ehIds() && !qtds.ehIds()) {
+			return ids.lote();
+		}
+		if (produtosIds.size() != produtosQuantidades.size()) {
+			throw new IllegalArgumentException("Listas de produtos e quantidades com tamanhos diferentes.");
+		}
+		LoteEstoque lote = new LoteEstoque(produtosIds.size());
+		for (int i = 0; i < produtosIds.size(); i++) {
+			lote.adicionar(produtosIds.get(i), produtosQuantidades.get(i));
+		}
+		return lote;
+	}
+
+	// Lote sobre os dois arrays, sem copiá-los; quem chama não deve mais alterá-los
+	public static LoteEstoque de(long[] produtosIds, long[] quantidades) {
+		if (produtosIds.length != quantidades.length) {
+			throw new IllegalArgumentException("Arrays de produtos e quantidades com tamanhos diferentes.");
+		}
+		LoteEstoque lote = new LoteEstoque(0);
+		lote.produtosIds = produtosIds;
+		lote.quantidades = quantidades;
+		lote.tamanho = produtosIds.length;
+		return lote;
+	}
+
+	public void adicionar(long produtoId, long quantidade) {
+		if (tamanho == produtosIds.length) {
+			produtosIds = Arrays.copyOf(produtosIds, Math.max(tamanho * 2, 1));
+			quantidades = Arrays.copyOf(quantidades, Math.max(tamanho * 2, 1));
+		}
+		produtosIds[tamanho] = produtoId;
+		quantidades[tamanho] = quantidade;
+		tamanho++;
+	}
+
+	public void limpar() {
+		tamanho = 0;
+	}
+
+	public int tamanho() {
+		return tamanho;
+	}
+
+	public long produtoId(int indice) {
+		verificarIndice(indice);
+		return produtosIds[indice];
+	}
+
+	public long quantidade(int indice) {
+		verificarIndice(indice);
+		return quantidades[indice];
+	}
+
+	// Cópias dos arrays no tamanho do lote, para serializar sem boxing
+	public long[] copiaDosProdutosIds() {
+		return Arrays.copyOf(produtosIds, tamanho);
+	}
+
+	public long[] copiaDasQuantidades() {
+		return Arrays.copyOf(quantidades, tamanho);
+	}
+
+	public List<Long> produtosIds() {
+		return new Visao(this, true);
+	}
+
+	public List<Long> quantidades() {
+		return new Visao(this, false);
+	}
+
+	@Override
+	public boolean equals(Object outro) {
+		if (this == outro) {
+			return true;
+		}
+		if (!(outro instanceof LoteEstoque lote) || lote.tamanho != tamanho) {
+			return false;
+		}
+		return Arrays.equals(produtosIds, 0, tamanho, lote.produtosIds, 0, tamanho)
+				&& Arrays.equals(quantidades, 0, tamanho, lote.quantidades, 0, tamanho);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < tamanho; i++) {
+			hash = 31 * (31 * hash + Long.hashCode(produtosIds[i])) + Long.hashCode(quantidades[i]);
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return "LoteEstoque" + produtosIds() + quantidades();
+	}
+
+	private void verificarIndice(int indice) {
+		if (indice < 0 || indice >= tamanho) {
+			throw new IndexOutOfBoundsException(indice);
+		}
+	}
+
+	// Lista somente leitura sobre um dos arrays do lote
+	private static final class Visao extends AbstractList<Long> implements RandomAccess {
+
+		private final LoteEstoque lote;
+		private final boolean ids;
+
+		Visao(LoteEstoque lote, boolean ids) {
+			this.lote = lote;
+			this.ids = ids;
+		}
+
+		LoteEstoque lote() {
+			return lote;
+		}
+
+		boolean ehIds() {
+			return ids;
+		}
+
+		@Override
+		public Long get(int indice) {
+			return ids ? lote.produtoId(indice) : lote.quantidade(indice);
+		}
+
+		@Override
+		public int size() {
+			return lote.tamanho;
+		}
+	}
+}
@@ -0,0 +1,5 @@
+package ecommerce.dto;
+
+// Itens em dois arrays paralelos, como em ItensEstoqueDTO
+public record NovoCarrinhoDTO(Long clienteId, long[] produtosIds, long[] quantidades) {
+}
@@ -1,5 +1,6 @@
 package ecommerce.entity;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,12 +13,17 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 
 @Entity
 public class CarrinhoDeCompras {
 
+    // Ids de uma sequência em blocos de 50 (allocationSize): com IDENTITY o Hibernate
+    // precisa executar cada insert na hora para saber o id, e não agrupa em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carrinho_de_compras")
+    @SequenceGenerator(name = "carrinho_de_compras", sequenceName = "carrinho_de_compras_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne // Um cliente pode ter vários carrinhos
@@ -25,11 +31,23 @@ public class CarrinhoDeCompras {
     private Cliente cliente;
 
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true) // Um carrinho tem vários itens
-    @JoinColumn(name = "carrinho_id") // Mapeamento de chave estrangeira na tabela ItemCompra
+    // nullable = false: a chave entra no insert do item, sem um update por item depois
+    @JoinColumn(name = "carrinho_id", nullable = false) // Mapeamento de chave estrangeira na tabela ItemCompra
     private List<ItemCompra> itens = new ArrayList<>();
 
     private LocalDate data;
 
+    // Totais mantidos a cada alteração feita por adicionarItem, alterarQuantidade e
+    // removerItem, com o preço e o peso guardados em cada item. Nulos enquanto o
+    // carrinho só foi montado com a lista de itens (construtor ou setItens).
+    private BigDecimal subtotal;
+
+    private Long pesoTotal;
+
+    // Alterações concorrentes do mesmo carrinho não podem perder uma à outra nos totais
+    @Version
+    private Long versao;
+
     public CarrinhoDeCompras() {}
 
     public CarrinhoDeCompras(Long id, Cliente cliente, List<ItemCompra> itens, LocalDate data) {
@@ -60,8 +78,11 @@ public class CarrinhoDeCompras {
         return itens;
     }
 
+    // Substitui os itens sem mantê-los nos totais, que passam a ser recalculados
     public void setItens(List<ItemCompra> itens) {
         this.itens = itens;
+        this.subtotal = null;
+        this.pesoTotal = null;
     }
 
     public LocalDate getData() {
@@ -71,4 +92,101 @@ public class CarrinhoDeCompras {
     public void setData(LocalDate data) {
         this.data = data;
     }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public Long getPesoTotal() {
+        return pesoTotal;
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public boolean temTotais() {
+        return subtotal != null && pesoTotal != null;
+    }
+
+    // Soma a quantidade ao item do mesmo produto, se houver, ou cria um item novo
+    public ItemCompra adicionarItem(Produto produto, long quantidade) {
+        garantirTotais();
+        for (ItemCompra item : itens) {
+            if (item.getProduto().getId() != null && item.getProduto().getId().equals(produto.getId())) {
+                alterarQuantidade(item, item.getQuantidade() + quantidade);
+                return item;
+            }
+        }
+        ItemCompra item = new ItemCompra(null, produto, quantidade);
+        guardarPrecoEPeso(item);
+        itens.add(item);
+        somar(item, 1);
+        return item;
+    }
+
+    // O item passa a usar o preço e o peso atuais do produto
+    public void alterarQuantidade(ItemCompra item, long quantidade) {
+        garantirTotais();
+        somar(item, -1);
+        item.setQuantidade(quantidade);
+        guardarPrecoEPeso(item);
+        somar(item, 1);
+    }
+
+    public void removerItem(ItemCompra item) {
+        garantirTotais();
+        if (itens.remove(item)) {
+            somar(item, -1);
+        }
+    }
+
+    // Refaz os totais a partir do preço e do peso atuais dos produtos
+    public void recalcularTotais() {
+        BigDecimal novoSubtotal = BigDecimal.ZERO;
+        long novoPeso = 0;
+        for (ItemCompra item : itens) {
+            guardarPrecoEPeso(item);
+            novoSubtotal = novoSubtotal.add(item.getPrecoUnitario().multiply(BigDecimal.valueOf(item.getQuantidade())));
+            novoPeso += (long) item.getPesoUnitario() * item.getQuantidade();
+        }
+        subtotal = novoSubtotal;
+        pesoTotal = novoPeso;
+    }
+
+    /**
+     * Compara os totais mantidos com a soma completa dos itens, usando o preço e o
+     * peso atuais dos produtos. Diverge quando um produto mudou depois de entrar no
+     * carrinho ou quando os itens foram alterados por fora dos métodos acima.
+     */
+    public boolean totaisConferem() {
+        if (!temTotais()) {
+            return true;
+        }
+        BigDecimal somaPrecos = BigDecimal.ZERO;
+        long somaPesos = 0;
+        for (ItemCompra item : itens) {
+            BigDecimal quantidade = BigDecimal.valueOf(item.getQuantidade());
+            somaPrecos = somaPrecos.add(item.getProduto().getPreco().multiply(quantidade));
+            somaPesos += (long) item.getProduto().getPeso() * item.getQuantidade();
+        }
+        return somaPrecos.compareTo(subtotal) == 0 && somaPesos == pesoTotal;
+    }
+
+    private void garantirTotais() {
+        if (!temTotais()) {
+            recalcularTotais();
+        }
+    }
+
+    private static void guardarPrecoEPeso(ItemCompra item) {
+        item.setPrecoUnitario(item.getProduto().getPreco());
+        item.setPesoUnitario(item.getProduto().getPeso());
+    }
+
+    private void somar(ItemCompra item, int sinal) {
+        BigDecimal valor = item.getPrecoUnitario().multiply(BigDecimal.valueOf(item.getQuantidade()));
+        subtotal = sinal > 0 ? subtotal.add(valor) : subtotal.subtract(valor);
+        pesoTotal += sinal * (long) item.getPesoUnitario() * item.getQuantidade();
+    }
 }
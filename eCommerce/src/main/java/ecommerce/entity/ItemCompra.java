@@ -1,17 +1,21 @@
 package ecommerce.entity;
 
+import java.math.BigDecimal;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 
 @Entity
 public class ItemCompra {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_compra")
+    @SequenceGenerator(name = "item_compra", sequenceName = "item_compra_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne // Vários itens podem se referir ao mesmo produto
@@ -20,6 +24,12 @@ public class ItemCompra {
 
     private Long quantidade;
 
+    // Preço e peso do produto quando o item entrou no carrinho ou teve a quantidade
+    // alterada pela API de itens; base dos totais mantidos em CarrinhoDeCompras
+    private BigDecimal precoUnitario;
+
+    private Integer pesoUnitario;
+
     public ItemCompra() {}
 
     public ItemCompra(Long id, Produto produto, Long quantidade) {
@@ -52,4 +62,20 @@ public class ItemCompra {
     public void setQuantidade(Long quantidade) {
         this.quantidade = quantidade;
     }
+
+    public BigDecimal getPrecoUnitario() {
+        return precoUnitario;
+    }
+
+    public void setPrecoUnitario(BigDecimal precoUnitario) {
+        this.precoUnitario = precoUnitario;
+    }
+
+    public Integer getPesoUnitario() {
+        return pesoUnitario;
+    }
+
+    public void setPesoUnitario(Integer pesoUnitario) {
+        this.pesoUnitario = pesoUnitario;
+    }
 }
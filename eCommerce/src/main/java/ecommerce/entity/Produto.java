@@ -1,19 +1,29 @@
 package ecommerce.entity;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
+import ecommerce.service.ProdutoCatalogoListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Transient;
 
 @Entity
+@EntityListeners(ProdutoCatalogoListener.class) // Mantém o catálogo em memória atualizado
 public class Produto {
 
+    // Valor de getPrecoEmCentavos() quando o preço tem frações de centavo
+    public static final long PRECO_SEM_CENTAVOS_EXATOS = Long.MIN_VALUE;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "produto")
+    @SequenceGenerator(name = "produto", sequenceName = "produto_seq", allocationSize = 50)
     private Long id;
 
     private String nome;
@@ -27,6 +37,15 @@ public class Produto {
     @Enumerated(EnumType.STRING)
     private TipoProduto tipo;
 
+    // Preço e centavos juntos num objeto imutável: lido por várias threads,
+    // o cache nunca mistura o preço de uma conversão com os centavos de outra
+    private record PrecoConvertido(BigDecimal preco, long centavos) {
+    }
+
+    // Cache do preço em centavos, recalculado quando o preço muda
+    @Transient
+    private PrecoConvertido precoConvertido;
+
     public Produto() {}
 
     public Produto(Long id, String nome, String descricao, BigDecimal preco, Integer peso, TipoProduto tipo) {
@@ -71,6 +90,24 @@ public class Produto {
         this.preco = preco;
     }
 
+    public long getPrecoEmCentavos() {
+        BigDecimal atual = preco;
+        PrecoConvertido convertido = precoConvertido;
+        if (convertido == null || convertido.preco() != atual) {
+            convertido = new PrecoConvertido(atual, converterParaCentavos(atual));
+            precoConvertido = convertido;
+        }
+        return convertido.centavos();
+    }
+
+    private static long converterParaCentavos(BigDecimal valor) {
+        try {
+            return valor.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return PRECO_SEM_CENTAVOS_EXATOS;
+        }
+    }
+
     public Integer getPeso() {
         return peso;
     }
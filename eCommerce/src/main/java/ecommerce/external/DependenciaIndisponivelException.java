@@ -0,0 +1,15 @@
+package ecommerce.external;
+
+/**
+ * Chamada a um serviço externo recusada sem resposta: circuito aberto, limite
+ * de chamadas simultâneas atingido ou tempo esgotado. A mensagem vai para o
+ * {@link ecommerce.dto.CompraDTO} devolvido ao cliente.
+ */
+public class DependenciaIndisponivelException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public DependenciaIndisponivelException(String mensagem, Throwable causa) {
+		super(mensagem, causa);
+	}
+}
@@ -4,11 +4,48 @@ import java.util.List;
 
 import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
 
 public interface IEstoqueExternal {
 
-	public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades);
+	// O contrato é o lote, ids e quantidades em arrays de long, sem boxing
 
-	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades);
+	public EstoqueBaixaDTO darBaixa(LoteEstoque lote);
+
+	public DisponibilidadeDTO verificarDisponibilidade(LoteEstoque lote);
+
+	// Assinaturas com listas, para quem ainda não monta um lote: as listas são
+	// copiadas para um lote (ou desembrulhadas, se forem visões de um)
+
+	public default EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades) {
+		return darBaixa(LoteEstoque.de(produtosIds, produtosQuantidades));
+	}
+
+	public default DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades) {
+		return verificarDisponibilidade(LoteEstoque.de(produtosIds, produtosQuantidades));
+	}
+
+	// Reserva antes do pagamento: confirmar é a baixa e liberar devolve o saldo.
+	// Por padrão o estoque não segura nada: reservar só verifica a
+	// disponibilidade e confirmar dá a baixa.
+
+	public default Reserva reservar(LoteEstoque lote) {
+		DisponibilidadeDTO disponibilidade = verificarDisponibilidade(lote);
+		if (disponibilidade.disponivel()) {
+			return Reserva.efetuada(lote);
+		}
+		return Reserva.recusada(disponibilidade.idsProdutosIndisponiveis());
+	}
+
+	public default EstoqueBaixaDTO confirmar(Reserva reserva) {
+		if (!reserva.encerrar()) {
+			return new EstoqueBaixaDTO(false); // já liberada
+		}
+		return darBaixa(reserva.itens());
+	}
+
+	public default void liberar(Reserva reserva) {
+		reserva.encerrar();
+	}
 
 }
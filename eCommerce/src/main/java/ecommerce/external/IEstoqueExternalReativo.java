@@ -0,0 +1,34 @@
+package ecommerce.external;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import reactor.core.publisher.Mono;
+
+// Estoque sem bloqueio, para POST /v2/finalizar: a resposta chega pelo Mono,
+// sem uma thread parada esperando a chamada
+public interface IEstoqueExternalReativo {
+
+	Mono<DisponibilidadeDTO> verificarDisponibilidade(LoteEstoque lote);
+
+	Mono<EstoqueBaixaDTO> darBaixa(LoteEstoque lote);
+
+	// Mesmo protocolo de reserva de IEstoqueExternal: por padrão reservar só
+	// verifica a disponibilidade e confirmar dá a baixa
+
+	default Mono<Reserva> reservar(LoteEstoque lote) {
+		return verificarDisponibilidade(lote).map(disponibilidade -> disponibilidade.disponivel()
+				? Reserva.efetuada(lote)
+				: Reserva.recusada(disponibilidade.idsProdutosIndisponiveis()));
+	}
+
+	default Mono<EstoqueBaixaDTO> confirmar(Reserva reserva) {
+		return Mono.defer(() -> reserva.encerrar()
+				? darBaixa(reserva.itens())
+				: Mono.just(new EstoqueBaixaDTO(false))); // já liberada
+	}
+
+	default Mono<Void> liberar(Reserva reserva) {
+		return Mono.fromRunnable(reserva::encerrar);
+	}
+}
@@ -1,5 +1,9 @@
 package ecommerce.external;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import ecommerce.dto.AutorizacaoPagamentoDTO;
 import ecommerce.dto.PagamentoDTO;
 
 public interface IPagamentoExternal {
@@ -7,4 +11,14 @@ public interface IPagamentoExternal {
 	PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal);
 
 	void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId);
+
+	// Autoriza vários pagamentos numa só chamada; o resultado i corresponde à
+	// autorização i. Por padrão autoriza um a um.
+	default List<PagamentoDTO> autorizarPagamentos(List<AutorizacaoPagamentoDTO> autorizacoes) {
+		List<PagamentoDTO> pagamentos = new ArrayList<>(autorizacoes.size());
+		for (AutorizacaoPagamentoDTO autorizacao : autorizacoes) {
+			pagamentos.add(autorizarPagamento(autorizacao.clienteId(), autorizacao.custoTotal()));
+		}
+		return pagamentos;
+	}
 }
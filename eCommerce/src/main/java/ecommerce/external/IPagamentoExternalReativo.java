@@ -0,0 +1,12 @@
+package ecommerce.external;
+
+import ecommerce.dto.PagamentoDTO;
+import reactor.core.publisher.Mono;
+
+// Pagamento sem bloqueio, para POST /v2/finalizar
+public interface IPagamentoExternalReativo {
+
+	Mono<PagamentoDTO> autorizarPagamento(Long clienteId, Double custoTotal);
+
+	Mono<Void> cancelarPagamento(Long clienteId, Long pagamentoTransacaoId);
+}
@@ -0,0 +1,58 @@
+package ecommerce.external;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.LoteEstoque;
+
+/**
+ * Resultado de {@link IEstoqueExternal#reservar}. Uma reserva efetuada segura
+ * as quantidades até ser confirmada (a baixa) ou liberada, o que só acontece
+ * uma vez.
+ */
+public final class Reserva {
+
+	// Carrinho cuja baixa sai por outro caminho (a fila da venda relâmpago):
+	// não há o que confirmar ou liberar
+	public static final Reserva DISPENSADA = new Reserva(new LoteEstoque(0), true,
+			DisponibilidadeDTO.SEM_INDISPONIVEIS, true);
+
+	private final LoteEstoque itens;
+	private final boolean efetuada;
+	private final long[] idsIndisponiveis;
+	private final AtomicBoolean encerrada;
+
+	private Reserva(LoteEstoque itens, boolean efetuada, long[] idsIndisponiveis, boolean encerrada) {
+		this.itens = itens;
+		this.efetuada = efetuada;
+		this.idsIndisponiveis = idsIndisponiveis;
+		this.encerrada = new AtomicBoolean(encerrada);
+	}
+
+	public static Reserva efetuada(LoteEstoque itens) {
+		return new Reserva(itens, true, DisponibilidadeDTO.SEM_INDISPONIVEIS, false);
+	}
+
+	// Reserva recusada nasce encerrada: não há o que confirmar ou liberar
+	public static Reserva recusada(long[] idsIndisponiveis) {
+		return new Reserva(new LoteEstoque(0), false, idsIndisponiveis, true);
+	}
+
+	public boolean efetuada() {
+		return efetuada;
+	}
+
+	public long[] idsIndisponiveis() {
+		return idsIndisponiveis;
+	}
+
+	// Produtos e quantidades reservados, como o estoque os guardou
+	public LoteEstoque itens() {
+		return itens;
+	}
+
+	// Para as implementações do estoque: true só na primeira confirmação ou liberação
+	public boolean encerrar() {
+		return encerrada.compareAndSet(false, true);
+	}
+}
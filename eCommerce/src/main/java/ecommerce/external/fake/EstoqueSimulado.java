@@ -1,39 +1,84 @@
 package ecommerce.external.fake;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
 import ecommerce.external.IEstoqueExternal;
+import ecommerce.log.AmostradorDeLog;
 
 @Service
+@ConditionalOnProperty(name = "ecommerce.estoque.implementacao", havingValue = "simulado", matchIfMissing = true)
 public class EstoqueSimulado implements IEstoqueExternal {
 
+    private static final Logger log = LoggerFactory.getLogger(EstoqueSimulado.class);
+
+    private final AmostradorDeLog amostrador;
+    private final Duration latencia;
+
+    public EstoqueSimulado() {
+        this(new AmostradorDeLog(AmostradorDeLog.POR_SEGUNDO_PADRAO), Duration.ZERO);
+    }
+
+    // A latência é somada a cada chamada, para testar prazos e circuit breakers localmente
+    @Autowired
+    public EstoqueSimulado(AmostradorDeLog amostrador,
+            @Value("${ecommerce.estoque.simulado.latencia:0ms}") Duration latencia) {
+        this.amostrador = amostrador;
+        this.latencia = latencia;
+    }
+
     @Override
-    public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades) {
+    public EstoqueBaixaDTO darBaixa(LoteEstoque lote) {
         // Simulação da baixa no estoque
+        simularLatencia();
         // Aqui você pode adicionar a lógica para simular a baixa
-        System.out.println("Baixa no estoque para os produtos: " + produtosIds + " com quantidades: " + produtosQuantidades);
+        // As listas completas só vão para o log em DEBUG, e ambas as mensagens são amostradas
+        if (amostrador.permitir()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Baixa no estoque para os produtos: {} com quantidades: {}", lote.produtosIds(),
+                        lote.quantidades());
+            } else {
+                log.info("Baixa no estoque para {} produtos", lote.tamanho());
+            }
+        }
         
         // Retornando um EstoqueBaixaDTO simulado
         return new EstoqueBaixaDTO(true); // Supondo que a baixa foi bem-sucedida
     }
 
     @Override
-    public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades) {
+    public DisponibilidadeDTO verificarDisponibilidade(LoteEstoque lote) {
         // Simulação da verificação de disponibilidade
-        List<Long> produtosIndisponiveis = new ArrayList<>(); // Lista simulada de produtos indisponíveis
+        simularLatencia();
+        long[] produtosIndisponiveis = DisponibilidadeDTO.SEM_INDISPONIVEIS; // Ids simulados de produtos indisponíveis
 
         // Aqui você pode adicionar a lógica para verificar a disponibilidade
-        // Adicionando algum produto à lista de indisponíveis para simulação
-        if (!produtosIds.isEmpty()) {
-            produtosIndisponiveis.add(produtosIds.get(0)); // Simulando que o primeiro produto está indisponível
+        // Adicionando algum produto aos indisponíveis para simulação
+        if (lote.tamanho() > 0) {
+            produtosIndisponiveis = new long[] { lote.produtoId(0) }; // Simulando que o primeiro produto está indisponível
         }
         
         // Retornando um DisponibilidadeDTO simulado
-        return new DisponibilidadeDTO(produtosIndisponiveis.isEmpty(), produtosIndisponiveis);
-    }    
+        return new DisponibilidadeDTO(produtosIndisponiveis.length == 0, produtosIndisponiveis);
+    }
+
+    private void simularLatencia() {
+        if (latencia.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(latencia.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package ecommerce.external.fake;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.IEstoqueExternalReativo;
+import ecommerce.log.AmostradorDeLog;
+import reactor.core.publisher.Mono;
+
+// Mesmas respostas do EstoqueSimulado; a latência é um Mono.delay, que não ocupa thread
+@Service
+@ConditionalOnProperty(name = "ecommerce.estoque.implementacao", havingValue = "simulado", matchIfMissing = true)
+public class EstoqueSimuladoReativo implements IEstoqueExternalReativo {
+
+    private final EstoqueSimulado estoque;
+    private final Duration latencia;
+
+    @Autowired
+    public EstoqueSimuladoReativo(AmostradorDeLog amostrador,
+            @Value("${ecommerce.estoque.simulado.latencia:0ms}") Duration latencia) {
+        this.estoque = new EstoqueSimulado(amostrador, Duration.ZERO);
+        this.latencia = latencia;
+    }
+
+    @Override
+    public Mono<DisponibilidadeDTO> verificarDisponibilidade(LoteEstoque lote) {
+        return atrasar().then(Mono.fromSupplier(() -> estoque.verificarDisponibilidade(lote)));
+    }
+
+    @Override
+    public Mono<EstoqueBaixaDTO> darBaixa(LoteEstoque lote) {
+        return atrasar().then(Mono.fromSupplier(() -> estoque.darBaixa(lote)));
+    }
+
+    private Mono<Long> atrasar() {
+        return latencia.isZero() ? Mono.empty() : Mono.delay(latencia);
+    }
+}
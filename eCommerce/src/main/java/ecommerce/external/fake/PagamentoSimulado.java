@@ -1,18 +1,46 @@
 package ecommerce.external.fake;
 
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import ecommerce.dto.PagamentoDTO;
 import ecommerce.external.IPagamentoExternal;
+import ecommerce.log.AmostradorDeLog;
 
 @Service
+@ConditionalOnProperty(name = "ecommerce.pagamento.implementacao", havingValue = "simulado", matchIfMissing = true)
 public class PagamentoSimulado implements IPagamentoExternal{
 
+    private static final Logger log = LoggerFactory.getLogger(PagamentoSimulado.class);
+
+    private final AmostradorDeLog amostrador;
+    private final Duration latencia;
+
+    public PagamentoSimulado() {
+        this(new AmostradorDeLog(AmostradorDeLog.POR_SEGUNDO_PADRAO), Duration.ZERO);
+    }
+
+    // A latência é somada a cada chamada, para testar prazos e circuit breakers localmente
+    @Autowired
+    public PagamentoSimulado(AmostradorDeLog amostrador,
+            @Value("${ecommerce.pagamento.simulado.latencia:0ms}") Duration latencia) {
+        this.amostrador = amostrador;
+        this.latencia = latencia;
+    }
 
     @Override
     public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
         // Simulação da autorização do pagamento
-        System.out.println("Pagamento autorizado para o cliente " + clienteId + " no valor de " + custoTotal);
+        simularLatencia();
+        if (amostrador.permitir()) {
+            log.info("Pagamento autorizado para o cliente {} no valor de {}", clienteId, custoTotal);
+        }
         
         // Retornando um PagamentoDTO simulado
         Long transacaoIdSimulada = 123456789L; // Você pode gerar um ID de transação simulado
@@ -22,6 +50,19 @@ public class PagamentoSimulado implements IPagamentoExternal{
     @Override
     public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
         // Simulação do cancelamento do pagamento
-        System.out.println("Pagamento cancelado para o cliente " + clienteId + " e transação " + pagamentoTransacaoId);
+        simularLatencia();
+        // Cancelamentos são a exceção e sempre vão para o log
+        log.info("Pagamento cancelado para o cliente {} e transação {}", clienteId, pagamentoTransacaoId);
+    }
+
+    private void simularLatencia() {
+        if (latencia.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(latencia.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
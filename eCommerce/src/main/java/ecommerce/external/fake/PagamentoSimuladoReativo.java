@@ -0,0 +1,43 @@
+package ecommerce.external.fake;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IPagamentoExternalReativo;
+import ecommerce.log.AmostradorDeLog;
+import reactor.core.publisher.Mono;
+
+// Mesmas respostas do PagamentoSimulado; a latência é um Mono.delay, que não ocupa thread
+@Service
+@ConditionalOnProperty(name = "ecommerce.pagamento.implementacao", havingValue = "simulado", matchIfMissing = true)
+public class PagamentoSimuladoReativo implements IPagamentoExternalReativo {
+
+    private final PagamentoSimulado pagamento;
+    private final Duration latencia;
+
+    @Autowired
+    public PagamentoSimuladoReativo(AmostradorDeLog amostrador,
+            @Value("${ecommerce.pagamento.simulado.latencia:0ms}") Duration latencia) {
+        this.pagamento = new PagamentoSimulado(amostrador, Duration.ZERO);
+        this.latencia = latencia;
+    }
+
+    @Override
+    public Mono<PagamentoDTO> autorizarPagamento(Long clienteId, Double custoTotal) {
+        return atrasar().then(Mono.fromSupplier(() -> pagamento.autorizarPagamento(clienteId, custoTotal)));
+    }
+
+    @Override
+    public Mono<Void> cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+        return atrasar().then(Mono.fromRunnable(() -> pagamento.cancelarPagamento(clienteId, pagamentoTransacaoId)));
+    }
+
+    private Mono<Long> atrasar() {
+        return latencia.isZero() ? Mono.empty() : Mono.delay(latencia);
+    }
+}
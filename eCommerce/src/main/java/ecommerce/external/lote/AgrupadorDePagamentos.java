@@ -0,0 +1,202 @@
+package ecommerce.external.lote;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import ecommerce.dto.AutorizacaoPagamentoDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.DependenciaIndisponivelException;
+import ecommerce.external.IPagamentoExternal;
+
+/**
+ * Junta autorizações de pagamento simultâneas em lotes para
+ * {@link IPagamentoExternal#autorizarPagamentos}.
+ *
+ * Cada chamada entra numa fila limitada e espera o seu resultado. Uma thread
+ * coletora monta um lote com o primeiro pedido e o que chegar durante a
+ * janela, até o tamanho máximo, e o envia num pool com no máximo
+ * lotesSimultaneos lotes em andamento. Com todos os envios ocupados, a coleta
+ * para e a fila enche; a partir daí novas chamadas esperam até esperaFila por
+ * uma vaga e, sem vaga, falham com {@link DependenciaIndisponivelException}.
+ * Também falham assim as chamadas depois de {@link #close()} e as de um lote
+ * cuja resposta não traz um resultado por autorização.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.pagamento.lote.habilitado", havingValue = "true")
+public class AgrupadorDePagamentos implements AutoCloseable {
+
+	private record Pedido(AutorizacaoPagamentoDTO autorizacao, CompletableFuture<PagamentoDTO> resultado) {
+	}
+
+	private final IPagamentoExternal pagamento;
+	private final int tamanhoMaximo;
+	private final long janelaNanos;
+	private final long esperaFilaNanos;
+
+	private final BlockingQueue<Pedido> fila;
+	private final Semaphore lotesEmAndamento;
+	private final ExecutorService envios;
+	private final Thread coletor;
+	private volatile boolean encerrado;
+
+	@Autowired
+	public AgrupadorDePagamentos(IPagamentoExternal pagamento,
+			@Value("${ecommerce.pagamento.lote.tamanho-maximo:32}") int tamanhoMaximo,
+			@Value("${ecommerce.pagamento.lote.janela:2ms}") Duration janela,
+			@Value("${ecommerce.pagamento.lote.fila:1024}") int capacidadeFila,
+			@Value("${ecommerce.pagamento.lote.lotes-simultaneos:4}") int lotesSimultaneos,
+			@Value("${ecommerce.pagamento.lote.espera-fila:50ms}") Duration esperaFila) {
+		this.pagamento = pagamento;
+		this.tamanhoMaximo = tamanhoMaximo;
+		this.janelaNanos = janela.toNanos();
+		this.esperaFilaNanos = esperaFila.toNanos();
+
+		this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+		this.lotesEmAndamento = new Semaphore(lotesSimultaneos);
+		this.envios = Executors.newFixedThreadPool(lotesSimultaneos, new CustomizableThreadFactory("pagamento-lote-"));
+
+		this.coletor = new Thread(this::coletar, "pagamento-lote-coletor");
+		this.coletor.setDaemon(true);
+		this.coletor.start();
+	}
+
+	public PagamentoDTO autorizar(Long clienteId, Double custoTotal) {
+		Pedido pedido = new Pedido(new AutorizacaoPagamentoDTO(clienteId, custoTotal), new CompletableFuture<>());
+		if (encerrado) {
+			throw new DependenciaIndisponivelException("Agrupador de pagamentos encerrado.", null);
+		}
+		boolean aceito;
+		try {
+			aceito = fila.offer(pedido, esperaFilaNanos, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DependenciaIndisponivelException("Autorização de pagamento interrompida.", e);
+		}
+		if (!aceito) {
+			throw new DependenciaIndisponivelException("Serviço de pagamento sobrecarregado.", null);
+		}
+		// close() pode ter esvaziado a fila antes deste pedido entrar. Só falha o
+		// pedido que ainda está na fila: um que o coletor já pegou pode estar num
+		// lote em envio, e a autorização dele precisa chegar a quem espera
+		if (encerrado && fila.remove(pedido)) {
+			falhar(List.of(pedido), new DependenciaIndisponivelException("Agrupador de pagamentos encerrado.", null));
+		}
+		return aguardar(pedido.resultado());
+	}
+
+	@Override
+	public void close() {
+		encerrado = true;
+		coletor.interrupt();
+		envios.shutdown();
+		List<Pedido> pendentes = new ArrayList<>();
+		fila.drainTo(pendentes);
+		falhar(pendentes, new DependenciaIndisponivelException("Agrupador de pagamentos encerrado.", null));
+	}
+
+	private void coletar() {
+		List<Pedido> lote = new ArrayList<>(tamanhoMaximo);
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				lote.add(fila.take());
+				completarLote(lote);
+
+				lotesEmAndamento.acquire();
+				List<Pedido> envio = lote;
+				lote = new ArrayList<>(tamanhoMaximo);
+				try {
+					envios.execute(() -> {
+						try {
+							enviar(envio);
+						} finally {
+							lotesEmAndamento.release();
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					lotesEmAndamento.release();
+					falhar(envio, new DependenciaIndisponivelException("Agrupador de pagamentos encerrado.", e));
+				}
+			}
+		} catch (InterruptedException e) {
+			// close(): o lote em montagem é recusado aqui, o resto da fila em close()
+			falhar(lote, new DependenciaIndisponivelException("Agrupador de pagamentos encerrado.", e));
+		}
+	}
+
+	// Pega o que já está na fila e espera o restante da janela pelo que faltar
+	private void completarLote(List<Pedido> lote) throws InterruptedException {
+		long prazo = System.nanoTime() + janelaNanos;
+		while (lote.size() < tamanhoMaximo) {
+			if (fila.drainTo(lote, tamanhoMaximo - lote.size()) > 0) {
+				continue;
+			}
+			long restante = prazo - System.nanoTime();
+			if (restante <= 0) {
+				return;
+			}
+			Pedido proximo = fila.poll(restante, TimeUnit.NANOSECONDS);
+			if (proximo == null) {
+				return;
+			}
+			lote.add(proximo);
+		}
+	}
+
+	private void enviar(List<Pedido> lote) {
+		List<AutorizacaoPagamentoDTO> autorizacoes = new ArrayList<>(lote.size());
+		for (Pedido pedido : lote) {
+			autorizacoes.add(pedido.autorizacao());
+		}
+
+		List<PagamentoDTO> pagamentos;
+		try {
+			pagamentos = pagamento.autorizarPagamentos(autorizacoes);
+		} catch (RuntimeException e) {
+			falhar(lote, e);
+			return;
+		}
+		if (pagamentos == null || pagamentos.size() != lote.size()) {
+			// Resposta inválida do serviço, não conflito da compra: mesma falha de
+			// uma dependência que não respondeu
+			falhar(lote, new DependenciaIndisponivelException("Lote de " + lote.size() + " autorizações devolveu "
+					+ (pagamentos == null ? 0 : pagamentos.size()) + " resultados.", null));
+			return;
+		}
+		for (int i = 0; i < lote.size(); i++) {
+			lote.get(i).resultado().complete(pagamentos.get(i));
+		}
+	}
+
+	private static void falhar(List<Pedido> pedidos, RuntimeException causa) {
+		for (Pedido pedido : pedidos) {
+			pedido.resultado().completeExceptionally(causa);
+		}
+	}
+
+	private static PagamentoDTO aguardar(CompletableFuture<PagamentoDTO> resultado) {
+		try {
+			return resultado.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,315 @@
+package ecommerce.external.memoria;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.Reserva;
+
+/**
+ * Estoque em memória com reserva, confirmação e liberação atômicas sobre todos
+ * os produtos de um carrinho.
+ *
+ * As quantidades ficam em arrays de long indexados pelo id do produto (de 1 a
+ * capacidade). Cada produto pertence a uma listra com sua própria trava; uma
+ * operação trava as listras dos seus produtos em ordem crescente, então
+ * carrinhos com produtos diferentes não disputam a mesma trava e não há
+ * deadlock entre carrinhos que se sobrepõem.
+ *
+ * Todo produto começa com ecommerce.estoque.memoria.quantidade-inicial
+ * unidades, sem valor padrão: um estoque que começasse zerado recusaria toda
+ * compra. A finalização reserva antes do pagamento, confirma a reserva na
+ * baixa e a libera se a compra não for concluída.
+ */
+@Service
+@ConditionalOnProperty(name = "ecommerce.estoque.implementacao", havingValue = "memoria")
+public class EstoqueEmMemoria implements IEstoqueExternal {
+
+	private final long[] disponivel;
+	private final long[] reservado;
+	private final ReentrantLock[] travas;
+	private final int mascaraListras;
+
+	@Autowired
+	public EstoqueEmMemoria(@Value("${ecommerce.estoque.memoria.capacidade:100000}") int capacidade,
+			@Value("${ecommerce.estoque.memoria.listras:1024}") int listras,
+			@Value("${ecommerce.estoque.memoria.quantidade-inicial}") long quantidadeInicial) {
+		if (quantidadeInicial < 0) {
+			throw new IllegalArgumentException("A quantidade inicial do estoque em memória não pode ser negativa.");
+		}
+		this.disponivel = new long[capacidade + 1];
+		this.reservado = new long[capacidade + 1];
+		Arrays.fill(disponivel, 1, disponivel.length, quantidadeInicial);
+
+		int totalListras = 1;
+		while (totalListras < listras) {
+			totalListras <<= 1;
+		}
+		this.travas = new ReentrantLock[totalListras];
+		for (int i = 0; i < totalListras; i++) {
+			travas[i] = new ReentrantLock();
+		}
+		this.mascaraListras = totalListras - 1;
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(LoteEstoque lote) {
+		Reserva reserva = reservar(lote);
+		if (!reserva.efetuada()) {
+			return new EstoqueBaixaDTO(false);
+		}
+		return confirmar(reserva);
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(LoteEstoque lote) {
+		Pedido pedido = consolidar(lote);
+		int[] listras = listrasOrdenadas(pedido.ids);
+
+		travar(listras);
+		try {
+			long[] indisponiveis = indisponiveis(pedido);
+			return new DisponibilidadeDTO(indisponiveis.length == 0, indisponiveis);
+		} finally {
+			destravar(listras);
+		}
+	}
+
+	/**
+	 * Reserva todas as quantidades ou nenhuma. Se algum produto não tiver saldo,
+	 * a reserva volta não efetuada com os ids indisponíveis.
+	 */
+	public Reserva reservar(List<Long> produtosIds, List<Long> produtosQuantidades) {
+		return reservar(LoteEstoque.de(produtosIds, produtosQuantidades));
+	}
+
+	@Override
+	public Reserva reservar(LoteEstoque lote) {
+		Pedido pedido = consolidar(lote);
+		int[] listras = listrasOrdenadas(pedido.ids);
+
+		travar(listras);
+		try {
+			long[] indisponiveis = indisponiveis(pedido);
+			if (indisponiveis.length > 0) {
+				return Reserva.recusada(indisponiveis);
+			}
+			for (int i = 0; i < pedido.ids.length; i++) {
+				int posicao = (int) pedido.ids[i];
+				disponivel[posicao] -= pedido.quantidades[i];
+				reservado[posicao] += pedido.quantidades[i];
+			}
+			return Reserva.efetuada(LoteEstoque.de(pedido.ids, pedido.quantidades));
+		} finally {
+			destravar(listras);
+		}
+	}
+
+	// Efetiva a saída dos itens reservados; uma reserva já liberada não sai mais
+	@Override
+	public EstoqueBaixaDTO confirmar(Reserva reserva) {
+		return new EstoqueBaixaDTO(encerrar(reserva, false));
+	}
+
+	// Devolve ao saldo os itens reservados
+	@Override
+	public void liberar(Reserva reserva) {
+		encerrar(reserva, true);
+	}
+
+	public void repor(long produtoId, long quantidade) {
+		validarId(produtoId);
+		ReentrantLock trava = travas[listra(produtoId)];
+		trava.lock();
+		try {
+			disponivel[(int) produtoId] += quantidade;
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	public long disponivel(long produtoId) {
+		return ler(disponivel, produtoId);
+	}
+
+	public long reservado(long produtoId) {
+		return ler(reservado, produtoId);
+	}
+
+	private boolean encerrar(Reserva reserva, boolean devolver) {
+		if (!reserva.encerrar()) {
+			return false; // já confirmada, liberada ou recusada
+		}
+		LoteEstoque itens = reserva.itens();
+		long[] ids = itens.copiaDosProdutosIds();
+		int[] listras = listrasOrdenadas(ids);
+
+		travar(listras);
+		try {
+			for (int i = 0; i < ids.length; i++) {
+				int posicao = (int) ids[i];
+				reservado[posicao] -= itens.quantidade(i);
+				if (devolver) {
+					disponivel[posicao] += itens.quantidade(i);
+				}
+			}
+		} finally {
+			destravar(listras);
+		}
+		return true;
+	}
+
+	private long ler(long[] contadores, long produtoId) {
+		if (!idValido(produtoId)) {
+			return 0;
+		}
+		ReentrantLock trava = travas[listra(produtoId)];
+		trava.lock();
+		try {
+			return contadores[(int) produtoId];
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	// Deve ser chamado com as listras do pedido travadas. No caso comum devolve o
+	// array vazio compartilhado, sem alocar.
+	private long[] indisponiveis(Pedido pedido) {
+		int semSaldo = 0;
+		for (int i = 0; i < pedido.ids.length; i++) {
+			if (disponivel[(int) pedido.ids[i]] < pedido.quantidades[i]) {
+				semSaldo++;
+			}
+		}
+		if (semSaldo == 0 && pedido.invalidos.isEmpty()) {
+			return DisponibilidadeDTO.SEM_INDISPONIVEIS;
+		}
+		long[] indisponiveis = new long[pedido.invalidos.size() + semSaldo];
+		int j = 0;
+		for (Long invalido : pedido.invalidos) {
+			indisponiveis[j++] = invalido;
+		}
+		for (int i = 0; i < pedido.ids.length; i++) {
+			if (disponivel[(int) pedido.ids[i]] < pedido.quantidades[i]) {
+				indisponiveis[j++] = pedido.ids[i];
+			}
+		}
+		return indisponiveis;
+	}
+
+	// Copia o lote para arrays próprios da reserva. Produtos repetidos no carrinho
+	// (caso raro) têm as quantidades somadas.
+	private Pedido consolidar(LoteEstoque lote) {
+		int tamanho = lote.tamanho();
+		long[] ids = new long[tamanho];
+		long[] quantidades = new long[tamanho];
+		List<Long> invalidos = Collections.emptyList();
+		int validos = 0;
+
+		for (int i = 0; i < tamanho; i++) {
+			long produtoId = lote.produtoId(i);
+			long quantidade = lote.quantidade(i);
+			if (quantidade < 0) {
+				throw new IllegalArgumentException("Quantidade negativa para o produto " + produtoId + ".");
+			}
+			if (!idValido(produtoId)) {
+				if (invalidos.isEmpty()) {
+					invalidos = new ArrayList<>();
+				}
+				invalidos.add(produtoId);
+				continue;
+			}
+			ids[validos] = produtoId;
+			quantidades[validos++] = quantidade;
+		}
+		ids = Arrays.copyOf(ids, validos);
+		quantidades = Arrays.copyOf(quantidades, validos);
+
+		return temRepetidos(ids) ? somarRepetidos(ids, quantidades, invalidos) : new Pedido(ids, quantidades, invalidos);
+	}
+
+	private static boolean temRepetidos(long[] ids) {
+		long[] ordenados = ids.clone();
+		Arrays.sort(ordenados);
+		for (int i = 1; i < ordenados.length; i++) {
+			if (ordenados[i] == ordenados[i - 1]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Pedido somarRepetidos(long[] ids, long[] quantidades, List<Long> invalidos) {
+		Map<Long, Long> somadas = new LinkedHashMap<>();
+		for (int i = 0; i < ids.length; i++) {
+			somadas.merge(ids[i], quantidades[i], Long::sum);
+		}
+		long[] idsSomados = new long[somadas.size()];
+		long[] quantidadesSomadas = new long[somadas.size()];
+		int i = 0;
+		for (Map.Entry<Long, Long> entrada : somadas.entrySet()) {
+			idsSomados[i] = entrada.getKey();
+			quantidadesSomadas[i++] = entrada.getValue();
+		}
+		return new Pedido(idsSomados, quantidadesSomadas, invalidos);
+	}
+
+	private record Pedido(long[] ids, long[] quantidades, List<Long> invalidos) {
+	}
+
+	private int[] listrasOrdenadas(long[] ids) {
+		int[] listras = new int[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			listras[i] = listra(ids[i]);
+		}
+		Arrays.sort(listras);
+
+		int distintas = 0;
+		for (int i = 0; i < listras.length; i++) {
+			if (i == 0 || listras[i] != listras[i - 1]) {
+				listras[distintas++] = listras[i];
+			}
+		}
+		return Arrays.copyOf(listras, distintas);
+	}
+
+	private void travar(int[] listras) {
+		for (int listra : listras) {
+			travas[listra].lock();
+		}
+	}
+
+	private void destravar(int[] listras) {
+		for (int i = listras.length - 1; i >= 0; i--) {
+			travas[listras[i]].unlock();
+		}
+	}
+
+	private int listra(long produtoId) {
+		// Espalha ids consecutivos entre as listras
+		return Long.hashCode(produtoId * 0x9E3779B97F4A7C15L) & mascaraListras;
+	}
+
+	private boolean idValido(long produtoId) {
+		return produtoId > 0 && produtoId < disponivel.length;
+	}
+
+	private void validarId(long produtoId) {
+		if (!idValido(produtoId)) {
+			throw new IllegalArgumentException("Produto fora da capacidade do estoque: " + produtoId);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package ecommerce.external.memoria;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.IEstoqueExternalReativo;
+import ecommerce.external.Reserva;
+import reactor.core.publisher.Mono;
+
+// As operações do EstoqueEmMemoria só seguram travas por listra, sem E/S,
+// então rodam direto na thread de quem assina
+@Service
+@ConditionalOnProperty(name = "ecommerce.estoque.implementacao", havingValue = "memoria")
+public class EstoqueEmMemoriaReativo implements IEstoqueExternalReativo {
+
+	private final EstoqueEmMemoria estoque;
+
+	@Autowired
+	public EstoqueEmMemoriaReativo(EstoqueEmMemoria estoque) {
+		this.estoque = estoque;
+	}
+
+	@Override
+	public Mono<DisponibilidadeDTO> verificarDisponibilidade(LoteEstoque lote) {
+		return Mono.fromSupplier(() -> estoque.verificarDisponibilidade(lote));
+	}
+
+	@Override
+	public Mono<EstoqueBaixaDTO> darBaixa(LoteEstoque lote) {
+		return Mono.fromSupplier(() -> estoque.darBaixa(lote));
+	}
+
+	@Override
+	public Mono<Reserva> reservar(LoteEstoque lote) {
+		return Mono.fromSupplier(() -> estoque.reservar(lote));
+	}
+
+	@Override
+	public Mono<EstoqueBaixaDTO> confirmar(Reserva reserva) {
+		return Mono.fromSupplier(() -> estoque.confirmar(reserva));
+	}
+
+	@Override
+	public Mono<Void> liberar(Reserva reserva) {
+		return Mono.fromRunnable(() -> estoque.liberar(reserva));
+	}
+}
@@ -0,0 +1,69 @@
+package ecommerce.external.promocao;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ecommerce.external.promocao.VendaRelampago.Oferta;
+
+/**
+ * Resultado de {@link VendaRelampago#admitir}. Uma admissão com ingressos os
+ * segura até ser consumida pela baixa ou devolvida, o que só acontece uma vez.
+ */
+public final class Admissao {
+
+	// Lote sem produtos em promoção: segue o caminho normal do estoque
+	public static final Admissao SEM_PROMOCAO = new Admissao(new Oferta[0], new long[0], false, true);
+
+	static final Admissao RECUSADA = new Admissao(new Oferta[0], new long[0], false, false);
+
+	private final Oferta[] ofertas;
+	private final long[] quantidades;
+	private final boolean baixaPelaFila;
+	private final boolean admitida;
+	private final AtomicBoolean encerrada;
+
+	Admissao(Oferta[] ofertas, long[] quantidades, boolean baixaPelaFila) {
+		this(ofertas, quantidades, baixaPelaFila, true);
+	}
+
+	private Admissao(Oferta[] ofertas, long[] quantidades, boolean baixaPelaFila, boolean admitida) {
+		this.ofertas = ofertas;
+		this.quantidades = quantidades;
+		this.baixaPelaFila = baixaPelaFila;
+		this.admitida = admitida;
+		// Sem ingressos tomados não há o que consumir ou devolver
+		this.encerrada = new AtomicBoolean(ofertas.length == 0);
+	}
+
+	public boolean admitida() {
+		return admitida;
+	}
+
+	// Carrinho com um único item, em promoção: os ingressos já garantem o saldo e
+	// a baixa vai pela fila do produto
+	public boolean baixaPelaFila() {
+		return baixaPelaFila;
+	}
+
+	// Marca os ingressos como usados pela baixa; devolve false se já encerrada
+	public boolean consumir() {
+		return encerrada.compareAndSet(false, true);
+	}
+
+	// Devolve os ingressos à promoção se a compra não chegou à baixa
+	public void devolver() {
+		if (!encerrada.compareAndSet(false, true)) {
+			return;
+		}
+		for (int i = 0; i < ofertas.length; i++) {
+			ofertas[i].devolver(quantidades[i]);
+		}
+	}
+
+	Oferta[] ofertas() {
+		return ofertas;
+	}
+
+	long[] quantidades() {
+		return quantidades;
+	}
+}
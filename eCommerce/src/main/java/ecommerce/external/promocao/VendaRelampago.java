@@ -0,0 +1,305 @@
+package ecommerce.external.promocao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.DependenciaIndisponivelException;
+import ecommerce.external.IEstoqueExternal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Venda relâmpago: compras de produtos em promoção, que disputam todas o mesmo
+ * saldo, passam por ingressos e por uma fila de baixas por produto.
+ *
+ * Cada produto em promoção começa com tantos ingressos quantas forem as
+ * unidades separadas para a promoção. {@link #admitir} toma os ingressos do
+ * carrinho antes do pagamento com compareAndSet num AtomicLong; esgotados os
+ * ingressos, a compra é recusada com uma leitura, sem chegar ao estoque nem
+ * ao pagamento. A compra que não chega à baixa devolve os ingressos.
+ *
+ * A baixa de um carrinho com um único item em promoção não vai direto ao
+ * estoque: entra na fila do produto, que tem uma única thread escritora. Ela
+ * junta o que estiver na fila (até loteMaximo baixas) numa só chamada a
+ * {@link IEstoqueExternal#darBaixa} com a soma das quantidades e, se o
+ * estoque recusar a soma, baixa as compras do lote uma a uma. Cada baixa na
+ * fila segura seus ingressos, então a fila nunca passa do total de ingressos.
+ *
+ * Métricas por produto: promocao.ingressos, promocao.recusadas e
+ * promocao.baixa.lote.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.promocao.habilitado", havingValue = "true")
+public class VendaRelampago implements AutoCloseable {
+
+	private record Baixa(long quantidade, CompletableFuture<Boolean> resultado) {
+	}
+
+	// Saldo de ingressos e fila de baixas de um produto em promoção
+	static final class Oferta {
+		final long produtoId;
+		final AtomicLong ingressos;
+		final BlockingQueue<Baixa> fila = new LinkedBlockingQueue<>();
+		final Counter recusadas;
+		final DistributionSummary lotes;
+		Thread escritora;
+
+		Oferta(long produtoId, long ingressos, MeterRegistry meterRegistry) {
+			this.produtoId = produtoId;
+			this.ingressos = new AtomicLong(ingressos);
+			String produto = Long.toString(produtoId);
+			Gauge.builder("promocao.ingressos", this.ingressos, AtomicLong::get)
+					.description("Ingressos ainda disponíveis para o produto em promoção")
+					.tag("produto", produto)
+					.register(meterRegistry);
+			this.recusadas = Counter.builder("promocao.recusadas")
+					.description("Compras recusadas por falta de ingressos")
+					.tag("produto", produto)
+					.register(meterRegistry);
+			this.lotes = DistributionSummary.builder("promocao.baixa.lote")
+					.description("Baixas juntadas em cada chamada ao estoque")
+					.tag("produto", produto)
+					.register(meterRegistry);
+		}
+
+		// Recusa com uma só leitura quando o saldo já não cobre a quantidade
+		boolean tomar(long quantidade) {
+			long saldo = ingressos.get();
+			while (saldo >= quantidade) {
+				if (ingressos.compareAndSet(saldo, saldo - quantidade)) {
+					return true;
+				}
+				saldo = ingressos.get();
+			}
+			recusadas.increment();
+			return false;
+		}
+
+		void devolver(long quantidade) {
+			ingressos.addAndGet(quantidade);
+		}
+	}
+
+	private final IEstoqueExternal estoque;
+	private final int loteMaximo;
+	private final Map<Long, Oferta> ofertas;
+	private volatile boolean encerrada;
+
+	@Autowired
+	public VendaRelampago(IEstoqueExternal estoque, @Value("${ecommerce.promocao.produtos:}") String produtos,
+			@Value("${ecommerce.promocao.lote-maximo:256}") int loteMaximo, MeterRegistry meterRegistry) {
+		this(estoque, lerProdutos(produtos), loteMaximo, meterRegistry);
+	}
+
+	// Venda sem métricas, para testes e benchmarks
+	public VendaRelampago(IEstoqueExternal estoque, Map<Long, Long> ingressos, int loteMaximo) {
+		this(estoque, ingressos, loteMaximo, new CompositeMeterRegistry());
+	}
+
+	public VendaRelampago(IEstoqueExternal estoque, Map<Long, Long> ingressos, int loteMaximo,
+			MeterRegistry meterRegistry) {
+		if (loteMaximo < 1) {
+			throw new IllegalArgumentException("O lote máximo da promoção deve ser positivo.");
+		}
+		this.estoque = estoque;
+		this.loteMaximo = loteMaximo;
+
+		Map<Long, Oferta> porProduto = new HashMap<>();
+		for (Map.Entry<Long, Long> entrada : ingressos.entrySet()) {
+			Oferta oferta = new Oferta(entrada.getKey(), entrada.getValue(), meterRegistry);
+			oferta.escritora = new Thread(() -> escrever(oferta), "promocao-escritora-" + entrada.getKey());
+			oferta.escritora.setDaemon(true);
+			porProduto.put(entrada.getKey(), oferta);
+		}
+		this.ofertas = Map.copyOf(porProduto);
+		for (Oferta oferta : ofertas.values()) {
+			oferta.escritora.start();
+		}
+	}
+
+	/**
+	 * Toma os ingressos de todos os itens em promoção do lote, ou de nenhum.
+	 * Um lote sem produtos em promoção é admitido sem tocar em nenhum saldo.
+	 */
+	public Admissao admitir(LoteEstoque lote) {
+		Oferta[] tomadas = null;
+		long[] quantidades = null;
+		int total = 0;
+
+		for (int i = 0; i < lote.tamanho(); i++) {
+			Oferta oferta = ofertas.get(lote.produtoId(i));
+			if (oferta == null) {
+				continue;
+			}
+			long quantidade = lote.quantidade(i);
+			if (quantidade < 0) {
+				throw new IllegalArgumentException("Quantidade negativa para o produto " + oferta.produtoId + ".");
+			}
+			if (!oferta.tomar(quantidade)) {
+				for (int j = 0; j < total; j++) {
+					tomadas[j].devolver(quantidades[j]);
+				}
+				return Admissao.RECUSADA;
+			}
+			if (tomadas == null) {
+				tomadas = new Oferta[lote.tamanho()];
+				quantidades = new long[lote.tamanho()];
+			}
+			tomadas[total] = oferta;
+			quantidades[total++] = quantidade;
+		}
+
+		if (total == 0) {
+			return Admissao.SEM_PROMOCAO;
+		}
+		return new Admissao(Arrays.copyOf(tomadas, total), Arrays.copyOf(quantidades, total), lote.tamanho() == 1);
+	}
+
+	/**
+	 * Baixa pela fila do produto a compra admitida com {@link Admissao#baixaPelaFila()}.
+	 * Os ingressos ficam consumidos mesmo se a baixa falhar: o estoque não
+	 * confirmou as unidades, então elas não voltam para a promoção.
+	 */
+	public EstoqueBaixaDTO darBaixa(Admissao admissao) {
+		if (!admissao.baixaPelaFila() || !admissao.consumir()) {
+			throw new IllegalStateException("Admissão sem baixa pela fila ou já encerrada.");
+		}
+		Oferta oferta = admissao.ofertas()[0];
+		Baixa baixa = new Baixa(admissao.quantidades()[0], new CompletableFuture<>());
+		if (encerrada) {
+			throw new DependenciaIndisponivelException("Venda relâmpago encerrada.", null);
+		}
+		oferta.fila.add(baixa);
+		if (encerrada) {
+			// close() pode ter esvaziado a fila antes desta baixa entrar
+			falhar(List.of(baixa), new DependenciaIndisponivelException("Venda relâmpago encerrada.", null));
+		}
+		return new EstoqueBaixaDTO(aguardar(baixa.resultado()));
+	}
+
+	public boolean emPromocao(long produtoId) {
+		return ofertas.containsKey(produtoId);
+	}
+
+	public long ingressos(long produtoId) {
+		Oferta oferta = ofertas.get(produtoId);
+		return oferta == null ? 0 : oferta.ingressos.get();
+	}
+
+	@Override
+	public void close() {
+		encerrada = true;
+		for (Oferta oferta : ofertas.values()) {
+			oferta.escritora.interrupt();
+			List<Baixa> pendentes = new ArrayList<>();
+			oferta.fila.drainTo(pendentes);
+			falhar(pendentes, new DependenciaIndisponivelException("Venda relâmpago encerrada.", null));
+		}
+	}
+
+	// Única thread que baixa o produto: pega a primeira baixa da fila e tudo o que
+	// chegou enquanto o lote anterior estava no estoque
+	private void escrever(Oferta oferta) {
+		List<Baixa> lote = new ArrayList<>(loteMaximo);
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				lote.add(oferta.fila.take());
+				oferta.fila.drainTo(lote, loteMaximo - 1);
+				baixar(oferta, lote);
+				lote.clear();
+			}
+		} catch (InterruptedException e) {
+			// close(): o restante da fila é recusado lá
+		}
+	}
+
+	private void baixar(Oferta oferta, List<Baixa> lote) {
+		oferta.lotes.record(lote.size());
+		try {
+			long soma = 0;
+			for (Baixa baixa : lote) {
+				soma += baixa.quantidade();
+			}
+			if (sucesso(darBaixa(oferta.produtoId, soma))) {
+				for (Baixa baixa : lote) {
+					baixa.resultado().complete(true);
+				}
+				return;
+			}
+			// O estoque não tem a soma: baixa uma a uma, na ordem de chegada
+			for (Baixa baixa : lote) {
+				baixa.resultado().complete(sucesso(darBaixa(oferta.produtoId, baixa.quantidade())));
+			}
+		} catch (RuntimeException e) {
+			falhar(lote, e); // as já completadas não mudam
+		}
+	}
+
+	// Lote novo a cada chamada: com prazo estourado, a chamada anterior pode
+	// ainda estar lendo o seu
+	private EstoqueBaixaDTO darBaixa(long produtoId, long quantidade) {
+		LoteEstoque itens = new LoteEstoque(1);
+		itens.adicionar(produtoId, quantidade);
+		return estoque.darBaixa(itens);
+	}
+
+	private static boolean sucesso(EstoqueBaixaDTO baixa) {
+		return baixa != null && Boolean.TRUE.equals(baixa.sucesso());
+	}
+
+	private static void falhar(List<Baixa> baixas, RuntimeException causa) {
+		for (Baixa baixa : baixas) {
+			baixa.resultado().completeExceptionally(causa);
+		}
+	}
+
+	private static boolean aguardar(CompletableFuture<Boolean> resultado) {
+		try {
+			return resultado.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw e;
+		}
+	}
+
+	// "produtoId:ingressos" separados por vírgula, como em ecommerce.promocao.produtos
+	static Map<Long, Long> lerProdutos(String produtos) {
+		Map<Long, Long> ingressos = new LinkedHashMap<>();
+		for (String produto : produtos.split(",")) {
+			if (produto.isBlank()) {
+				continue;
+			}
+			String[] partes = produto.trim().split(":");
+			if (partes.length != 2) {
+				throw new IllegalArgumentException("Produto em promoção fora do formato produtoId:ingressos: " + produto);
+			}
+			long quantidade = Long.parseLong(partes[1].trim());
+			if (quantidade < 0) {
+				throw new IllegalArgumentException("Ingressos negativos para o produto " + partes[0].trim() + ".");
+			}
+			ingressos.put(Long.parseLong(partes[0].trim()), quantidade);
+		}
+		return ingressos;
+	}
+}
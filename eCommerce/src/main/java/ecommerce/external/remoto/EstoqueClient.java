@@ -0,0 +1,19 @@
+package ecommerce.external.remoto;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.ItensEstoqueDTO;
+
+@FeignClient(name = "estoque", url = "${ecommerce.estoque.remoto.url:http://localhost:8081}")
+public interface EstoqueClient {
+
+	@PostMapping("/estoque/disponibilidade")
+	DisponibilidadeDTO verificarDisponibilidade(@RequestBody ItensEstoqueDTO itens);
+
+	@PostMapping("/estoque/baixa")
+	EstoqueBaixaDTO darBaixa(@RequestBody ItensEstoqueDTO itens);
+}
@@ -0,0 +1,34 @@
+package ecommerce.external.remoto;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.ItensEstoqueDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.IEstoqueExternal;
+
+// Estoque em outro serviço, chamado via Feign (perfil "remoto")
+@Service
+@ConditionalOnProperty(name = "ecommerce.estoque.implementacao", havingValue = "remoto")
+public class EstoqueRemoto implements IEstoqueExternal {
+
+	private final EstoqueClient client;
+
+	@Autowired
+	public EstoqueRemoto(EstoqueClient client) {
+		this.client = client;
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(LoteEstoque lote) {
+		return client.darBaixa(ItensEstoqueDTO.de(lote));
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(LoteEstoque lote) {
+		return client.verificarDisponibilidade(ItensEstoqueDTO.de(lote));
+	}
+}
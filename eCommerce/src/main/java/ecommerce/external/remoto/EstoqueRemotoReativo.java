@@ -0,0 +1,46 @@
+package ecommerce.external.remoto;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.ItensEstoqueDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.IEstoqueExternalReativo;
+import reactor.core.publisher.Mono;
+
+// Mesmos endpoints do EstoqueClient, via WebClient (Reactor Netty, sem thread por chamada)
+@Service
+@ConditionalOnProperty(name = "ecommerce.estoque.implementacao", havingValue = "remoto")
+public class EstoqueRemotoReativo implements IEstoqueExternalReativo {
+
+	private final WebClient webClient;
+
+	@Autowired
+	public EstoqueRemotoReativo(WebClient.Builder builder,
+			@Value("${ecommerce.estoque.remoto.url:http://localhost:8081}") String url) {
+		this.webClient = builder.baseUrl(url).build();
+	}
+
+	@Override
+	public Mono<DisponibilidadeDTO> verificarDisponibilidade(LoteEstoque lote) {
+		return webClient.post()
+				.uri("/estoque/disponibilidade")
+				.bodyValue(ItensEstoqueDTO.de(lote))
+				.retrieve()
+				.bodyToMono(DisponibilidadeDTO.class);
+	}
+
+	@Override
+	public Mono<EstoqueBaixaDTO> darBaixa(LoteEstoque lote) {
+		return webClient.post()
+				.uri("/estoque/baixa")
+				.bodyValue(ItensEstoqueDTO.de(lote))
+				.retrieve()
+				.bodyToMono(EstoqueBaixaDTO.class);
+	}
+}
@@ -0,0 +1,24 @@
+package ecommerce.external.remoto;
+
+import java.util.List;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import ecommerce.dto.AutorizacaoPagamentoDTO;
+import ecommerce.dto.CancelamentoPagamentoDTO;
+import ecommerce.dto.PagamentoDTO;
+
+@FeignClient(name = "pagamento", url = "${ecommerce.pagamento.remoto.url:http://localhost:8082}")
+public interface PagamentoClient {
+
+	@PostMapping("/pagamentos/autorizacao")
+	PagamentoDTO autorizar(@RequestBody AutorizacaoPagamentoDTO autorizacao);
+
+	@PostMapping("/pagamentos/autorizacoes")
+	List<PagamentoDTO> autorizarLote(@RequestBody List<AutorizacaoPagamentoDTO> autorizacoes);
+
+	@PostMapping("/pagamentos/cancelamento")
+	void cancelar(@RequestBody CancelamentoPagamentoDTO cancelamento);
+}
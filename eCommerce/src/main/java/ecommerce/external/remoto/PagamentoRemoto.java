@@ -0,0 +1,40 @@
+package ecommerce.external.remoto;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import ecommerce.dto.AutorizacaoPagamentoDTO;
+import ecommerce.dto.CancelamentoPagamentoDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IPagamentoExternal;
+
+// Pagamento em outro serviço, chamado via Feign (perfil "remoto")
+@Service
+@ConditionalOnProperty(name = "ecommerce.pagamento.implementacao", havingValue = "remoto")
+public class PagamentoRemoto implements IPagamentoExternal {
+
+	private final PagamentoClient client;
+
+	@Autowired
+	public PagamentoRemoto(PagamentoClient client) {
+		this.client = client;
+	}
+
+	@Override
+	public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+		return client.autorizar(new AutorizacaoPagamentoDTO(clienteId, custoTotal));
+	}
+
+	@Override
+	public List<PagamentoDTO> autorizarPagamentos(List<AutorizacaoPagamentoDTO> autorizacoes) {
+		return client.autorizarLote(autorizacoes);
+	}
+
+	@Override
+	public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+		client.cancelar(new CancelamentoPagamentoDTO(clienteId, pagamentoTransacaoId));
+	}
+}
@@ -0,0 +1,45 @@
+package ecommerce.external.remoto;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import ecommerce.dto.AutorizacaoPagamentoDTO;
+import ecommerce.dto.CancelamentoPagamentoDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IPagamentoExternalReativo;
+import reactor.core.publisher.Mono;
+
+// Mesmos endpoints do PagamentoClient, via WebClient (Reactor Netty, sem thread por chamada)
+@Service
+@ConditionalOnProperty(name = "ecommerce.pagamento.implementacao", havingValue = "remoto")
+public class PagamentoRemotoReativo implements IPagamentoExternalReativo {
+
+	private final WebClient webClient;
+
+	@Autowired
+	public PagamentoRemotoReativo(WebClient.Builder builder,
+			@Value("${ecommerce.pagamento.remoto.url:http://localhost:8082}") String url) {
+		this.webClient = builder.baseUrl(url).build();
+	}
+
+	@Override
+	public Mono<PagamentoDTO> autorizarPagamento(Long clienteId, Double custoTotal) {
+		return webClient.post()
+				.uri("/pagamentos/autorizacao")
+				.bodyValue(new AutorizacaoPagamentoDTO(clienteId, custoTotal))
+				.retrieve()
+				.bodyToMono(PagamentoDTO.class);
+	}
+
+	@Override
+	public Mono<Void> cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+		return webClient.post()
+				.uri("/pagamentos/cancelamento")
+				.bodyValue(new CancelamentoPagamentoDTO(clienteId, pagamentoTransacaoId))
+				.retrieve()
+				.bodyToMono(Void.class);
+	}
+}
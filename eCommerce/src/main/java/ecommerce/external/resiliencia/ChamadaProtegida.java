@@ -0,0 +1,242 @@
+package ecommerce.external.resiliencia;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import ecommerce.external.DependenciaIndisponivelException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Executa chamadas a um serviço externo atrás de circuit breaker, prazo e
+ * bulkhead próprios.
+ *
+ * A chamada roda no pool limitado do bulkhead, e a thread da requisição
+ * espera no máximo o prazo do TimeLimiter; assim um serviço lento ocupa só as
+ * threads do seu bulkhead, não as do servlet. No modo de threads virtuais, a
+ * chamada roda numa thread virtual própria e o limite de chamadas simultâneas
+ * é um bulkhead de semáforo, sem pool de threads. Recusas viram
+ * {@link DependenciaIndisponivelException} e são contadas em
+ * resiliencia.rejeicoes (tags dependencia e motivo). Exceções do próprio
+ * serviço passam sem alteração.
+ *
+ * Esgotado o prazo, a chamada não é interrompida: ela segue no serviço e
+ * pode ainda ter efeito. Quem chama com efeito a desfazer passa um tratamento
+ * para o resultado atrasado; essas conclusões tardias são contadas em
+ * resiliencia.atrasadas.
+ */
+public class ChamadaProtegida {
+
+	private final String dependencia;
+	private final CircuitBreaker circuitBreaker;
+	private final Execucao execucao;
+	private final TimeLimiter timeLimiter;
+	private final ScheduledExecutorService agendador;
+
+	private final Counter circuitoAberto;
+	private final Counter sobrecarga;
+	private final Counter tempoEsgotado;
+	private final Counter atrasadas;
+
+	// Inicia a chamada fora da thread de quem espera
+	private interface Execucao {
+		<T> CompletionStage<T> iniciar(Supplier<T> chamada);
+	}
+
+	public ChamadaProtegida(String dependencia, CircuitBreaker circuitBreaker, ThreadPoolBulkhead bulkhead,
+			TimeLimiter timeLimiter, ScheduledExecutorService agendador, MeterRegistry registry) {
+		this(dependencia, circuitBreaker, (Execucao) bulkhead::executeSupplier, timeLimiter, agendador, registry);
+	}
+
+	// Modo de threads virtuais: uma thread virtual por chamada, limitadas pelo semáforo
+	public ChamadaProtegida(String dependencia, CircuitBreaker circuitBreaker, Bulkhead semaforo,
+			ExecutorService threadsVirtuais, TimeLimiter timeLimiter, ScheduledExecutorService agendador,
+			MeterRegistry registry) {
+		this(dependencia, circuitBreaker, new Execucao() {
+			@Override
+			public <T> CompletionStage<T> iniciar(Supplier<T> chamada) {
+				if (!semaforo.tryAcquirePermission()) {
+					return CompletableFuture.failedFuture(BulkheadFullException.createBulkheadFullException(semaforo));
+				}
+				return CompletableFuture.supplyAsync(() -> {
+					try {
+						return chamada.get();
+					} finally {
+						semaforo.onComplete();
+					}
+				}, threadsVirtuais);
+			}
+		}, timeLimiter, agendador, registry);
+	}
+
+	private ChamadaProtegida(String dependencia, CircuitBreaker circuitBreaker, Execucao execucao,
+			TimeLimiter timeLimiter, ScheduledExecutorService agendador, MeterRegistry registry) {
+		this.dependencia = dependencia;
+		this.circuitBreaker = circuitBreaker;
+		this.execucao = execucao;
+		this.timeLimiter = timeLimiter;
+		this.agendador = agendador;
+
+		this.circuitoAberto = contador(registry, "circuito_aberto");
+		this.sobrecarga = contador(registry, "sobrecarga");
+		this.tempoEsgotado = contador(registry, "tempo_esgotado");
+		this.atrasadas = Counter.builder("resiliencia.atrasadas")
+				.description("Chamadas concluídas depois de esgotado o prazo")
+				.tag("dependencia", dependencia)
+				.register(registry);
+	}
+
+	public <T> T executar(Supplier<T> chamada) {
+		try {
+			return circuitBreaker
+					.executeCompletionStage(() -> timeLimiter.executeCompletionStage(agendador,
+							() -> execucao.iniciar(chamada)))
+					.toCompletableFuture()
+					.join();
+		} catch (CompletionException e) {
+			throw traduzir(e.getCause() == null ? e : e.getCause());
+		} catch (RuntimeException e) {
+			throw traduzir(e);
+		}
+	}
+
+	public void executar(Runnable chamada) {
+		executar(() -> {
+			chamada.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Como {@link #executar(Supplier)}; se o prazo esgotar e a chamada ainda
+	 * concluir depois, o resultado vai para seAtrasada, que desfaz o efeito ou o
+	 * registra para reconciliação. seAtrasada roda na thread que concluiu a
+	 * chamada e não passa pelo circuit breaker nem pelo bulkhead.
+	 */
+	public <T> T executar(Supplier<T> chamada, Consumer<? super T> seAtrasada) {
+		// O prazo esgotado completa o próprio futuro da execução; o resultado que
+		// chegar depois só é visto aqui
+		CompletableFuture<T> concluida = new CompletableFuture<>();
+		try {
+			return executar(() -> {
+				try {
+					T resultado = chamada.get();
+					concluida.complete(resultado);
+					return resultado;
+				} catch (RuntimeException e) {
+					concluida.completeExceptionally(e);
+					throw e;
+				}
+			});
+		} catch (DependenciaIndisponivelException e) {
+			if (e.getCause() instanceof TimeoutException) {
+				concluida.thenAccept(resultado -> {
+					atrasadas.increment();
+					seAtrasada.accept(resultado);
+				});
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Versão sem bloqueio: o Mono passa pelo mesmo circuit breaker, com o prazo
+	 * do TimeLimiter como timeout. Não usa o bulkhead, que é um pool de threads;
+	 * a chamada não ocupa thread enquanto espera.
+	 */
+	public <T> Mono<T> executar(Mono<T> chamada) {
+		return Mono.defer(() -> {
+			if (!circuitBreaker.tryAcquirePermission()) {
+				return Mono.<T>error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+			}
+			long inicio = System.nanoTime();
+			return chamada.timeout(timeLimiter.getTimeLimiterConfig().getTimeoutDuration())
+					.doOnSuccess(resposta -> circuitBreaker.onSuccess(System.nanoTime() - inicio,
+							TimeUnit.NANOSECONDS))
+					.doOnError(falha -> circuitBreaker.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS,
+							falha))
+					.doOnCancel(circuitBreaker::releasePermission);
+		}).onErrorMap(this::traduzir);
+	}
+
+	/**
+	 * Como {@link #executar(Mono)}; se o prazo esgotar ou a espera for
+	 * cancelada, a chamada não é cancelada junto, e o que ela concluir depois
+	 * vai para seAtrasada (null para Mono vazio).
+	 */
+	public <T> Mono<T> executar(Mono<T> chamada, Consumer<? super T> seAtrasada) {
+		return Mono.defer(() -> {
+			AtomicReference<CompletableFuture<T>> iniciada = new AtomicReference<>();
+			Mono<T> protegida = executar(Mono.defer(() -> {
+				// Inscrita à parte: o timeout cancela só a espera por ela
+				CompletableFuture<T> concluida = chamada.toFuture();
+				iniciada.set(concluida);
+				return Mono.fromFuture(concluida, true);
+			}));
+			return protegida
+					.doOnError(DependenciaIndisponivelException.class, e -> {
+						if (e.getCause() instanceof TimeoutException) {
+							compensarAtrasada(iniciada.get(), seAtrasada);
+						}
+					})
+					.doOnCancel(() -> compensarAtrasada(iniciada.get(), seAtrasada));
+		});
+	}
+
+	private <T> void compensarAtrasada(CompletableFuture<T> concluida, Consumer<? super T> seAtrasada) {
+		if (concluida == null) {
+			return;
+		}
+		concluida.thenAccept(resultado -> {
+			atrasadas.increment();
+			seAtrasada.accept(resultado);
+		});
+	}
+
+	private RuntimeException traduzir(Throwable falha) {
+		if (falha instanceof CallNotPermittedException) {
+			circuitoAberto.increment();
+			return new DependenciaIndisponivelException("Serviço de " + dependencia + " indisponível no momento.",
+					falha);
+		}
+		if (falha instanceof BulkheadFullException) {
+			sobrecarga.increment();
+			return new DependenciaIndisponivelException("Serviço de " + dependencia + " sobrecarregado.", falha);
+		}
+		if (falha instanceof TimeoutException) {
+			tempoEsgotado.increment();
+			return new DependenciaIndisponivelException("Serviço de " + dependencia + " não respondeu a tempo.",
+					falha);
+		}
+		if (falha instanceof RuntimeException e) {
+			return e;
+		}
+		if (falha instanceof Error e) {
+			throw e;
+		}
+		return new CompletionException(falha);
+	}
+
+	private Counter contador(MeterRegistry registry, String motivo) {
+		return Counter.builder("resiliencia.rejeicoes")
+				.description("Chamadas a serviços externos recusadas sem resposta")
+				.tag("dependencia", dependencia)
+				.tag("motivo", motivo)
+				.register(registry);
+	}
+}
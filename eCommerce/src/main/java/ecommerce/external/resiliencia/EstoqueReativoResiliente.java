@@ -0,0 +1,66 @@
+package ecommerce.external.resiliencia;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.IEstoqueExternalReativo;
+import ecommerce.external.Reserva;
+import reactor.core.publisher.Mono;
+
+// Estoque reativo com o circuit breaker e o prazo do estoque; ver ChamadaProtegida.
+// Respostas depois do prazo são tratadas como em EstoqueResiliente
+public class EstoqueReativoResiliente implements IEstoqueExternalReativo {
+
+	private static final Logger log = LoggerFactory.getLogger(EstoqueReativoResiliente.class);
+
+	private final IEstoqueExternalReativo estoque;
+	private final ChamadaProtegida chamada;
+
+	public EstoqueReativoResiliente(IEstoqueExternalReativo estoque, ChamadaProtegida chamada) {
+		this.estoque = estoque;
+		this.chamada = chamada;
+	}
+
+	@Override
+	public Mono<DisponibilidadeDTO> verificarDisponibilidade(LoteEstoque lote) {
+		return chamada.executar(Mono.defer(() -> estoque.verificarDisponibilidade(lote)));
+	}
+
+	@Override
+	public Mono<EstoqueBaixaDTO> darBaixa(LoteEstoque lote) {
+		return chamada.executar(Mono.defer(() -> estoque.darBaixa(lote)),
+				atrasada -> registrarBaixaAtrasada(atrasada, lote));
+	}
+
+	// Uma reserva feita depois do prazo não tem dono: o saldo volta na hora
+	@Override
+	public Mono<Reserva> reservar(LoteEstoque lote) {
+		return chamada.executar(Mono.defer(() -> estoque.reservar(lote)), atrasada -> {
+			if (atrasada != null) {
+				estoque.liberar(atrasada).subscribe(null,
+						e -> log.error("Falha ao liberar a reserva de {} feita após o prazo", lote, e));
+			}
+		});
+	}
+
+	@Override
+	public Mono<EstoqueBaixaDTO> confirmar(Reserva reserva) {
+		return chamada.executar(Mono.defer(() -> estoque.confirmar(reserva)),
+				atrasada -> registrarBaixaAtrasada(atrasada, reserva.itens()));
+	}
+
+	// Como em EstoqueResiliente, devolver o saldo não passa pelo circuit breaker
+	@Override
+	public Mono<Void> liberar(Reserva reserva) {
+		return Mono.defer(() -> estoque.liberar(reserva));
+	}
+
+	private static void registrarBaixaAtrasada(EstoqueBaixaDTO baixa, LoteEstoque lote) {
+		if (baixa != null && Boolean.TRUE.equals(baixa.sucesso())) {
+			log.error("Baixa de {} concluída após o prazo, com a compra já desfeita; reconciliar o estoque", lote);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package ecommerce.external.resiliencia;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.Reserva;
+
+// Estoque com bulkhead, prazo e circuit breaker; ver ChamadaProtegida
+public class EstoqueResiliente implements IEstoqueExternal {
+
+	private static final Logger log = LoggerFactory.getLogger(EstoqueResiliente.class);
+
+	private final IEstoqueExternal estoque;
+	private final ChamadaProtegida chamada;
+
+	public EstoqueResiliente(IEstoqueExternal estoque, ChamadaProtegida chamada) {
+		this.estoque = estoque;
+		this.chamada = chamada;
+	}
+
+	// Sem resposta no prazo, a compra é desfeita e o pagamento estornado; uma
+	// baixa que ainda aconteça depois não tem como ser devolvida por este
+	// contrato e fica registrada para reconciliação
+	@Override
+	public EstoqueBaixaDTO darBaixa(LoteEstoque lote) {
+		return chamada.executar(() -> estoque.darBaixa(lote), atrasada -> registrarBaixaAtrasada(atrasada, lote));
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(LoteEstoque lote) {
+		return chamada.executar(() -> estoque.verificarDisponibilidade(lote));
+	}
+
+	// Uma reserva feita depois do prazo não tem dono: o saldo volta na hora
+	@Override
+	public Reserva reservar(LoteEstoque lote) {
+		return chamada.executar(() -> estoque.reservar(lote), atrasada -> {
+			if (atrasada != null) {
+				estoque.liberar(atrasada);
+			}
+		});
+	}
+
+	@Override
+	public EstoqueBaixaDTO confirmar(Reserva reserva) {
+		return chamada.executar(() -> estoque.confirmar(reserva),
+				atrasada -> registrarBaixaAtrasada(atrasada, reserva.itens()));
+	}
+
+	// Devolver o saldo não passa pelo circuit breaker nem pelo bulkhead: recusada,
+	// a liberação deixaria as unidades presas na reserva
+	@Override
+	public void liberar(Reserva reserva) {
+		estoque.liberar(reserva);
+	}
+
+	private static void registrarBaixaAtrasada(EstoqueBaixaDTO baixa, LoteEstoque lote) {
+		if (baixa != null && Boolean.TRUE.equals(baixa.sucesso())) {
+			log.error("Baixa de {} concluída após o prazo, com a compra já desfeita; reconciliar o estoque", lote);
+		}
+	}
+}
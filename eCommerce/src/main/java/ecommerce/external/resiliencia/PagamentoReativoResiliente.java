@@ -0,0 +1,47 @@
+package ecommerce.external.resiliencia;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IPagamentoExternalReativo;
+import reactor.core.publisher.Mono;
+
+// Pagamento reativo com o circuit breaker e o prazo do pagamento; ver ChamadaProtegida
+public class PagamentoReativoResiliente implements IPagamentoExternalReativo {
+
+	private static final Logger log = LoggerFactory.getLogger(PagamentoReativoResiliente.class);
+
+	private final IPagamentoExternalReativo pagamento;
+	private final ChamadaProtegida chamada;
+
+	public PagamentoReativoResiliente(IPagamentoExternalReativo pagamento, ChamadaProtegida chamada) {
+		this.pagamento = pagamento;
+		this.chamada = chamada;
+	}
+
+	// Com o prazo esgotado, a compra segue sem esta autorização; se ela ainda
+	// for concedida depois, é cancelada
+	@Override
+	public Mono<PagamentoDTO> autorizarPagamento(Long clienteId, Double custoTotal) {
+		return chamada.executar(Mono.defer(() -> pagamento.autorizarPagamento(clienteId, custoTotal)),
+				atrasado -> cancelarAtrasado(clienteId, atrasado));
+	}
+
+	// O cancelamento desfaz uma cobrança: não passa pelo circuit breaker nem pelo
+	// prazo, que o recusariam justamente quando o serviço está lento
+	@Override
+	public Mono<Void> cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+		return Mono.defer(() -> pagamento.cancelarPagamento(clienteId, pagamentoTransacaoId));
+	}
+
+	private void cancelarAtrasado(Long clienteId, PagamentoDTO atrasado) {
+		if (atrasado == null || !Boolean.TRUE.equals(atrasado.autorizado())) {
+			return;
+		}
+		pagamento.cancelarPagamento(clienteId, atrasado.transacaoId())
+				.subscribe(null, e -> log.error(
+						"Autorização {} do cliente {} concluída após o prazo e não cancelada; reconciliar",
+						atrasado.transacaoId(), clienteId, e));
+	}
+}
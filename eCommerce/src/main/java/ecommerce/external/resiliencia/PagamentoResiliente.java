@@ -0,0 +1,62 @@
+package ecommerce.external.resiliencia;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ecommerce.dto.AutorizacaoPagamentoDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IPagamentoExternal;
+
+// Pagamento com bulkhead, prazo e circuit breaker; ver ChamadaProtegida
+public class PagamentoResiliente implements IPagamentoExternal {
+
+	private static final Logger log = LoggerFactory.getLogger(PagamentoResiliente.class);
+
+	private final IPagamentoExternal pagamento;
+	private final ChamadaProtegida chamada;
+
+	public PagamentoResiliente(IPagamentoExternal pagamento, ChamadaProtegida chamada) {
+		this.pagamento = pagamento;
+		this.chamada = chamada;
+	}
+
+	// Com o prazo esgotado, a compra segue sem esta autorização; se ela ainda
+	// for concedida depois, é cancelada
+	@Override
+	public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+		return chamada.executar(() -> pagamento.autorizarPagamento(clienteId, custoTotal),
+				atrasado -> cancelarAtrasado(clienteId, atrasado));
+	}
+
+	// O lote inteiro é uma chamada: um só prazo e uma só permissão do bulkhead
+	@Override
+	public List<PagamentoDTO> autorizarPagamentos(List<AutorizacaoPagamentoDTO> autorizacoes) {
+		return chamada.executar(() -> pagamento.autorizarPagamentos(autorizacoes), atrasados -> {
+			int resultados = atrasados == null ? 0 : Math.min(atrasados.size(), autorizacoes.size());
+			for (int i = 0; i < resultados; i++) {
+				cancelarAtrasado(autorizacoes.get(i).clienteId(), atrasados.get(i));
+			}
+		});
+	}
+
+	// O cancelamento desfaz uma cobrança: não passa pelo circuit breaker nem
+	// pelo bulkhead, que o recusariam justamente quando o serviço está lento
+	@Override
+	public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+		pagamento.cancelarPagamento(clienteId, pagamentoTransacaoId);
+	}
+
+	private void cancelarAtrasado(Long clienteId, PagamentoDTO atrasado) {
+		if (atrasado == null || !Boolean.TRUE.equals(atrasado.autorizado())) {
+			return;
+		}
+		try {
+			pagamento.cancelarPagamento(clienteId, atrasado.transacaoId());
+		} catch (RuntimeException e) {
+			log.error("Autorização {} do cliente {} concluída após o prazo e não cancelada; reconciliar",
+					atrasado.transacaoId(), clienteId, e);
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package ecommerce.limite;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Um balde de fichas por cliente: cada compra gasta uma ficha, o balde guarda
+ * até {@code rajada} fichas e recebe {@code taxa} fichas por segundo.
+ *
+ * Os baldes ficam em tabelas de endereçamento aberto com arrays de long (id
+ * do cliente, fichas em milésimos e instante da última recarga), sem um
+ * objeto por cliente. Cada cliente pertence a uma listra com sua própria
+ * trava e tabela. Um balde cheio é igual a um cliente que nunca comprou,
+ * então ao crescer a tabela os baldes já cheios são descartados: a tabela só
+ * guarda os clientes que compraram há menos de rajada / taxa segundos.
+ */
+final class BaldesDeFichas {
+
+	private static final long VAZIO = Long.MIN_VALUE;
+	private static final long MILESIMOS = 1000;
+	private static final int CAPACIDADE_INICIAL = 16;
+
+	private static final class Listra {
+		final ReentrantLock trava = new ReentrantLock();
+		long[] clientes = vazia(CAPACIDADE_INICIAL);
+		long[] fichas = new long[CAPACIDADE_INICIAL];
+		long[] recargas = new long[CAPACIDADE_INICIAL];
+		int tamanho;
+	}
+
+	private final long capacidade;
+	private final double milesimosPorNano;
+	private final long nanosParaEncher;
+	private final Listra[] listras;
+	private final int mascaraListras;
+
+	BaldesDeFichas(double taxa, int rajada, int listras) {
+		if (taxa <= 0 || rajada < 1) {
+			throw new IllegalArgumentException("Taxa e rajada por cliente devem ser positivas.");
+		}
+		this.capacidade = rajada * MILESIMOS;
+		this.milesimosPorNano = taxa * MILESIMOS / 1e9;
+		this.nanosParaEncher = (long) Math.ceil(capacidade / milesimosPorNano);
+
+		int totalListras = 1;
+		while (totalListras < listras) {
+			totalListras <<= 1;
+		}
+		this.listras = new Listra[totalListras];
+		for (int i = 0; i < totalListras; i++) {
+			this.listras[i] = new Listra();
+		}
+		this.mascaraListras = totalListras - 1;
+	}
+
+	// Gasta uma ficha do cliente, se houver
+	boolean tentar(long clienteId, long agoraNanos) {
+		long espalhado = espalhar(clienteId);
+		Listra listra = listras[(int) (espalhado >>> 32) & mascaraListras];
+		listra.trava.lock();
+		try {
+			int posicao = posicao(listra, clienteId, espalhado);
+			if (listra.clientes[posicao] == VAZIO) {
+				if ((listra.tamanho + 1) * 4 > listra.clientes.length * 3) {
+					reconstruir(listra, agoraNanos);
+					posicao = posicao(listra, clienteId, espalhado);
+				}
+				// Cliente novo começa com o balde cheio
+				listra.clientes[posicao] = clienteId;
+				listra.fichas[posicao] = capacidade;
+				listra.recargas[posicao] = agoraNanos;
+				listra.tamanho++;
+			} else {
+				recarregar(listra, posicao, agoraNanos);
+			}
+
+			if (listra.fichas[posicao] < MILESIMOS) {
+				return false;
+			}
+			listra.fichas[posicao] -= MILESIMOS;
+			return true;
+		} finally {
+			listra.trava.unlock();
+		}
+	}
+
+	// Clientes com balde guardado, somando as listras sem travar todas juntas
+	int clientes() {
+		int total = 0;
+		for (Listra listra : listras) {
+			listra.trava.lock();
+			try {
+				total += listra.tamanho;
+			} finally {
+				listra.trava.unlock();
+			}
+		}
+		return total;
+	}
+
+	private void recarregar(Listra listra, int posicao, long agoraNanos) {
+		long decorrido = agoraNanos - listra.recargas[posicao];
+		if (decorrido >= nanosParaEncher) {
+			listra.fichas[posicao] = capacidade;
+			listra.recargas[posicao] = agoraNanos;
+			return;
+		}
+		long ganho = (long) (decorrido * milesimosPorNano);
+		if (ganho > 0) {
+			listra.fichas[posicao] = Math.min(capacidade, listra.fichas[posicao] + ganho);
+			listra.recargas[posicao] = agoraNanos;
+		}
+	}
+
+	// Copia para uma tabela nova só os baldes que ainda não encheram; a tabela
+	// pode encolher se a maioria dos clientes parou de comprar
+	private void reconstruir(Listra listra, long agoraNanos) {
+		long[] clientes = listra.clientes;
+		long[] fichas = listra.fichas;
+		long[] recargas = listra.recargas;
+
+		int vivos = 0;
+		for (int i = 0; i < clientes.length; i++) {
+			if (clientes[i] != VAZIO && agoraNanos - recargas[i] < nanosParaEncher
+					&& fichas[i] + (long) ((agoraNanos - recargas[i]) * milesimosPorNano) < capacidade) {
+				vivos++;
+			} else {
+				clientes[i] = VAZIO;
+			}
+		}
+
+		int novaCapacidade = CAPACIDADE_INICIAL;
+		while ((vivos + 1) * 2 > novaCapacidade) {
+			novaCapacidade <<= 1;
+		}
+		listra.clientes = vazia(novaCapacidade);
+		listra.fichas = new long[novaCapacidade];
+		listra.recargas = new long[novaCapacidade];
+		listra.tamanho = vivos;
+		for (int i = 0; i < clientes.length; i++) {
+			if (clientes[i] != VAZIO) {
+				int posicao = posicao(listra, clientes[i], espalhar(clientes[i]));
+				listra.clientes[posicao] = clientes[i];
+				listra.fichas[posicao] = fichas[i];
+				listra.recargas[posicao] = recargas[i];
+			}
+		}
+	}
+
+	// Posição do cliente na tabela ou a primeira vazia da sequência de sondagem
+	private static int posicao(Listra listra, long clienteId, long espalhado) {
+		int mascara = listra.clientes.length - 1;
+		int posicao = (int) espalhado & mascara;
+		while (listra.clientes[posicao] != VAZIO && listra.clientes[posicao] != clienteId) {
+			posicao = (posicao + 1) & mascara;
+		}
+		return posicao;
+	}
+
+	private static long espalhar(long clienteId) {
+		return clienteId * 0x9E3779B97F4A7C15L;
+	}
+
+	private static long[] vazia(int capacidade) {
+		long[] clientes = new long[capacidade];
+		Arrays.fill(clientes, VAZIO);
+		return clientes;
+	}
+}
@@ -0,0 +1,111 @@
+package ecommerce.limite;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Controle de admissão de /finalizar e /v2/finalizar: um balde de fichas por cliente
+ * ({@link BaldesDeFichas}) e um limite global de finalizações simultâneas
+ * ajustado pela latência ({@link LimiteAdaptativo}).
+ *
+ * Uma requisição gasta primeiro a ficha do cliente e depois ocupa uma vaga no
+ * limite global; recusada pelo limite global, a ficha não volta. A vaga é
+ * liberada com a duração da finalização, que alimenta o limite. Assim, acima
+ * da capacidade as requisições excedentes são recusadas logo na entrada em
+ * vez de esperar na fila e atrasar as admitidas.
+ *
+ * Métricas: compra.admissao.limite, compra.admissao.em-andamento,
+ * compra.admissao.clientes e compra.admissao.recusadas (por motivo). O
+ * estado também sai no endpoint /actuator/admissao.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.compra.admissao.habilitado", havingValue = "true")
+public class ControleDeAdmissao {
+
+	public enum Decisao {
+		ADMITIDA, LIMITE_DO_CLIENTE, SOBRECARGA
+	}
+
+	public record Estado(int limite, int emAndamento, int clientes, double latenciaCurtaMs, double latenciaLongaMs,
+			long recusadasPorCliente, long recusadasPorSobrecarga) {
+	}
+
+	private final BaldesDeFichas baldes;
+	private final LimiteAdaptativo limite;
+	private final LongAdder recusadasPorCliente = new LongAdder();
+	private final LongAdder recusadasPorSobrecarga = new LongAdder();
+
+	@Autowired
+	public ControleDeAdmissao(@Value("${ecommerce.compra.admissao.cliente.taxa:5}") double taxaPorCliente,
+			@Value("${ecommerce.compra.admissao.cliente.rajada:10}") int rajadaPorCliente,
+			@Value("${ecommerce.compra.admissao.cliente.listras:64}") int listras,
+			@Value("${ecommerce.compra.admissao.limite-inicial:100}") int limiteInicial,
+			@Value("${ecommerce.compra.admissao.limite-minimo:10}") int limiteMinimo,
+			@Value("${ecommerce.compra.admissao.limite-maximo:1000}") int limiteMaximo,
+			@Value("${ecommerce.compra.admissao.tolerancia:1.5}") double tolerancia, MeterRegistry meterRegistry) {
+		this.baldes = new BaldesDeFichas(taxaPorCliente, rajadaPorCliente, listras);
+		this.limite = new LimiteAdaptativo(limiteInicial, limiteMinimo, limiteMaximo, tolerancia);
+
+		Gauge.builder("compra.admissao.limite", limite, LimiteAdaptativo::limite)
+				.description("Finalizações simultâneas admitidas no momento")
+				.register(meterRegistry);
+		Gauge.builder("compra.admissao.em-andamento", limite, LimiteAdaptativo::emAndamento)
+				.description("Finalizações admitidas ainda em andamento")
+				.register(meterRegistry);
+		Gauge.builder("compra.admissao.clientes", baldes, BaldesDeFichas::clientes)
+				.description("Clientes com balde de fichas ainda não cheio")
+				.register(meterRegistry);
+		FunctionCounter.builder("compra.admissao.recusadas", recusadasPorCliente, LongAdder::sum)
+				.description("Finalizações recusadas com 429")
+				.tag("motivo", "cliente")
+				.register(meterRegistry);
+		FunctionCounter.builder("compra.admissao.recusadas", recusadasPorSobrecarga, LongAdder::sum)
+				.description("Finalizações recusadas com 429")
+				.tag("motivo", "sobrecarga")
+				.register(meterRegistry);
+	}
+
+	// Controle sem métricas, para testes e benchmarks
+	public ControleDeAdmissao(double taxaPorCliente, int rajadaPorCliente, int limiteInicial, int limiteMinimo,
+			int limiteMaximo, double tolerancia) {
+		this(taxaPorCliente, rajadaPorCliente, 64, limiteInicial, limiteMinimo, limiteMaximo, tolerancia,
+				new CompositeMeterRegistry());
+	}
+
+	/**
+	 * Decide se a finalização do cliente entra agora. Só uma decisão ADMITIDA
+	 * ocupa vaga, e deve ser seguida de {@link #liberar}.
+	 */
+	public Decisao admitir(long clienteId) {
+		if (!baldes.tentar(clienteId, System.nanoTime())) {
+			recusadasPorCliente.increment();
+			return Decisao.LIMITE_DO_CLIENTE;
+		}
+		if (!limite.entrar()) {
+			recusadasPorSobrecarga.increment();
+			return Decisao.SOBRECARGA;
+		}
+		return Decisao.ADMITIDA;
+	}
+
+	public void liberar(long duracaoNanos) {
+		limite.sair(duracaoNanos);
+	}
+
+	public Estado estado() {
+		return new Estado(limite.limite(), limite.emAndamento(), baldes.clientes(),
+				limite.latenciaCurtaNanos() / TimeUnit.MILLISECONDS.toNanos(1),
+				limite.latenciaLongaNanos() / TimeUnit.MILLISECONDS.toNanos(1), recusadasPorCliente.sum(),
+				recusadasPorSobrecarga.sum());
+	}
+}
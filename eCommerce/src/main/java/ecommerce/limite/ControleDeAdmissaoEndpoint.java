@@ -0,0 +1,26 @@
+package ecommerce.limite;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Estado do controle de admissão em /actuator/admissao
+@Component
+@Endpoint(id = "admissao")
+@ConditionalOnProperty(name = "ecommerce.compra.admissao.habilitado", havingValue = "true")
+public class ControleDeAdmissaoEndpoint {
+
+	private final ControleDeAdmissao controle;
+
+	@Autowired
+	public ControleDeAdmissaoEndpoint(ControleDeAdmissao controle) {
+		this.controle = controle;
+	}
+
+	@ReadOperation
+	public ControleDeAdmissao.Estado estado() {
+		return controle.estado();
+	}
+}
@@ -0,0 +1,122 @@
+package ecommerce.limite;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limite de finalizações simultâneas ajustado pela latência observada, no
+ * estilo do algoritmo de gradiente (Gradient2) de limitadores de concorrência.
+ *
+ * Cada finalização concluída atualiza duas médias móveis da latência: uma
+ * curta (últimas ~{@value #JANELA_CURTA} amostras) e uma longa (~
+ * {@value #JANELA_LONGA}), que serve de referência. O gradiente é
+ * tolerancia * longa / curta, entre 0,5 e 1: enquanto a latência recente não
+ * passa de tolerancia vezes a referência, o limite cresce a cada amostra pela
+ * raiz do limite (a fila tolerada); quando passa, o limite encolhe na
+ * proporção. A mudança é suavizada e fica entre mínimo e máximo. Com menos da
+ * metade do limite em uso, a latência não diz nada sobre o limite, que então
+ * não muda.
+ */
+final class LimiteAdaptativo {
+
+	private static final int JANELA_CURTA = 10;
+	private static final int JANELA_LONGA = 600;
+	private static final double SUAVIZACAO = 0.2;
+
+	private final int minimo;
+	private final int maximo;
+	private final double tolerancia;
+
+	private final AtomicInteger emAndamento = new AtomicInteger();
+	private volatile double limite;
+
+	// Protege as médias e o recálculo do limite
+	private final ReentrantLock trava = new ReentrantLock();
+	private double latenciaCurta;
+	private double latenciaLonga;
+	private long amostras;
+
+	LimiteAdaptativo(int inicial, int minimo, int maximo, double tolerancia) {
+		if (minimo < 1 || minimo > maximo || inicial < minimo || inicial > maximo) {
+			throw new IllegalArgumentException("Limites de concorrência inválidos: inicial " + inicial + ", mínimo "
+					+ minimo + ", máximo " + maximo + ".");
+		}
+		if (tolerancia < 1) {
+			throw new IllegalArgumentException("A tolerância de latência deve ser ao menos 1.");
+		}
+		this.minimo = minimo;
+		this.maximo = maximo;
+		this.tolerancia = tolerancia;
+		this.limite = inicial;
+	}
+
+	// Ocupa uma vaga se o número em andamento ainda estiver abaixo do limite
+	boolean entrar() {
+		int atual = emAndamento.get();
+		while (atual < (int) limite) {
+			if (emAndamento.compareAndSet(atual, atual + 1)) {
+				return true;
+			}
+			atual = emAndamento.get();
+		}
+		return false;
+	}
+
+	// Libera a vaga e usa a duração da finalização para recalcular o limite
+	void sair(long latenciaNanos) {
+		int emUso = emAndamento.getAndDecrement();
+		trava.lock();
+		try {
+			atualizar(Math.max(latenciaNanos, 1), emUso);
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	int limite() {
+		return (int) limite;
+	}
+
+	int emAndamento() {
+		return emAndamento.get();
+	}
+
+	double latenciaCurtaNanos() {
+		trava.lock();
+		try {
+			return latenciaCurta;
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	double latenciaLongaNanos() {
+		trava.lock();
+		try {
+			return latenciaLonga;
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	private void atualizar(long latencia, int emUso) {
+		amostras++;
+		// Nas primeiras amostras as médias são aritméticas, sem pesar o zero inicial
+		latenciaCurta += (latencia - latenciaCurta) / Math.min(amostras, JANELA_CURTA);
+		latenciaLonga += (latencia - latenciaLonga) / Math.min(amostras, JANELA_LONGA);
+
+		// A latência caiu bem abaixo da referência: a referência acompanha mais rápido
+		if (latenciaLonga > 2 * latenciaCurta) {
+			latenciaLonga *= 0.95;
+		}
+
+		double atual = limite;
+		if (emUso * 2 < atual) {
+			return;
+		}
+		double gradiente = Math.max(0.5, Math.min(1.0, tolerancia * latenciaLonga / latenciaCurta));
+		double novo = atual * gradiente + Math.sqrt(atual);
+		novo = atual * (1 - SUAVIZACAO) + novo * SUAVIZACAO;
+		limite = Math.max(minimo, Math.min(maximo, novo));
+	}
+}
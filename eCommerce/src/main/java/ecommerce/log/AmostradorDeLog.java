@@ -0,0 +1,47 @@
+package ecommerce.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limita o log de detalhes por requisição a algumas mensagens por segundo.
+ *
+ * Quem loga pergunta antes com {@link #permitir()}; passado o limite da
+ * janela de um segundo, as mensagens são descartadas até a próxima janela. A
+ * contagem é aproximada na virada da janela. Depois de esgotado o limite, a
+ * consulta só lê o contador, então threads concorrentes não disputam a
+ * mesma linha de cache. Limite zero ou negativo desliga a amostragem.
+ */
+@Component
+public class AmostradorDeLog {
+
+	public static final int POR_SEGUNDO_PADRAO = 10;
+
+	private static final long JANELA_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final int porSegundo;
+	private final AtomicLong inicioJanela = new AtomicLong(System.nanoTime());
+	private final AtomicInteger registradas = new AtomicInteger();
+
+	@Autowired
+	public AmostradorDeLog(@Value("${ecommerce.log.amostragem.por-segundo:10}") int porSegundo) {
+		this.porSegundo = porSegundo;
+	}
+
+	public boolean permitir() {
+		if (porSegundo <= 0) {
+			return true;
+		}
+		long agora = System.nanoTime();
+		long inicio = inicioJanela.get();
+		if (agora - inicio >= JANELA_NANOS && inicioJanela.compareAndSet(inicio, agora)) {
+			registradas.set(0);
+		}
+		return registradas.get() < porSegundo && registradas.incrementAndGet() <= porSegundo;
+	}
+}
@@ -0,0 +1,114 @@
+package ecommerce.registro;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Um pedido no {@link RegistroDePedidos}: o carrinho, os itens com preço
+ * unitário, subtotal, desconto, frete, total, a transação de pagamento e o
+ * desfecho da finalização. Valores em centavos.
+ *
+ * Formato binário (big-endian), versão 1:
+ *
+ * <pre>
+ * byte versao | byte situacao | byte flags (bit 0: tem transacaoId)
+ * long instante (epoch ms) | long carrinhoId | long clienteId | long transacaoId
+ * long subtotal | long desconto | long frete | long total
+ * int itens | itens x (long produtoId, long quantidade, long precoUnitario)
+ * short bytes da mensagem | mensagem em UTF-8
+ * </pre>
+ */
+public record PedidoRegistrado(long instante, Situacao situacao, long carrinhoId, long clienteId, Long transacaoId,
+		long[] produtosIds, long[] quantidades, long[] precosCentavos, long subtotalCentavos, long descontoCentavos,
+		long freteCentavos, long totalCentavos, String mensagem) {
+
+	// CONCLUIDA: compra finalizada; RECUSADA: devolveu CompraDTO sem sucesso; ERRO: lançou exceção
+	public enum Situacao {
+		CONCLUIDA, RECUSADA, ERRO
+	}
+
+	private static final byte VERSAO = 1;
+	private static final byte TEM_TRANSACAO = 1;
+	private static final Situacao[] SITUACOES = Situacao.values();
+
+	// Posição do clienteId no registro, lida na reconstrução do índice sem decodificar o resto
+	static final int POSICAO_CLIENTE = 3 + 8 + 8;
+
+	private static final int TAMANHO_FIXO = 3 + 8 * 8 + 4 + 2;
+	private static final int TAMANHO_ITEM = 3 * 8;
+	private static final int TAMANHO_MAXIMO_MENSAGEM = Short.MAX_VALUE;
+
+	public PedidoRegistrado {
+		if (produtosIds.length != quantidades.length || produtosIds.length != precosCentavos.length) {
+			throw new IllegalArgumentException("Itens do pedido com tamanhos diferentes.");
+		}
+	}
+
+	public int totalItens() {
+		return produtosIds.length;
+	}
+
+	byte[] serializar() {
+		byte[] textoMensagem = mensagem == null ? new byte[0] : mensagem.getBytes(StandardCharsets.UTF_8);
+		int bytesMensagem = Math.min(textoMensagem.length, TAMANHO_MAXIMO_MENSAGEM);
+
+		ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_FIXO + produtosIds.length * TAMANHO_ITEM + bytesMensagem);
+		buffer.put(VERSAO)
+				.put((byte) situacao.ordinal())
+				.put(transacaoId != null ? TEM_TRANSACAO : 0)
+				.putLong(instante)
+				.putLong(carrinhoId)
+				.putLong(clienteId)
+				.putLong(transacaoId != null ? transacaoId : 0)
+				.putLong(subtotalCentavos)
+				.putLong(descontoCentavos)
+				.putLong(freteCentavos)
+				.putLong(totalCentavos)
+				.putInt(produtosIds.length);
+		for (int i = 0; i < produtosIds.length; i++) {
+			buffer.putLong(produtosIds[i]).putLong(quantidades[i]).putLong(precosCentavos[i]);
+		}
+		buffer.putShort((short) bytesMensagem).put(textoMensagem, 0, bytesMensagem);
+		return buffer.array();
+	}
+
+	static PedidoRegistrado ler(ByteBuffer buffer) {
+		byte versao = buffer.get();
+		if (versao != VERSAO) {
+			throw new IllegalStateException("Versão de registro de pedido desconhecida: " + versao);
+		}
+		Situacao situacao = SITUACOES[buffer.get()];
+		boolean temTransacao = (buffer.get() & TEM_TRANSACAO) != 0;
+		long instante = buffer.getLong();
+		long carrinhoId = buffer.getLong();
+		long clienteId = buffer.getLong();
+		long transacaoId = buffer.getLong();
+		long subtotal = buffer.getLong();
+		long desconto = buffer.getLong();
+		long frete = buffer.getLong();
+		long total = buffer.getLong();
+
+		int itens = buffer.getInt();
+		long[] produtosIds = new long[itens];
+		long[] quantidades = new long[itens];
+		long[] precos = new long[itens];
+		for (int i = 0; i < itens; i++) {
+			produtosIds[i] = buffer.getLong();
+			quantidades[i] = buffer.getLong();
+			precos[i] = buffer.getLong();
+		}
+		byte[] textoMensagem = new byte[buffer.getShort()];
+		buffer.get(textoMensagem);
+
+		return new PedidoRegistrado(instante, situacao, carrinhoId, clienteId, temTransacao ? transacaoId : null,
+				produtosIds, quantidades, precos, subtotal, desconto, frete, total,
+				new String(textoMensagem, StandardCharsets.UTF_8));
+	}
+
+	// Frações de centavo são arredondadas: o registro guarda o valor cobrado, não o cálculo
+	public static long centavos(BigDecimal valor) {
+		return valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+	}
+}
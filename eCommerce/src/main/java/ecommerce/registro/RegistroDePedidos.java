@@ -0,0 +1,219 @@
+package ecommerce.registro;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Registro durável dos pedidos finalizados (com sucesso ou não), em disco
+ * local e fora da transação JPA.
+ *
+ * Os pedidos são anexados a segmentos mapeados em memória
+ * ({@link SegmentoDoRegistro}) em diretorio/pedidos-N.log. A escrita só copia
+ * o registro para o mapa, então um pedido gravado sobrevive a uma queda do
+ * processo assim que registrar() retorna. A sincronização com o disco (fsync)
+ * é feita em grupo por uma thread a cada intervaloFsync, cobrindo todos os
+ * pedidos gravados no intervalo; numa queda do sistema operacional, perdem-se
+ * no máximo os pedidos desse último intervalo.
+ *
+ * Quando um pedido não cabe no segmento ativo, o segmento é sincronizado,
+ * selado com o índice por cliente em disco e um novo é criado. Na abertura,
+ * os segmentos selados carregam o índice e o último é relido até o primeiro
+ * registro incompleto.
+ *
+ * Métricas: pedidos.registro.gravados e pedidos.registro.fsync.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.pedidos.registro.habilitado", havingValue = "true")
+public class RegistroDePedidos implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(RegistroDePedidos.class);
+
+	private static final Pattern NOME_SEGMENTO = Pattern.compile("pedidos-(\\d{20})\\.log");
+
+	private final Path diretorio;
+	private final int tamanhoSegmento;
+
+	// Serializa a escrita e a leitura do segmento ativo e a rotação
+	private final ReentrantLock trava = new ReentrantLock();
+	private final List<SegmentoDoRegistro> selados = new CopyOnWriteArrayList<>();
+	private SegmentoDoRegistro ativo;
+
+	private final ScheduledExecutorService sincronizador;
+	private final long intervaloFsync;
+	private final Counter gravados;
+	private final Timer tempoFsync;
+
+	@Autowired
+	public RegistroDePedidos(@Value("${ecommerce.pedidos.registro.diretorio:pedidos}") Path diretorio,
+			@Value("${ecommerce.pedidos.registro.tamanho-segmento:64MB}") DataSize tamanhoSegmento,
+			@Value("${ecommerce.pedidos.registro.intervalo-fsync:10ms}") Duration intervaloFsync,
+			MeterRegistry meterRegistry) {
+		this.diretorio = diretorio;
+		this.tamanhoSegmento = Math.toIntExact(tamanhoSegmento.toBytes());
+		this.gravados = Counter.builder("pedidos.registro.gravados")
+				.description("Pedidos anexados ao registro")
+				.register(meterRegistry);
+		this.tempoFsync = Timer.builder("pedidos.registro.fsync")
+				.description("Duração de cada sincronização em grupo com o disco")
+				.publishPercentiles(0.5, 0.99)
+				.register(meterRegistry);
+
+		this.intervaloFsync = Math.max(intervaloFsync.toNanos(), 1);
+
+		abrir();
+
+		this.sincronizador = Executors.newSingleThreadScheduledExecutor(
+				new CustomizableThreadFactory("pedidos-registro-fsync-"));
+	}
+
+	// Registro sem métricas, para testes e benchmarks; o fsync periódico só
+	// começa com iniciar()
+	public RegistroDePedidos(Path diretorio, DataSize tamanhoSegmento, Duration intervaloFsync) {
+		this(diretorio, tamanhoSegmento, intervaloFsync, new CompositeMeterRegistry());
+	}
+
+	// Agenda o fsync em grupo. Fora do construtor, para a thread não ver o
+	// registro antes de construído; o Spring chama depois da injeção
+	@PostConstruct
+	public void iniciar() {
+		sincronizador.scheduleWithFixedDelay(this::sincronizar, intervaloFsync, intervaloFsync, TimeUnit.NANOSECONDS);
+	}
+
+	public void registrar(PedidoRegistrado pedido) {
+		// Serialização e CRC fora da trava: dentro dela só a cópia para o mapa
+		byte[] conteudo = pedido.serializar();
+		if (!SegmentoDoRegistro.cabeEmSegmentoVazio(conteudo.length, tamanhoSegmento)) {
+			throw new IllegalArgumentException("Pedido de " + conteudo.length
+					+ " bytes maior que o segmento do registro (" + tamanhoSegmento + " bytes).");
+		}
+		CRC32C crc = new CRC32C();
+		crc.update(conteudo);
+
+		trava.lock();
+		try {
+			if (!ativo.cabe(conteudo.length)) {
+				rolar();
+			}
+			ativo.anexar(conteudo, (int) crc.getValue(), pedido.clienteId());
+		} finally {
+			trava.unlock();
+		}
+		gravados.increment();
+	}
+
+	// Pedidos do cliente, do mais antigo para o mais recente
+	public List<PedidoRegistrado> buscarPorCliente(long clienteId) {
+		// Selados e ativo vêm da mesma vista: uma rotação no meio da busca não
+		// esconde o segmento que acabou de ser selado. O ativo muda a cada
+		// registro e é lido com a trava; os selados não mudam mais e são lidos fora
+		List<SegmentoDoRegistro> anteriores;
+		List<PedidoRegistrado> recentes = new ArrayList<>();
+		trava.lock();
+		try {
+			anteriores = List.copyOf(selados);
+			ativo.buscarPorCliente(clienteId, recentes);
+		} finally {
+			trava.unlock();
+		}
+		List<PedidoRegistrado> pedidos = new ArrayList<>();
+		for (SegmentoDoRegistro segmento : anteriores) {
+			segmento.buscarPorCliente(clienteId, pedidos);
+		}
+		pedidos.addAll(recentes);
+		return pedidos;
+	}
+
+	// Sincroniza com o disco tudo o que já foi gravado
+	public void sincronizar() {
+		SegmentoDoRegistro segmento;
+		int limite;
+		trava.lock();
+		try {
+			segmento = ativo;
+			limite = segmento.posicao();
+		} finally {
+			trava.unlock();
+		}
+		try {
+			tempoFsync.record(() -> segmento.sincronizar(limite));
+		} catch (RuntimeException e) {
+			// Próxima rodada tenta de novo a partir do mesmo ponto
+			log.error("Falha ao sincronizar o registro de pedidos", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		sincronizador.shutdown();
+		try {
+			sincronizador.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		sincronizar();
+	}
+
+	private void abrir() {
+		List<Long> numeros;
+		try {
+			Files.createDirectories(diretorio);
+			try (Stream<Path> arquivos = Files.list(diretorio)) {
+				numeros = arquivos.map(arquivo -> NOME_SEGMENTO.matcher(arquivo.getFileName().toString()))
+						.filter(Matcher::matches)
+						.map(nome -> Long.parseLong(nome.group(1)))
+						.sorted()
+						.toList();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Não foi possível abrir o registro de pedidos em " + diretorio, e);
+		}
+
+		if (numeros.isEmpty()) {
+			ativo = SegmentoDoRegistro.abrirAtivo(diretorio, 1, tamanhoSegmento);
+			return;
+		}
+		for (int i = 0; i < numeros.size() - 1; i++) {
+			selados.add(SegmentoDoRegistro.abrirSelado(diretorio, numeros.get(i)));
+		}
+		ativo = SegmentoDoRegistro.abrirAtivo(diretorio, numeros.get(numeros.size() - 1), tamanhoSegmento);
+		log.info("Registro de pedidos aberto em {} com {} segmentos", diretorio, numeros.size());
+	}
+
+	// Chamado com a trava: o próximo segmento só recebe pedidos depois que o atual está no disco
+	private void rolar() {
+		// Se a criação do próximo falhar, o atual continua ativo e a rotação é tentada de novo
+		SegmentoDoRegistro proximo = SegmentoDoRegistro.abrirAtivo(diretorio, ativo.numero() + 1, tamanhoSegmento);
+		ativo.selar();
+		selados.add(ativo);
+		ativo = proximo;
+	}
+}
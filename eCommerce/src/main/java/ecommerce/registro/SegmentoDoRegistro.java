@@ -0,0 +1,297 @@
+package ecommerce.registro;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Um arquivo do registro de pedidos, mapeado em memória.
+ *
+ * Cada registro é gravado como int tamanho, int CRC32C do conteúdo e o
+ * conteúdo. O arquivo é criado com o tamanho total do segmento, então o fim
+ * dos dados é o primeiro cabeçalho com tamanho zero; na abertura, um registro
+ * com CRC inválido (escrita interrompida) também encerra o segmento.
+ *
+ * O índice guarda pares (clienteId, posição) na ordem de escrita. Ao selar o
+ * segmento, os pares são ordenados por cliente e gravados no arquivo .idx ao
+ * lado, para que a abertura não precise reler os registros.
+ *
+ * Não é thread-safe: o {@link RegistroDePedidos} serializa escritas e leituras
+ * do segmento ativo. Um segmento selado só é lido.
+ */
+final class SegmentoDoRegistro {
+
+	private static final int CABECALHO = 8;
+	private static final int TAMANHO_ENTRADA_INDICE = 8 + 4;
+
+	private final long numero;
+	private final Path arquivo;
+	private final MappedByteBuffer mapa;
+	private final int capacidade;
+	// ReentrantLock em vez de synchronized: o force() pode rodar na thread de uma
+	// requisição (ao selar), e uma thread virtual presa em synchronized durante
+	// E/S prende também a thread portadora
+	private final ReentrantLock travaSincronizacao = new ReentrantLock();
+
+	private int posicao;
+	private int sincronizado;
+
+	private long[] clientes;
+	private int[] posicoes;
+	private int entradas;
+	private boolean selado;
+
+	private SegmentoDoRegistro(long numero, Path arquivo, MappedByteBuffer mapa, int capacidade) {
+		this.numero = numero;
+		this.arquivo = arquivo;
+		this.mapa = mapa;
+		this.capacidade = capacidade;
+		this.clientes = new long[64];
+		this.posicoes = new int[64];
+	}
+
+	static Path arquivo(Path diretorio, long numero) {
+		return diretorio.resolve(String.format("pedidos-%020d.log", numero));
+	}
+
+	// Cria ou reabre o segmento em que os próximos pedidos serão gravados
+	static SegmentoDoRegistro abrirAtivo(Path diretorio, long numero, int capacidade) {
+		Path arquivo = arquivo(diretorio, numero);
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			// Um segmento existente mantém o tamanho com que foi criado
+			int tamanho = (int) Math.max(canal.size(), capacidade);
+			MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+			SegmentoDoRegistro segmento = new SegmentoDoRegistro(numero, arquivo, mapa, tamanho);
+			segmento.recuperar();
+			return segmento;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Não foi possível abrir o segmento " + arquivo, e);
+		}
+	}
+
+	// Reabre, só para leitura, um segmento selado antes do último encerramento
+	static SegmentoDoRegistro abrirSelado(Path diretorio, long numero) {
+		Path arquivo = arquivo(diretorio, numero);
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+			int tamanho = (int) canal.size();
+			MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+			SegmentoDoRegistro segmento = new SegmentoDoRegistro(numero, arquivo, mapa, tamanho);
+			if (!segmento.carregarIndice()) {
+				// Sem .idx válido (encerramento durante a rotação): reconstrói a partir dos registros
+				segmento.recuperar();
+				segmento.ordenarIndice();
+				segmento.gravarIndice();
+			}
+			segmento.selado = true;
+			return segmento;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Não foi possível abrir o segmento " + arquivo, e);
+		}
+	}
+
+	long numero() {
+		return numero;
+	}
+
+	int posicao() {
+		return posicao;
+	}
+
+	boolean cabe(int tamanhoConteudo) {
+		return (long) posicao + CABECALHO + tamanhoConteudo <= capacidade;
+	}
+
+	static boolean cabeEmSegmentoVazio(int tamanhoConteudo, int capacidade) {
+		return (long) CABECALHO + tamanhoConteudo <= capacidade;
+	}
+
+	void anexar(byte[] conteudo, int crc, long clienteId) {
+		int inicio = posicao;
+		mapa.put(inicio + CABECALHO, conteudo);
+		mapa.putInt(inicio + 4, crc);
+		// O tamanho vai por último: até ele ser escrito, o registro não existe para a leitura
+		mapa.putInt(inicio, conteudo.length);
+		posicao = inicio + CABECALHO + conteudo.length;
+		indexar(clienteId, inicio);
+	}
+
+	// Força para o disco o que foi escrito até limite e ainda não foi sincronizado
+	void sincronizar(int limite) {
+		travaSincronizacao.lock();
+		try {
+			if (limite > sincronizado) {
+				mapa.force(sincronizado, limite - sincronizado);
+				sincronizado = limite;
+			}
+		} finally {
+			travaSincronizacao.unlock();
+		}
+	}
+
+	// Sincroniza o segmento inteiro e grava o índice ordenado; depois disso só é lido
+	void selar() {
+		sincronizar(posicao);
+		ordenarIndice();
+		gravarIndice();
+		selado = true;
+	}
+
+	void buscarPorCliente(long clienteId, List<PedidoRegistrado> pedidos) {
+		if (!selado) {
+			for (int i = 0; i < entradas; i++) {
+				if (clientes[i] == clienteId) {
+					pedidos.add(ler(posicoes[i]));
+				}
+			}
+			return;
+		}
+		int i = primeiraEntrada(clienteId);
+		for (; i < entradas && clientes[i] == clienteId; i++) {
+			pedidos.add(ler(posicoes[i]));
+		}
+	}
+
+	private PedidoRegistrado ler(int inicio) {
+		int tamanho = mapa.getInt(inicio);
+		return PedidoRegistrado.ler(mapa.slice(inicio + CABECALHO, tamanho));
+	}
+
+	// Percorre os registros válidos, reconstruindo o índice e a posição de escrita
+	private void recuperar() {
+		CRC32C crc = new CRC32C();
+		int inicio = 0;
+		while (inicio + CABECALHO <= capacidade) {
+			int tamanho = mapa.getInt(inicio);
+			if (tamanho <= 0 || (long) inicio + CABECALHO + tamanho > capacidade) {
+				break;
+			}
+			crc.reset();
+			crc.update(mapa.slice(inicio + CABECALHO, tamanho));
+			if ((int) crc.getValue() != mapa.getInt(inicio + 4)) {
+				break;
+			}
+			indexar(mapa.getLong(inicio + CABECALHO + PedidoRegistrado.POSICAO_CLIENTE), inicio);
+			inicio += CABECALHO + tamanho;
+		}
+		posicao = inicio;
+		sincronizado = inicio;
+
+		if (!mapa.isReadOnly() && inicio + CABECALHO <= capacidade && mapa.getInt(inicio) != 0) {
+			// Restos de uma escrita interrompida: zera a cauda para não confundir a próxima abertura
+			byte[] zeros = new byte[Math.min(capacidade - inicio, 1 << 16)];
+			for (int i = inicio; i < capacidade; i += zeros.length) {
+				mapa.put(i, zeros, 0, Math.min(zeros.length, capacidade - i));
+			}
+			mapa.force();
+		}
+	}
+
+	private void indexar(long clienteId, int inicio) {
+		if (entradas == clientes.length) {
+			clientes = Arrays.copyOf(clientes, entradas * 2);
+			posicoes = Arrays.copyOf(posicoes, entradas * 2);
+		}
+		clientes[entradas] = clienteId;
+		posicoes[entradas++] = inicio;
+	}
+
+	// Ordenação estável por cliente: os pedidos de um cliente continuam na ordem de escrita
+	private void ordenarIndice() {
+		Integer[] ordem = new Integer[entradas];
+		for (int i = 0; i < entradas; i++) {
+			ordem[i] = i;
+		}
+		long[] clientesAtuais = clientes;
+		Arrays.sort(ordem, Comparator.comparingLong(i -> clientesAtuais[i]));
+
+		long[] clientesOrdenados = new long[entradas];
+		int[] posicoesOrdenadas = new int[entradas];
+		for (int i = 0; i < entradas; i++) {
+			clientesOrdenados[i] = clientes[ordem[i]];
+			posicoesOrdenadas[i] = posicoes[ordem[i]];
+		}
+		clientes = clientesOrdenados;
+		posicoes = posicoesOrdenadas;
+	}
+
+	private int primeiraEntrada(long clienteId) {
+		int baixo = 0;
+		int alto = entradas;
+		while (baixo < alto) {
+			int meio = (baixo + alto) >>> 1;
+			if (clientes[meio] < clienteId) {
+				baixo = meio + 1;
+			} else {
+				alto = meio;
+			}
+		}
+		return baixo;
+	}
+
+	private Path arquivoIndice() {
+		String nome = arquivo.getFileName().toString();
+		return arquivo.resolveSibling(nome.substring(0, nome.length() - ".log".length()) + ".idx");
+	}
+
+	private void gravarIndice() {
+		ByteBuffer buffer = ByteBuffer.allocate(4 + entradas * TAMANHO_ENTRADA_INDICE);
+		buffer.putInt(entradas);
+		for (int i = 0; i < entradas; i++) {
+			buffer.putLong(clientes[i]).putInt(posicoes[i]);
+		}
+		buffer.flip();
+
+		// Grava num temporário e renomeia: um .idx existente está sempre completo
+		Path temporario = arquivoIndice().resolveSibling(arquivoIndice().getFileName() + ".tmp");
+		try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				canal.write(buffer);
+			}
+			canal.force(true);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Não foi possível gravar o índice de " + arquivo, e);
+		}
+		try {
+			Files.move(temporario, arquivoIndice(), StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Não foi possível gravar o índice de " + arquivo, e);
+		}
+	}
+
+	private boolean carregarIndice() throws IOException {
+		Path indice = arquivoIndice();
+		if (!Files.exists(indice)) {
+			return false;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indice));
+		if (buffer.remaining() < 4) {
+			return false;
+		}
+		int total = buffer.getInt();
+		if (total < 0 || buffer.remaining() != (long) total * TAMANHO_ENTRADA_INDICE) {
+			return false;
+		}
+		clientes = new long[Math.max(total, 1)];
+		posicoes = new int[Math.max(total, 1)];
+		for (int i = 0; i < total; i++) {
+			clientes[i] = buffer.getLong();
+			posicoes[i] = buffer.getInt();
+		}
+		entradas = total;
+		return true;
+	}
+}
@@ -1,15 +1,53 @@
 package ecommerce.repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ecommerce.entity.CarrinhoDeCompras;
 import ecommerce.entity.Cliente;
+import ecommerce.entity.TipoCliente;
 
 @Repository
 public interface CarrinhoDeComprasRepository extends JpaRepository<CarrinhoDeCompras, Long> {
 
+    // Carrega carrinho, itens e produtos em uma única consulta (evita N+1 na finalização)
+    @EntityGraph(attributePaths = { "cliente", "itens", "itens.produto" })
     Optional<CarrinhoDeCompras> findByIdAndCliente(Long id, Cliente cliente);
+
+    // Só carrinho e cliente: o resumo usa os totais mantidos e não precisa dos itens
+    @EntityGraph(attributePaths = { "cliente" })
+    Optional<CarrinhoDeCompras> findResumoByIdAndCliente(Long id, Cliente cliente);
+
+    // Versão do carrinho e tipo do cliente: a chave da cotação, numa linha só
+    interface VersaoDeCotacao {
+        Long getVersao();
+        TipoCliente getTipoCliente();
+    }
+
+    @Query("select c.versao as versao, cl.tipo as tipoCliente"
+            + " from CarrinhoDeCompras c join c.cliente cl"
+            + " where c.id = :carrinhoId and cl.id = :clienteId")
+    Optional<VersaoDeCotacao> findVersaoDeCotacao(@Param("carrinhoId") Long carrinhoId,
+            @Param("clienteId") Long clienteId);
+
+    // Uma linha por item (uma só, com os campos nulos, se o carrinho estiver vazio)
+    interface LinhaDeCotacao {
+        Long getProdutoId();
+        Long getQuantidade();
+        BigDecimal getPreco();
+        Integer getPeso();
+    }
+
+    // Só os valores que entram no preço, sem montar carrinho, itens nem produtos (cotação)
+    @Query("select p.id as produtoId, i.quantidade as quantidade, p.preco as preco, p.peso as peso"
+            + " from CarrinhoDeCompras c join c.cliente cl left join c.itens i left join i.produto p"
+            + " where c.id = :carrinhoId and cl.id = :clienteId")
+    List<LinhaDeCotacao> findLinhasDeCotacao(@Param("carrinhoId") Long carrinhoId, @Param("clienteId") Long clienteId);
 }
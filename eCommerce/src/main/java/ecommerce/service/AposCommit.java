@@ -0,0 +1,24 @@
+package ecommerce.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Executa a ação depois do commit da transação corrente, ou já, se não houver transação
+final class AposCommit {
+
+	private AposCommit() {
+	}
+
+	static void executar(Runnable acao) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			acao.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				acao.run();
+			}
+		});
+	}
+}
@@ -1,22 +1,167 @@
 package ecommerce.service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import ecommerce.dto.NovoCarrinhoDTO;
 import ecommerce.entity.CarrinhoDeCompras;
 import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
 import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.CarrinhoDeComprasRepository.LinhaDeCotacao;
+import ecommerce.repository.CarrinhoDeComprasRepository.VersaoDeCotacao;
+import ecommerce.repository.ProdutoRepository;
 
 @Service
 public class CarrinhoDeComprasService {
 	private final CarrinhoDeComprasRepository repository;
+	private final ClienteService clienteService;
+	private final ProdutoRepository produtoRepository;
 	
 	@Autowired
-	public CarrinhoDeComprasService(CarrinhoDeComprasRepository repository) {
+	public CarrinhoDeComprasService(CarrinhoDeComprasRepository repository, ClienteService clienteService,
+			ProdutoRepository produtoRepository) {
 		this.repository = repository;
+		this.clienteService = clienteService;
+		this.produtoRepository = produtoRepository;
 	}
 
+	@Transactional(readOnly = true)
 	public CarrinhoDeCompras buscarPorCarrinhoIdEClienteId(Long carrinhoId, Cliente cliente) {
 		return repository.findByIdAndCliente(carrinhoId, cliente).orElseThrow(() -> new IllegalArgumentException("Carrinho não encontrado."));
 	}
+
+	// Carrinho sem os itens, para o resumo pelos totais mantidos
+	@Transactional(readOnly = true)
+	public CarrinhoDeCompras buscarResumo(Long carrinhoId, Long clienteId) {
+		Cliente cliente = clienteService.buscarPorId(clienteId);
+		return repository.findResumoByIdAndCliente(carrinhoId, cliente)
+				.orElseThrow(() -> new IllegalArgumentException("Carrinho não encontrado."));
+	}
+
+	// Chave da cotação: só a linha do carrinho com o tipo do cliente
+	@Transactional(readOnly = true)
+	public VersaoDeCotacao buscarVersaoParaCotacao(Long carrinhoId, Long clienteId) {
+		return repository.findVersaoDeCotacao(carrinhoId, clienteId)
+				.orElseThrow(() -> new IllegalArgumentException("Carrinho não encontrado."));
+	}
+
+	// Valores que entram no preço do carrinho, sem carregar as entidades
+	@Transactional(readOnly = true)
+	public List<LinhaDeCotacao> buscarParaCotacao(Long carrinhoId, Long clienteId) {
+		List<LinhaDeCotacao> linhas = repository.findLinhasDeCotacao(carrinhoId, clienteId);
+		if (linhas.isEmpty()) {
+			throw new IllegalArgumentException("Carrinho não encontrado.");
+		}
+		return linhas;
+	}
+
+	/**
+	 * Cria os carrinhos numa só transação, com os totais já mantidos. Os produtos
+	 * de todos os carrinhos vêm de uma consulta, e os inserts de carrinhos e itens
+	 * seguem em lotes JDBC (hibernate.jdbc.batch_size). Quantidades do mesmo
+	 * produto num carrinho são somadas num só item.
+	 */
+	@Transactional
+	public List<CarrinhoDeCompras> criarCarrinhos(List<NovoCarrinhoDTO> novos) {
+		Set<Long> produtosIds = new HashSet<>();
+		for (NovoCarrinhoDTO novo : novos) {
+			if (novo.produtosIds().length != novo.quantidades().length) {
+				throw new IllegalArgumentException("produtosIds e quantidades devem ter o mesmo tamanho.");
+			}
+			for (int i = 0; i < novo.produtosIds().length; i++) {
+				validarQuantidade(novo.quantidades()[i]);
+				produtosIds.add(novo.produtosIds()[i]);
+			}
+		}
+		Map<Long, Produto> produtos = new HashMap<>();
+		for (Produto produto : produtoRepository.findAllById(produtosIds)) {
+			produtos.put(produto.getId(), produto);
+		}
+
+		Map<Long, Cliente> clientes = new HashMap<>();
+		List<CarrinhoDeCompras> carrinhos = new ArrayList<>(novos.size());
+		for (NovoCarrinhoDTO novo : novos) {
+			Map<Long, Long> quantidades = new LinkedHashMap<>();
+			for (int i = 0; i < novo.produtosIds().length; i++) {
+				quantidades.merge(novo.produtosIds()[i], novo.quantidades()[i], Long::sum);
+			}
+			List<ItemCompra> itens = new ArrayList<>(quantidades.size());
+			quantidades.forEach((produtoId, quantidade) -> {
+				Produto produto = produtos.get(produtoId);
+				if (produto == null) {
+					throw new IllegalArgumentException("Produto não encontrado: " + produtoId);
+				}
+				itens.add(new ItemCompra(null, produto, quantidade));
+			});
+			Cliente cliente = clientes.computeIfAbsent(novo.clienteId(), clienteService::buscarPorId);
+			CarrinhoDeCompras carrinho = new CarrinhoDeCompras(null, cliente, itens, LocalDate.now());
+			carrinho.recalcularTotais();
+			carrinhos.add(carrinho);
+		}
+		return repository.saveAll(carrinhos);
+	}
+
+	// As alterações de itens atualizam subtotal e peso total do carrinho na mesma transação
+
+	@Transactional
+	public CarrinhoDeCompras adicionarItem(Long carrinhoId, Long clienteId, Long produtoId, Long quantidade) {
+		validarQuantidade(quantidade);
+		CarrinhoDeCompras carrinho = buscarComItens(carrinhoId, clienteId);
+		Produto produto = produtoRepository.findById(produtoId)
+				.orElseThrow(() -> new IllegalArgumentException("Produto não encontrado."));
+		carrinho.adicionarItem(produto, quantidade);
+		return repository.save(carrinho);
+	}
+
+	@Transactional
+	public CarrinhoDeCompras alterarQuantidade(Long carrinhoId, Long clienteId, Long itemId, Long quantidade) {
+		validarQuantidade(quantidade);
+		CarrinhoDeCompras carrinho = buscarComItens(carrinhoId, clienteId);
+		carrinho.alterarQuantidade(buscarItem(carrinho, itemId), quantidade);
+		return repository.save(carrinho);
+	}
+
+	@Transactional
+	public CarrinhoDeCompras removerItem(Long carrinhoId, Long clienteId, Long itemId) {
+		CarrinhoDeCompras carrinho = buscarComItens(carrinhoId, clienteId);
+		carrinho.removerItem(buscarItem(carrinho, itemId));
+		return repository.save(carrinho);
+	}
+
+	// Reconstrói os totais com os preços atuais, depois de uma conferência divergente
+	@Transactional
+	public CarrinhoDeCompras recalcularTotais(Long carrinhoId, Long clienteId) {
+		CarrinhoDeCompras carrinho = buscarComItens(carrinhoId, clienteId);
+		carrinho.recalcularTotais();
+		return repository.save(carrinho);
+	}
+
+	private CarrinhoDeCompras buscarComItens(Long carrinhoId, Long clienteId) {
+		return buscarPorCarrinhoIdEClienteId(carrinhoId, clienteService.buscarPorId(clienteId));
+	}
+
+	private static ItemCompra buscarItem(CarrinhoDeCompras carrinho, Long itemId) {
+		return carrinho.getItens().stream()
+				.filter(item -> itemId.equals(item.getId()))
+				.findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Item não encontrado no carrinho."));
+	}
+
+	private static void validarQuantidade(Long quantidade) {
+		if (quantidade == null || quantidade <= 0) {
+			throw new IllegalArgumentException("A quantidade deve ser maior que zero.");
+		}
+	}
 }
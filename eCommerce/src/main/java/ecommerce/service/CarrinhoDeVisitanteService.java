@@ -0,0 +1,105 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import ecommerce.dto.CarrinhoDeVisitanteDTO;
+import ecommerce.dto.NovoCarrinhoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Produto;
+import ecommerce.visitante.CarrinhoDeVisitante;
+import ecommerce.visitante.CarrinhosDeVisitantes;
+
+/**
+ * Carrinhos de visitantes: preço e peso dos itens vêm do catálogo em memória,
+ * sem consultar o banco. No login, o carrinho vira um {@link CarrinhoDeCompras}
+ * do cliente, com os preços atuais e os totais mantidos.
+ */
+@Service
+@ConditionalOnProperty(name = "ecommerce.visitantes.carrinhos.habilitado", havingValue = "true")
+public class CarrinhoDeVisitanteService {
+
+	private final CarrinhosDeVisitantes carrinhos;
+	private final CatalogoProdutos catalogoProdutos;
+	private final CarrinhoDeComprasService carrinhoService;
+
+	@Autowired
+	public CarrinhoDeVisitanteService(CarrinhosDeVisitantes carrinhos, CatalogoProdutos catalogoProdutos,
+			CarrinhoDeComprasService carrinhoService) {
+		this.carrinhos = carrinhos;
+		this.catalogoProdutos = catalogoProdutos;
+		this.carrinhoService = carrinhoService;
+	}
+
+	public CarrinhoDeVisitanteDTO criar() {
+		return resumir(carrinhos.buscar(carrinhos.criar()));
+	}
+
+	public CarrinhoDeVisitanteDTO buscar(long carrinhoId) {
+		return resumir(carrinhos.buscar(carrinhoId));
+	}
+
+	public CarrinhoDeVisitanteDTO adicionarItem(long carrinhoId, long produtoId, long quantidade) {
+		validarQuantidade(quantidade);
+		CatalogoSnapshot catalogo = catalogoProdutos.snapshot();
+		carrinhos.adicionarItem(carrinhoId, produtoId, quantidade, preco(catalogo, produtoId),
+				catalogo.peso(produtoId));
+		return resumir(carrinhos.buscar(carrinhoId));
+	}
+
+	public CarrinhoDeVisitanteDTO alterarQuantidade(long carrinhoId, long produtoId, long quantidade) {
+		validarQuantidade(quantidade);
+		CatalogoSnapshot catalogo = catalogoProdutos.snapshot();
+		carrinhos.alterarQuantidade(carrinhoId, produtoId, quantidade, preco(catalogo, produtoId),
+				catalogo.peso(produtoId));
+		return resumir(carrinhos.buscar(carrinhoId));
+	}
+
+	public CarrinhoDeVisitanteDTO removerItem(long carrinhoId, long produtoId) {
+		carrinhos.removerItem(carrinhoId, produtoId);
+		return resumir(carrinhos.buscar(carrinhoId));
+	}
+
+	// O carrinho do visitante é reservado antes de gravar o do cliente, então dois
+	// logins simultâneos não criam dois carrinhos; se a gravação falhar, a
+	// reserva é desfeita e o visitante continua com o carrinho
+	public CarrinhoDeCompras materializar(long carrinhoId, Long clienteId) {
+		CarrinhoDeVisitante visitante = carrinhos.reservar(carrinhoId);
+		CarrinhoDeCompras carrinho;
+		try {
+			carrinho = carrinhoService.criarCarrinhos(List.of(
+					new NovoCarrinhoDTO(clienteId, visitante.produtosIds(), visitante.quantidades()))).get(0);
+		} catch (RuntimeException e) {
+			carrinhos.cancelarReserva(carrinhoId);
+			throw e;
+		}
+		carrinhos.remover(carrinhoId);
+		return carrinho;
+	}
+
+	private static long preco(CatalogoSnapshot catalogo, long produtoId) {
+		long preco = catalogo.precoEmCentavos(produtoId);
+		if (preco == CatalogoSnapshot.AUSENTE) {
+			throw new IllegalArgumentException("Produto não encontrado.");
+		}
+		if (preco == Produto.PRECO_SEM_CENTAVOS_EXATOS) {
+			throw new IllegalArgumentException("Produto com preço em frações de centavo.");
+		}
+		return preco;
+	}
+
+	private static CarrinhoDeVisitanteDTO resumir(CarrinhoDeVisitante carrinho) {
+		return new CarrinhoDeVisitanteDTO(carrinho.id(), carrinho.produtosIds(), carrinho.quantidades(),
+				BigDecimal.valueOf(carrinho.subtotalEmCentavos(), 2), carrinho.pesoTotal(), null);
+	}
+
+	private static void validarQuantidade(long quantidade) {
+		if (quantidade <= 0) {
+			throw new IllegalArgumentException("A quantidade deve ser maior que zero.");
+		}
+	}
+}
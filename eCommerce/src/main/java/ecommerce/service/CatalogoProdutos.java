@@ -0,0 +1,102 @@
+package ecommerce.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import ecommerce.entity.Produto;
+import ecommerce.repository.ProdutoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Mantém o {@link CatalogoSnapshot} atual. Leitores obtêm a versão publicada
+ * sem bloqueio; escritas são serializadas e publicam uma nova versão de uma vez.
+ *
+ * A carga inicial lê o banco fora da trava, enquanto as escritas do
+ * {@link ProdutoCatalogoListener} já chegam. Os produtos alterados ou
+ * removidos durante a leitura ficam anotados e a carga não os aplica: a
+ * versão do listener é a mais nova.
+ */
+@Component
+public class CatalogoProdutos {
+
+	private final ProdutoRepository repository;
+	private final MeterRegistry meterRegistry;
+
+	private volatile CatalogoSnapshot atual = CatalogoSnapshot.VAZIO;
+
+	// Ids escritos pelo listener durante a carga inicial; null fora dela
+	private Set<Long> alteradosDuranteCarga;
+
+	@Autowired
+	public CatalogoProdutos(ProdutoRepository repository, MeterRegistry meterRegistry) {
+		this.repository = repository;
+		this.meterRegistry = meterRegistry;
+	}
+
+	// Catálogo sem carga inicial nem métricas, para testes e benchmarks
+	public CatalogoProdutos() {
+		this.repository = null;
+		this.meterRegistry = null;
+	}
+
+	// Fora do construtor, para os gauges não verem o catálogo antes de construído
+	@PostConstruct
+	void registrarMetricas() {
+		if (meterRegistry == null) {
+			return;
+		}
+		Gauge.builder("catalogo.produtos.tamanho", this, c -> c.snapshot().tamanho()).register(meterRegistry);
+		Gauge.builder("catalogo.produtos.versao", this, c -> c.snapshot().versao()).register(meterRegistry);
+		Gauge.builder("catalogo.produtos.memoria", this, c -> c.snapshot().bytesEstimados())
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+
+	public CatalogoSnapshot snapshot() {
+		return atual;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void carregar() {
+		synchronized (this) {
+			alteradosDuranteCarga = new HashSet<>();
+		}
+		List<Produto> produtos = repository.findAll();
+		synchronized (this) {
+			Set<Long> alterados = alteradosDuranteCarga;
+			alteradosDuranteCarga = null;
+			if (!alterados.isEmpty()) {
+				produtos = produtos.stream().filter(produto -> !alterados.contains(produto.getId())).toList();
+			}
+			atual = atual.comAlteracoes(produtos, List.of());
+		}
+	}
+
+	public void atualizar(Produto produto) {
+		atualizar(List.of(produto));
+	}
+
+	public synchronized void atualizar(List<Produto> produtos) {
+		if (alteradosDuranteCarga != null) {
+			for (Produto produto : produtos) {
+				alteradosDuranteCarga.add(produto.getId());
+			}
+		}
+		atual = atual.comAlteracoes(produtos, List.of());
+	}
+
+	public synchronized void remover(Long produtoId) {
+		if (alteradosDuranteCarga != null) {
+			alteradosDuranteCarga.add(produtoId);
+		}
+		atual = atual.comAlteracoes(List.of(), List.of(produtoId));
+	}
+}
@@ -0,0 +1,222 @@
+package ecommerce.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Cópia imutável de preço, peso e tipo dos produtos, indexada pelo id.
+ *
+ * Os dados ficam em arrays primitivos (struct-of-arrays) divididos em páginas
+ * de {@value #TAMANHO_PAGINA} ids. Uma nova versão copia só a tabela de
+ * páginas e as páginas alteradas; as demais são compartilhadas com a versão
+ * anterior. Cada produto ocupa 13 bytes (long + int + byte), cerca de 13 MB
+ * por milhão de produtos com ids contíguos.
+ *
+ * Ids a partir de {@link #LIMITE_PAGINADO} ficam num mapa à parte, copiado
+ * inteiro a cada versão que o altera: um id grande ou esparso não aumenta a
+ * tabela de páginas, que tem no máximo LIMITE_PAGINADO / TAMANHO_PAGINA
+ * posições.
+ */
+public final class CatalogoSnapshot {
+
+	// Preço de um id que não está no catálogo
+	public static final long AUSENTE = Long.MIN_VALUE + 1;
+
+	static final int TAMANHO_PAGINA = 4096;
+	private static final int BITS_PAGINA = 12;
+	private static final int MASCARA_PAGINA = TAMANHO_PAGINA - 1;
+	static final long LIMITE_PAGINADO = 1L << 26;
+	// Estimativa de um Long, um Esparso e a entrada do HashMap
+	private static final int BYTES_POR_ESPARSO = 96;
+
+	private static final TipoProduto[] TIPOS = TipoProduto.values();
+	private static final byte SEM_TIPO = 0;
+
+	public static final CatalogoSnapshot VAZIO = new CatalogoSnapshot(new Pagina[0], Map.of(), 0, 0);
+
+	private static final class Pagina {
+		final long[] precos;
+		final int[] pesos;
+		final byte[] tipos; // ordinal + 1, ou SEM_TIPO
+
+		Pagina() {
+			precos = new long[TAMANHO_PAGINA];
+			pesos = new int[TAMANHO_PAGINA];
+			tipos = new byte[TAMANHO_PAGINA];
+			Arrays.fill(precos, AUSENTE);
+		}
+
+		Pagina(Pagina original) {
+			precos = original.precos.clone();
+			pesos = original.pesos.clone();
+			tipos = original.tipos.clone();
+		}
+	}
+
+	private record Esparso(long preco, int peso, byte tipo) {
+	}
+
+	private final Pagina[] paginas;
+	private final Map<Long, Esparso> esparsos;
+	private final long versao;
+	private final int tamanho;
+
+	private CatalogoSnapshot(Pagina[] paginas, Map<Long, Esparso> esparsos, long versao, int tamanho) {
+		this.paginas = paginas;
+		this.esparsos = esparsos;
+		this.versao = versao;
+		this.tamanho = tamanho;
+	}
+
+	public long versao() {
+		return versao;
+	}
+
+	public int tamanho() {
+		return tamanho;
+	}
+
+	public boolean contem(long produtoId) {
+		return precoEmCentavos(produtoId) != AUSENTE;
+	}
+
+	// Preço em centavos, AUSENTE, ou Produto.PRECO_SEM_CENTAVOS_EXATOS
+	public long precoEmCentavos(long produtoId) {
+		if (produtoId >= LIMITE_PAGINADO) {
+			Esparso esparso = esparsos.get(produtoId);
+			return esparso == null ? AUSENTE : esparso.preco();
+		}
+		Pagina pagina = pagina(produtoId);
+		return pagina == null ? AUSENTE : pagina.precos[(int) (produtoId & MASCARA_PAGINA)];
+	}
+
+	public int peso(long produtoId) {
+		if (produtoId >= LIMITE_PAGINADO) {
+			Esparso esparso = esparsos.get(produtoId);
+			return esparso == null ? 0 : esparso.peso();
+		}
+		Pagina pagina = pagina(produtoId);
+		return pagina == null ? 0 : pagina.pesos[(int) (produtoId & MASCARA_PAGINA)];
+	}
+
+	public TipoProduto tipo(long produtoId) {
+		if (produtoId >= LIMITE_PAGINADO) {
+			Esparso esparso = esparsos.get(produtoId);
+			return esparso == null ? null : tipo(esparso.tipo());
+		}
+		Pagina pagina = pagina(produtoId);
+		return pagina == null ? null : tipo(pagina.tipos[(int) (produtoId & MASCARA_PAGINA)]);
+	}
+
+	// Bytes ocupados pelos arrays das páginas (sem contar o cabeçalho dos objetos)
+	public long bytesEstimados() {
+		long paginasAlocadas = Arrays.stream(paginas).filter(p -> p != null).count();
+		return paginasAlocadas * TAMANHO_PAGINA * (Long.BYTES + Integer.BYTES + Byte.BYTES)
+				+ (long) paginas.length * 8 + (long) esparsos.size() * BYTES_POR_ESPARSO;
+	}
+
+	private static TipoProduto tipo(byte tipo) {
+		return tipo == SEM_TIPO ? null : TIPOS[tipo - 1];
+	}
+
+	private static byte codigo(TipoProduto tipo) {
+		return tipo == null ? SEM_TIPO : (byte) (tipo.ordinal() + 1);
+	}
+
+	private Pagina pagina(long produtoId) {
+		if (produtoId < 0) {
+			return null;
+		}
+		long indice = produtoId >>> BITS_PAGINA;
+		return indice < paginas.length ? paginas[(int) indice] : null;
+	}
+
+	/**
+	 * Cria a próxima versão com os produtos alterados e os ids removidos. Produtos
+	 * sem id, preço ou peso ficam fora do catálogo e são lidos da entidade.
+	 */
+	public CatalogoSnapshot comAlteracoes(Collection<Produto> alterados, Collection<Long> removidos) {
+		long maiorId = -1;
+		for (Produto produto : alterados) {
+			if (produto.getId() != null && produto.getId() < LIMITE_PAGINADO) {
+				maiorId = Math.max(maiorId, produto.getId());
+			}
+		}
+		int totalPaginas = maiorId < 0 ? paginas.length
+				: Math.max(paginas.length, (int) ((maiorId >>> BITS_PAGINA) + 1));
+
+		Pagina[] novasPaginas = Arrays.copyOf(paginas, totalPaginas);
+		boolean[] copiadas = new boolean[totalPaginas];
+		Map<Long, Esparso> novosEsparsos = esparsos;
+		int novoTamanho = tamanho;
+
+		for (Long produtoId : removidos) {
+			if (produtoId != null && produtoId >= LIMITE_PAGINADO) {
+				if (esparsos.containsKey(produtoId)) {
+					novosEsparsos = paraEscrita(novosEsparsos);
+					novoTamanho -= novosEsparsos.remove(produtoId) != null ? 1 : 0;
+				}
+			} else if (produtoId != null && contem(produtoId)) {
+				Pagina pagina = paginaParaEscrita(novasPaginas, copiadas, produtoId);
+				pagina.precos[(int) (produtoId & MASCARA_PAGINA)] = AUSENTE;
+				novoTamanho--;
+			}
+		}
+
+		for (Produto produto : alterados) {
+			Long produtoId = produto.getId();
+			if (produtoId == null || produtoId < 0) {
+				continue;
+			}
+			if (produtoId >= LIMITE_PAGINADO) {
+				novosEsparsos = paraEscrita(novosEsparsos);
+				Esparso anterior = produto.getPreco() == null || produto.getPeso() == null
+						? novosEsparsos.remove(produtoId)
+						: novosEsparsos.put(produtoId, new Esparso(produto.getPrecoEmCentavos(), produto.getPeso(),
+								codigo(produto.getTipo())));
+				novoTamanho += (novosEsparsos.containsKey(produtoId) ? 1 : 0) - (anterior != null ? 1 : 0);
+				continue;
+			}
+			boolean existia = precoAtual(novasPaginas, produtoId) != AUSENTE;
+			Pagina pagina = paginaParaEscrita(novasPaginas, copiadas, produtoId);
+			int posicao = (int) (produtoId & MASCARA_PAGINA);
+
+			if (produto.getPreco() == null || produto.getPeso() == null) {
+				pagina.precos[posicao] = AUSENTE;
+				novoTamanho -= existia ? 1 : 0;
+				continue;
+			}
+			pagina.precos[posicao] = produto.getPrecoEmCentavos();
+			pagina.pesos[posicao] = produto.getPeso();
+			pagina.tipos[posicao] = codigo(produto.getTipo());
+			novoTamanho += existia ? 0 : 1;
+		}
+
+		return new CatalogoSnapshot(novasPaginas, novosEsparsos, versao + 1, novoTamanho);
+	}
+
+	// Copia o mapa na primeira escrita, para não alterar a versão publicada
+	private Map<Long, Esparso> paraEscrita(Map<Long, Esparso> novosEsparsos) {
+		return novosEsparsos == esparsos ? new HashMap<>(esparsos) : novosEsparsos;
+	}
+
+	private static long precoAtual(Pagina[] paginas, long produtoId) {
+		Pagina pagina = paginas[(int) (produtoId >>> BITS_PAGINA)];
+		return pagina == null ? AUSENTE : pagina.precos[(int) (produtoId & MASCARA_PAGINA)];
+	}
+
+	// Copia a página na primeira escrita, para não alterar a versão publicada
+	private static Pagina paginaParaEscrita(Pagina[] paginas, boolean[] copiadas, long produtoId) {
+		int indice = (int) (produtoId >>> BITS_PAGINA);
+		if (!copiadas[indice]) {
+			paginas[indice] = paginas[indice] == null ? new Pagina() : new Pagina(paginas[indice]);
+			copiadas[indice] = true;
+		}
+		return paginas[indice];
+	}
+}
@@ -0,0 +1,92 @@
+package ecommerce.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.entity.Cliente;
+import ecommerce.entity.TipoCliente;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache limitado de clientes usado por {@link ClienteService#buscarPorId}.
+ *
+ * Guarda cópias imutáveis dos dados e devolve uma nova instância de
+ * {@link Cliente} a cada acerto, então nenhum chamador altera o que está em
+ * cache. Acertos, falhas e remoções aparecem no actuator como métricas
+ * "cache.*" com a tag cache=clientes.
+ *
+ * Uma leitura do banco só entra no cache se nenhum cliente foi atualizado
+ * desde que ela começou ({@link #geracao}) e se a entrada ainda estiver vazia:
+ * assim uma leitura antiga, do primário ou da réplica atrasada, não sobrescreve
+ * o valor gravado por {@link #atualizar}.
+ */
+@Component
+public class ClienteCache {
+
+	private record ClienteEmCache(Long id, String nome, String endereco, TipoCliente tipo) {
+
+		Cliente paraCliente() {
+			return new Cliente(id, nome, endereco, tipo);
+		}
+	}
+
+	private final Cache<Long, ClienteEmCache> cache;
+	private final AtomicLong geracao = new AtomicLong();
+
+	@Autowired
+	public ClienteCache(@Value("${ecommerce.cliente.cache.tamanho-maximo:10000}") long tamanhoMaximo,
+			@Value("${ecommerce.cliente.cache.ttl:10m}") Duration ttl, MeterRegistry meterRegistry) {
+		this(tamanhoMaximo, ttl);
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "clientes");
+	}
+
+	public ClienteCache(long tamanhoMaximo, Duration ttl) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+	}
+
+	// Retorna uma cópia do cliente em cache, ou null se não estiver em cache
+	public Cliente buscar(Long clienteId) {
+		ClienteEmCache emCache = cache.getIfPresent(clienteId);
+		return emCache == null ? null : emCache.paraCliente();
+	}
+
+	// Marca o início de uma leitura do banco, a ser passada a guardar
+	public long geracao() {
+		return geracao.get();
+	}
+
+	// Guarda o cliente lido do banco, a menos que algum cliente tenha sido
+	// atualizado desde o início da leitura ou a entrada já esteja preenchida
+	public void guardar(Cliente cliente, long geracaoDaLeitura) {
+		if (geracao.get() == geracaoDaLeitura) {
+			cache.asMap().putIfAbsent(cliente.getId(), emCache(cliente));
+		}
+	}
+
+	// Substitui a entrada pelo cliente já gravado, descartando leituras em andamento
+	public void atualizar(Cliente cliente) {
+		geracao.incrementAndGet();
+		cache.put(cliente.getId(), emCache(cliente));
+	}
+
+	public void invalidar(Long clienteId) {
+		geracao.incrementAndGet();
+		cache.invalidate(clienteId);
+	}
+
+	private static ClienteEmCache emCache(Cliente cliente) {
+		return new ClienteEmCache(cliente.getId(), cliente.getNome(), cliente.getEndereco(), cliente.getTipo());
+	}
+}
@@ -2,6 +2,7 @@ package ecommerce.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import ecommerce.entity.Cliente;
 import ecommerce.repository.ClienteRepository;
@@ -10,14 +11,36 @@ import ecommerce.repository.ClienteRepository;
 public class ClienteService {
 	
 	private final ClienteRepository repository;
+	private final ClienteCache cache;
 	
 	@Autowired
-	public ClienteService(ClienteRepository repository) {
+	public ClienteService(ClienteRepository repository, ClienteCache cache) {
 		this.repository = repository;
+		this.cache = cache;
 	}
 
+	@Transactional(readOnly = true)
 	public Cliente buscarPorId(Long clienteId) {
-		return repository.findById(clienteId).orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+		Cliente cliente = cache.buscar(clienteId);
+		if (cliente != null) {
+			return cliente;
+		}
+
+		long geracao = cache.geracao();
+		cliente = repository.findById(clienteId).orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+		cache.guardar(cliente, geracao);
+		return cliente;
+	}
+
+	// Toda alteração de cliente deve passar por aqui para atualizar o cache. A
+	// entrada só muda depois do commit: antes dele uma leitura concorrente
+	// recarregaria a linha antiga. O valor gravado vai direto para o cache em
+	// vez de ser relido, o que a réplica atrasada poderia devolver desatualizado.
+	@Transactional
+	public Cliente salvar(Cliente cliente) {
+		Cliente salvo = repository.save(cliente);
+		AposCommit.executar(() -> cache.atualizar(salvo));
+		return salvo;
 	}
 
 }
@@ -0,0 +1,191 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.DependenciaIndisponivelException;
+import ecommerce.external.IEstoqueExternalReativo;
+import ecommerce.external.IPagamentoExternalReativo;
+import ecommerce.external.Reserva;
+import ecommerce.external.promocao.Admissao;
+import ecommerce.external.promocao.VendaRelampago;
+import ecommerce.registro.PedidoRegistrado.Situacao;
+import ecommerce.service.MetricasDeCompra.Etapa;
+import ecommerce.service.MetricasDeCompra.Resultado;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Finalização de compra sem bloqueio, para POST /v2/finalizar. Mesmas etapas,
+ * respostas e métricas do modo SEQUENCIAL de {@link CompraService}, mas
+ * estoque e pagamento são chamados pelos contratos reativos: enquanto esperam,
+ * nenhuma thread fica parada.
+ *
+ * A única parte bloqueante, a leitura de cliente e carrinho via JPA, roda no
+ * compraJpaScheduler, limitado ao tamanho do pool de conexões, numa transação
+ * readOnly; o carrinho sai dela com itens e produtos já carregados. Com a fila
+ * desse scheduler cheia, a compra é recusada na hora. O agrupador de
+ * pagamentos e o modo PIPELINE não se aplicam aqui.
+ *
+ * Com a venda relâmpago habilitada, a compra toma os ingressos dos produtos
+ * em promoção antes do estoque e do pagamento, como em /finalizar, e os
+ * devolve se não chegar à baixa. Aqui, porém, nenhuma compra passa pela fila
+ * do produto de {@link VendaRelampago}, cuja thread bloqueia esperando o
+ * estoque: todas reservam e confirmam direto no estoque reativo.
+ */
+@Service
+public class CompraReativaService {
+
+	private record Carregado(Cliente cliente, CarrinhoDeCompras carrinho) {
+	}
+
+	private final CompraService compraService;
+	private final CarrinhoDeComprasService carrinhoService;
+	private final IEstoqueExternalReativo estoqueExternal;
+	private final IPagamentoExternalReativo pagamentoExternal;
+	private final Scheduler jpaScheduler;
+	private final TransactionTemplate leitura;
+	private final MetricasDeCompra metricas;
+	private final VendaRelampago vendaRelampago;
+
+	@Autowired
+	public CompraReativaService(CompraService compraService, CarrinhoDeComprasService carrinhoService,
+			IEstoqueExternalReativo estoqueExternal, IPagamentoExternalReativo pagamentoExternal,
+			@Qualifier("compraJpaScheduler") Scheduler jpaScheduler, PlatformTransactionManager transactionManager,
+			MetricasDeCompra metricas, @Nullable VendaRelampago vendaRelampago) {
+		this.compraService = compraService;
+		this.carrinhoService = carrinhoService;
+		this.estoqueExternal = estoqueExternal;
+		this.pagamentoExternal = pagamentoExternal;
+		this.jpaScheduler = jpaScheduler;
+		this.leitura = new TransactionTemplate(transactionManager);
+		this.leitura.setReadOnly(true);
+		this.metricas = metricas;
+		this.vendaRelampago = vendaRelampago;
+	}
+
+	public Mono<CompraDTO> finalizarCompra(Long carrinhoId, Long clienteId) {
+		return Mono.defer(() -> {
+			long inicio = System.nanoTime();
+			return carregar(carrinhoId, clienteId)
+					.doOnError(e -> metricas.registrarFinalizacao(null, Resultado.ERRO, System.nanoTime() - inicio))
+					.flatMap(carregado -> {
+						TipoCliente tipo = carregado.cliente().getTipo();
+						return finalizar(carregado.cliente(), tipo, carregado.carrinho())
+								.doOnSuccess(compra -> metricas.registrarFinalizacao(tipo, compra,
+										System.nanoTime() - inicio))
+								.doOnError(e -> metricas.registrarFinalizacao(tipo, Resultado.ERRO,
+										System.nanoTime() - inicio));
+					})
+					.onErrorResume(RejectedExecutionException.class,
+							e -> Mono.just(CompraDTO.indisponivel("Sistema sobrecarregado, tente novamente.")));
+		});
+	}
+
+	private Mono<Carregado> carregar(Long carrinhoId, Long clienteId) {
+		return Mono.fromCallable(() -> leitura.execute(status -> {
+			Cliente cliente = compraService.buscarCliente(clienteId);
+			TipoCliente tipo = cliente == null ? null : cliente.getTipo();
+			CarrinhoDeCompras carrinho = metricas.medir(Etapa.CARRINHO, tipo,
+					() -> carrinhoService.buscarPorCarrinhoIdEClienteId(carrinhoId, cliente), c -> c != null);
+			return new Carregado(cliente, carrinho);
+		})).subscribeOn(jpaScheduler);
+	}
+
+	private Mono<CompraDTO> finalizar(Cliente cliente, TipoCliente tipo, CarrinhoDeCompras carrinho) {
+		LoteEstoque lote = new LoteEstoque(carrinho.getItens().size());
+		for (ItemCompra item : carrinho.getItens()) {
+			lote.adicionar(item.getProduto().getId(), item.getQuantidade());
+		}
+
+		// Produto em promoção esgotado: recusa sem consultar o estoque nem o pagamento
+		Admissao admissao = vendaRelampago != null ? vendaRelampago.admitir(lote) : Admissao.SEM_PROMOCAO;
+		Mono<CompraDTO> resultado = !admissao.admitida()
+				? Mono.just(new CompraDTO(false, null, "Itens fora de estoque."))
+				: pagarEBaixar(cliente, tipo, carrinho, lote, admissao)
+						// Sem baixa (falta de estoque, pagamento recusado, erro ou cancelamento),
+						// os ingressos voltam
+						.doFinally(sinal -> admissao.devolver());
+
+		return resultado
+				.onErrorResume(DependenciaIndisponivelException.class,
+						e -> Mono.just(CompraDTO.indisponivel(e.getMessage())))
+				.doOnSuccess(compra -> compraService.registrarPedido(carrinho, cliente,
+						Boolean.TRUE.equals(compra.sucesso()) ? Situacao.CONCLUIDA : Situacao.RECUSADA,
+						compra.transacaoPagamentoId(), compra.mensagem()))
+				.doOnError(e -> compraService.registrarPedido(carrinho, cliente, Situacao.ERRO, null,
+						e.getMessage()));
+	}
+
+	// Reserva antes do pagamento, como CompraService: sem baixa (pagamento
+	// recusado, erro ou cancelamento), a reserva é liberada ao final; depois da
+	// confirmação, liberar não tem efeito
+	private Mono<CompraDTO> pagarEBaixar(Cliente cliente, TipoCliente tipo, CarrinhoDeCompras carrinho,
+			LoteEstoque lote, Admissao admissao) {
+		return Mono.usingWhen(medir(Etapa.DISPONIBILIDADE, tipo, estoqueExternal.reservar(lote), Reserva::efetuada),
+				reserva -> {
+					if (!reserva.efetuada()) {
+						return Mono.just(new CompraDTO(false, null, "Itens fora de estoque."));
+					}
+					BigDecimal custoTotal = metricas.medir(Etapa.PRECIFICACAO, tipo,
+							() -> compraService.precificar(carrinho), custo -> true);
+					return medir(Etapa.PAGAMENTO, tipo,
+							pagamentoExternal.autorizarPagamento(cliente.getId(), custoTotal.doubleValue()),
+							PagamentoDTO::autorizado)
+							.flatMap(pagamento -> pagamento.autorizado()
+									? concluir(cliente, tipo, pagamento, reserva, admissao)
+									: cancelar(cliente, tipo, null)
+											.thenReturn(new CompraDTO(false, null, "Pagamento não autorizado.")));
+				},
+				estoqueExternal::liberar);
+	}
+
+	// A partir da baixa os ingressos não voltam mais, como em CompraService.darBaixa
+	private Mono<CompraDTO> concluir(Cliente cliente, TipoCliente tipo, PagamentoDTO pagamento, Reserva reserva,
+			Admissao admissao) {
+		Mono<EstoqueBaixaDTO> chamadaDeBaixa = Mono.defer(() -> {
+			admissao.consumir();
+			return estoqueExternal.confirmar(reserva);
+		});
+		return medir(Etapa.BAIXA_ESTOQUE, tipo, chamadaDeBaixa, EstoqueBaixaDTO::sucesso)
+				// Sem confirmação da baixa, o pagamento já autorizado é cancelado
+				.onErrorResume(e -> cancelar(cliente, tipo, pagamento.transacaoId()).then(Mono.error(e)))
+				.flatMap(baixa -> baixa.sucesso()
+						? Mono.just(new CompraDTO(true, pagamento.transacaoId(), "Compra finalizada com sucesso."))
+						: cancelar(cliente, tipo, pagamento.transacaoId())
+								.thenReturn(new CompraDTO(false, null, "Erro ao dar baixa no estoque.")));
+	}
+
+	private Mono<Void> cancelar(Cliente cliente, TipoCliente tipo, Long transacaoId) {
+		return medir(Etapa.ESTORNO, tipo, pagamentoExternal.cancelarPagamento(cliente.getId(), transacaoId),
+				resposta -> true);
+	}
+
+	// Registra a etapa quando o Mono termina; Mono<Void> vazio conta como sucesso
+	private <T> Mono<T> medir(Etapa etapa, TipoCliente tipo, Mono<T> chamada, Predicate<T> sucesso) {
+		return Mono.defer(() -> {
+			long inicio = System.nanoTime();
+			return chamada
+					.doOnSuccess(resposta -> metricas.registrar(etapa, tipo,
+							resposta == null || sucesso.test(resposta) ? Resultado.SUCESSO : Resultado.FALHA,
+							System.nanoTime() - inicio))
+					.doOnError(e -> metricas.registrar(etapa, tipo, Resultado.ERRO, System.nanoTime() - inicio));
+		});
+	}
+}
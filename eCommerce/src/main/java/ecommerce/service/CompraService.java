@@ -2,74 +2,318 @@ package ecommerce.service;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import ecommerce.dto.CarrinhoResumoDTO;
 import ecommerce.dto.CompraDTO;
-import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
 import ecommerce.dto.PagamentoDTO;
 import ecommerce.entity.CarrinhoDeCompras;
 import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
 import ecommerce.entity.TipoCliente;
+import ecommerce.external.DependenciaIndisponivelException;
 import ecommerce.external.IEstoqueExternal;
 import ecommerce.external.IPagamentoExternal;
-import jakarta.transaction.Transactional;
+import ecommerce.external.Reserva;
+import ecommerce.external.lote.AgrupadorDePagamentos;
+import ecommerce.external.promocao.Admissao;
+import ecommerce.external.promocao.VendaRelampago;
+import ecommerce.registro.PedidoRegistrado;
+import ecommerce.registro.PedidoRegistrado.Situacao;
+import ecommerce.registro.RegistroDePedidos;
+import ecommerce.service.MetricasDeCompra.Etapa;
+import ecommerce.service.MetricasDeCompra.Resultado;
 
 @Service
 public class CompraService {
 
+	private static final Logger log = LoggerFactory.getLogger(CompraService.class);
+
+	// Constantes do cálculo em BigDecimal, criadas uma única vez
+	private static final BigDecimal LIMITE_DESCONTO_20 = BigDecimal.valueOf(1000.00);
+	private static final BigDecimal LIMITE_DESCONTO_10 = BigDecimal.valueOf(500.00);
+	private static final BigDecimal FATOR_DESCONTO_20 = BigDecimal.valueOf(0.80);
+	private static final BigDecimal FATOR_DESCONTO_10 = BigDecimal.valueOf(0.90);
+	private static final BigDecimal TARIFA_FRETE_ACIMA_50 = BigDecimal.valueOf(7.00);
+	private static final BigDecimal TARIFA_FRETE_ACIMA_10 = BigDecimal.valueOf(4.00);
+	private static final BigDecimal TARIFA_FRETE_ACIMA_5 = BigDecimal.valueOf(2.00);
+	private static final BigDecimal FATOR_FRETE_PRATA = BigDecimal.valueOf(0.5);
+
 	private final CarrinhoDeComprasService carrinhoService;
 	private final ClienteService clienteService;
 
 	private final IEstoqueExternal estoqueExternal;
 	private final IPagamentoExternal pagamentoExternal;
 
+	private final MotorPrecificacao motorPrecificacao;
+	private final CatalogoProdutos catalogoProdutos;
+
+	private final ModoFinalizacao modoFinalizacao;
+	private final Executor compraExecutor;
+
+	private final MetricasDeCompra metricas;
+
+	private final AgrupadorDePagamentos agrupadorDePagamentos;
+
+	private final RegistroDePedidos registroDePedidos;
+
+	private final VendaRelampago vendaRelampago;
+
 	@Autowired
 	public CompraService(CarrinhoDeComprasService carrinhoService, ClienteService clienteService,
-			IEstoqueExternal estoqueExternal, IPagamentoExternal pagamentoExternal) {
+			IEstoqueExternal estoqueExternal, IPagamentoExternal pagamentoExternal,
+			@Value("${ecommerce.precificacao.motor:BIGDECIMAL}") MotorPrecificacao motorPrecificacao,
+			CatalogoProdutos catalogoProdutos,
+			@Value("${ecommerce.compra.modo:SEQUENCIAL}") ModoFinalizacao modoFinalizacao,
+			@Qualifier("compraExecutor") Executor compraExecutor, @Nullable MetricasDeCompra metricas,
+			@Nullable AgrupadorDePagamentos agrupadorDePagamentos, @Nullable RegistroDePedidos registroDePedidos,
+			@Nullable VendaRelampago vendaRelampago) {
 		this.carrinhoService = carrinhoService;
 		this.clienteService = clienteService;
 
 		this.estoqueExternal = estoqueExternal;
 		this.pagamentoExternal = pagamentoExternal;
+
+		this.motorPrecificacao = motorPrecificacao;
+		this.catalogoProdutos = catalogoProdutos;
+
+		this.modoFinalizacao = modoFinalizacao;
+		this.compraExecutor = compraExecutor;
+
+		// Sem métricas (testes e benchmarks), as etapas rodam sem medição
+		this.metricas = metricas != null ? metricas : MetricasDeCompra.desligadas();
+
+		this.agrupadorDePagamentos = agrupadorDePagamentos;
+		this.registroDePedidos = registroDePedidos;
+		this.vendaRelampago = vendaRelampago;
 	}
 
-	@Transactional
+	// Só lê do banco: com a réplica habilitada, cliente e carrinho vêm dela
+	@Transactional(readOnly = true)
 	public CompraDTO finalizarCompra(Long carrinhoId, Long clienteId) {
-		Cliente cliente = clienteService.buscarPorId(clienteId);
-		CarrinhoDeCompras carrinho = carrinhoService.buscarPorCarrinhoIdEClienteId(carrinhoId, cliente);
+		long inicio = System.nanoTime();
+		TipoCliente tipo = null;
+		try {
+			Cliente cliente = buscarCliente(clienteId);
+			tipo = cliente == null ? null : cliente.getTipo();
+			CompraDTO compraDTO = finalizarCompra(carrinhoId, cliente, tipo);
+			metricas.registrarFinalizacao(tipo, compraDTO, System.nanoTime() - inicio);
+			return compraDTO;
+		} catch (RuntimeException e) {
+			metricas.registrarFinalizacao(tipo, Resultado.ERRO, System.nanoTime() - inicio);
+			throw e;
+		}
+	}
+
+	@Transactional(readOnly = true)
+	public CarrinhoResumoDTO resumirCarrinho(Long carrinhoId, Long clienteId, boolean conferir) {
+		return resumir(carrinhoService.buscarResumo(carrinhoId, clienteId), conferir);
+	}
+
+	// Com totais mantidos, o resumo não percorre os itens e mostra os preços da
+	// hora em que cada item entrou; a conferência percorre e diz se algum preço
+	// mudou desde então. A finalização cobra sempre os preços atuais (precificar)
+	public CarrinhoResumoDTO resumir(CarrinhoDeCompras carrinho, boolean conferir) {
+		BigDecimal subtotal;
+		long pesoTotal;
+		BigDecimal total;
+		if (carrinho.temTotais()) {
+			subtotal = carrinho.getSubtotal();
+			pesoTotal = carrinho.getPesoTotal();
+			total = calcularCustoTotal(subtotal, pesoTotal, carrinho.getCliente().getTipo());
+		} else {
+			subtotal = somarPrecos(carrinho);
+			pesoTotal = carrinho.getItens().stream()
+					.mapToLong(item -> (long) item.getProduto().getPeso() * item.getQuantidade())
+					.sum();
+			total = calcularCustoTotal(carrinho);
+		}
+		return new CarrinhoResumoDTO(carrinho.getId(), subtotal, pesoTotal, total,
+				conferir ? carrinho.totaisConferem() : null, null);
+	}
+
+	private CompraDTO finalizarCompra(Long carrinhoId, Cliente cliente, TipoCliente tipo) {
+		CarrinhoDeCompras carrinho = metricas.medir(Etapa.CARRINHO, tipo,
+				() -> carrinhoService.buscarPorCarrinhoIdEClienteId(carrinhoId, cliente), c -> c != null);
 	
 		if (carrinho == null) {
 			return new CompraDTO(false, null, "Carrinho não encontrado para o cliente."); // Retornar DTO com erro
 		}
+
+		CompraDTO compraDTO;
+		try {
+			compraDTO = finalizarCarrinho(cliente, tipo, carrinho);
+		} catch (DependenciaIndisponivelException e) {
+			// Estoque ou pagamento recusou a chamada sem responder: falha rápida
+			compraDTO = CompraDTO.indisponivel(e.getMessage());
+		} catch (RuntimeException e) {
+			registrarPedido(carrinho, cliente, Situacao.ERRO, null, e.getMessage());
+			throw e;
+		}
+		Situacao situacao = Boolean.TRUE.equals(compraDTO.sucesso()) ? Situacao.CONCLUIDA : Situacao.RECUSADA;
+		registrarPedido(carrinho, cliente, situacao, compraDTO.transacaoPagamentoId(), compraDTO.mensagem());
+		return compraDTO;
+	}
+
+	private CompraDTO finalizarCarrinho(Cliente cliente, TipoCliente tipo, CarrinhoDeCompras carrinho) {
+		// Uma única passada pelos itens monta o lote em arrays primitivos
+		List<ItemCompra> itens = carrinho.getItens();
+		LoteEstoque lote = new LoteEstoque(itens.size());
+		for (ItemCompra item : itens) {
+			lote.adicionar(item.getProduto().getId(), item.getQuantidade());
+		}
+
+		// Produto em promoção esgotado: recusa sem consultar o estoque nem o pagamento
+		Admissao admissao = vendaRelampago != null ? vendaRelampago.admitir(lote) : Admissao.SEM_PROMOCAO;
+		if (!admissao.admitida()) {
+			return new CompraDTO(false, null, "Itens fora de estoque.");
+		}
+
+		try {
+			if (modoFinalizacao == ModoFinalizacao.PIPELINE) {
+				return finalizarEmPipeline(cliente, tipo, carrinho, lote, admissao);
+			}
+			return finalizarEmSequencia(cliente, tipo, carrinho, lote, admissao);
+		} finally {
+			// Sem baixa (falta de estoque, pagamento recusado ou erro), os ingressos voltam
+			admissao.devolver();
+		}
+	}
+
+	private CompraDTO finalizarEmSequencia(Cliente cliente, TipoCliente tipo, CarrinhoDeCompras carrinho,
+			LoteEstoque lote, Admissao admissao) {
+		Reserva reserva = reservar(tipo, lote, admissao);
 	
-		List<Long> produtosIds = carrinho.getItens().stream().map(i -> i.getProduto().getId())
-				.collect(Collectors.toList());
-		List<Long> produtosQtds = carrinho.getItens().stream().map(i -> i.getQuantidade()).collect(Collectors.toList());
-	
-		DisponibilidadeDTO disponibilidade = estoqueExternal.verificarDisponibilidade(produtosIds, produtosQtds);
-	
-		if (!disponibilidade.disponivel()) {
+		if (!reserva.efetuada()) {
 			return new CompraDTO(false, null, "Itens fora de estoque."); // Retornar DTO com erro
 		}
 	
-		BigDecimal custoTotal = calcularCustoTotal(carrinho);
+		try {
+			BigDecimal custoTotal = metricas.medir(Etapa.PRECIFICACAO, tipo, () -> precificar(carrinho),
+					custo -> true);
+	
+			PagamentoDTO pagamento = metricas.medir(Etapa.PAGAMENTO, tipo,
+					() -> autorizarPagamento(cliente, custoTotal),
+					PagamentoDTO::autorizado);
 	
-		PagamentoDTO pagamento = pagamentoExternal.autorizarPagamento(cliente.getId(), custoTotal.doubleValue());
+			if (!pagamento.autorizado()) {
+				// Chamar cancelamento do pagamento simulado
+				// Você pode passar o ID da transação se necessário
+				metricas.medir(Etapa.ESTORNO, tipo, () -> pagamentoExternal.cancelarPagamento(cliente.getId(), null));
+				return new CompraDTO(false, null, "Pagamento não autorizado."); // Retornar DTO com erro
+			}
 	
+			return concluirCompra(cliente, tipo, pagamento, reserva, admissao);
+		} finally {
+			// Sem baixa, as unidades reservadas voltam ao estoque; depois da
+			// confirmação a liberação não tem efeito
+			estoqueExternal.liberar(reserva);
+		}
+	}
+
+	// Reserva as unidades antes do pagamento, para que duas compras não passem
+	// pela mesma última unidade. Os ingressos de um carrinho só com o produto em
+	// promoção já garantem o saldo.
+	private Reserva reservar(TipoCliente tipo, LoteEstoque lote, Admissao admissao) {
+		if (admissao.baixaPelaFila()) {
+			return Reserva.DISPENSADA;
+		}
+		return metricas.medir(Etapa.DISPONIBILIDADE, tipo, () -> estoqueExternal.reservar(lote), Reserva::efetuada);
+	}
+
+	// O tipo do cliente só é conhecido depois da busca, então a etapa é registrada à parte
+	Cliente buscarCliente(Long clienteId) {
+		long inicio = System.nanoTime();
+		Cliente cliente;
+		try {
+			cliente = clienteService.buscarPorId(clienteId);
+		} catch (RuntimeException e) {
+			metricas.registrar(Etapa.CLIENTE, null, Resultado.ERRO, System.nanoTime() - inicio);
+			throw e;
+		}
+		metricas.registrar(Etapa.CLIENTE, cliente == null ? null : cliente.getTipo(),
+				cliente == null ? Resultado.FALHA : Resultado.SUCESSO, System.nanoTime() - inicio);
+		return cliente;
+	}
+
+	// Reserva do estoque e cálculo do preço em paralelo. A autorização do pagamento
+	// começa sem esperar o estoque e é estornada se faltar algum item.
+	private CompraDTO finalizarEmPipeline(Cliente cliente, TipoCliente tipo, CarrinhoDeCompras carrinho,
+			LoteEstoque lote, Admissao admissao) {
+		CompletableFuture<Reserva> reservaFuture = admissao.baixaPelaFila()
+				? CompletableFuture.completedFuture(Reserva.DISPENSADA)
+				: CompletableFuture.supplyAsync(() -> reservar(tipo, lote, admissao), compraExecutor);
+		try {
+			return finalizarEmPipeline(cliente, tipo, carrinho, reservaFuture, admissao);
+		} finally {
+			// A reserva pode chegar depois de a compra desistir: é liberada quando chegar
+			reservaFuture.thenAccept(estoqueExternal::liberar);
+		}
+	}
+
+	private CompraDTO finalizarEmPipeline(Cliente cliente, TipoCliente tipo, CarrinhoDeCompras carrinho,
+			CompletableFuture<Reserva> reservaFuture, Admissao admissao) {
+		BigDecimal custoTotal = metricas.medir(Etapa.PRECIFICACAO, tipo, () -> precificar(carrinho),
+				custo -> true);
+
+		// Se o estoque já respondeu que falta item, não há por que autorizar o pagamento
+		if (reservaFuture.isDone() && !aguardar(reservaFuture).efetuada()) {
+			return new CompraDTO(false, null, "Itens fora de estoque.");
+		}
+
+		PagamentoDTO pagamento = metricas.medir(Etapa.PAGAMENTO, tipo,
+				() -> autorizarPagamento(cliente, custoTotal),
+				PagamentoDTO::autorizado);
+
+		Reserva reserva;
+		try {
+			reserva = aguardar(reservaFuture);
+		} catch (RuntimeException e) {
+			estornar(cliente, tipo, pagamento);
+			throw e;
+		}
+
+		if (!reserva.efetuada()) {
+			estornar(cliente, tipo, pagamento);
+			return new CompraDTO(false, null, "Itens fora de estoque.");
+		}
+
 		if (!pagamento.autorizado()) {
-			// Chamar cancelamento do pagamento simulado
-			pagamentoExternal.cancelarPagamento(cliente.getId(), null); // Você pode passar o ID da transação se necessário
-			return new CompraDTO(false, null, "Pagamento não autorizado."); // Retornar DTO com erro
+			metricas.medir(Etapa.ESTORNO, tipo, () -> pagamentoExternal.cancelarPagamento(cliente.getId(), null));
+			return new CompraDTO(false, null, "Pagamento não autorizado.");
+		}
+
+		return concluirCompra(cliente, tipo, pagamento, reserva, admissao);
+	}
+
+	private CompraDTO concluirCompra(Cliente cliente, TipoCliente tipo, PagamentoDTO pagamento, Reserva reserva,
+			Admissao admissao) {
+		EstoqueBaixaDTO baixaDTO;
+		try {
+			baixaDTO = metricas.medir(Etapa.BAIXA_ESTOQUE, tipo,
+					() -> darBaixa(reserva, admissao), EstoqueBaixaDTO::sucesso);
+		} catch (RuntimeException e) {
+			// Sem confirmação da baixa, o pagamento já autorizado é cancelado
+			estornar(cliente, tipo, pagamento);
+			throw e;
 		}
-	
-		EstoqueBaixaDTO baixaDTO = estoqueExternal.darBaixa(produtosIds, produtosQtds);
 	
 		if (!baixaDTO.sucesso()) {
-			pagamentoExternal.cancelarPagamento(cliente.getId(), pagamento.transacaoId());
+			metricas.medir(Etapa.ESTORNO, tipo,
+					() -> pagamentoExternal.cancelarPagamento(cliente.getId(), pagamento.transacaoId()));
 			return new CompraDTO(false, null, "Erro ao dar baixa no estoque."); // Retornar DTO com erro
 		}
 	
@@ -77,27 +321,131 @@ public class CompraService {
 	
 		return compraDTO;
 	}
+
+	// A baixa confirma a reserva. A partir dela os ingressos não voltam mais: sem
+	// confirmação do estoque, é mais seguro deixar de vender uma unidade do que
+	// vender a mesma duas vezes
+	private EstoqueBaixaDTO darBaixa(Reserva reserva, Admissao admissao) {
+		if (admissao.baixaPelaFila()) {
+			return vendaRelampago.darBaixa(admissao);
+		}
+		admissao.consumir();
+		return estoqueExternal.confirmar(reserva);
+	}
+
+	// Com o agrupador habilitado, a autorização segue em lote com as de outras compras
+	private PagamentoDTO autorizarPagamento(Cliente cliente, BigDecimal custoTotal) {
+		if (agrupadorDePagamentos != null) {
+			return agrupadorDePagamentos.autorizar(cliente.getId(), custoTotal.doubleValue());
+		}
+		return pagamentoExternal.autorizarPagamento(cliente.getId(), custoTotal.doubleValue());
+	}
+
+	// Valor cobrado na finalização, sempre pelos preços atuais, com o motor
+	// configurado. Os totais mantidos no carrinho guardam o preço da hora em que
+	// cada item entrou e não servem para cobrar; a finalização já percorre os
+	// itens para montar o lote do estoque (visível no pacote para a finalização
+	// reativa)
+	BigDecimal precificar(CarrinhoDeCompras carrinho) {
+		return calcularCustoTotal(carrinho);
+	}
+
+	// Anexa o pedido ao registro, se habilitado. A compra já foi decidida: uma falha
+	// no registro é logada e não muda a resposta.
+	void registrarPedido(CarrinhoDeCompras carrinho, Cliente cliente, Situacao situacao, Long transacaoId,
+			String mensagem) {
+		if (registroDePedidos == null) {
+			return;
+		}
+		try {
+			registroDePedidos.registrar(montarPedido(carrinho, cliente, situacao, transacaoId, mensagem));
+		} catch (RuntimeException e) {
+			log.error("Falha ao registrar o pedido do carrinho {}", carrinho.getId(), e);
+		}
+	}
+
+	// O total é o mesmo cobrado na finalização; o frete registrado é o que foi
+	// cobrado além dos produtos com desconto
+	private PedidoRegistrado montarPedido(CarrinhoDeCompras carrinho, Cliente cliente, Situacao situacao,
+			Long transacaoId, String mensagem) {
+		List<ItemCompra> itens = carrinho.getItens();
+		long[] produtosIds = new long[itens.size()];
+		long[] quantidades = new long[itens.size()];
+		long[] precos = new long[itens.size()];
+		for (int i = 0; i < itens.size(); i++) {
+			ItemCompra item = itens.get(i);
+			produtosIds[i] = item.getProduto().getId();
+			quantidades[i] = item.getQuantidade();
+			precos[i] = PedidoRegistrado.centavos(item.getProduto().getPreco());
+		}
+		BigDecimal subtotal = somarPrecos(carrinho);
+		BigDecimal comDesconto = aplicarDescontos(subtotal);
+		BigDecimal total = precificar(carrinho);
+
+		return new PedidoRegistrado(System.currentTimeMillis(), situacao,
+				carrinho.getId() != null ? carrinho.getId() : 0, cliente.getId(), transacaoId,
+				produtosIds, quantidades, precos, PedidoRegistrado.centavos(subtotal),
+				PedidoRegistrado.centavos(subtotal.subtract(comDesconto)),
+				PedidoRegistrado.centavos(total.subtract(comDesconto)), PedidoRegistrado.centavos(total), mensagem);
+	}
+
+	// Cancela um pagamento já autorizado, usando o transacaoId real
+	private void estornar(Cliente cliente, TipoCliente tipo, PagamentoDTO pagamento) {
+		if (pagamento.autorizado()) {
+			metricas.medir(Etapa.ESTORNO, tipo,
+					() -> pagamentoExternal.cancelarPagamento(cliente.getId(), pagamento.transacaoId()));
+		}
+	}
+
+	private static <T> T aguardar(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw e;
+		}
+	}
 	
 	
 
 	public BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho) {
-		BigDecimal custoTotalProdutos = carrinho.getItens().stream()
-				.map(item -> item.getProduto().getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())))
-				.reduce(BigDecimal.ZERO, BigDecimal::add);
+		if (motorPrecificacao == MotorPrecificacao.CENTAVOS) {
+			BigDecimal custoTotal = PrecificacaoEmCentavos.calcularCustoTotal(carrinho, catalogoProdutos.snapshot());
+			if (custoTotal != null) {
+				return custoTotal;
+			}
+			// Preço com frações de centavo: segue pelo cálculo em BigDecimal
+		}
+
+		BigDecimal custoTotalProdutos = somarPrecos(carrinho);
 	
 		// Calcular o frete
 		BigDecimal frete = calcularFrete(carrinho);
 	
+		return somarFreteEDescontos(custoTotalProdutos, frete, carrinho.getCliente().getTipo());
+	}
+
+	/**
+	 * Custo total a partir do subtotal e do peso total já somados, como os mantidos
+	 * em {@link CarrinhoDeCompras}. Mesmo resultado de calcularCustoTotal(carrinho)
+	 * quando os preços e pesos não mudaram desde a soma.
+	 */
+	public BigDecimal calcularCustoTotal(BigDecimal subtotal, long pesoTotal, TipoCliente tipo) {
+		return somarFreteEDescontos(subtotal, calcularFrete((double) pesoTotal), tipo);
+	}
+
+	private BigDecimal somarFreteEDescontos(BigDecimal custoTotalProdutos, BigDecimal frete, TipoCliente tipo) {
 		// Aplicar descontos ao custo total dos produtos
-		custoTotalProdutos = aplicarDescontos(custoTotalProdutos, carrinho);
+		custoTotalProdutos = aplicarDescontos(custoTotalProdutos);
 	
 		// Adicionar o frete ao custo total, exceto para cliente do tipo OURO
-		Cliente cliente = carrinho.getCliente();
-		if (cliente.getTipo() == TipoCliente.OURO) {
+		if (tipo == TipoCliente.OURO) {
 			return custoTotalProdutos; // Sem frete para cliente OURO
-		} else if (cliente.getTipo() == TipoCliente.PRATA) {
+		} else if (tipo == TipoCliente.PRATA) {
 			// Aplica 50% de desconto no frete
-			return custoTotalProdutos.add(frete.multiply(BigDecimal.valueOf(0.5)));
+			return custoTotalProdutos.add(frete.multiply(FATOR_FRETE_PRATA));
 		} else {
 			// Para Bronze e outros clientes, o frete é integral
 			return custoTotalProdutos;
@@ -105,33 +453,42 @@ public class CompraService {
 	}
 	
 
-	// Método para calcular o frete
-	private BigDecimal calcularFrete(CarrinhoDeCompras carrinho) {
+	// Método para calcular o frete (visível no pacote para os benchmarks)
+	BigDecimal calcularFrete(CarrinhoDeCompras carrinho) {
 		// Calcular o peso total dos itens
 		double pesoTotal = carrinho.getItens().stream()
 				.mapToDouble(item -> item.getProduto().getPeso() * item.getQuantidade())
 				.sum();
+		return calcularFrete(pesoTotal);
+	}
 
+	private BigDecimal calcularFrete(double pesoTotal) {
 		BigDecimal frete = BigDecimal.ZERO;
 
 		// Calcular o frete com base no peso total
 		if (pesoTotal > 50) {
-			frete = BigDecimal.valueOf(7.00).multiply(BigDecimal.valueOf(pesoTotal));
+			frete = TARIFA_FRETE_ACIMA_50.multiply(BigDecimal.valueOf(pesoTotal));
 		} else if (pesoTotal >= 10) {
-			frete = BigDecimal.valueOf(4.00).multiply(BigDecimal.valueOf(pesoTotal));
+			frete = TARIFA_FRETE_ACIMA_10.multiply(BigDecimal.valueOf(pesoTotal));
 		} else if (pesoTotal >= 5) {
-			frete = BigDecimal.valueOf(2.00).multiply(BigDecimal.valueOf(pesoTotal));
+			frete = TARIFA_FRETE_ACIMA_5.multiply(BigDecimal.valueOf(pesoTotal));
 		}
-		System.out.println("Custo Total FRETE: " + frete);
+		log.debug("Custo total do frete: {}", frete);
 		return frete;
 	}
 
-	private BigDecimal aplicarDescontos(BigDecimal custoTotal, CarrinhoDeCompras carrinho) {
+	private static BigDecimal somarPrecos(CarrinhoDeCompras carrinho) {
+		return carrinho.getItens().stream()
+				.map(item -> item.getProduto().getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())))
+				.reduce(BigDecimal.ZERO, BigDecimal::add);
+	}
+
+	BigDecimal aplicarDescontos(BigDecimal custoTotal) {
 		// Desconto de acordo com o valor total da compra
-		if (custoTotal.compareTo(BigDecimal.valueOf(1000.00)) > 0) {
-			custoTotal = custoTotal.multiply(BigDecimal.valueOf(0.80)); // 20% de desconto
-		} else if (custoTotal.compareTo(BigDecimal.valueOf(500.00)) > 0) {
-			custoTotal = custoTotal.multiply(BigDecimal.valueOf(0.90)); // 10% de desconto
+		if (custoTotal.compareTo(LIMITE_DESCONTO_20) > 0) {
+			custoTotal = custoTotal.multiply(FATOR_DESCONTO_20); // 20% de desconto
+		} else if (custoTotal.compareTo(LIMITE_DESCONTO_10) > 0) {
+			custoTotal = custoTotal.multiply(FATOR_DESCONTO_10); // 10% de desconto
 		}
 		return custoTotal; // Retornar custo total após aplicar descontos
 	}
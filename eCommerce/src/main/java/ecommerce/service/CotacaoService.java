@@ -0,0 +1,114 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.entity.TipoCliente;
+import ecommerce.repository.CarrinhoDeComprasRepository.LinhaDeCotacao;
+import ecommerce.repository.CarrinhoDeComprasRepository.VersaoDeCotacao;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cotação do carrinho: subtotal, frete, desconto e total que a finalização
+ * cobraria agora, pelos preços atuais, sem chamar estoque nem pagamento.
+ *
+ * Os valores cotados ficam num cache limitado com chave no carrinho, na sua
+ * versão (@Version, que muda a cada alteração de itens), na versão do
+ * {@link CatalogoSnapshot} (que muda a cada alteração de produto) e no tipo do
+ * cliente. Uma cotação repetida lê só a linha do carrinho; qualquer mudança
+ * muda a chave, então nada precisa ser invalidado. Na falta, os valores que
+ * entram no preço vêm numa só consulta, sem montar entidades. Métricas
+ * "cache.*" na tag cache=cotacoes.
+ *
+ * A versão do catálogo é local: só muda com alterações de produto vistas por
+ * esta instância. Com mais de uma instância gravando produtos, uma cotação
+ * pode seguir com o preço antigo até expirar (ecommerce.cotacao.cache.ttl).
+ */
+@Service
+public class CotacaoService {
+
+	private record Valores(BigDecimal subtotal, BigDecimal frete, BigDecimal desconto, BigDecimal total) {
+	}
+
+	private record Chave(long carrinhoId, long versaoCarrinho, long versaoCatalogo, TipoCliente tipo) {
+	}
+
+	private final CarrinhoDeComprasService carrinhoService;
+	private final CompraService compraService;
+	private final CatalogoProdutos catalogo;
+	private final Cache<Chave, Valores> cotacoes;
+
+	@Autowired
+	public CotacaoService(CarrinhoDeComprasService carrinhoService, CompraService compraService,
+			CatalogoProdutos catalogo, @Value("${ecommerce.cotacao.cache.tamanho-maximo:100000}") long tamanhoMaximo,
+			@Value("${ecommerce.cotacao.cache.ttl:10m}") Duration ttl, MeterRegistry meterRegistry) {
+		this(carrinhoService, compraService, catalogo, tamanhoMaximo, ttl);
+		CaffeineCacheMetrics.monitor(meterRegistry, cotacoes, "cotacoes");
+	}
+
+	public CotacaoService(CarrinhoDeComprasService carrinhoService, CompraService compraService,
+			CatalogoProdutos catalogo, long tamanhoMaximo, Duration ttl) {
+		this.carrinhoService = carrinhoService;
+		this.compraService = compraService;
+		this.catalogo = catalogo;
+		this.cotacoes = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+	}
+
+	// Só lê do banco: com a réplica habilitada, as consultas vão para ela
+	@Transactional(readOnly = true)
+	public CotacaoDTO cotar(Long carrinhoId, Long clienteId) {
+		// A versão do catálogo é lida antes dos preços: um produto alterado no meio
+		// fica guardado sob a versão antiga, que deixa de ser consultada
+		long versaoCatalogo = catalogo.snapshot().versao();
+		VersaoDeCotacao versao = carrinhoService.buscarVersaoParaCotacao(carrinhoId, clienteId);
+		TipoCliente tipo = versao.getTipoCliente();
+
+		Valores valores;
+		if (versao.getVersao() == null) {
+			// Carrinho gravado antes do versionamento: sem chave confiável, não guarda
+			valores = calcular(carrinhoService.buscarParaCotacao(carrinhoId, clienteId), tipo);
+		} else {
+			Chave chave = new Chave(carrinhoId, versao.getVersao(), versaoCatalogo, tipo);
+			valores = cotacoes.get(chave, c -> calcular(carrinhoService.buscarParaCotacao(carrinhoId, clienteId), tipo));
+		}
+		return new CotacaoDTO(carrinhoId, valores.subtotal(), valores.frete(), valores.desconto(), valores.total(),
+				null);
+	}
+
+	// Quantidade aproximada de cotações guardadas
+	public long tamanho() {
+		return cotacoes.estimatedSize();
+	}
+
+	// Mesmo cálculo da finalização (CompraService.precificar); o frete é o que é
+	// cobrado além dos produtos com desconto, como no registro de pedidos
+	private Valores calcular(List<LinhaDeCotacao> itens, TipoCliente tipo) {
+		BigDecimal subtotal = BigDecimal.ZERO;
+		long pesoTotal = 0;
+		for (LinhaDeCotacao item : itens) {
+			if (item.getProdutoId() == null) {
+				continue; // carrinho vazio
+			}
+			subtotal = subtotal.add(item.getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())));
+			pesoTotal += (long) item.getPeso() * item.getQuantidade();
+		}
+		BigDecimal comDesconto = compraService.aplicarDescontos(subtotal);
+		BigDecimal total = compraService.calcularCustoTotal(subtotal, pesoTotal, tipo);
+		return new Valores(subtotal, total.subtract(comDesconto), subtotal.subtract(comDesconto), total);
+	}
+}
@@ -0,0 +1,195 @@
+package ecommerce.service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.dto.CompraDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resultados de finalização de compra por chave de idempotência (header
+ * Idempotency-Key).
+ *
+ * Requisições com a mesma chave executam a compra uma única vez: as que
+ * chegam durante a execução esperam por ela e recebem o mesmo resultado, e as
+ * que chegam depois recebem o resultado guardado, sem chamar estoque nem
+ * pagamento. Guardam-se as compras concluídas e as recusadas por regra de
+ * negócio (sem estoque, pagamento não autorizado). Se a execução lançar
+ * exceção ou terminar com um resultado transitório (dependência indisponível
+ * ou sobrecarregada, ver {@link CompraDTO#transitoria()}), a chave é liberada
+ * e uma nova tentativa executa de novo.
+ *
+ * As execuções em andamento ficam num mapa à parte, limitado pelo número de
+ * requisições simultâneas, para que nunca sejam despejadas antes de
+ * terminar. Os resultados concluídos ficam num cache com tamanho máximo e
+ * expiração, com métricas "cache.*" na tag cache=idempotencia.
+ */
+@Component
+public class IdempotenciaDeCompras {
+
+	static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+	private record Execucao(Long carrinhoId, Long clienteId, CompletableFuture<CompraDTO> resultado) {
+	}
+
+	private record Concluida(Long carrinhoId, Long clienteId, CompraDTO resultado) {
+	}
+
+	private final ConcurrentMap<String, Execucao> emAndamento = new ConcurrentHashMap<>();
+	private final Cache<String, Concluida> concluidas;
+
+	@Autowired
+	public IdempotenciaDeCompras(@Value("${ecommerce.compra.idempotencia.tamanho-maximo:100000}") long tamanhoMaximo,
+			@Value("${ecommerce.compra.idempotencia.ttl:24h}") Duration ttl, MeterRegistry meterRegistry) {
+		this(tamanhoMaximo, ttl);
+		CaffeineCacheMetrics.monitor(meterRegistry, concluidas, "idempotencia");
+	}
+
+	public IdempotenciaDeCompras(long tamanhoMaximo, Duration ttl) {
+		this.concluidas = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Executa a compra uma única vez por chave. Reutilizar a chave com outro
+	 * carrinho ou cliente lança IllegalArgumentException.
+	 */
+	public CompraDTO executar(String chave, Long carrinhoId, Long clienteId, Supplier<CompraDTO> compra) {
+		validarChave(chave);
+
+		CompraDTO guardado = buscarConcluida(chave, carrinhoId, clienteId);
+		if (guardado != null) {
+			return guardado;
+		}
+
+		Execucao nova = new Execucao(carrinhoId, clienteId, new CompletableFuture<>());
+		Execucao existente = emAndamento.putIfAbsent(chave, nova);
+		if (existente != null) {
+			verificarMesmaCompra(existente.carrinhoId(), existente.clienteId(), carrinhoId, clienteId);
+			return aguardar(existente.resultado());
+		}
+
+		try {
+			// Outra execução pode ter concluído entre a primeira consulta e o putIfAbsent
+			guardado = buscarConcluida(chave, carrinhoId, clienteId);
+			CompraDTO resultado = guardado != null ? guardado : compra.get();
+			if (!resultado.transitoria()) {
+				concluidas.put(chave, new Concluida(carrinhoId, clienteId, resultado));
+			}
+			nova.resultado().complete(resultado);
+			return resultado;
+		} catch (RuntimeException e) {
+			nova.resultado().completeExceptionally(e);
+			throw e;
+		} finally {
+			emAndamento.remove(chave, nova);
+		}
+	}
+
+	/**
+	 * Mesma execução única por chave para POST /v2/finalizar, sem bloquear quem
+	 * espera. A compra é assinada aqui, à parte de quem pediu: uma requisição
+	 * cancelada não interrompe a compra, cujo resultado fica para as repetições.
+	 */
+	public Mono<CompraDTO> executar(String chave, Long carrinhoId, Long clienteId, Mono<CompraDTO> compra) {
+		return Mono.defer(() -> {
+			validarChave(chave);
+
+			CompraDTO guardado = buscarConcluida(chave, carrinhoId, clienteId);
+			if (guardado != null) {
+				return Mono.just(guardado);
+			}
+
+			Execucao nova = new Execucao(carrinhoId, clienteId, new CompletableFuture<>());
+			Execucao existente = emAndamento.putIfAbsent(chave, nova);
+			if (existente != null) {
+				verificarMesmaCompra(existente.carrinhoId(), existente.clienteId(), carrinhoId, clienteId);
+				return Mono.fromFuture(existente.resultado(), true);
+			}
+
+			// Outra execução pode ter concluído entre a primeira consulta e o putIfAbsent
+			guardado = buscarConcluida(chave, carrinhoId, clienteId);
+			Mono<CompraDTO> execucao = guardado != null ? Mono.just(guardado) : compra;
+			execucao.toFuture().whenComplete((resultado, erro) -> {
+				try {
+					if (erro != null) {
+						nova.resultado().completeExceptionally(erro);
+						return;
+					}
+					if (!resultado.transitoria()) {
+						concluidas.put(chave, new Concluida(carrinhoId, clienteId, resultado));
+					}
+					nova.resultado().complete(resultado);
+				} finally {
+					emAndamento.remove(chave, nova);
+				}
+			});
+			return Mono.fromFuture(nova.resultado(), true);
+		});
+	}
+
+	/**
+	 * Resultado já guardado para a chave, ou null se a compra ainda não
+	 * concluiu. Não executa nada; mesmas validações de {@link #executar}.
+	 */
+	public CompraDTO buscar(String chave, Long carrinhoId, Long clienteId) {
+		validarChave(chave);
+		return buscarConcluida(chave, carrinhoId, clienteId);
+	}
+
+	// Quantidade aproximada de resultados guardados
+	public long tamanho() {
+		return concluidas.estimatedSize();
+	}
+
+	private CompraDTO buscarConcluida(String chave, Long carrinhoId, Long clienteId) {
+		Concluida concluida = concluidas.getIfPresent(chave);
+		if (concluida == null) {
+			return null;
+		}
+		verificarMesmaCompra(concluida.carrinhoId(), concluida.clienteId(), carrinhoId, clienteId);
+		return concluida.resultado();
+	}
+
+	private static void validarChave(String chave) {
+		if (chave == null || chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+			throw new IllegalArgumentException(
+					"Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+		}
+	}
+
+	private static void verificarMesmaCompra(Long carrinhoOriginal, Long clienteOriginal, Long carrinhoId,
+			Long clienteId) {
+		if (!Objects.equals(carrinhoOriginal, carrinhoId) || !Objects.equals(clienteOriginal, clienteId)) {
+			throw new IllegalArgumentException("Idempotency-Key já usada para outro carrinho ou cliente.");
+		}
+	}
+
+	private static CompraDTO aguardar(CompletableFuture<CompraDTO> resultado) {
+		try {
+			return resultado.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw e;
+		}
+	}
+}
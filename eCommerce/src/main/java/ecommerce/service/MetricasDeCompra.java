@@ -0,0 +1,143 @@
+package ecommerce.service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.entity.TipoCliente;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Timers e contadores da finalização de compra, em /actuator/metrics:
+ *
+ * - compra.etapa: duração de cada etapa, com as tags etapa, resultado e
+ * tipoCliente;
+ * - compra.finalizacao: duração total de finalizarCompra, com resultado e
+ * tipoCliente;
+ * - compra.falhas: compras recusadas, com a mensagem devolvida na tag motivo.
+ *
+ * Os timers publicam p50/p95/p99 e histograma de percentis. São criados na
+ * primeira medição de cada combinação de tags e guardados num array, então a
+ * medição não consulta o registry.
+ */
+@Component
+public class MetricasDeCompra {
+
+	public enum Etapa {
+		CLIENTE, CARRINHO, DISPONIBILIDADE, PRECIFICACAO, PAGAMENTO, BAIXA_ESTOQUE, ESTORNO
+	}
+
+	// FALHA: a etapa respondeu negativamente; ERRO: lançou exceção
+	public enum Resultado {
+		SUCESSO, FALHA, ERRO
+	}
+
+	private static final TipoCliente[] TIPOS = TipoCliente.values();
+	private static final String TIPO_DESCONHECIDO = "desconhecido";
+
+	private final MeterRegistry registry;
+
+	// Indexados por [etapa][resultado][tipo], com o tipo desconhecido na última posição
+	private final Timer[][][] timersEtapa = new Timer[Etapa.values().length][Resultado.values().length][TIPOS.length + 1];
+	private final Timer[][] timersFinalizacao = new Timer[Resultado.values().length][TIPOS.length + 1];
+
+	@Autowired
+	public MetricasDeCompra(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	// Métricas descartadas, para quando não há registry (testes e benchmarks)
+	static MetricasDeCompra desligadas() {
+		return new MetricasDeCompra(new CompositeMeterRegistry());
+	}
+
+	/**
+	 * Executa a chamada de uma etapa e registra a duração com resultado SUCESSO
+	 * ou FALHA conforme o predicado, ou ERRO se lançar exceção.
+	 */
+	public <T> T medir(Etapa etapa, TipoCliente tipo, Supplier<T> chamada, Predicate<T> sucesso) {
+		long inicio = System.nanoTime();
+		T resposta;
+		try {
+			resposta = chamada.get();
+		} catch (RuntimeException e) {
+			registrar(etapa, tipo, Resultado.ERRO, System.nanoTime() - inicio);
+			throw e;
+		}
+		registrar(etapa, tipo, sucesso.test(resposta) ? Resultado.SUCESSO : Resultado.FALHA,
+				System.nanoTime() - inicio);
+		return resposta;
+	}
+
+	public void medir(Etapa etapa, TipoCliente tipo, Runnable chamada) {
+		medir(etapa, tipo, () -> {
+			chamada.run();
+			return Boolean.TRUE;
+		}, resposta -> true);
+	}
+
+	public void registrar(Etapa etapa, TipoCliente tipo, Resultado resultado, long nanos) {
+		int indiceTipo = indice(tipo);
+		Timer timer = timersEtapa[etapa.ordinal()][resultado.ordinal()][indiceTipo];
+		if (timer == null) {
+			// Corrida inofensiva: o registry devolve o mesmo timer para as mesmas tags
+			timer = criarTimer("compra.etapa", resultado, indiceTipo, "etapa", tag(etapa));
+			timersEtapa[etapa.ordinal()][resultado.ordinal()][indiceTipo] = timer;
+		}
+		timer.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	// Registra a duração total; compras recusadas também contam em compra.falhas
+	public void registrarFinalizacao(TipoCliente tipo, CompraDTO compra, long nanos) {
+		boolean sucesso = Boolean.TRUE.equals(compra.sucesso());
+		registrarFinalizacao(tipo, sucesso ? Resultado.SUCESSO : Resultado.FALHA, nanos);
+		if (!sucesso) {
+			Counter.builder("compra.falhas")
+					.description("Compras recusadas por motivo")
+					.tag("motivo", String.valueOf(compra.mensagem()))
+					.tag("tipoCliente", tagTipo(indice(tipo)))
+					.register(registry)
+					.increment();
+		}
+	}
+
+	public void registrarFinalizacao(TipoCliente tipo, Resultado resultado, long nanos) {
+		int indiceTipo = indice(tipo);
+		Timer timer = timersFinalizacao[resultado.ordinal()][indiceTipo];
+		if (timer == null) {
+			timer = criarTimer("compra.finalizacao", resultado, indiceTipo);
+			timersFinalizacao[resultado.ordinal()][indiceTipo] = timer;
+		}
+		timer.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	private Timer criarTimer(String nome, Resultado resultado, int indiceTipo, String... tags) {
+		return Timer.builder(nome)
+				.tags(tags)
+				.tag("resultado", tag(resultado))
+				.tag("tipoCliente", tagTipo(indiceTipo))
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	private static int indice(TipoCliente tipo) {
+		return tipo == null ? TIPOS.length : tipo.ordinal();
+	}
+
+	private static String tagTipo(int indiceTipo) {
+		return indiceTipo == TIPOS.length ? TIPO_DESCONHECIDO : TIPOS[indiceTipo].name();
+	}
+
+	private static String tag(Enum<?> valor) {
+		return valor.name().toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,10 @@
+package ecommerce.service;
+
+/**
+ * Ordem das etapas de {@link CompraService#finalizarCompra}, escolhida pela
+ * propriedade {@code ecommerce.compra.modo}.
+ */
+public enum ModoFinalizacao {
+	SEQUENCIAL, // estoque, preço e pagamento um após o outro (padrão)
+	PIPELINE // estoque em paralelo com preço e pagamento, com estorno se faltar item
+}
@@ -0,0 +1,10 @@
+package ecommerce.service;
+
+/**
+ * Implementação usada por {@link CompraService#calcularCustoTotal}, escolhida
+ * pela propriedade {@code ecommerce.precificacao.motor}.
+ */
+public enum MotorPrecificacao {
+	BIGDECIMAL, // aritmética em BigDecimal (padrão)
+	CENTAVOS // aritmética em long, ver PrecificacaoEmCentavos
+}
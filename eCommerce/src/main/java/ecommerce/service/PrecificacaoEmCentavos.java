@@ -0,0 +1,105 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+
+/**
+ * Cálculo do custo total em aritmética de ponto fixo.
+ *
+ * Preços e frete são somados em centavos (long) e as faixas de frete, de
+ * desconto e de {@link TipoCliente} ficam em tabelas pré-calculadas, então o
+ * laço sobre os itens não aloca objetos. O resultado final tem escala 4
+ * (centavos multiplicados por um percentual) e é numericamente igual ao do
+ * cálculo em BigDecimal de {@link CompraService}.
+ */
+final class PrecificacaoEmCentavos {
+
+	private static final int ESCALA_RESULTADO = 4;
+
+	// Faixas de frete, da mais pesada para a mais leve: peso total mínimo e tarifa em centavos
+	private static final long[] PESO_MINIMO_FRETE = { 51, 10, 5 };
+	private static final long[] TARIFA_FRETE_CENTAVOS = { 700, 400, 200 };
+
+	// Faixas de desconto: subtotal mínimo (exclusivo) em centavos e percentual a pagar
+	private static final long[] SUBTOTAL_DESCONTO_CENTAVOS = { 100_000, 50_000 };
+	private static final long[] PERCENTUAL_A_PAGAR = { 80, 90 };
+	private static final long SEM_DESCONTO = 100;
+
+	// Percentual do frete cobrado por tipo de cliente, indexado pelo ordinal.
+	// Mantém o comportamento atual: OURO e BRONZE não pagam frete, PRATA paga metade.
+	private static final long[] PERCENTUAL_FRETE_POR_TIPO = new long[TipoCliente.values().length];
+
+	static {
+		PERCENTUAL_FRETE_POR_TIPO[TipoCliente.PRATA.ordinal()] = 50;
+	}
+
+	private PrecificacaoEmCentavos() {
+	}
+
+	/**
+	 * Retorna o custo total do carrinho, ou null quando algum preço tem frações
+	 * de centavo e não pode ser representado exatamente. Preço e peso vêm do
+	 * catálogo quando o produto está nele, e da entidade caso contrário.
+	 */
+	static BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, CatalogoSnapshot catalogo) {
+		List<ItemCompra> itens = carrinho.getItens();
+		long subtotalCentavos = 0;
+		long pesoTotal = 0;
+
+		// Laço indexado para não criar um Iterator por chamada
+		for (int i = 0; i < itens.size(); i++) {
+			ItemCompra item = itens.get(i);
+			Produto produto = item.getProduto();
+			Long produtoId = produto.getId();
+
+			long precoCentavos;
+			long peso;
+			if (produtoId != null && catalogo.contem(produtoId)) {
+				precoCentavos = catalogo.precoEmCentavos(produtoId);
+				peso = catalogo.peso(produtoId);
+			} else {
+				precoCentavos = produto.getPrecoEmCentavos();
+				peso = produto.getPeso();
+			}
+
+			if (precoCentavos == Produto.PRECO_SEM_CENTAVOS_EXATOS) {
+				return null;
+			}
+			long quantidade = item.getQuantidade();
+			subtotalCentavos = Math.addExact(subtotalCentavos, Math.multiplyExact(precoCentavos, quantidade));
+			pesoTotal = Math.addExact(pesoTotal, Math.multiplyExact(peso, quantidade));
+		}
+
+		long total = Math.multiplyExact(subtotalCentavos, percentualAPagar(subtotalCentavos));
+		TipoCliente tipo = carrinho.getCliente().getTipo();
+		if (tipo != null) {
+			long freteCentavos = calcularFreteCentavos(pesoTotal);
+			total = Math.addExact(total,
+					Math.multiplyExact(freteCentavos, PERCENTUAL_FRETE_POR_TIPO[tipo.ordinal()]));
+		}
+		return BigDecimal.valueOf(total, ESCALA_RESULTADO);
+	}
+
+	static long calcularFreteCentavos(long pesoTotal) {
+		for (int i = 0; i < PESO_MINIMO_FRETE.length; i++) {
+			if (pesoTotal >= PESO_MINIMO_FRETE[i]) {
+				return Math.multiplyExact(pesoTotal, TARIFA_FRETE_CENTAVOS[i]);
+			}
+		}
+		return 0;
+	}
+
+	static long percentualAPagar(long subtotalCentavos) {
+		for (int i = 0; i < SUBTOTAL_DESCONTO_CENTAVOS.length; i++) {
+			if (subtotalCentavos > SUBTOTAL_DESCONTO_CENTAVOS[i]) {
+				return PERCENTUAL_A_PAGAR[i];
+			}
+		}
+		return SEM_DESCONTO;
+	}
+}
@@ -0,0 +1,39 @@
+package ecommerce.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ecommerce.entity.Produto;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Repassa ao {@link CatalogoProdutos} as escritas de {@link Produto}. Dentro de
+ * uma transação a alteração só é publicada depois do commit.
+ *
+ * O Hibernate cria o listener junto com o entityManagerFactory, do qual o
+ * catálogo depende pelo {@code ProdutoRepository}; por isso o catálogo só é
+ * buscado na primeira escrita.
+ */
+public class ProdutoCatalogoListener {
+
+	private final ObjectProvider<CatalogoProdutos> catalogo;
+
+	@Autowired
+	public ProdutoCatalogoListener(ObjectProvider<CatalogoProdutos> catalogo) {
+		this.catalogo = catalogo;
+	}
+
+	@PostPersist
+	@PostUpdate
+	public void aposSalvar(Produto produto) {
+		AposCommit.executar(() -> catalogo.getObject().atualizar(produto));
+	}
+
+	@PostRemove
+	public void aposRemover(Produto produto) {
+		Long produtoId = produto.getId();
+		AposCommit.executar(() -> catalogo.getObject().remover(produtoId));
+	}
+}
@@ -0,0 +1,26 @@
+package ecommerce.visitante;
+
+/**
+ * Cópia de um carrinho de visitante, lida de {@link CarrinhosDeVisitantes}.
+ * Os arrays são paralelos, um elemento por item; preços em centavos e pesos
+ * são os do produto quando o item foi adicionado ou alterado.
+ */
+public record CarrinhoDeVisitante(long id, long[] produtosIds, long[] quantidades, long[] precosEmCentavos,
+		int[] pesos) {
+
+	public long subtotalEmCentavos() {
+		long subtotal = 0;
+		for (int i = 0; i < produtosIds.length; i++) {
+			subtotal += precosEmCentavos[i] * quantidades[i];
+		}
+		return subtotal;
+	}
+
+	public long pesoTotal() {
+		long pesoTotal = 0;
+		for (int i = 0; i < produtosIds.length; i++) {
+			pesoTotal += (long) pesos[i] * quantidades[i];
+		}
+		return pesoTotal;
+	}
+}
@@ -0,0 +1,440 @@
+package ecommerce.visitante;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Carrinhos de visitantes (sem login) guardados fora do heap, sem entidade
+ * JPA nem objetos por carrinho.
+ *
+ * Cada carrinho ocupa um slot de {@link SlabsDeCarrinhos}: um cabeçalho e,
+ * por item, produtoId, quantidade e o preço e o peso do produto quando o item
+ * foi adicionado ou alterado. Um carrinho que enche o slot é copiado para um
+ * slot da classe seguinte. No heap fica só a tabela de ids (um long e um int
+ * por carrinho). O id devolvido ao visitante combina a posição na tabela com
+ * uma geração aleatória, então um id expirado não alcança o carrinho que
+ * reutilizou a posição.
+ *
+ * A tabela é dividida em {@value #LISTRAS} listras pelos bits baixos da
+ * posição, cada uma com sua trava; as operações de um carrinho só travam a
+ * listra dele e copiam poucos bytes. Carrinhos sem acesso por mais de ttl são
+ * liberados por uma thread a cada intervaloExpiracao, que varre uma listra
+ * de cada vez. Métricas: visitantes.carrinhos.quantidade e
+ * visitantes.carrinhos.memoria.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.visitantes.carrinhos.habilitado", havingValue = "true")
+public class CarrinhosDeVisitantes implements AutoCloseable {
+
+	public static final int MAXIMO_ITENS = SlabsDeCarrinhos.CAPACIDADES[SlabsDeCarrinhos.CAPACIDADES.length - 1];
+
+	private static final long LIVRE = -1;
+
+	// Gerações de 21 bits: o id fica abaixo de 2^53 e chega exato a clientes JavaScript
+	private static final int LIMITE_GERACAO = 1 << 21;
+
+	// Potência de 2: a listra são os bits baixos da posição
+	static final int LISTRAS = 16;
+	private static final int BITS_LISTRA = Integer.numberOfTrailingZeros(LISTRAS);
+
+	// Parte da tabela de ids: endereço do slot (ou LIVRE) e geração de cada
+	// posição local. Só é lida e escrita com a trava da listra.
+	private static final class Listra {
+		final int indice;
+		final ReentrantLock trava = new ReentrantLock();
+		long[] enderecos = new long[0];
+		int[] geracoes = new int[0];
+		int[] posicoesLivres = new int[0];
+		int quantidadePosicoesLivres;
+		volatile int quantidade;
+
+		Listra(int indice) {
+			this.indice = indice;
+		}
+	}
+
+	private final Listra[] listras = new Listra[LISTRAS];
+	private final SlabsDeCarrinhos slabs;
+	private final Clock relogio;
+	private final long ttlMillis;
+
+	private final ScheduledExecutorService expirador;
+	private final Duration intervaloExpiracao;
+	private final MeterRegistry meterRegistry;
+
+	@Autowired
+	public CarrinhosDeVisitantes(@Value("${ecommerce.visitantes.carrinhos.tamanho-slab:1MB}") DataSize tamanhoSlab,
+			@Value("${ecommerce.visitantes.carrinhos.memoria-maxima:256MB}") DataSize memoriaMaxima,
+			@Value("${ecommerce.visitantes.carrinhos.ttl:2h}") Duration ttl,
+			@Value("${ecommerce.visitantes.carrinhos.intervalo-expiracao:1m}") Duration intervaloExpiracao,
+			MeterRegistry meterRegistry) {
+		this(tamanhoSlab, memoriaMaxima, ttl, Clock.systemUTC(), intervaloExpiracao, meterRegistry);
+	}
+
+	// Sem métricas nem expiração automática, para testes e benchmarks
+	public CarrinhosDeVisitantes(DataSize tamanhoSlab, DataSize memoriaMaxima, Duration ttl, Clock relogio) {
+		this(tamanhoSlab, memoriaMaxima, ttl, relogio, null, null);
+	}
+
+	private CarrinhosDeVisitantes(DataSize tamanhoSlab, DataSize memoriaMaxima, Duration ttl, Clock relogio,
+			Duration intervaloExpiracao, MeterRegistry meterRegistry) {
+		this.slabs = new SlabsDeCarrinhos(Math.toIntExact(tamanhoSlab.toBytes()), memoriaMaxima.toBytes());
+		this.ttlMillis = ttl.toMillis();
+		this.relogio = relogio;
+		for (int i = 0; i < LISTRAS; i++) {
+			listras[i] = new Listra(i);
+		}
+		this.expirador = Executors.newSingleThreadScheduledExecutor(
+				new CustomizableThreadFactory("visitantes-carrinhos-expiracao-"));
+		this.intervaloExpiracao = intervaloExpiracao;
+		this.meterRegistry = meterRegistry;
+	}
+
+	// Métricas e expiração começam depois da construção, para os gauges e a
+	// thread de expiração não verem a tabela antes de pronta
+	@PostConstruct
+	void iniciar() {
+		if (meterRegistry != null) {
+			Gauge.builder("visitantes.carrinhos.quantidade", this, CarrinhosDeVisitantes::quantidade)
+					.description("Carrinhos de visitantes ativos")
+					.register(meterRegistry);
+			Gauge.builder("visitantes.carrinhos.memoria", this, CarrinhosDeVisitantes::bytesAlocados)
+					.description("Memória fora do heap alocada em slabs")
+					.baseUnit("bytes")
+					.register(meterRegistry);
+		}
+		if (intervaloExpiracao != null) {
+			expirador.scheduleWithFixedDelay(this::expirar, intervaloExpiracao.toMillis(),
+					intervaloExpiracao.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public long criar() {
+		Listra listra = listras[ThreadLocalRandom.current().nextInt(LISTRAS)];
+		listra.trava.lock();
+		try {
+			long endereco = alocar(0);
+			int local = novaPosicao(listra);
+			listra.enderecos[local] = endereco;
+			ByteBuffer slab = slabs.slab(endereco);
+			int inicio = slabs.posicao(endereco);
+			slab.putLong(inicio + SlabsDeCarrinhos.POSICAO_ACESSO, relogio.millis());
+			slab.putInt(inicio + SlabsDeCarrinhos.POSICAO_ITENS, 0);
+			slab.putInt(inicio + SlabsDeCarrinhos.POSICAO_RESERVADO, 0);
+			listra.quantidade++;
+			return ((long) listra.geracoes[local] << 32) | ((long) local << BITS_LISTRA) | listra.indice;
+		} finally {
+			listra.trava.unlock();
+		}
+	}
+
+	public CarrinhoDeVisitante buscar(long id) {
+		Listra listra = listra(id);
+		listra.trava.lock();
+		try {
+			return ler(id, enderecoAtivo(listra, id));
+		} finally {
+			listra.trava.unlock();
+		}
+	}
+
+	/**
+	 * Reserva o carrinho para virar o carrinho de um cliente e devolve seus
+	 * itens. Até {@link #remover} ou {@link #cancelarReserva}, outra reserva e
+	 * alterações de itens são recusadas, e a expiração não o libera.
+	 */
+	public CarrinhoDeVisitante reservar(long id) {
+		Listra listra = listra(id);
+		listra.trava.lock();
+		try {
+			long endereco = enderecoAlteravel(listra, id);
+			slabs.slab(endereco).putInt(slabs.posicao(endereco) + SlabsDeCarrinhos.POSICAO_RESERVADO, 1);
+			return ler(id, endereco);
+		} finally {
+			listra.trava.unlock();
+		}
+	}
+
+	public void cancelarReserva(long id) {
+		Listra listra = listra(id);
+		listra.trava.lock();
+		try {
+			long endereco = enderecoAtivo(listra, id);
+			slabs.slab(endereco).putInt(slabs.posicao(endereco) + SlabsDeCarrinhos.POSICAO_RESERVADO, 0);
+		} finally {
+			listra.trava.unlock();
+		}
+	}
+
+	// Soma a quantidade ao item do mesmo produto, se houver, ou cria um item novo
+	public void adicionarItem(long id, long produtoId, long quantidade, long precoEmCentavos, int peso) {
+		Listra listra = listra(id);
+		listra.trava.lock();
+		try {
+			long endereco = enderecoAlteravel(listra, id);
+			int item = buscarItem(endereco, produtoId);
+			if (item >= 0) {
+				long total = slabs.slab(endereco).getInt(item + SlabsDeCarrinhos.POSICAO_QUANTIDADE) + quantidade;
+				gravarItem(slabs.slab(endereco), item, produtoId, total, precoEmCentavos, peso);
+				return;
+			}
+			int itens = itens(endereco);
+			if (itens == SlabsDeCarrinhos.capacidade(endereco)) {
+				endereco = crescer(listra, id, endereco, itens);
+			}
+			ByteBuffer slab = slabs.slab(endereco);
+			int inicio = slabs.posicao(endereco);
+			gravarItem(slab, inicio + SlabsDeCarrinhos.CABECALHO + itens * SlabsDeCarrinhos.BYTES_ITEM, produtoId,
+					quantidade, precoEmCentavos, peso);
+			slab.putInt(inicio + SlabsDeCarrinhos.POSICAO_ITENS, itens + 1);
+		} finally {
+			listra.trava.unlock();
+		}
+	}
+
+	// O item passa a usar o preço e o peso informados
+	public void alterarQuantidade(long id, long produtoId, long quantidade, long precoEmCentavos, int peso) {
+		Listra listra = listra(id);
+		listra.trava.lock();
+		try {
+			long endereco = enderecoAlteravel(listra, id);
+			gravarItem(slabs.slab(endereco), itemExistente(endereco, produtoId), produtoId, quantidade,
+					precoEmCentavos, peso);
+		} finally {
+			listra.trava.unlock();
+		}
+	}
+
+	// O último item ocupa o lugar do removido
+	public void removerItem(long id, long produtoId) {
+		Listra listra = listra(id);
+		listra.trava.lock();
+		try {
+			long endereco = enderecoAlteravel(listra, id);
+			int item = itemExistente(endereco, produtoId);
+			ByteBuffer slab = slabs.slab(endereco);
+			int inicio = slabs.posicao(endereco);
+			int itens = itens(endereco);
+			int ultimo = inicio + SlabsDeCarrinhos.CABECALHO + (itens - 1) * SlabsDeCarrinhos.BYTES_ITEM;
+			if (item != ultimo) {
+				slab.put(item, slab, ultimo, SlabsDeCarrinhos.BYTES_ITEM);
+			}
+			slab.putInt(inicio + SlabsDeCarrinhos.POSICAO_ITENS, itens - 1);
+		} finally {
+			listra.trava.unlock();
+		}
+	}
+
+	public void remover(long id) {
+		Listra listra = listra(id);
+		listra.trava.lock();
+		try {
+			liberar(listra, local(id), enderecoAtivo(listra, id));
+		} finally {
+			listra.trava.unlock();
+		}
+	}
+
+	// Libera os carrinhos sem acesso há mais de ttl; devolve quantos foram liberados.
+	// Trava uma listra por vez, então as demais seguem atendendo durante a varredura
+	public int expirar() {
+		long limite = relogio.millis() - ttlMillis;
+		int expirados = 0;
+		for (Listra listra : listras) {
+			listra.trava.lock();
+			try {
+				long[] enderecos = listra.enderecos;
+				for (int local = 0; local < enderecos.length; local++) {
+					long endereco = enderecos[local];
+					if (endereco != LIVRE && expirado(endereco, limite)) {
+						liberar(listra, local, endereco);
+						expirados++;
+					}
+				}
+			} finally {
+				listra.trava.unlock();
+			}
+		}
+		return expirados;
+	}
+
+	public int quantidade() {
+		int quantidade = 0;
+		for (Listra listra : listras) {
+			quantidade += listra.quantidade;
+		}
+		return quantidade;
+	}
+
+	// Memória fora do heap reservada pelos slabs, em uso ou não
+	public long bytesAlocados() {
+		return slabs.bytesAlocados();
+	}
+
+	@Override
+	public void close() {
+		expirador.shutdownNow();
+	}
+
+	private long alocar(int classe) {
+		long endereco = slabs.alocar(classe);
+		if (endereco == SlabsDeCarrinhos.SEM_ESPACO) {
+			throw new IllegalStateException("Sem memória para novos carrinhos de visitantes.");
+		}
+		return endereco;
+	}
+
+	// Move o carrinho para um slot da próxima classe, com os mesmos id e itens
+	private long crescer(Listra listra, long id, long endereco, int itens) {
+		int classe = SlabsDeCarrinhos.classePara(itens + 1);
+		if (classe < 0) {
+			throw new IllegalArgumentException("Carrinho de visitante com o máximo de " + MAXIMO_ITENS + " itens.");
+		}
+		long novo = alocar(classe);
+		slabs.slab(novo).put(slabs.posicao(novo), slabs.slab(endereco), slabs.posicao(endereco),
+				SlabsDeCarrinhos.CABECALHO + itens * SlabsDeCarrinhos.BYTES_ITEM);
+		slabs.liberar(endereco);
+		listra.enderecos[local(id)] = novo;
+		return novo;
+	}
+
+	// Endereço do carrinho do id, atualizando o último acesso
+	private long enderecoAtivo(Listra listra, long id) {
+		int local = local(id);
+		if (id < 0 || local >= listra.enderecos.length || listra.enderecos[local] == LIVRE
+				|| listra.geracoes[local] != (int) (id >>> 32)) {
+			throw new IllegalArgumentException("Carrinho de visitante não encontrado.");
+		}
+		long endereco = listra.enderecos[local];
+		slabs.slab(endereco).putLong(slabs.posicao(endereco) + SlabsDeCarrinhos.POSICAO_ACESSO, relogio.millis());
+		return endereco;
+	}
+
+	// Como enderecoAtivo, mas recusa o carrinho reservado para o login
+	private long enderecoAlteravel(Listra listra, long id) {
+		long endereco = enderecoAtivo(listra, id);
+		if (reservado(endereco)) {
+			throw new IllegalArgumentException("Carrinho de visitante em conversão para um cliente.");
+		}
+		return endereco;
+	}
+
+	private boolean reservado(long endereco) {
+		return slabs.slab(endereco).getInt(slabs.posicao(endereco) + SlabsDeCarrinhos.POSICAO_RESERVADO) != 0;
+	}
+
+	private boolean expirado(long endereco, long limite) {
+		return !reservado(endereco)
+				&& slabs.slab(endereco).getLong(slabs.posicao(endereco) + SlabsDeCarrinhos.POSICAO_ACESSO) < limite;
+	}
+
+	private CarrinhoDeVisitante ler(long id, long endereco) {
+		ByteBuffer slab = slabs.slab(endereco);
+		int inicio = slabs.posicao(endereco);
+		int itens = slab.getInt(inicio + SlabsDeCarrinhos.POSICAO_ITENS);
+		long[] produtosIds = new long[itens];
+		long[] quantidades = new long[itens];
+		long[] precos = new long[itens];
+		int[] pesos = new int[itens];
+		for (int i = 0; i < itens; i++) {
+			int item = inicio + SlabsDeCarrinhos.CABECALHO + i * SlabsDeCarrinhos.BYTES_ITEM;
+			produtosIds[i] = slab.getLong(item + SlabsDeCarrinhos.POSICAO_PRODUTO);
+			precos[i] = slab.getLong(item + SlabsDeCarrinhos.POSICAO_PRECO);
+			quantidades[i] = slab.getInt(item + SlabsDeCarrinhos.POSICAO_QUANTIDADE);
+			pesos[i] = slab.getInt(item + SlabsDeCarrinhos.POSICAO_PESO);
+		}
+		return new CarrinhoDeVisitante(id, produtosIds, quantidades, precos, pesos);
+	}
+
+	private int itens(long endereco) {
+		return slabs.slab(endereco).getInt(slabs.posicao(endereco) + SlabsDeCarrinhos.POSICAO_ITENS);
+	}
+
+	// Posição absoluta do item do produto no slab, ou -1
+	private int buscarItem(long endereco, long produtoId) {
+		ByteBuffer slab = slabs.slab(endereco);
+		int primeiro = slabs.posicao(endereco) + SlabsDeCarrinhos.CABECALHO;
+		int itens = itens(endereco);
+		for (int i = 0; i < itens; i++) {
+			int item = primeiro + i * SlabsDeCarrinhos.BYTES_ITEM;
+			if (slab.getLong(item + SlabsDeCarrinhos.POSICAO_PRODUTO) == produtoId) {
+				return item;
+			}
+		}
+		return -1;
+	}
+
+	private int itemExistente(long endereco, long produtoId) {
+		int item = buscarItem(endereco, produtoId);
+		if (item < 0) {
+			throw new IllegalArgumentException("Item não encontrado no carrinho.");
+		}
+		return item;
+	}
+
+	private static void gravarItem(ByteBuffer slab, int item, long produtoId, long quantidade, long precoEmCentavos,
+			int peso) {
+		if (quantidade <= 0 || quantidade > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("A quantidade deve ser maior que zero.");
+		}
+		slab.putLong(item + SlabsDeCarrinhos.POSICAO_PRODUTO, produtoId);
+		slab.putLong(item + SlabsDeCarrinhos.POSICAO_PRECO, precoEmCentavos);
+		slab.putInt(item + SlabsDeCarrinhos.POSICAO_QUANTIDADE, (int) quantidade);
+		slab.putInt(item + SlabsDeCarrinhos.POSICAO_PESO, peso);
+	}
+
+	// Posição na tabela: (posição local << BITS_LISTRA) | listra
+	private Listra listra(long id) {
+		return listras[(int) id & (LISTRAS - 1)];
+	}
+
+	private static int local(long id) {
+		return (int) id >>> BITS_LISTRA;
+	}
+
+	private static int novaPosicao(Listra listra) {
+		int local;
+		if (listra.quantidadePosicoesLivres > 0) {
+			local = listra.posicoesLivres[--listra.quantidadePosicoesLivres];
+		} else {
+			local = listra.enderecos.length;
+			int tamanho = Math.max(1024 / LISTRAS, listra.enderecos.length * 2);
+			listra.enderecos = Arrays.copyOf(listra.enderecos, tamanho);
+			listra.geracoes = Arrays.copyOf(listra.geracoes, tamanho);
+			Arrays.fill(listra.enderecos, local, tamanho, LIVRE);
+			listra.posicoesLivres = Arrays.copyOf(listra.posicoesLivres, tamanho);
+			for (int livre = tamanho - 1; livre > local; livre--) {
+				listra.posicoesLivres[listra.quantidadePosicoesLivres++] = livre;
+			}
+		}
+		// Sempre diferente da geração anterior da posição
+		listra.geracoes[local] = (listra.geracoes[local] + 1
+				+ ThreadLocalRandom.current().nextInt(LIMITE_GERACAO - 1)) % LIMITE_GERACAO;
+		return local;
+	}
+
+	private void liberar(Listra listra, int local, long endereco) {
+		slabs.liberar(endereco);
+		listra.enderecos[local] = LIVRE;
+		listra.posicoesLivres[listra.quantidadePosicoesLivres++] = local;
+		listra.quantidade--;
+	}
+}
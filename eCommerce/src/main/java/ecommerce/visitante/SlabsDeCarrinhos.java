@@ -0,0 +1,168 @@
+package ecommerce.visitante;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Memória fora do heap dos carrinhos de visitantes, dividida em slabs
+ * (ByteBuffers diretos de tamanhoSlab bytes) por classe de tamanho.
+ *
+ * Cada classe guarda carrinhos de até {@link #CAPACIDADES} itens em slots de
+ * tamanho fixo: um cabeçalho de {@value #CABECALHO} bytes e
+ * {@value #BYTES_ITEM} bytes por item. Um slab novo só é criado quando a
+ * classe não tem slot livre e o total ainda cabe em memoriaMaxima; slots
+ * liberados voltam para a lista da classe e slabs nunca são devolvidos.
+ *
+ * O endereço de um slot é (classe << 32) | número do slot na classe. Alocar
+ * e liberar passam por uma trava própria; slab e posicao não travam, e o
+ * conteúdo de um slot fica a cargo de quem o alocou ({@link CarrinhosDeVisitantes}
+ * o acessa sob a trava da listra do carrinho).
+ */
+final class SlabsDeCarrinhos {
+
+	// Capacidade em itens de cada classe; um carrinho que enche muda para a próxima
+	static final int[] CAPACIDADES = { 4, 8, 16, 32, 64, 128 };
+
+	// Cabeçalho: último acesso em millis (long), itens (int) e reservado para o
+	// login (int, 0 ou 1), que também mantém os itens alinhados em 8 bytes
+	static final int CABECALHO = 16;
+	static final int POSICAO_ACESSO = 0;
+	static final int POSICAO_ITENS = 8;
+	static final int POSICAO_RESERVADO = 12;
+
+	// Item: produtoId (long), preço em centavos (long), quantidade (int), peso (int)
+	static final int BYTES_ITEM = 24;
+	static final int POSICAO_PRODUTO = 0;
+	static final int POSICAO_PRECO = 8;
+	static final int POSICAO_QUANTIDADE = 16;
+	static final int POSICAO_PESO = 20;
+
+	static final long SEM_ESPACO = -1;
+
+	private static final class Classe {
+		final int tamanhoSlot;
+		final int slotsPorSlab;
+		// Trocado por uma cópia maior a cada slab novo: a leitura não trava
+		volatile ByteBuffer[] slabs = new ByteBuffer[0];
+		int[] livres = new int[0];
+		int quantidadeLivres;
+
+		Classe(int capacidade, int tamanhoSlab) {
+			this.tamanhoSlot = CABECALHO + capacidade * BYTES_ITEM;
+			this.slotsPorSlab = tamanhoSlab / tamanhoSlot;
+		}
+	}
+
+	private final int tamanhoSlab;
+	private final long memoriaMaxima;
+	private final Classe[] classes;
+	private final ReentrantLock trava = new ReentrantLock();
+	private volatile long bytesAlocados;
+	private long slotsEmUso;
+
+	SlabsDeCarrinhos(int tamanhoSlab, long memoriaMaxima) {
+		int maiorSlot = CABECALHO + CAPACIDADES[CAPACIDADES.length - 1] * BYTES_ITEM;
+		if (tamanhoSlab < maiorSlot) {
+			throw new IllegalArgumentException("O slab deve ter ao menos " + maiorSlot + " bytes.");
+		}
+		this.tamanhoSlab = tamanhoSlab;
+		this.memoriaMaxima = memoriaMaxima;
+		this.classes = new Classe[CAPACIDADES.length];
+		for (int i = 0; i < classes.length; i++) {
+			classes[i] = new Classe(CAPACIDADES[i], tamanhoSlab);
+		}
+	}
+
+	// Menor classe com espaço para a quantidade de itens, ou -1 se nenhuma couber
+	static int classePara(int itens) {
+		for (int i = 0; i < CAPACIDADES.length; i++) {
+			if (itens <= CAPACIDADES[i]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	static int classe(long endereco) {
+		return (int) (endereco >>> 32);
+	}
+
+	static int capacidade(long endereco) {
+		return CAPACIDADES[classe(endereco)];
+	}
+
+	// Endereço de um slot livre da classe, ou SEM_ESPACO se a memória máxima foi atingida
+	long alocar(int classe) {
+		trava.lock();
+		try {
+			Classe c = classes[classe];
+			if (c.quantidadeLivres == 0 && !novoSlab(c)) {
+				return SEM_ESPACO;
+			}
+			slotsEmUso++;
+			return ((long) classe << 32) | c.livres[--c.quantidadeLivres];
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	void liberar(long endereco) {
+		trava.lock();
+		try {
+			Classe c = classes[classe(endereco)];
+			if (c.quantidadeLivres == c.livres.length) {
+				c.livres = Arrays.copyOf(c.livres, Math.max(16, c.livres.length * 2));
+			}
+			c.livres[c.quantidadeLivres++] = (int) endereco;
+			slotsEmUso--;
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	// Slab do slot; a posição do slot nele vem de posicao(endereco)
+	ByteBuffer slab(long endereco) {
+		Classe c = classes[classe(endereco)];
+		return c.slabs[(int) endereco / c.slotsPorSlab];
+	}
+
+	int posicao(long endereco) {
+		Classe c = classes[classe(endereco)];
+		return ((int) endereco % c.slotsPorSlab) * c.tamanhoSlot;
+	}
+
+	long bytesAlocados() {
+		return bytesAlocados;
+	}
+
+	long slotsEmUso() {
+		trava.lock();
+		try {
+			return slotsEmUso;
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	private boolean novoSlab(Classe c) {
+		if (bytesAlocados + tamanhoSlab > memoriaMaxima) {
+			return false;
+		}
+		ByteBuffer[] slabs = c.slabs;
+		int primeiro = slabs.length * c.slotsPorSlab;
+		ByteBuffer[] maiores = Arrays.copyOf(slabs, slabs.length + 1);
+		maiores[slabs.length] = ByteBuffer.allocateDirect(tamanhoSlab).order(ByteOrder.nativeOrder());
+		c.slabs = maiores;
+		bytesAlocados += tamanhoSlab;
+		if (c.livres.length < c.slotsPorSlab) {
+			c.livres = Arrays.copyOf(c.livres, c.slotsPorSlab);
+		}
+		// Em ordem decrescente, para que os slots saiam do início do slab
+		for (int slot = primeiro + c.slotsPorSlab - 1; slot >= primeiro; slot--) {
+			c.livres[c.quantidadeLivres++] = slot;
+		}
+		return true;
+	}
+}
@@ -1,16 +1,25 @@
 package ecommerce.app;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 
 import ecommerce.CompraApplication;
 
 @SpringBootTest
 class CompraApplicationTests {
 
+    @Autowired
+    private ApplicationContext contexto;
+
     @Test
     void contextLoads() {
         // Verifica se o contexto da aplicação carrega sem erros.
+        // Sem spring.threads.virtual.enabled, o executor de threads virtuais não é criado
+        assertFalse(contexto.containsBean("resilienciaThreadsVirtuais"));
     }
       @Test
     void main() {
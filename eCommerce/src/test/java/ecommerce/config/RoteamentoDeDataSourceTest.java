@@ -0,0 +1,133 @@
+package ecommerce.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.dto.CarrinhoResumoDTO;
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.NovoCarrinhoDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.repository.ProdutoRepository;
+import ecommerce.service.CarrinhoDeComprasService;
+import ecommerce.service.ClienteService;
+import ecommerce.service.CompraService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+@ActiveProfiles("replica")
+public class RoteamentoDeDataSourceTest {
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Autowired
+    private CompraService compraService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // reservar e confirmar são métodos padrão sobre verificarDisponibilidade e darBaixa
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
+    private IEstoqueExternal estoqueExternal;
+
+    @MockBean
+    private IPagamentoExternal pagamentoExternal;
+
+    @Test
+    public void testEscritas_NuncaVaoParaReplica() {
+        double replicaAntes = conexoes("replica");
+        double primariaAntes = conexoes("primaria");
+
+        CarrinhoDeCompras carrinho = criarCarrinho();
+        Produto outro = produtoRepository.save(new Produto(null, "Outro", "Descrição", new BigDecimal("5.00"), 1,
+                TipoProduto.LIVRO));
+        carrinhoService.adicionarItem(carrinho.getId(), carrinho.getCliente().getId(), outro.getId(), 2L);
+        carrinhoService.recalcularTotais(carrinho.getId(), carrinho.getCliente().getId());
+
+        assertThat(conexoes("replica")).isEqualTo(replicaAntes);
+        assertThat(conexoes("primaria")).isGreaterThan(primariaAntes);
+    }
+
+    @Test
+    public void testTransacoesReadOnly_VaoParaReplicaEEnxergamAPrimaria() {
+        CarrinhoDeCompras carrinho = criarCarrinho();
+        Long clienteId = carrinho.getCliente().getId();
+        when(estoqueExternal.verificarDisponibilidade(any(LoteEstoque.class)))
+                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
+        when(pagamentoExternal.autorizarPagamento(anyLong(), anyDouble())).thenReturn(new PagamentoDTO(true, 1L));
+        when(estoqueExternal.darBaixa(any(LoteEstoque.class))).thenReturn(new EstoqueBaixaDTO(true));
+        double replicaAntes = conexoes("replica");
+        double primariaAntes = conexoes("primaria");
+
+        CarrinhoResumoDTO resumo = compraService.resumirCarrinho(carrinho.getId(), clienteId, true);
+        CompraDTO compra = compraService.finalizarCompra(carrinho.getId(), clienteId);
+
+        assertThat(resumo.subtotal()).isEqualByComparingTo("30.00");
+        assertThat(resumo.totaisConferem()).isTrue();
+        assertThat(compra.sucesso()).isTrue();
+        assertThat(conexoes("replica")).isGreaterThan(replicaAntes);
+        assertThat(conexoes("primaria")).isEqualTo(primariaAntes);
+    }
+
+    @Test
+    public void testEscritaEmTransacaoReadOnly_EhRecusadaPelaReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        assertThatThrownBy(() -> readOnly.executeWithoutResult(
+                status -> jdbcTemplate.update("UPDATE cliente SET nome = 'Alterado'")))
+                .isInstanceOf(DataAccessException.class);
+    }
+
+    private CarrinhoDeCompras criarCarrinho() {
+        Cliente cliente = clienteService.salvar(new Cliente(null, "Cliente", "Endereço", TipoCliente.BRONZE));
+        Produto produto = produtoRepository.save(new Produto(null, "Produto", "Descrição", new BigDecimal("10.00"), 1,
+                TipoProduto.LIVRO));
+        return carrinhoService.criarCarrinhos(List.of(new NovoCarrinhoDTO(cliente.getId(),
+                new long[] { produto.getId() }, new long[] { 3L }))).get(0);
+    }
+
+    private double conexoes(String destino) {
+        return registry.get("datasource.roteamento.conexoes").tag("destino", destino).counter().count();
+    }
+}
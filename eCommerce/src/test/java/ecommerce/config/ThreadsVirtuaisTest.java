@@ -0,0 +1,29 @@
+package ecommerce.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+@SpringBootTest(properties = "spring.threads.virtual.enabled=true")
+public class ThreadsVirtuaisTest {
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Autowired
+    @Qualifier("resilienciaThreadsVirtuais")
+    private ExecutorService virtuais;
+
+    @Test
+    public void testContexto_ComThreadsVirtuais_CriaOExecutorDasChamadas() throws Exception {
+        assertThat(contexto.containsBean("resilienciaThreadsVirtuais")).isTrue();
+        assertThat(virtuais.submit(() -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
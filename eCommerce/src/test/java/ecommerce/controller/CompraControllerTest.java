@@ -3,17 +3,24 @@ package ecommerce.controller;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import ecommerce.dto.CompraDTO;
+import ecommerce.limite.ControleDeAdmissao;
+import ecommerce.service.CompraReativaService;
 import ecommerce.service.CompraService;
+import ecommerce.service.IdempotenciaDeCompras;
+import reactor.core.publisher.Mono;
 
 @ExtendWith(MockitoExtension.class)
 public class CompraControllerTest {
@@ -24,6 +31,12 @@ public class CompraControllerTest {
     @Mock
     private CompraService compraService;
 
+    @Mock
+    private CompraReativaService compraReativaService;
+
+    @Spy
+    private IdempotenciaDeCompras idempotencia = new IdempotenciaDeCompras(100, Duration.ofMinutes(10));
+
     private Long carrinhoId;
     private Long clienteId;
 
@@ -40,7 +53,7 @@ public class CompraControllerTest {
         when(compraService.finalizarCompra(carrinhoId, clienteId)).thenReturn(compraDTO);
 
         // Act
-        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId);
+        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId, null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -54,7 +67,7 @@ public class CompraControllerTest {
                 .thenThrow(new IllegalStateException("Carrinho não encontrado."));
 
         // Act
-        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId);
+        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId, null);
 
         // Assert
         assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
@@ -68,7 +81,7 @@ public class CompraControllerTest {
                 .thenThrow(new IllegalStateException("Itens fora de estoque."));
 
         // Act
-        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId);
+        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId, null);
 
         // Assert
         assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
@@ -82,7 +95,7 @@ public class CompraControllerTest {
                 .thenThrow(new IllegalStateException("Pagamento não autorizado."));
 
         // Act
-        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId);
+        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId, null);
 
         // Assert
         assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
@@ -95,7 +108,7 @@ public class CompraControllerTest {
         when(compraService.finalizarCompra(carrinhoId, clienteId)).thenThrow(new RuntimeException("Erro inesperado."));
 
         // Act
-        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId);
+        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId, null);
 
         // Assert
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
@@ -113,11 +126,171 @@ public class CompraControllerTest {
                 .thenThrow(new IllegalArgumentException("Carrinho inválido."));
 
         // Act
-        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId);
+        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(carrinhoId, clienteId, null);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Carrinho inválido.", response.getBody().mensagem());
     }
 
+    @Test
+    public void testFinalizarCompra_RepeticaoComIdempotencyKeyNaoExecutaDeNovo() {
+        // Arrange
+        CompraDTO compraDTO = new CompraDTO(true, 123L, "Compra finalizada com sucesso.");
+        when(compraService.finalizarCompra(carrinhoId, clienteId)).thenReturn(compraDTO);
+
+        // Act
+        ResponseEntity<CompraDTO> primeira = compraController.finalizarCompra(carrinhoId, clienteId, "chave-1");
+        ResponseEntity<CompraDTO> repetida = compraController.finalizarCompra(carrinhoId, clienteId, "chave-1");
+
+        // Assert
+        assertEquals(HttpStatus.OK, repetida.getStatusCode());
+        assertEquals(primeira.getBody(), repetida.getBody());
+        verify(compraService, times(1)).finalizarCompra(carrinhoId, clienteId);
+    }
+
+    @Test
+    public void testFinalizarCompra_IdempotencyKeyDeOutroCarrinho() {
+        // Arrange
+        when(compraService.finalizarCompra(carrinhoId, clienteId))
+                .thenReturn(new CompraDTO(true, 123L, "Compra finalizada com sucesso."));
+        compraController.finalizarCompra(carrinhoId, clienteId, "chave-1");
+
+        // Act
+        ResponseEntity<CompraDTO> response = compraController.finalizarCompra(2L, clienteId, "chave-1");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(compraService, never()).finalizarCompra(2L, clienteId);
+    }
+
+    @Test
+    public void testFinalizarCompraReativa_Sucesso() {
+        // Arrange
+        CompraDTO compraDTO = new CompraDTO(true, 123L, "Compra finalizada com sucesso.");
+        when(compraReativaService.finalizarCompra(carrinhoId, clienteId)).thenReturn(Mono.just(compraDTO));
+
+        // Act
+        ResponseEntity<CompraDTO> response = compraController.finalizarCompraReativa(carrinhoId, clienteId, null).block();
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(compraDTO, response.getBody());
+    }
+
+    @Test
+    public void testFinalizarCompraReativa_ErrosComOsMesmosStatusDoServlet() {
+        // Arrange
+        when(compraReativaService.finalizarCompra(carrinhoId, clienteId))
+                .thenReturn(Mono.error(new IllegalArgumentException("Carrinho inválido.")));
+        when(compraReativaService.finalizarCompra(2L, clienteId))
+                .thenReturn(Mono.error(new RuntimeException("Erro inesperado.")));
+
+        // Act
+        ResponseEntity<CompraDTO> invalido = compraController.finalizarCompraReativa(carrinhoId, clienteId, null).block();
+        ResponseEntity<CompraDTO> erro = compraController.finalizarCompraReativa(2L, clienteId, null).block();
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, invalido.getStatusCode());
+        assertEquals("Carrinho inválido.", invalido.getBody().mensagem());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, erro.getStatusCode());
+        assertEquals("Erro ao processar compra.", erro.getBody().mensagem());
+    }
+
+    @Test
+    public void testFinalizarCompra_AcimaDoLimiteRecebe429SemFinalizar() {
+        // Arrange: uma compra por cliente e uma finalização simultânea
+        ControleDeAdmissao controle = new ControleDeAdmissao(0.001, 1, 1, 1, 10, 1.5);
+        CompraController controller = new CompraController(compraService, idempotencia, compraReativaService,
+                controle);
+        CompraDTO compraDTO = new CompraDTO(true, 123L, "Compra finalizada com sucesso.");
+        when(compraService.finalizarCompra(carrinhoId, clienteId)).thenReturn(compraDTO);
+
+        // Act
+        ResponseEntity<CompraDTO> admitida = controller.finalizarCompra(carrinhoId, clienteId, null);
+        ResponseEntity<CompraDTO> repetida = controller.finalizarCompra(carrinhoId, clienteId, null);
+        controle.admitir(3L); // ocupa a única vaga
+        ResponseEntity<CompraDTO> sobrecarga = controller.finalizarCompra(carrinhoId, 2L, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, admitida.getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, repetida.getStatusCode());
+        assertFalse(repetida.getBody().sucesso());
+        assertEquals("Limite de compras do cliente excedido. Tente novamente em instantes.",
+                repetida.getBody().mensagem());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, sobrecarga.getStatusCode());
+        assertEquals("Sistema sobrecarregado. Tente novamente em instantes.", sobrecarga.getBody().mensagem());
+        verify(compraService, times(1)).finalizarCompra(anyLong(), anyLong());
+        assertEquals(1, controle.estado().emAndamento());
+    }
+
+    @Test
+    public void testFinalizarCompra_RepeticaoConcluidaNaoPassaPeloLimite() {
+        // Arrange: uma compra por cliente
+        ControleDeAdmissao controle = new ControleDeAdmissao(0.001, 1, 1, 1, 10, 1.5);
+        CompraController controller = new CompraController(compraService, idempotencia, compraReativaService,
+                controle);
+        CompraDTO compraDTO = new CompraDTO(true, 123L, "Compra finalizada com sucesso.");
+        when(compraService.finalizarCompra(carrinhoId, clienteId)).thenReturn(compraDTO);
+
+        // Act
+        ResponseEntity<CompraDTO> primeira = controller.finalizarCompra(carrinhoId, clienteId, "chave-1");
+        ResponseEntity<CompraDTO> repetida = controller.finalizarCompra(carrinhoId, clienteId, "chave-1");
+        ResponseEntity<CompraDTO> outraChave = controller.finalizarCompra(carrinhoId, clienteId, "chave-2");
+
+        // Assert: a repetição não gasta a cota, que continua esgotada para uma compra nova
+        assertEquals(HttpStatus.OK, primeira.getStatusCode());
+        assertEquals(HttpStatus.OK, repetida.getStatusCode());
+        assertEquals(compraDTO, repetida.getBody());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, outraChave.getStatusCode());
+        verify(compraService, times(1)).finalizarCompra(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testFinalizarCompraReativa_AcimaDoLimiteRecebe429SemFinalizar() {
+        // Arrange: uma compra por cliente e uma finalização simultânea
+        ControleDeAdmissao controle = new ControleDeAdmissao(0.001, 1, 1, 1, 10, 1.5);
+        CompraController controller = new CompraController(compraService, idempotencia, compraReativaService,
+                controle);
+        CompraDTO compraDTO = new CompraDTO(true, 123L, "Compra finalizada com sucesso.");
+        when(compraReativaService.finalizarCompra(carrinhoId, clienteId)).thenReturn(Mono.just(compraDTO));
+
+        // Act
+        ResponseEntity<CompraDTO> admitida = controller.finalizarCompraReativa(carrinhoId, clienteId, null).block();
+        ResponseEntity<CompraDTO> repetida = controller.finalizarCompraReativa(carrinhoId, clienteId, null).block();
+        controle.admitir(3L); // ocupa a única vaga
+        ResponseEntity<CompraDTO> sobrecarga = controller.finalizarCompraReativa(carrinhoId, 2L, null).block();
+
+        // Assert: a vaga da compra admitida voltou quando o Mono terminou
+        assertEquals(HttpStatus.OK, admitida.getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, repetida.getStatusCode());
+        assertEquals("Limite de compras do cliente excedido. Tente novamente em instantes.",
+                repetida.getBody().mensagem());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, sobrecarga.getStatusCode());
+        assertEquals("Sistema sobrecarregado. Tente novamente em instantes.", sobrecarga.getBody().mensagem());
+        verify(compraReativaService, times(1)).finalizarCompra(anyLong(), anyLong());
+        assertEquals(1, controle.estado().emAndamento());
+    }
+
+    @Test
+    public void testFinalizarCompraReativa_RepeticaoComChaveNaoFinalizaDeNovoNemPassaPeloLimite() {
+        // Arrange: uma compra por cliente
+        ControleDeAdmissao controle = new ControleDeAdmissao(0.001, 1, 1, 1, 10, 1.5);
+        CompraController controller = new CompraController(compraService, idempotencia, compraReativaService,
+                controle);
+        CompraDTO compraDTO = new CompraDTO(true, 123L, "Compra finalizada com sucesso.");
+        when(compraReativaService.finalizarCompra(carrinhoId, clienteId)).thenReturn(Mono.just(compraDTO));
+
+        // Act
+        ResponseEntity<CompraDTO> primeira = controller.finalizarCompraReativa(carrinhoId, clienteId, "chave-1").block();
+        ResponseEntity<CompraDTO> repetida = controller.finalizarCompraReativa(carrinhoId, clienteId, "chave-1").block();
+        ResponseEntity<CompraDTO> outroCarrinho = controller.finalizarCompraReativa(2L, clienteId, "chave-1").block();
+
+        // Assert
+        assertEquals(HttpStatus.OK, primeira.getStatusCode());
+        assertEquals(HttpStatus.OK, repetida.getStatusCode());
+        assertEquals(compraDTO, repetida.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, outroCarrinho.getStatusCode());
+        verify(compraReativaService, times(1)).finalizarCompra(carrinhoId, clienteId);
+    }
 }
@@ -0,0 +1,163 @@
+package ecommerce.external.lote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.AutorizacaoPagamentoDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.DependenciaIndisponivelException;
+import ecommerce.external.IPagamentoExternal;
+
+public class AgrupadorDePagamentosTest {
+
+    // Autoriza com transacaoId igual ao clienteId e guarda o tamanho de cada lote
+    private static class PagamentoEmLote implements IPagamentoExternal {
+
+        final List<Integer> lotes = new ArrayList<>();
+        final CountDownLatch liberar;
+        final CountDownLatch chamado = new CountDownLatch(1);
+        boolean perderUltimo;
+
+        PagamentoEmLote(CountDownLatch liberar) {
+            this.liberar = liberar;
+        }
+
+        @Override
+        public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+            return new PagamentoDTO(true, clienteId);
+        }
+
+        @Override
+        public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+        }
+
+        @Override
+        public List<PagamentoDTO> autorizarPagamentos(List<AutorizacaoPagamentoDTO> autorizacoes) {
+            chamado.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (lotes) {
+                lotes.add(autorizacoes.size());
+            }
+            List<PagamentoDTO> pagamentos = IPagamentoExternal.super.autorizarPagamentos(autorizacoes);
+            return perderUltimo ? pagamentos.subList(0, pagamentos.size() - 1) : pagamentos;
+        }
+    }
+
+    private final ExecutorService chamadores = Executors.newFixedThreadPool(8);
+    private AgrupadorDePagamentos agrupador;
+
+    @AfterEach
+    public void tearDown() {
+        chamadores.shutdownNow();
+        if (agrupador != null) {
+            agrupador.close();
+        }
+    }
+
+    @Test
+    public void testAutorizar_ChamadasSimultaneasSaoAgrupadas() throws Exception {
+        PagamentoEmLote pagamento = new PagamentoEmLote(new CountDownLatch(0));
+        // Janela longa: os lotes só saem quando atingem o tamanho máximo
+        agrupador = new AgrupadorDePagamentos(pagamento, 4, Duration.ofSeconds(5), 16, 2, Duration.ofSeconds(1));
+
+        List<Future<PagamentoDTO>> resultados = new ArrayList<>();
+        for (long clienteId = 1; clienteId <= 8; clienteId++) {
+            long id = clienteId;
+            resultados.add(chamadores.submit(() -> agrupador.autorizar(id, 100.0)));
+        }
+
+        for (int i = 0; i < resultados.size(); i++) {
+            PagamentoDTO pagamentoDTO = resultados.get(i).get(5, TimeUnit.SECONDS);
+            assertTrue(pagamentoDTO.autorizado());
+            assertEquals(i + 1L, pagamentoDTO.transacaoId());
+        }
+        assertEquals(List.of(4, 4), pagamento.lotes);
+    }
+
+    @Test
+    public void testAutorizar_LoteComRespostaIncompletaFalhaTodasAsChamadas() throws Exception {
+        PagamentoEmLote pagamento = new PagamentoEmLote(new CountDownLatch(0));
+        pagamento.perderUltimo = true;
+        agrupador = new AgrupadorDePagamentos(pagamento, 2, Duration.ofSeconds(5), 16, 1, Duration.ofSeconds(1));
+
+        Future<PagamentoDTO> primeiro = chamadores.submit(() -> agrupador.autorizar(1L, 100.0));
+        Future<PagamentoDTO> segundo = chamadores.submit(() -> agrupador.autorizar(2L, 100.0));
+
+        for (Future<PagamentoDTO> resultado : List.of(primeiro, segundo)) {
+            Exception e = assertThrows(Exception.class, () -> resultado.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof DependenciaIndisponivelException,
+                    () -> "Causa inesperada: " + e.getCause());
+        }
+    }
+
+    @Test
+    public void testAutorizar_DepoisDeEncerradoRecusaSemEsperar() {
+        agrupador = new AgrupadorDePagamentos(new PagamentoEmLote(new CountDownLatch(0)), 2, Duration.ofMillis(1), 16,
+                1, Duration.ofSeconds(1));
+        agrupador.close();
+
+        DependenciaIndisponivelException e = assertThrows(DependenciaIndisponivelException.class,
+                () -> agrupador.autorizar(1L, 100.0));
+        assertEquals("Agrupador de pagamentos encerrado.", e.getMessage());
+    }
+
+    @Test
+    public void testAutorizar_FilaCheiaRecusaComSobrecarga() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        PagamentoEmLote pagamento = new PagamentoEmLote(liberar);
+        // Um lote por vez, de uma autorização, e fila de uma posição
+        agrupador = new AgrupadorDePagamentos(pagamento, 1, Duration.ZERO, 1, 1, Duration.ofMillis(10));
+
+        List<Future<PagamentoDTO>> chamadas = new ArrayList<>();
+        chamadas.add(chamadores.submit(() -> agrupador.autorizar(1L, 100.0)));
+        assertTrue(pagamento.chamado.await(5, TimeUnit.SECONDS));
+
+        // Com um lote em andamento, cabem só um lote esperando envio e um pedido na fila
+        AtomicInteger recusadas = new AtomicInteger();
+        for (long clienteId = 2; clienteId <= 6; clienteId++) {
+            long id = clienteId;
+            chamadas.add(chamadores.submit(() -> {
+                try {
+                    return agrupador.autorizar(id, 100.0);
+                } catch (DependenciaIndisponivelException e) {
+                    assertEquals("Serviço de pagamento sobrecarregado.", e.getMessage());
+                    recusadas.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        for (int i = 0; i < 500 && recusadas.get() < 3; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(recusadas.get() >= 3, () -> "Recusadas: " + recusadas.get());
+
+        liberar.countDown();
+        int autorizados = 0;
+        for (Future<PagamentoDTO> resultado : chamadas) {
+            if (resultado.get(5, TimeUnit.SECONDS) != null) {
+                autorizados++;
+            }
+        }
+        // Os pedidos que entraram na fila são autorizados quando o pagamento volta
+        assertTrue(autorizados >= 1 && autorizados <= 3, "Autorizados: " + autorizados);
+        assertEquals(6, autorizados + recusadas.get());
+    }
+}
@@ -0,0 +1,156 @@
+package ecommerce.external.memoria;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.Reserva;
+
+public class EstoqueEmMemoriaTest {
+
+    @Test
+    public void testDarBaixa_TodosOuNenhum() {
+        EstoqueEmMemoria estoque = new EstoqueEmMemoria(10, 4, 0);
+        estoque.repor(1L, 5);
+        estoque.repor(2L, 1);
+
+        EstoqueBaixaDTO baixa = estoque.darBaixa(List.of(1L, 2L), List.of(3L, 2L));
+
+        // O produto 2 não tem saldo, então nada sai do produto 1
+        assertThat(baixa.sucesso()).isFalse();
+        assertThat(estoque.disponivel(1L)).isEqualTo(5);
+        assertThat(estoque.disponivel(2L)).isEqualTo(1);
+    }
+
+    @Test
+    public void testVerificarDisponibilidade_SomaProdutosRepetidos() {
+        EstoqueEmMemoria estoque = new EstoqueEmMemoria(10, 4, 3);
+
+        DisponibilidadeDTO disponibilidade = estoque.verificarDisponibilidade(List.of(1L, 2L, 1L, 99L),
+                List.of(2L, 1L, 2L, 1L));
+
+        assertThat(disponibilidade.disponivel()).isFalse();
+        assertThat(disponibilidade.idsProdutosIndisponiveis()).containsExactlyInAnyOrder(1L, 99L);
+    }
+
+    @Test
+    public void testDarBaixa_LoteEVisoesDeLista() {
+        EstoqueEmMemoria estoque = new EstoqueEmMemoria(10, 4, 10);
+        LoteEstoque lote = new LoteEstoque(2);
+        lote.adicionar(1L, 2L);
+        lote.adicionar(2L, 3L);
+
+        // As visões são listas comuns para quem usa a assinatura antiga
+        assertThat(lote.produtosIds()).containsExactly(1L, 2L);
+        assertThat(lote.quantidades()).containsExactly(2L, 3L);
+        assertThat(LoteEstoque.de(lote.produtosIds(), lote.quantidades())).isSameAs(lote);
+
+        assertThat(estoque.darBaixa(lote).sucesso()).isTrue();
+        assertThat(estoque.darBaixa(lote.produtosIds(), lote.quantidades()).sucesso()).isTrue();
+        assertThat(estoque.disponivel(1L)).isEqualTo(6);
+        assertThat(estoque.disponivel(2L)).isEqualTo(4);
+    }
+
+    @Test
+    public void testReservar_LiberarDevolveSaldo() {
+        EstoqueEmMemoria estoque = new EstoqueEmMemoria(10, 4, 10);
+
+        Reserva reserva = estoque.reservar(List.of(1L), List.of(4L));
+        assertThat(reserva.efetuada()).isTrue();
+        assertThat(estoque.disponivel(1L)).isEqualTo(6);
+        assertThat(estoque.reservado(1L)).isEqualTo(4);
+
+        estoque.liberar(reserva);
+        estoque.liberar(reserva); // segunda liberação não tem efeito
+
+        assertThat(estoque.disponivel(1L)).isEqualTo(10);
+        assertThat(estoque.reservado(1L)).isZero();
+    }
+
+    @Test
+    public void testReservar_ConfirmarEfetivaSaida() {
+        EstoqueEmMemoria estoque = new EstoqueEmMemoria(10, 4, 10);
+
+        Reserva reserva = estoque.reservar(List.of(1L), List.of(4L));
+        estoque.confirmar(reserva);
+        estoque.liberar(reserva); // já confirmada
+
+        assertThat(estoque.disponivel(1L)).isEqualTo(6);
+        assertThat(estoque.reservado(1L)).isZero();
+    }
+
+    @Test
+    public void testConcorrencia_NaoVendeMaisQueOEstoque() throws Exception {
+        int produtos = 20;
+        long saldoInicial = 500;
+        int compradores = 16;
+        int comprasPorComprador = 2_000;
+
+        // Poucas listras para forçar carrinhos sobrepostos a disputar as mesmas travas
+        EstoqueEmMemoria estoque = new EstoqueEmMemoria(produtos, 8, saldoInicial);
+        AtomicLongArray vendidos = new AtomicLongArray(produtos + 1);
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(compradores);
+
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int c = 0; c < compradores; c++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < comprasPorComprador; i++) {
+                    List<Long> ids = new ArrayList<>();
+                    List<Long> quantidades = new ArrayList<>();
+                    int itens = random.nextInt(1, 5);
+                    for (int j = 0; j < itens; j++) {
+                        ids.add(random.nextLong(1, produtos + 1L));
+                        quantidades.add(random.nextLong(1, 4));
+                    }
+
+                    Reserva reserva = estoque.reservar(ids, quantidades);
+                    if (!reserva.efetuada()) {
+                        continue;
+                    }
+                    // Parte das reservas desiste, como um pagamento recusado
+                    if (random.nextInt(4) == 0) {
+                        estoque.liberar(reserva);
+                        continue;
+                    }
+                    estoque.confirmar(reserva);
+                    for (int j = 0; j < ids.size(); j++) {
+                        vendidos.addAndGet(ids.get(j).intValue(), quantidades.get(j));
+                    }
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long totalVendido = 0;
+        for (long produtoId = 1; produtoId <= produtos; produtoId++) {
+            long disponivel = estoque.disponivel(produtoId);
+            assertThat(disponivel).isGreaterThanOrEqualTo(0);
+            assertThat(estoque.reservado(produtoId)).isZero();
+            assertThat(vendidos.get((int) produtoId) + disponivel).isEqualTo(saldoInicial);
+            totalVendido += vendidos.get((int) produtoId);
+        }
+        assertThat(totalVendido).isPositive();
+    }
+}
@@ -0,0 +1,181 @@
+package ecommerce.external.promocao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.memoria.EstoqueEmMemoria;
+
+public class VendaRelampagoTest {
+
+    private static final long PROMOCAO = 7L;
+    private static final long COMUM = 8L;
+
+    // Estoque em memória que segura a primeira baixa até o teste liberar e
+    // guarda as quantidades pedidas ao estoque
+    private static class EstoqueComPortao implements IEstoqueExternal {
+        final EstoqueEmMemoria memoria = new EstoqueEmMemoria(16, 4, 0);
+        final CountDownLatch primeiraBaixa = new CountDownLatch(1);
+        final CountDownLatch portao = new CountDownLatch(1);
+        final List<Long> pedidas = new ArrayList<>();
+
+        @Override
+        public EstoqueBaixaDTO darBaixa(LoteEstoque lote) {
+            synchronized (pedidas) {
+                pedidas.add(lote.quantidade(0));
+            }
+            primeiraBaixa.countDown();
+            try {
+                portao.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return memoria.darBaixa(lote);
+        }
+
+        @Override
+        public DisponibilidadeDTO verificarDisponibilidade(LoteEstoque lote) {
+            return memoria.verificarDisponibilidade(lote);
+        }
+    }
+
+    private VendaRelampago venda;
+
+    @AfterEach
+    void tearDown() {
+        if (venda != null) {
+            venda.close();
+        }
+    }
+
+    private static LoteEstoque lote(long... idsEQuantidades) {
+        LoteEstoque lote = new LoteEstoque(idsEQuantidades.length / 2);
+        for (int i = 0; i < idsEQuantidades.length; i += 2) {
+            lote.adicionar(idsEQuantidades[i], idsEQuantidades[i + 1]);
+        }
+        return lote;
+    }
+
+    @Test
+    public void testIngressosEsgotados_RecusaSemTocarOEstoque() {
+        EstoqueEmMemoria estoque = new EstoqueEmMemoria(16, 4, 10);
+        venda = new VendaRelampago(estoque, Map.of(PROMOCAO, 2L), 16);
+
+        Admissao primeira = venda.admitir(lote(PROMOCAO, 2));
+        Admissao segunda = venda.admitir(lote(PROMOCAO, 1));
+
+        assertTrue(primeira.admitida());
+        assertTrue(primeira.baixaPelaFila());
+        assertFalse(segunda.admitida());
+        assertEquals(0, venda.ingressos(PROMOCAO));
+        assertEquals(10, estoque.disponivel(PROMOCAO));
+
+        // Compra que não chegou à baixa devolve os ingressos uma única vez
+        primeira.devolver();
+        primeira.devolver();
+        assertEquals(2, venda.ingressos(PROMOCAO));
+    }
+
+    @Test
+    public void testCarrinhoMisto_TomaTodosOsIngressosOuNenhum() {
+        venda = new VendaRelampago(new EstoqueEmMemoria(16, 4, 10), Map.of(PROMOCAO, 5L, 9L, 1L), 16);
+
+        Admissao semPromocao = venda.admitir(lote(COMUM, 3));
+        Admissao misto = venda.admitir(lote(PROMOCAO, 2, COMUM, 1));
+        Admissao recusado = venda.admitir(lote(PROMOCAO, 1, 9L, 2));
+
+        assertTrue(semPromocao.admitida());
+        assertFalse(semPromocao.baixaPelaFila());
+        assertTrue(misto.admitida());
+        assertFalse(misto.baixaPelaFila());
+        assertFalse(recusado.admitida());
+        assertEquals(3, venda.ingressos(PROMOCAO)); // o ingresso do recusado voltou
+        assertEquals(1, venda.ingressos(9L));
+        assertThrows(IllegalStateException.class, () -> venda.darBaixa(misto));
+    }
+
+    @Test
+    public void testCompradoresSimultaneos_NuncaVendemMaisQueOSaldo() throws Exception {
+        EstoqueEmMemoria estoque = new EstoqueEmMemoria(16, 4, 50);
+        venda = new VendaRelampago(estoque, Map.of(PROMOCAO, 50L), 16);
+        ExecutorService compradores = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Boolean>> compras = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                compras.add(compradores.submit(() -> {
+                    Admissao admissao = venda.admitir(lote(PROMOCAO, 1));
+                    return admissao.admitida() && venda.darBaixa(admissao).sucesso();
+                }));
+            }
+            int vendidas = 0;
+            for (Future<Boolean> compra : compras) {
+                vendidas += compra.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+
+            assertEquals(50, vendidas);
+            assertEquals(0, estoque.disponivel(PROMOCAO));
+            assertEquals(0, venda.ingressos(PROMOCAO));
+        } finally {
+            compradores.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBaixasNaFila_JuntadasNumaChamadaEUmaAUmaSeOEstoqueRecusarASoma() throws Exception {
+        // Mais ingressos que unidades no estoque: só 4 das 6 baixas passam
+        EstoqueComPortao estoque = new EstoqueComPortao();
+        estoque.memoria.repor(PROMOCAO, 4);
+        venda = new VendaRelampago(estoque, Map.of(PROMOCAO, 6L), 16);
+        ExecutorService compradores = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Boolean>> compras = new ArrayList<>();
+            compras.add(compradores.submit(() -> venda.darBaixa(venda.admitir(lote(PROMOCAO, 1))).sucesso()));
+            assertTrue(estoque.primeiraBaixa.await(5, TimeUnit.SECONDS));
+            // Com a escritora presa na primeira baixa, as próximas 5 esperam juntas na fila
+            for (int i = 0; i < 5; i++) {
+                compras.add(compradores.submit(() -> venda.darBaixa(venda.admitir(lote(PROMOCAO, 1))).sucesso()));
+            }
+            while (venda.ingressos(PROMOCAO) > 0) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            estoque.portao.countDown();
+
+            int vendidas = 0;
+            for (Future<Boolean> compra : compras) {
+                vendidas += compra.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+
+            assertEquals(4, vendidas);
+            assertEquals(0, estoque.memoria.disponivel(PROMOCAO));
+            // 1 sozinha, a soma das 5 (recusada) e as 5 uma a uma
+            assertEquals(List.of(1L, 5L, 1L, 1L, 1L, 1L, 1L), estoque.pedidas);
+        } finally {
+            compradores.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLerProdutos() {
+        assertEquals(Map.of(7L, 1000L, 8L, 50L), VendaRelampago.lerProdutos(" 7:1000, 8:50 "));
+        assertEquals(Map.of(), VendaRelampago.lerProdutos(""));
+        assertThrows(IllegalArgumentException.class, () -> VendaRelampago.lerProdutos("7"));
+    }
+}
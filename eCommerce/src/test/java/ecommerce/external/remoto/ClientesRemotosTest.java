@@ -0,0 +1,71 @@
+package ecommerce.external.remoto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+
+@SpringBootTest
+@ActiveProfiles("remoto")
+public class ClientesRemotosTest {
+
+    private static final ServidorStub stub = iniciarStub();
+
+    @Autowired
+    private IEstoqueExternal estoqueExternal;
+
+    @Autowired
+    private IPagamentoExternal pagamentoExternal;
+
+    @DynamicPropertySource
+    static void urls(DynamicPropertyRegistry registry) {
+        registry.add("ecommerce.estoque.remoto.url", stub::url);
+        registry.add("ecommerce.pagamento.remoto.url", stub::url);
+    }
+
+    @AfterAll
+    static void pararStub() {
+        stub.close();
+    }
+
+    @Test
+    public void testVerificarDisponibilidade_EnviaArraysCompactos() {
+        LoteEstoque lote = new LoteEstoque(2);
+        lote.adicionar(1L, 3L);
+        lote.adicionar(2L, 1L);
+
+        DisponibilidadeDTO disponibilidade = estoqueExternal.verificarDisponibilidade(lote);
+
+        assertThat(disponibilidade.disponivel()).isTrue();
+        assertThat(stub.ultimoCorpo()).isEqualTo("{\"produtosIds\":[1,2],\"quantidades\":[3,1]}");
+    }
+
+    @Test
+    public void testAutorizarPagamento() {
+        PagamentoDTO pagamento = pagamentoExternal.autorizarPagamento(1L, 150.0);
+
+        assertThat(pagamento.autorizado()).isTrue();
+        assertThat(pagamento.transacaoId()).isPositive();
+    }
+
+    private static ServidorStub iniciarStub() {
+        try {
+            return ServidorStub.iniciar(4);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
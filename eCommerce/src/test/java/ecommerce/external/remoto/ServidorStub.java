@@ -0,0 +1,126 @@
+package ecommerce.external.remoto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import ecommerce.dto.AutorizacaoPagamentoDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.ItensEstoqueDTO;
+import ecommerce.dto.PagamentoDTO;
+
+/**
+ * Servidor HTTP local que responde como os serviços de estoque e de
+ * pagamento, para testes e benchmarks dos clientes Feign. Usa o HttpServer
+ * do JDK numa porta livre; todo estoque está disponível e todo pagamento é
+ * autorizado.
+ */
+public class ServidorStub implements AutoCloseable {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+
+    private final AtomicInteger requisicoes = new AtomicInteger();
+    private final AtomicLong transacoes = new AtomicLong();
+    private volatile String ultimoCorpo;
+
+    private ServidorStub(int threads) throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        executor = Executors.newFixedThreadPool(threads);
+        servidor.setExecutor(executor);
+
+        servidor.createContext("/estoque/disponibilidade", responder(corpo -> {
+            mapper.readValue(corpo, ItensEstoqueDTO.class);
+            return new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS);
+        }));
+        servidor.createContext("/estoque/baixa", responder(corpo -> {
+            mapper.readValue(corpo, ItensEstoqueDTO.class);
+            return new EstoqueBaixaDTO(true);
+        }));
+        servidor.createContext("/pagamentos/autorizacao", responder(corpo -> {
+            mapper.readValue(corpo, AutorizacaoPagamentoDTO.class);
+            return new PagamentoDTO(true, transacoes.incrementAndGet());
+        }));
+        servidor.createContext("/pagamentos/autorizacoes", responder(corpo -> {
+            AutorizacaoPagamentoDTO[] autorizacoes = mapper.readValue(corpo, AutorizacaoPagamentoDTO[].class);
+            List<PagamentoDTO> pagamentos = new ArrayList<>(autorizacoes.length);
+            for (int i = 0; i < autorizacoes.length; i++) {
+                pagamentos.add(new PagamentoDTO(true, transacoes.incrementAndGet()));
+            }
+            return pagamentos;
+        }));
+        servidor.createContext("/pagamentos/cancelamento", responder(corpo -> null));
+    }
+
+    public static ServidorStub iniciar(int threads) throws IOException {
+        ServidorStub stub = new ServidorStub(threads);
+        stub.servidor.start();
+        return stub;
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort();
+    }
+
+    public int requisicoes() {
+        return requisicoes.get();
+    }
+
+    public String ultimoCorpo() {
+        return ultimoCorpo;
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        executor.shutdownNow();
+    }
+
+    private interface Resposta {
+        Object para(byte[] corpo) throws IOException;
+    }
+
+    private HttpHandler responder(Resposta resposta) {
+        return troca -> {
+            try {
+                byte[] corpo = ler(troca);
+                requisicoes.incrementAndGet();
+                ultimoCorpo = new String(corpo);
+
+                Object dto = resposta.para(corpo);
+                if (dto == null) {
+                    troca.sendResponseHeaders(200, -1);
+                    return;
+                }
+                byte[] json = mapper.writeValueAsBytes(dto);
+                troca.getResponseHeaders().add("Content-Type", "application/json");
+                troca.sendResponseHeaders(200, json.length);
+                try (OutputStream saida = troca.getResponseBody()) {
+                    saida.write(json);
+                }
+            } finally {
+                troca.close();
+            }
+        };
+    }
+
+    private static byte[] ler(HttpExchange troca) throws IOException {
+        try (InputStream entrada = troca.getRequestBody()) {
+            return entrada.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package ecommerce.external.resiliencia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.external.DependenciaIndisponivelException;
+import ecommerce.external.IEstoqueExternalReativo;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.IPagamentoExternalReativo;
+import ecommerce.external.Reserva;
+import ecommerce.external.fake.EstoqueSimulado;
+import ecommerce.log.AmostradorDeLog;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+public class ChamadaProtegidaTest {
+
+    private ScheduledExecutorService agendador;
+    private SimpleMeterRegistry registry;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    public void setup() {
+        agendador = Executors.newSingleThreadScheduledExecutor();
+        registry = new SimpleMeterRegistry();
+        circuitBreaker = CircuitBreaker.of("estoque", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .ignoreExceptions(IllegalArgumentException.class)
+                .build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        agendador.shutdownNow();
+    }
+
+    @Test
+    public void testExecutar_EstoqueLentoEstouraOPrazo() {
+        EstoqueResiliente estoque = new EstoqueResiliente(
+                new EstoqueSimulado(new AmostradorDeLog(0), Duration.ofMillis(500)), chamada(Duration.ofMillis(50), 2));
+
+        DependenciaIndisponivelException e = assertThrows(DependenciaIndisponivelException.class,
+                () -> estoque.verificarDisponibilidade(List.of(1L), List.of(1L)));
+
+        assertEquals("Serviço de estoque não respondeu a tempo.", e.getMessage());
+        assertEquals(1.0, rejeicoes("tempo_esgotado"));
+    }
+
+    @Test
+    public void testExecutar_AutorizacaoConcluidaAposOPrazoECancelada() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch cancelada = new CountDownLatch(1);
+        AtomicLong transacaoCancelada = new AtomicLong();
+        PagamentoResiliente pagamento = new PagamentoResiliente(new IPagamentoExternal() {
+            @Override
+            public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+                aguardar(liberar);
+                return new PagamentoDTO(true, 77L);
+            }
+
+            @Override
+            public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+                transacaoCancelada.set(pagamentoTransacaoId);
+                cancelada.countDown();
+            }
+        }, chamada(Duration.ofMillis(50), 1));
+
+        assertThrows(DependenciaIndisponivelException.class, () -> pagamento.autorizarPagamento(1L, 10.0));
+        liberar.countDown();
+
+        // A autorização concedida depois do prazo não fica pendurada
+        assertTrue(cancelada.await(5, TimeUnit.SECONDS));
+        assertEquals(77L, transacaoCancelada.get());
+        assertEquals(1.0, registry.get("resiliencia.atrasadas").tag("dependencia", "estoque").counter().count());
+    }
+
+    @Test
+    public void testCancelarPagamento_PassaComCircuitoAberto() {
+        AtomicInteger cancelamentos = new AtomicInteger();
+        PagamentoResiliente pagamento = new PagamentoResiliente(new IPagamentoExternal() {
+            @Override
+            public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+                return new PagamentoDTO(true, 1L);
+            }
+
+            @Override
+            public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+                cancelamentos.incrementAndGet();
+            }
+        }, chamada(Duration.ofSeconds(1), 1));
+        circuitBreaker.transitionToOpenState();
+
+        assertThrows(DependenciaIndisponivelException.class, () -> pagamento.autorizarPagamento(1L, 10.0));
+        pagamento.cancelarPagamento(1L, 1L);
+
+        assertEquals(1, cancelamentos.get());
+    }
+
+    @Test
+    public void testExecutarReativo_AutorizacaoConcluidaAposOPrazoECancelada() throws Exception {
+        Sinks.One<PagamentoDTO> autorizacao = Sinks.one();
+        CountDownLatch cancelada = new CountDownLatch(1);
+        AtomicLong transacaoCancelada = new AtomicLong();
+        PagamentoReativoResiliente pagamento = new PagamentoReativoResiliente(new IPagamentoExternalReativo() {
+            @Override
+            public Mono<PagamentoDTO> autorizarPagamento(Long clienteId, Double custoTotal) {
+                return autorizacao.asMono();
+            }
+
+            @Override
+            public Mono<Void> cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+                return Mono.fromRunnable(() -> {
+                    transacaoCancelada.set(pagamentoTransacaoId);
+                    cancelada.countDown();
+                });
+            }
+        }, chamada(Duration.ofMillis(50), 1));
+
+        DependenciaIndisponivelException e = assertThrows(DependenciaIndisponivelException.class,
+                () -> pagamento.autorizarPagamento(1L, 10.0).block());
+        assertEquals("Serviço de estoque não respondeu a tempo.", e.getMessage());
+        autorizacao.tryEmitValue(new PagamentoDTO(true, 78L));
+
+        assertTrue(cancelada.await(5, TimeUnit.SECONDS));
+        assertEquals(78L, transacaoCancelada.get());
+        assertEquals(1.0, registry.get("resiliencia.atrasadas").tag("dependencia", "estoque").counter().count());
+    }
+
+    @Test
+    public void testCancelarPagamentoReativo_PassaComCircuitoAberto() {
+        AtomicInteger cancelamentos = new AtomicInteger();
+        PagamentoReativoResiliente pagamento = new PagamentoReativoResiliente(new IPagamentoExternalReativo() {
+            @Override
+            public Mono<PagamentoDTO> autorizarPagamento(Long clienteId, Double custoTotal) {
+                return Mono.just(new PagamentoDTO(true, 1L));
+            }
+
+            @Override
+            public Mono<Void> cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+                return Mono.fromRunnable(cancelamentos::incrementAndGet);
+            }
+        }, chamada(Duration.ofSeconds(1), 1));
+        circuitBreaker.transitionToOpenState();
+
+        assertThrows(DependenciaIndisponivelException.class, () -> pagamento.autorizarPagamento(1L, 10.0).block());
+        pagamento.cancelarPagamento(1L, 1L).block();
+
+        assertEquals(1, cancelamentos.get());
+    }
+
+    @Test
+    public void testReservarReativo_ReservaConcluidaAposOPrazoELiberada() throws Exception {
+        Sinks.One<Reserva> reserva = Sinks.one();
+        CountDownLatch liberada = new CountDownLatch(1);
+        EstoqueReativoResiliente estoque = new EstoqueReativoResiliente(new IEstoqueExternalReativo() {
+            @Override
+            public Mono<DisponibilidadeDTO> verificarDisponibilidade(LoteEstoque lote) {
+                return Mono.just(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
+            }
+
+            @Override
+            public Mono<EstoqueBaixaDTO> darBaixa(LoteEstoque lote) {
+                return Mono.just(new EstoqueBaixaDTO(true));
+            }
+
+            @Override
+            public Mono<Reserva> reservar(LoteEstoque lote) {
+                return reserva.asMono();
+            }
+
+            @Override
+            public Mono<Void> liberar(Reserva atrasada) {
+                return Mono.fromRunnable(liberada::countDown);
+            }
+        }, chamada(Duration.ofMillis(50), 1));
+        LoteEstoque lote = LoteEstoque.de(List.of(1L), List.of(1L));
+
+        assertThrows(DependenciaIndisponivelException.class, () -> estoque.reservar(lote).block());
+        reserva.tryEmitValue(Reserva.efetuada(lote));
+
+        // A reserva feita depois do prazo não segura o saldo
+        assertTrue(liberada.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExecutar_CircuitoAbreAposFalhasEFalhaSemChamarOServico() {
+        AtomicInteger chamadas = new AtomicInteger();
+        ChamadaProtegida chamada = chamada(Duration.ofSeconds(1), 2);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalStateException.class, () -> chamada.executar(() -> {
+                chamadas.incrementAndGet();
+                throw new IllegalStateException("Estoque fora do ar.");
+            }));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        DependenciaIndisponivelException e = assertThrows(DependenciaIndisponivelException.class,
+                () -> chamada.executar(() -> chamadas.incrementAndGet()));
+
+        assertEquals("Serviço de estoque indisponível no momento.", e.getMessage());
+        assertEquals(4, chamadas.get());
+        assertEquals(1.0, rejeicoes("circuito_aberto"));
+    }
+
+    @Test
+    public void testExecutar_ErroDeNegocioNaoAbreCircuito() {
+        ChamadaProtegida chamada = chamada(Duration.ofSeconds(1), 2);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalArgumentException.class, () -> chamada.executar(() -> {
+                throw new IllegalArgumentException("Quantidade negativa.");
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testExecutar_BulkheadCheioRecusaNovasChamadas() throws Exception {
+        // Uma thread e uma posição na fila: a terceira chamada simultânea é recusada
+        ChamadaProtegida chamada = chamada(Duration.ofSeconds(5), 1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch ocupadas = new CountDownLatch(1);
+        ExecutorService requisicoes = Executors.newFixedThreadPool(2);
+        try {
+            requisicoes.submit(() -> chamada.executar(() -> {
+                ocupadas.countDown();
+                aguardar(liberar);
+                return new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS);
+            }));
+            assertTrue(ocupadas.await(5, TimeUnit.SECONDS));
+            requisicoes.submit(() -> chamada.executar(() -> new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS)));
+            Thread.sleep(100);
+
+            DependenciaIndisponivelException e = assertThrows(DependenciaIndisponivelException.class,
+                    () -> chamada.executar(() -> new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS)));
+
+            assertEquals("Serviço de estoque sobrecarregado.", e.getMessage());
+            assertInstanceOf(io.github.resilience4j.bulkhead.BulkheadFullException.class, e.getCause());
+            assertEquals(1.0, rejeicoes("sobrecarga"));
+        } finally {
+            liberar.countDown();
+            requisicoes.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecutar_ThreadsVirtuais_SemaforoCheioRecusaSemEsperar() throws Exception {
+        // Uma chamada por vez: a segunda simultânea é recusada na hora, sem fila
+        ExecutorService virtuais = Executors.newVirtualThreadPerTaskExecutor();
+        ChamadaProtegida chamada = new ChamadaProtegida("estoque", circuitBreaker,
+                Bulkhead.of("estoque", BulkheadConfig.custom()
+                        .maxConcurrentCalls(1)
+                        .maxWaitDuration(Duration.ZERO)
+                        .build()),
+                virtuais, TimeLimiter.of(Duration.ofSeconds(5)), agendador, registry);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch ocupada = new CountDownLatch(1);
+        try {
+            Future<Boolean> primeira = virtuais.submit(() -> chamada.executar(() -> {
+                ocupada.countDown();
+                aguardar(liberar);
+                return Thread.currentThread().isVirtual();
+            }));
+            assertTrue(ocupada.await(5, TimeUnit.SECONDS));
+
+            DependenciaIndisponivelException e = assertThrows(DependenciaIndisponivelException.class,
+                    () -> chamada.executar(() -> new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS)));
+
+            assertEquals("Serviço de estoque sobrecarregado.", e.getMessage());
+            assertEquals(1.0, rejeicoes("sobrecarga"));
+            liberar.countDown();
+            // A permissão só volta quando a primeira termina
+            assertTrue(primeira.get(5, TimeUnit.SECONDS));
+            assertTrue(chamada.executar(() -> Thread.currentThread().isVirtual()));
+        } finally {
+            liberar.countDown();
+            virtuais.shutdownNow();
+        }
+    }
+
+    private ChamadaProtegida chamada(Duration prazo, int threads) {
+        ThreadPoolBulkhead bulkhead = ThreadPoolBulkhead.of("estoque", ThreadPoolBulkheadConfig.custom()
+                .coreThreadPoolSize(threads)
+                .maxThreadPoolSize(threads)
+                .queueCapacity(1)
+                .build());
+        return new ChamadaProtegida("estoque", circuitBreaker, bulkhead, TimeLimiter.of(prazo), agendador, registry);
+    }
+
+    private double rejeicoes(String motivo) {
+        return registry.get("resiliencia.rejeicoes").tag("dependencia", "estoque").tag("motivo", motivo).counter()
+                .count();
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
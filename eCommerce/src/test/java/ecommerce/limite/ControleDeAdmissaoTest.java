@@ -0,0 +1,131 @@
+package ecommerce.limite;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ecommerce.limite.ControleDeAdmissao.Decisao;
+
+public class ControleDeAdmissaoTest {
+
+    private static final long SEGUNDO = 1_000_000_000L;
+    private static final long MILISSEGUNDO = 1_000_000L;
+
+    @Test
+    public void testBaldes_RajadaETaxaPorCliente() {
+        BaldesDeFichas baldes = new BaldesDeFichas(2, 3, 4);
+        long agora = 10 * SEGUNDO;
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(baldes.tentar(1L, agora));
+        }
+        assertFalse(baldes.tentar(1L, agora));
+        assertTrue(baldes.tentar(2L, agora)); // outro cliente tem o próprio balde
+
+        // 2 fichas por segundo: meio segundo depois há uma ficha, e só uma
+        assertTrue(baldes.tentar(1L, agora + SEGUNDO / 2));
+        assertFalse(baldes.tentar(1L, agora + SEGUNDO / 2));
+
+        // Parado por muito tempo, o balde enche só até a rajada
+        long depois = agora + 60 * SEGUNDO;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(baldes.tentar(1L, depois));
+        }
+        assertFalse(baldes.tentar(1L, depois));
+    }
+
+    @Test
+    public void testBaldes_TabelaDescartaBaldesCheiosAoCrescer() {
+        BaldesDeFichas baldes = new BaldesDeFichas(1, 2, 1);
+        long agora = 10 * SEGUNDO;
+        for (long clienteId = 1; clienteId <= 1000; clienteId++) {
+            baldes.tentar(clienteId, agora);
+        }
+        assertEquals(1000, baldes.clientes());
+
+        // Depois de encherem, os baldes antigos somem quando a tabela precisar crescer
+        long depois = agora + 10 * SEGUNDO;
+        for (long clienteId = 1001; clienteId <= 1600; clienteId++) {
+            baldes.tentar(clienteId, depois);
+        }
+        assertEquals(600, baldes.clientes());
+        assertTrue(baldes.tentar(1L, depois)); // cliente descartado volta com o balde cheio
+        assertTrue(baldes.tentar(1L, depois));
+        assertFalse(baldes.tentar(1L, depois));
+    }
+
+    @Test
+    public void testLimite_RecusaAcimaDoLimite() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(2, 1, 10, 1.5);
+
+        assertTrue(limite.entrar());
+        assertTrue(limite.entrar());
+        assertFalse(limite.entrar());
+
+        limite.sair(MILISSEGUNDO);
+        assertTrue(limite.entrar());
+    }
+
+    @Test
+    public void testLimite_CresceComLatenciaEstavelECaiQuandoElaSobe() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(20, 10, 200, 1.5);
+
+        ocupar(limite, 1000, 10 * MILISSEGUNDO);
+        int aposEstavel = limite.limite();
+        assertTrue(aposEstavel > 20, "limite após latência estável: " + aposEstavel);
+
+        ocupar(limite, 50, 100 * MILISSEGUNDO);
+        int aposAlta = limite.limite();
+        assertTrue(aposAlta < aposEstavel / 2, "limite após latência alta: " + aposAlta);
+        assertTrue(aposAlta >= 10);
+    }
+
+    @Test
+    public void testLimite_PoucoUsoNaoMudaOLimite() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(20, 10, 200, 1.5);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limite.entrar());
+            limite.sair(10 * MILISSEGUNDO);
+        }
+
+        assertEquals(20, limite.limite());
+    }
+
+    @Test
+    public void testAdmitir_ClienteAcimaDaTaxaAntesDoLimiteGlobal() {
+        ControleDeAdmissao controle = new ControleDeAdmissao(0.001, 1, 1, 1, 10, 1.5);
+
+        assertEquals(Decisao.ADMITIDA, controle.admitir(1L));
+        assertEquals(Decisao.LIMITE_DO_CLIENTE, controle.admitir(1L));
+        assertEquals(Decisao.SOBRECARGA, controle.admitir(2L));
+
+        controle.liberar(MILISSEGUNDO);
+        assertEquals(Decisao.ADMITIDA, controle.admitir(3L));
+
+        ControleDeAdmissao.Estado estado = controle.estado();
+        assertEquals(1, estado.emAndamento());
+        assertEquals(1, estado.recusadasPorCliente());
+        assertEquals(1, estado.recusadasPorSobrecarga());
+    }
+
+    @Test
+    public void testParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new BaldesDeFichas(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LimiteAdaptativo(5, 10, 20, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new LimiteAdaptativo(10, 10, 20, 0.5));
+    }
+
+    // Mantém o limite todo ocupado e conclui as finalizações com a latência dada
+    private static void ocupar(LimiteAdaptativo limite, int amostras, long latenciaNanos) {
+        for (int i = 0; i < amostras; i++) {
+            while (limite.entrar()) {
+                // enche as vagas
+            }
+            limite.sair(latenciaNanos);
+        }
+    }
+}
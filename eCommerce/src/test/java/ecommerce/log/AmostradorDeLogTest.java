@@ -0,0 +1,28 @@
+package ecommerce.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class AmostradorDeLogTest {
+
+    @Test
+    public void testPermitir_LimitaMensagensPorJanela() {
+        AmostradorDeLog amostrador = new AmostradorDeLog(3);
+
+        long permitidas = IntStream.range(0, 100).filter(i -> amostrador.permitir()).count();
+
+        assertEquals(3, permitidas);
+    }
+
+    @Test
+    public void testPermitir_LimiteZeroDesligaAmostragem() {
+        AmostradorDeLog amostrador = new AmostradorDeLog(0);
+
+        long permitidas = IntStream.range(0, 100).filter(i -> amostrador.permitir()).count();
+
+        assertEquals(100, permitidas);
+    }
+}
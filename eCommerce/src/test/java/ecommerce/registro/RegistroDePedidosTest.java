@@ -0,0 +1,156 @@
+package ecommerce.registro;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import ecommerce.registro.PedidoRegistrado.Situacao;
+
+public class RegistroDePedidosTest {
+
+    @TempDir
+    Path diretorio;
+
+    private static PedidoRegistrado pedido(long carrinhoId, long clienteId, Long transacaoId) {
+        return new PedidoRegistrado(1_700_000_000_000L, Situacao.CONCLUIDA, carrinhoId, clienteId, transacaoId,
+                new long[] { 1L, 2L }, new long[] { 3L, 1L }, new long[] { 1990L, 50000L },
+                55970L, 5597L, 0L, 50373L, "Compra finalizada com sucesso.");
+    }
+
+    @Test
+    public void testRegistrar_PedidoVoltaIgualNaBuscaPorCliente() {
+        try (RegistroDePedidos registro = new RegistroDePedidos(diretorio, DataSize.ofKilobytes(64),
+                Duration.ofMillis(10))) {
+            registro.registrar(pedido(10L, 1L, 555L));
+            registro.registrar(pedido(11L, 2L, null));
+            registro.registrar(pedido(12L, 1L, 556L));
+
+            List<PedidoRegistrado> doCliente1 = registro.buscarPorCliente(1L);
+            assertEquals(2, doCliente1.size());
+            PedidoRegistrado primeiro = doCliente1.get(0);
+            assertEquals(10L, primeiro.carrinhoId());
+            assertEquals(555L, primeiro.transacaoId());
+            assertEquals(Situacao.CONCLUIDA, primeiro.situacao());
+            assertEquals(1_700_000_000_000L, primeiro.instante());
+            assertArrayEquals(new long[] { 1L, 2L }, primeiro.produtosIds());
+            assertArrayEquals(new long[] { 3L, 1L }, primeiro.quantidades());
+            assertArrayEquals(new long[] { 1990L, 50000L }, primeiro.precosCentavos());
+            assertEquals(55970L, primeiro.subtotalCentavos());
+            assertEquals(5597L, primeiro.descontoCentavos());
+            assertEquals(50373L, primeiro.totalCentavos());
+            assertEquals("Compra finalizada com sucesso.", primeiro.mensagem());
+            assertEquals(12L, doCliente1.get(1).carrinhoId());
+
+            assertNull(registro.buscarPorCliente(2L).get(0).transacaoId());
+            assertTrue(registro.buscarPorCliente(3L).isEmpty());
+        }
+    }
+
+    @Test
+    public void testRegistrar_SegmentosRolamEReabremComIndice() throws IOException {
+        // Segmentos de 1 KB: cabem poucos pedidos em cada
+        try (RegistroDePedidos registro = new RegistroDePedidos(diretorio, DataSize.ofKilobytes(1),
+                Duration.ofMillis(10))) {
+            for (long carrinhoId = 1; carrinhoId <= 40; carrinhoId++) {
+                registro.registrar(pedido(carrinhoId, carrinhoId % 4, carrinhoId));
+            }
+        }
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            assertTrue(arquivos.filter(arquivo -> arquivo.toString().endsWith(".idx")).count() > 1);
+        }
+
+        try (RegistroDePedidos reaberto = new RegistroDePedidos(diretorio, DataSize.ofKilobytes(1),
+                Duration.ofMillis(10))) {
+            List<PedidoRegistrado> doCliente3 = reaberto.buscarPorCliente(3L);
+            assertEquals(10, doCliente3.size());
+            for (int i = 0; i < doCliente3.size(); i++) {
+                assertEquals(3L + 4 * i, doCliente3.get(i).carrinhoId());
+            }
+
+            reaberto.registrar(pedido(41L, 3L, 41L));
+            assertEquals(11, reaberto.buscarPorCliente(3L).size());
+        }
+    }
+
+    @Test
+    public void testBuscarPorCliente_RotacaoDuranteABuscaNaoEscondePedidos() throws Exception {
+        try (RegistroDePedidos registro = new RegistroDePedidos(diretorio, DataSize.ofKilobytes(1),
+                Duration.ofMillis(10))) {
+            // fsync em grupo rodando junto com as rotações
+            registro.iniciar();
+            CompletableFuture<Void> escrita = CompletableFuture.runAsync(() -> {
+                for (long carrinhoId = 1; carrinhoId <= 400; carrinhoId++) {
+                    registro.registrar(pedido(carrinhoId, 1L, carrinhoId));
+                }
+            });
+
+            // Cada busca vê todos os pedidos já registrados, em ordem, mesmo com segmentos rolando
+            int anteriores = 0;
+            while (!escrita.isDone()) {
+                List<PedidoRegistrado> pedidos = registro.buscarPorCliente(1L);
+                assertTrue(pedidos.size() >= anteriores, pedidos.size() + " < " + anteriores);
+                for (int i = 0; i < pedidos.size(); i++) {
+                    assertEquals(i + 1L, pedidos.get(i).carrinhoId());
+                }
+                anteriores = pedidos.size();
+            }
+            escrita.get(5, TimeUnit.SECONDS);
+            assertEquals(400, registro.buscarPorCliente(1L).size());
+        }
+    }
+
+    @Test
+    public void testAbrir_RegistroCorrompidoNoFimEDescartado() throws IOException {
+        try (RegistroDePedidos registro = new RegistroDePedidos(diretorio, DataSize.ofKilobytes(64),
+                Duration.ofMillis(10))) {
+            registro.registrar(pedido(1L, 1L, 1L));
+            registro.registrar(pedido(2L, 1L, 2L));
+        }
+
+        // Simula uma escrita interrompida: um byte do último pedido não chegou ao disco
+        Path segmento = diretorio.resolve("pedidos-00000000000000000001.log");
+        try (RandomAccessFile arquivo = new RandomAccessFile(segmento.toFile(), "rw")) {
+            arquivo.seek(registroTamanho() + 8 + 20);
+            arquivo.write(0x7F);
+        }
+
+        try (RegistroDePedidos reaberto = new RegistroDePedidos(diretorio, DataSize.ofKilobytes(64),
+                Duration.ofMillis(10))) {
+            assertEquals(1, reaberto.buscarPorCliente(1L).size());
+
+            // O próximo pedido ocupa o lugar do descartado
+            reaberto.registrar(pedido(3L, 1L, 3L));
+            List<PedidoRegistrado> pedidos = reaberto.buscarPorCliente(1L);
+            assertEquals(List.of(1L, 3L), pedidos.stream().map(PedidoRegistrado::carrinhoId).toList());
+        }
+    }
+
+    @Test
+    public void testRegistrar_PedidoMaiorQueOSegmentoERecusado() {
+        try (RegistroDePedidos registro = new RegistroDePedidos(diretorio, DataSize.ofBytes(64),
+                Duration.ofMillis(10))) {
+            assertThrows(IllegalArgumentException.class, () -> registro.registrar(pedido(1L, 1L, 1L)));
+        }
+    }
+
+    // Tamanho em disco de um pedido(), com o cabeçalho
+    private static int registroTamanho() {
+        return 8 + pedido(0L, 0L, 0L).serializar().length;
+    }
+}
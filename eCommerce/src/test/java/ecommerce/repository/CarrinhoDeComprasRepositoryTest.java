@@ -0,0 +1,217 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.NovoCarrinhoDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.dto.CarrinhoResumoDTO;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.service.CarrinhoDeComprasService;
+import ecommerce.service.CompraService;
+import ecommerce.service.CotacaoService;
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=ecommerce.repository.ContadorDeSql")
+@Transactional
+public class CarrinhoDeComprasRepositoryTest {
+
+    // Uma consulta para o cliente e uma para carrinho + itens + produtos
+    private static final int ORCAMENTO_SQL_FINALIZACAO = 2;
+
+    // Cliente (se não estiver no cache) e carrinho, sem os itens
+    private static final int ORCAMENTO_SQL_RESUMO = 2;
+
+    // Falta: versão do carrinho e os valores que entram no preço; acerto: só a versão
+    private static final int ORCAMENTO_SQL_COTACAO_FALTA = 2;
+    private static final int ORCAMENTO_SQL_COTACAO_ACERTO = 1;
+
+    // Produtos, cliente, sequências (uma a cada 50 ids) e um lote de insert a cada 50 itens
+    private static final int ITENS_CRIACAO = 500;
+    private static final int ORCAMENTO_SQL_CRIACAO = 30;
+
+    private static final int QUANTIDADE_ITENS = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private CarrinhoDeComprasRepository carrinhoRepository;
+
+    @Autowired
+    private CompraService compraService;
+
+    @Autowired
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Autowired
+    private CotacaoService cotacaoService;
+
+    // reservar e confirmar são métodos padrão sobre verificarDisponibilidade e darBaixa
+    @MockBean(answer = Answers.CALLS_REAL_METHODS)
+    private IEstoqueExternal estoqueExternal;
+
+    @MockBean
+    private IPagamentoExternal pagamentoExternal;
+
+    private Cliente cliente;
+    private CarrinhoDeCompras carrinho;
+
+    @BeforeEach
+    void setUp() {
+        cliente = clienteRepository.save(new Cliente(null, "Cliente Teste", "Endereço Teste", TipoCliente.PRATA));
+
+        List<ItemCompra> itens = new ArrayList<>();
+        for (int i = 0; i < QUANTIDADE_ITENS; i++) {
+            Produto produto = produtoRepository.save(new Produto(null, "Produto " + i, "Descrição " + i,
+                    new BigDecimal("10.00"), 1, TipoProduto.LIVRO));
+            itens.add(new ItemCompra(null, produto, 1L));
+        }
+        carrinho = carrinhoRepository.save(new CarrinhoDeCompras(null, cliente, itens, null));
+
+        // Descarta o contexto de persistência para que as consultas abaixo vão ao banco
+        entityManager.flush();
+        entityManager.clear();
+        ContadorDeSql.zerar();
+    }
+
+    @Test
+    public void testFindByIdAndCliente_CarregaItensEProdutosEmUmaConsulta() {
+        CarrinhoDeCompras encontrado = carrinhoRepository.findByIdAndCliente(carrinho.getId(), cliente).orElseThrow();
+
+        BigDecimal total = encontrado.getItens().stream()
+                .map(item -> item.getProduto().getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertThat(encontrado.getItens()).hasSize(QUANTIDADE_ITENS);
+        assertThat(total).isEqualByComparingTo("500.00");
+        assertThat(ContadorDeSql.total()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFinalizarCompra_RespeitaOrcamentoDeSql() {
+        when(estoqueExternal.verificarDisponibilidade(any(LoteEstoque.class)))
+                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
+        when(pagamentoExternal.autorizarPagamento(anyLong(), anyDouble())).thenReturn(new PagamentoDTO(true, 1L));
+        when(estoqueExternal.darBaixa(any(LoteEstoque.class))).thenReturn(new EstoqueBaixaDTO(true));
+
+        CompraDTO resultado = compraService.finalizarCompra(carrinho.getId(), cliente.getId());
+
+        assertThat(resultado.sucesso()).isTrue();
+        assertThat(ContadorDeSql.total()).isLessThanOrEqualTo(ORCAMENTO_SQL_FINALIZACAO);
+    }
+
+    @Test
+    public void testResumo_ComTotaisMantidosNaoCarregaItens() {
+        carrinhoService.recalcularTotais(carrinho.getId(), cliente.getId());
+        entityManager.flush();
+        entityManager.clear();
+        ContadorDeSql.zerar();
+
+        CarrinhoResumoDTO resumo = compraService.resumirCarrinho(carrinho.getId(), cliente.getId(), false);
+
+        assertThat(resumo.subtotal()).isEqualByComparingTo("500.00");
+        assertThat(resumo.pesoTotal()).isEqualTo((long) QUANTIDADE_ITENS);
+        assertThat(resumo.total()).isEqualByComparingTo("600.00"); // frete de 50 x 4,00 pela metade (PRATA)
+        assertThat(ContadorDeSql.total()).isLessThanOrEqualTo(ORCAMENTO_SQL_RESUMO);
+    }
+
+    @Test
+    public void testCotacao_UmaConsultaSemCarregarItensEMesmoTotalDaFinalizacao() {
+        CotacaoDTO cotacao = cotacaoService.cotar(carrinho.getId(), cliente.getId());
+        CotacaoDTO repetida = cotacaoService.cotar(carrinho.getId(), cliente.getId());
+
+        assertThat(cotacao.subtotal()).isEqualByComparingTo("500.00");
+        assertThat(cotacao.desconto()).isEqualByComparingTo("0.00");
+        assertThat(cotacao.frete()).isEqualByComparingTo("100.00"); // 50 x 4,00 pela metade (PRATA)
+        assertThat(cotacao.total()).isEqualByComparingTo("600.00");
+        assertThat(repetida).isEqualTo(cotacao);
+        assertThat(ContadorDeSql.total()).isLessThanOrEqualTo(ORCAMENTO_SQL_COTACAO_FALTA + ORCAMENTO_SQL_COTACAO_ACERTO);
+        assertThat(cotacao.total()).isEqualByComparingTo(compraService.calcularCustoTotal(
+                carrinhoRepository.findByIdAndCliente(carrinho.getId(), cliente).orElseThrow()));
+    }
+
+    @Test
+    public void testAlteracoesDeItens_GravamTotaisQueConferem() {
+        Produto novo = produtoRepository.save(new Produto(null, "Novo", "Descrição", new BigDecimal("99.90"), 4,
+                TipoProduto.LIVRO));
+        CarrinhoDeCompras alterado = carrinhoService.adicionarItem(carrinho.getId(), cliente.getId(), novo.getId(), 2L);
+        entityManager.flush();
+        ItemCompra primeiro = alterado.getItens().get(0);
+        carrinhoService.alterarQuantidade(carrinho.getId(), cliente.getId(), primeiro.getId(), 3L);
+        carrinhoService.removerItem(carrinho.getId(), cliente.getId(), alterado.getItens().get(1).getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        CarrinhoDeCompras recarregado = carrinhoRepository.findByIdAndCliente(carrinho.getId(), cliente).orElseThrow();
+
+        assertThat(recarregado.getItens()).hasSize(QUANTIDADE_ITENS);
+        assertThat(recarregado.getSubtotal()).isEqualByComparingTo("709.80"); // 48 x 10,00 + 30,00 + 2 x 99,90
+        assertThat(recarregado.getPesoTotal()).isEqualTo(48L + 3 + 8);
+        assertThat(recarregado.totaisConferem()).isTrue();
+        assertThat(compraService.resumir(recarregado, false).total())
+                .isEqualByComparingTo(compraService.calcularCustoTotal(recarregado));
+    }
+
+    @Test
+    public void testCriarCarrinhos_InsereEmLotes() {
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < ITENS_CRIACAO; i++) {
+            produtos.add(new Produto(null, "Lote " + i, "Descrição " + i, new BigDecimal("2.50"), 1,
+                    TipoProduto.LIVRO));
+        }
+        long[] produtosIds = produtoRepository.saveAll(produtos).stream().mapToLong(Produto::getId).toArray();
+        long[] quantidades = new long[ITENS_CRIACAO];
+        Arrays.fill(quantidades, 2L);
+        entityManager.flush();
+        entityManager.clear();
+        ContadorDeSql.zerar();
+
+        CarrinhoDeCompras criado = carrinhoService
+                .criarCarrinhos(List.of(new NovoCarrinhoDTO(cliente.getId(), produtosIds, quantidades))).get(0);
+        entityManager.flush();
+
+        // Sem lotes seriam pelo menos um insert por item
+        assertThat(ContadorDeSql.total()).isLessThanOrEqualTo(ORCAMENTO_SQL_CRIACAO);
+        entityManager.clear();
+        CarrinhoDeCompras recarregado = carrinhoRepository.findByIdAndCliente(criado.getId(), cliente).orElseThrow();
+        assertThat(recarregado.getItens()).hasSize(ITENS_CRIACAO);
+        assertThat(recarregado.getSubtotal()).isEqualByComparingTo("2500.00");
+        assertThat(recarregado.getPesoTotal()).isEqualTo(2L * ITENS_CRIACAO);
+        assertThat(recarregado.totaisConferem()).isTrue();
+    }
+}
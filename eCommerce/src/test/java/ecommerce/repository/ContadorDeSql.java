@@ -0,0 +1,28 @@
+package ecommerce.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate. Registrado nos testes pela
+ * propriedade hibernate.session_factory.statement_inspector.
+ */
+public class ContadorDeSql implements StatementInspector {
+
+    private static final AtomicInteger TOTAL = new AtomicInteger();
+
+    @Override
+    public String inspect(String sql) {
+        TOTAL.incrementAndGet();
+        return sql;
+    }
+
+    public static void zerar() {
+        TOTAL.set(0);
+    }
+
+    public static int total() {
+        return TOTAL.get();
+    }
+}
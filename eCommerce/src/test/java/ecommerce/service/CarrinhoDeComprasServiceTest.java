@@ -10,11 +10,20 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import ecommerce.dto.NovoCarrinhoDTO;
 import ecommerce.entity.CarrinhoDeCompras;
 import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
 import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ProdutoRepository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
 @ExtendWith(MockitoExtension.class)
 public class CarrinhoDeComprasServiceTest {
@@ -25,6 +34,12 @@ public class CarrinhoDeComprasServiceTest {
     @Mock
     private CarrinhoDeComprasRepository repository;
 
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private ProdutoRepository produtoRepository;
+
     private Cliente cliente;
     private CarrinhoDeCompras carrinho;
 
@@ -66,4 +81,158 @@ public class CarrinhoDeComprasServiceTest {
         // Verificar que o repositório foi chamado
         verify(repository).findByIdAndCliente(carrinhoId, cliente);
     }
+
+    private Produto produto(long id, String preco, int peso) {
+        Produto produto = new Produto(id, "Produto " + id, "Descrição " + id, new BigDecimal(preco), peso,
+                TipoProduto.ELETRONICO);
+        lenient().when(produtoRepository.findById(id)).thenReturn(Optional.of(produto));
+        return produto;
+    }
+
+    private void carrinhoDoCliente() {
+        cliente.setId(1L);
+        cliente.setTipo(TipoCliente.PRATA);
+        carrinho.setId(1L);
+        carrinho.setCliente(cliente);
+        lenient().when(clienteService.buscarPorId(1L)).thenReturn(cliente);
+        lenient().when(repository.findByIdAndCliente(1L, cliente)).thenReturn(Optional.of(carrinho));
+        lenient().when(repository.save(carrinho)).thenReturn(carrinho);
+    }
+
+    @Test
+    public void testAdicionarItem_MantemTotaisEJuntaMesmoProduto() {
+        carrinhoDoCliente();
+        produto(10L, "25.50", 2);
+        produto(20L, "100.00", 7);
+
+        carrinhoService.adicionarItem(1L, 1L, 10L, 2L);
+        carrinhoService.adicionarItem(1L, 1L, 20L, 1L);
+        CarrinhoDeCompras resultado = carrinhoService.adicionarItem(1L, 1L, 10L, 1L);
+
+        assertEquals(2, resultado.getItens().size());
+        assertEquals(3L, resultado.getItens().get(0).getQuantidade());
+        assertEquals(0, new BigDecimal("176.50").compareTo(resultado.getSubtotal()));
+        assertEquals(13L, resultado.getPesoTotal());
+        assertTrue(resultado.totaisConferem());
+    }
+
+    @Test
+    public void testAlterarQuantidadeERemoverItem_AtualizamTotais() {
+        carrinhoDoCliente();
+        produto(10L, "10.00", 1);
+        produto(20L, "5.00", 3);
+        carrinhoService.adicionarItem(1L, 1L, 10L, 1L);
+        carrinhoService.adicionarItem(1L, 1L, 20L, 2L);
+        carrinho.getItens().get(0).setId(100L);
+        carrinho.getItens().get(1).setId(200L);
+
+        carrinhoService.alterarQuantidade(1L, 1L, 100L, 4L);
+        assertEquals(0, new BigDecimal("50.00").compareTo(carrinho.getSubtotal()));
+        assertEquals(10L, carrinho.getPesoTotal());
+
+        carrinhoService.removerItem(1L, 1L, 200L);
+        assertEquals(1, carrinho.getItens().size());
+        assertEquals(0, new BigDecimal("40.00").compareTo(carrinho.getSubtotal()));
+        assertEquals(4L, carrinho.getPesoTotal());
+    }
+
+    @Test
+    public void testAlterarQuantidade_ItemDeOutroCarrinho() {
+        carrinhoDoCliente();
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                carrinhoService.alterarQuantidade(1L, 1L, 999L, 1L));
+        assertEquals("Item não encontrado no carrinho.", exception.getMessage());
+    }
+
+    @Test
+    public void testAdicionarItem_QuantidadeInvalida() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                carrinhoService.adicionarItem(1L, 1L, 10L, 0L));
+        assertEquals("A quantidade deve ser maior que zero.", exception.getMessage());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void testTotaisMantidos_ConferemComRecalculoCompleto() {
+        carrinhoDoCliente();
+        CompraService compraService = new CompraService(null, null, null, null, MotorPrecificacao.BIGDECIMAL,
+                new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, null, null, null, null, null);
+        for (long id = 1; id <= 8; id++) {
+            produto(id, (id * 37) + "." + (id * 13 % 100), (int) id);
+        }
+
+        // Sequência aleatória de alterações; após cada uma, o total pelos totais
+        // mantidos deve ser o mesmo da soma completa dos itens
+        Random random = new Random(7);
+        long proximoItemId = 1;
+        for (int i = 0; i < 200; i++) {
+            int operacao = carrinho.getItens().isEmpty() ? 0 : random.nextInt(3);
+            if (operacao == 0) {
+                ItemCompra item = carrinho.adicionarItem(produtoRepository.findById(1L + random.nextInt(8)).get(),
+                        1 + random.nextInt(4));
+                if (item.getId() == null) {
+                    item.setId(proximoItemId++);
+                }
+            } else {
+                ItemCompra item = carrinho.getItens().get(random.nextInt(carrinho.getItens().size()));
+                if (operacao == 1) {
+                    carrinhoService.alterarQuantidade(1L, 1L, item.getId(), 1L + random.nextInt(10));
+                } else {
+                    carrinhoService.removerItem(1L, 1L, item.getId());
+                }
+            }
+
+            assertTrue(carrinho.totaisConferem());
+            BigDecimal pelosTotais = compraService.calcularCustoTotal(carrinho.getSubtotal(), carrinho.getPesoTotal(),
+                    TipoCliente.PRATA);
+            assertEquals(0, compraService.calcularCustoTotal(carrinho).compareTo(pelosTotais));
+        }
+    }
+
+    @Test
+    public void testTotaisConferem_DivergemQuandoPrecoMuda() {
+        carrinhoDoCliente();
+        Produto produto = produto(10L, "10.00", 1);
+        carrinhoService.adicionarItem(1L, 1L, 10L, 2L);
+
+        produto.setPreco(new BigDecimal("12.00"));
+        assertFalse(carrinho.totaisConferem());
+
+        carrinhoService.recalcularTotais(1L, 1L);
+        assertTrue(carrinho.totaisConferem());
+        assertEquals(0, new BigDecimal("24.00").compareTo(carrinho.getSubtotal()));
+    }
+
+    @Test
+    public void testCriarCarrinhos_SomaProdutoRepetidoEMantemTotais() {
+        cliente.setTipo(TipoCliente.BRONZE);
+        Produto a = produto(10L, "3.00", 1);
+        Produto b = produto(20L, "7.00", 2);
+        when(produtoRepository.findAllById(anyIterable())).thenReturn(List.of(a, b));
+        when(clienteService.buscarPorId(1L)).thenReturn(cliente);
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<CarrinhoDeCompras> criados = carrinhoService.criarCarrinhos(List.of(
+                new NovoCarrinhoDTO(1L, new long[] { 10L, 20L, 10L }, new long[] { 1L, 1L, 2L })));
+
+        CarrinhoDeCompras criado = criados.get(0);
+        assertEquals(2, criado.getItens().size());
+        assertEquals(3L, criado.getItens().get(0).getQuantidade());
+        assertEquals(0, new BigDecimal("16.00").compareTo(criado.getSubtotal()));
+        assertEquals(5L, criado.getPesoTotal());
+        verify(produtoRepository).findAllById(anyIterable());
+    }
+
+    @Test
+    public void testCriarCarrinhos_ProdutoInexistente() {
+        when(produtoRepository.findAllById(anyIterable())).thenReturn(List.of());
+
+        List<NovoCarrinhoDTO> novos = List.of(new NovoCarrinhoDTO(1L, new long[] { 99L }, new long[] { 1L }));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                carrinhoService.criarCarrinhos(novos));
+        assertEquals("Produto não encontrado: 99", exception.getMessage());
+        verify(repository, never()).saveAll(anyList());
+    }
 }
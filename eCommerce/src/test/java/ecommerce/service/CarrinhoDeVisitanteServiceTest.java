@@ -0,0 +1,86 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.util.unit.DataSize;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoProduto;
+import ecommerce.visitante.CarrinhosDeVisitantes;
+
+public class CarrinhoDeVisitanteServiceTest {
+
+    private static final Long CLIENTE_ID = 1L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    private CarrinhosDeVisitantes carrinhos;
+    private CarrinhoDeVisitanteService visitanteService;
+    private long carrinhoId;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        carrinhos = new CarrinhosDeVisitantes(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64),
+                Duration.ofMinutes(30), Clock.systemUTC());
+        CatalogoProdutos catalogo = new CatalogoProdutos();
+        catalogo.atualizar(new Produto(1L, "Produto", "", new BigDecimal("10.00"), 1, TipoProduto.LIVRO));
+        visitanteService = new CarrinhoDeVisitanteService(carrinhos, catalogo, carrinhoService);
+        carrinhoId = visitanteService.criar().carrinhoId();
+        visitanteService.adicionarItem(carrinhoId, 1L, 2L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        carrinhos.close();
+    }
+
+    @Test
+    public void testMaterializar_LiberaOCarrinhoDoVisitante() {
+        CarrinhoDeCompras criado = new CarrinhoDeCompras();
+        when(carrinhoService.criarCarrinhos(anyList())).thenReturn(List.of(criado));
+
+        assertThat(visitanteService.materializar(carrinhoId, CLIENTE_ID)).isSameAs(criado);
+        assertThatThrownBy(() -> visitanteService.buscar(carrinhoId))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testMaterializar_FalhaAoGravarDevolveOCarrinhoAoVisitante() {
+        when(carrinhoService.criarCarrinhos(anyList()))
+                .thenThrow(new IllegalArgumentException("Cliente não encontrado."));
+
+        assertThatThrownBy(() -> visitanteService.materializar(carrinhoId, CLIENTE_ID))
+                .hasMessage("Cliente não encontrado.");
+
+        // A reserva foi desfeita: o carrinho continua alterável e pode ser convertido de novo
+        assertThat(visitanteService.adicionarItem(carrinhoId, 1L, 1L).quantidades()).containsExactly(3L);
+    }
+
+    @Test
+    public void testMaterializar_CarrinhoEmConversaoRecusaOutroLogin() {
+        carrinhos.reservar(carrinhoId);
+
+        assertThatThrownBy(() -> visitanteService.materializar(carrinhoId, CLIENTE_ID))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Carrinho de visitante em conversão para um cliente.");
+        verify(carrinhoService, never()).criarCarrinhos(anyList());
+    }
+}
@@ -0,0 +1,133 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.repository.ProdutoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CatalogoProdutosTest {
+
+    private final CatalogoProdutos catalogo = new CatalogoProdutos();
+
+    private Produto produto(long id, String preco, int peso, TipoProduto tipo) {
+        return new Produto(id, "Produto " + id, "Descrição " + id, new BigDecimal(preco), peso, tipo);
+    }
+
+    @Test
+    public void testAtualizar_PublicaNovaVersao() {
+        catalogo.atualizar(List.of(produto(1, "10.50", 3, TipoProduto.LIVRO), produto(5000, "99.99", 7, null)));
+
+        CatalogoSnapshot snapshot = catalogo.snapshot();
+        assertThat(snapshot.versao()).isEqualTo(1);
+        assertThat(snapshot.tamanho()).isEqualTo(2);
+        assertThat(snapshot.precoEmCentavos(1)).isEqualTo(1050);
+        assertThat(snapshot.peso(1)).isEqualTo(3);
+        assertThat(snapshot.tipo(1)).isEqualTo(TipoProduto.LIVRO);
+        assertThat(snapshot.precoEmCentavos(5000)).isEqualTo(9999);
+        assertThat(snapshot.tipo(5000)).isNull();
+        assertThat(snapshot.contem(2)).isFalse();
+        assertThat(snapshot.contem(1_000_000)).isFalse();
+    }
+
+    @Test
+    public void testAtualizar_NaoAlteraVersaoAnterior() {
+        catalogo.atualizar(produto(1, "10.00", 1, TipoProduto.ROUPA));
+        CatalogoSnapshot anterior = catalogo.snapshot();
+
+        catalogo.atualizar(produto(1, "12.00", 2, TipoProduto.ROUPA));
+
+        assertThat(anterior.precoEmCentavos(1)).isEqualTo(1000);
+        assertThat(catalogo.snapshot().precoEmCentavos(1)).isEqualTo(1200);
+        assertThat(catalogo.snapshot().peso(1)).isEqualTo(2);
+        assertThat(catalogo.snapshot().tamanho()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCarregar_NaoSobrescreveEscritaFeitaDuranteACarga() {
+        ProdutoRepository repository = mock(ProdutoRepository.class);
+        CatalogoProdutos comCarga = new CatalogoProdutos(repository, new SimpleMeterRegistry());
+        // O listener publica o produto 1 alterado e remove o 2 enquanto findAll
+        // ainda devolve as versões antigas
+        when(repository.findAll()).thenAnswer(invocacao -> {
+            comCarga.atualizar(produto(1, "12.00", 2, null));
+            comCarga.remover(2L);
+            return List.of(produto(1, "10.00", 1, null), produto(2, "20.00", 1, null), produto(3, "30.00", 1, null));
+        });
+
+        comCarga.carregar();
+
+        CatalogoSnapshot snapshot = comCarga.snapshot();
+        assertThat(snapshot.precoEmCentavos(1)).isEqualTo(1200);
+        assertThat(snapshot.contem(2)).isFalse();
+        assertThat(snapshot.precoEmCentavos(3)).isEqualTo(3000);
+        comCarga.atualizar(produto(3, "31.00", 1, null));
+        assertThat(comCarga.snapshot().precoEmCentavos(3)).isEqualTo(3100);
+    }
+
+    @Test
+    public void testRemover() {
+        catalogo.atualizar(List.of(produto(1, "10.00", 1, null), produto(2, "20.00", 1, null)));
+
+        catalogo.remover(1L);
+
+        assertThat(catalogo.snapshot().contem(1)).isFalse();
+        assertThat(catalogo.snapshot().contem(2)).isTrue();
+        assertThat(catalogo.snapshot().tamanho()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAtualizar_IdsGrandesNaoAumentamTabelaDePaginas() {
+        long grande = 1L << 50;
+        catalogo.atualizar(List.of(produto(1, "10.00", 1, null), produto(grande, "30.00", 4, TipoProduto.MOVEL),
+                produto(Long.MAX_VALUE, "40.00", 5, null)));
+        CatalogoSnapshot anterior = catalogo.snapshot();
+
+        assertThat(anterior.precoEmCentavos(grande)).isEqualTo(3000);
+        assertThat(anterior.peso(grande)).isEqualTo(4);
+        assertThat(anterior.tipo(grande)).isEqualTo(TipoProduto.MOVEL);
+        assertThat(anterior.precoEmCentavos(Long.MAX_VALUE)).isEqualTo(4000);
+        assertThat(anterior.contem(grande + 1)).isFalse();
+        assertThat(anterior.tamanho()).isEqualTo(3);
+        // Uma página para o id 1, sem espaço reservado até os ids grandes
+        assertThat(anterior.bytesEstimados()).isLessThan(1_000_000);
+
+        catalogo.atualizar(produto(grande, "35.00", 4, TipoProduto.MOVEL));
+        catalogo.remover(Long.MAX_VALUE);
+
+        assertThat(anterior.precoEmCentavos(grande)).isEqualTo(3000);
+        assertThat(anterior.contem(Long.MAX_VALUE)).isTrue();
+        assertThat(catalogo.snapshot().precoEmCentavos(grande)).isEqualTo(3500);
+        assertThat(catalogo.snapshot().contem(Long.MAX_VALUE)).isFalse();
+        assertThat(catalogo.snapshot().tamanho()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCalcularCustoTotal_UsaPrecoDoCatalogo() {
+        // A entidade no carrinho ainda tem o preço antigo; o catálogo já tem o novo
+        Produto noCarrinho = produto(1, "100.00", 2, TipoProduto.ELETRONICO);
+        catalogo.atualizar(produto(1, "150.00", 2, TipoProduto.ELETRONICO));
+
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setCliente(new Cliente(TipoCliente.OURO));
+        carrinho.setItens(Arrays.asList(new ItemCompra(1L, noCarrinho, 2L)));
+
+        CompraService compraService = new CompraService(null, null, null, null, MotorPrecificacao.CENTAVOS,
+                catalogo, ModoFinalizacao.SEQUENCIAL, null, null, null, null, null);
+
+        assertThat(compraService.calcularCustoTotal(carrinho)).isEqualByComparingTo("300.00");
+    }
+}
@@ -1,15 +1,22 @@
 package ecommerce.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
+import java.util.Optional;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import ecommerce.entity.Cliente;
 import ecommerce.entity.TipoCliente;
@@ -23,6 +30,9 @@ public class ClienteServiceTest {
     @Mock
     private ClienteRepository clienteRepository;
 
+    @Spy
+    private ClienteCache clienteCache = new ClienteCache(100, Duration.ofMinutes(10));
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -56,4 +66,91 @@ public class ClienteServiceTest {
         // Assert: Verificar a mensagem da exceção
         assertEquals("Cliente não encontrado", exception.getMessage());
     }
+
+    @Test
+    public void testBuscarPorId_SegundaChamadaUsaCache() {
+        Long clienteId = 1L;
+        Cliente cliente = new Cliente(clienteId, "Cliente Teste", "Endereço Teste", TipoCliente.OURO);
+        when(clienteRepository.findById(clienteId)).thenReturn(Optional.of(cliente));
+
+        clienteService.buscarPorId(clienteId);
+        Cliente emCache = clienteService.buscarPorId(clienteId);
+
+        // Uma única ida ao repositório, e o cache devolve uma cópia
+        verify(clienteRepository, times(1)).findById(clienteId);
+        assertNotSame(cliente, emCache);
+        assertEquals(clienteId, emCache.getId());
+        assertEquals("Cliente Teste", emCache.getNome());
+        assertEquals(TipoCliente.OURO, emCache.getTipo());
+    }
+
+    @Test
+    public void testBuscarPorId_AlteracaoNaCopiaNaoAfetaCache() {
+        Long clienteId = 1L;
+        when(clienteRepository.findById(clienteId))
+                .thenReturn(Optional.of(new Cliente(clienteId, "Cliente Teste", "Endereço Teste", TipoCliente.OURO)));
+
+        clienteService.buscarPorId(clienteId);
+        clienteService.buscarPorId(clienteId).setTipo(TipoCliente.BRONZE);
+
+        assertEquals(TipoCliente.OURO, clienteService.buscarPorId(clienteId).getTipo());
+    }
+
+    @Test
+    public void testSalvar_AtualizaCache() {
+        Long clienteId = 1L;
+        Cliente cliente = new Cliente(clienteId, "Cliente Teste", "Endereço Teste", TipoCliente.PRATA);
+        when(clienteRepository.findById(clienteId)).thenReturn(Optional.of(cliente));
+        when(clienteRepository.save(cliente)).thenReturn(cliente);
+
+        clienteService.buscarPorId(clienteId);
+        cliente.setEndereco("Novo Endereço");
+        clienteService.salvar(cliente);
+
+        // O valor gravado vai para o cache sem reler o banco
+        assertEquals("Novo Endereço", clienteService.buscarPorId(clienteId).getEndereco());
+        verify(clienteRepository, times(1)).findById(clienteId);
+    }
+
+    @Test
+    public void testSalvar_DentroDaTransacaoSoAtualizaCacheNoCommit() {
+        Long clienteId = 1L;
+        Cliente cliente = new Cliente(clienteId, "Cliente Teste", "Endereço Teste", TipoCliente.PRATA);
+        when(clienteRepository.findById(clienteId))
+                .thenReturn(Optional.of(new Cliente(clienteId, "Cliente Teste", "Endereço Teste", TipoCliente.PRATA)));
+        when(clienteRepository.save(cliente)).thenReturn(cliente);
+        clienteService.buscarPorId(clienteId);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cliente.setEndereco("Novo Endereço");
+            clienteService.salvar(cliente);
+
+            // Antes do commit o cache ainda tem o valor confirmado
+            assertEquals("Endereço Teste", clienteService.buscarPorId(clienteId).getEndereco());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("Novo Endereço", clienteService.buscarPorId(clienteId).getEndereco());
+    }
+
+    @Test
+    public void testBuscarPorId_LeituraIniciadaAntesDoSalvarNaoSobrescreveCache() {
+        Long clienteId = 1L;
+        Cliente atualizado = new Cliente(clienteId, "Cliente Teste", "Novo Endereço", TipoCliente.PRATA);
+        when(clienteRepository.save(atualizado)).thenReturn(atualizado);
+        // A leitura devolve a linha antiga, mas o salvar termina antes dela
+        when(clienteRepository.findById(clienteId)).thenAnswer(invocacao -> {
+            clienteService.salvar(atualizado);
+            return Optional.of(new Cliente(clienteId, "Cliente Teste", "Endereço Teste", TipoCliente.PRATA));
+        });
+
+        clienteService.buscarPorId(clienteId);
+
+        assertEquals("Novo Endereço", clienteService.buscarPorId(clienteId).getEndereco());
+        verify(clienteRepository, times(1)).findById(clienteId);
+    }
 }
@@ -0,0 +1,225 @@
+package ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.DependenciaIndisponivelException;
+import ecommerce.external.IEstoqueExternalReativo;
+import ecommerce.external.IPagamentoExternalReativo;
+import ecommerce.external.Reserva;
+import ecommerce.external.promocao.VendaRelampago;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+public class CompraReativaServiceTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 1L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private IEstoqueExternalReativo estoqueExternal;
+
+    @Mock
+    private IPagamentoExternalReativo pagamentoExternal;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CompraReativaService compraReativaService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CompraService compraService = new CompraService(carrinhoService, clienteService, null, null,
+                MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, Runnable::run, null,
+                null, null, null);
+        compraReativaService = new CompraReativaService(compraService, carrinhoService, estoqueExternal,
+                pagamentoExternal, Schedulers.immediate(), transactionManager, MetricasDeCompra.desligadas(), null);
+
+        Cliente cliente = new Cliente(CLIENTE_ID, "Cliente Teste", "Endereço Teste", TipoCliente.PRATA);
+        Produto produto = new Produto(1L, "Produto 1", "Descrição do Produto 1", new BigDecimal("200.00"), 1, null);
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setId(CARRINHO_ID);
+        carrinho.setCliente(cliente);
+        carrinho.setItens(Collections.singletonList(new ItemCompra(1L, produto, 1L)));
+
+        when(clienteService.buscarPorId(CLIENTE_ID)).thenReturn(cliente);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(CARRINHO_ID, cliente)).thenReturn(carrinho);
+        when(pagamentoExternal.cancelarPagamento(anyLong(), any())).thenReturn(Mono.empty());
+        when(estoqueExternal.liberar(any(Reserva.class))).thenReturn(Mono.empty());
+    }
+
+    @Test
+    public void testFinalizarCompra_Sucesso() {
+        when(estoqueExternal.reservar(any(LoteEstoque.class))).thenAnswer(reservada());
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00))
+                .thenReturn(Mono.just(new PagamentoDTO(true, 555L)));
+        when(estoqueExternal.confirmar(any(Reserva.class))).thenReturn(Mono.just(new EstoqueBaixaDTO(true)));
+
+        CompraDTO resultado = compraReativaService.finalizarCompra(CARRINHO_ID, CLIENTE_ID).block();
+
+        assertTrue(resultado.sucesso());
+        assertEquals(555L, resultado.transacaoPagamentoId());
+        verify(pagamentoExternal, never()).cancelarPagamento(anyLong(), any());
+    }
+
+    @Test
+    public void testFinalizarCompra_ItensIndisponiveis_NaoAutorizaPagamento() {
+        when(estoqueExternal.reservar(any(LoteEstoque.class))).thenReturn(Mono.just(Reserva.recusada(new long[] { 1L })));
+
+        CompraDTO resultado = compraReativaService.finalizarCompra(CARRINHO_ID, CLIENTE_ID).block();
+
+        assertFalse(resultado.sucesso());
+        assertEquals("Itens fora de estoque.", resultado.mensagem());
+        verify(pagamentoExternal, never()).autorizarPagamento(anyLong(), anyDouble());
+    }
+
+    @Test
+    public void testFinalizarCompra_PagamentoNaoAutorizado_Cancela() {
+        when(estoqueExternal.reservar(any(LoteEstoque.class))).thenAnswer(reservada());
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble()))
+                .thenReturn(Mono.just(new PagamentoDTO(false, null)));
+
+        CompraDTO resultado = compraReativaService.finalizarCompra(CARRINHO_ID, CLIENTE_ID).block();
+
+        assertFalse(resultado.sucesso());
+        assertEquals("Pagamento não autorizado.", resultado.mensagem());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, null);
+        verify(estoqueExternal, never()).confirmar(any(Reserva.class));
+        verify(estoqueExternal).liberar(any(Reserva.class));
+    }
+
+    @Test
+    public void testFinalizarCompra_FalhaNaBaixa_EstornaEPropagaErro() {
+        when(estoqueExternal.reservar(any(LoteEstoque.class))).thenAnswer(reservada());
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble()))
+                .thenReturn(Mono.just(new PagamentoDTO(true, 555L)));
+        when(estoqueExternal.confirmar(any(Reserva.class)))
+                .thenReturn(Mono.error(new IllegalStateException("Estoque indisponível")));
+
+        IllegalStateException erro = assertThrows(IllegalStateException.class,
+                () -> compraReativaService.finalizarCompra(CARRINHO_ID, CLIENTE_ID).block());
+
+        assertEquals("Estoque indisponível", erro.getMessage());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 555L);
+    }
+
+    @Test
+    public void testFinalizarCompra_DependenciaIndisponivel_DevolveMensagem() {
+        when(estoqueExternal.reservar(any(LoteEstoque.class))).thenReturn(Mono.error(
+                new DependenciaIndisponivelException("Serviço de estoque indisponível no momento.", null)));
+
+        CompraDTO resultado = compraReativaService.finalizarCompra(CARRINHO_ID, CLIENTE_ID).block();
+
+        assertFalse(resultado.sucesso());
+        assertEquals("Serviço de estoque indisponível no momento.", resultado.mensagem());
+    }
+
+    @Test
+    public void testFinalizarCompra_VendaRelampagoSemIngressos_RecusaAntesDoEstoqueEDoPagamento() {
+        try (VendaRelampago venda = new VendaRelampago(null, Map.of(1L, 0L), 16)) {
+            CompraDTO resultado = comVendaRelampago(venda).finalizarCompra(CARRINHO_ID, CLIENTE_ID).block();
+
+            assertFalse(resultado.sucesso());
+            assertEquals("Itens fora de estoque.", resultado.mensagem());
+            verify(estoqueExternal, never()).reservar(any(LoteEstoque.class));
+            verify(pagamentoExternal, never()).autorizarPagamento(anyLong(), anyDouble());
+        }
+    }
+
+    @Test
+    public void testFinalizarCompra_VendaRelampago_ConsomeIngressosNaBaixaEDevolveSemBaixa() {
+        when(estoqueExternal.reservar(any(LoteEstoque.class))).thenAnswer(reservada());
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble()))
+                .thenReturn(Mono.just(new PagamentoDTO(false, null)))
+                .thenReturn(Mono.just(new PagamentoDTO(true, 555L)));
+        when(estoqueExternal.confirmar(any(Reserva.class))).thenReturn(Mono.just(new EstoqueBaixaDTO(true)));
+
+        try (VendaRelampago venda = new VendaRelampago(null, Map.of(1L, 1L), 16)) {
+            CompraReativaService comPromocao = comVendaRelampago(venda);
+
+            assertFalse(comPromocao.finalizarCompra(CARRINHO_ID, CLIENTE_ID).block().sucesso());
+            assertEquals(1, venda.ingressos(1L));
+
+            assertTrue(comPromocao.finalizarCompra(CARRINHO_ID, CLIENTE_ID).block().sucesso());
+            assertEquals(0, venda.ingressos(1L));
+            verify(estoqueExternal).confirmar(argThat(reserva -> reserva.itens().equals(LoteEstoque.de(List.of(1L), List.of(1L)))));
+        }
+    }
+
+    @Test
+    public void testFinalizarCompra_EsperaPelosServicosSemOcuparThreads() throws Exception {
+        // 1000 compras simultâneas com três chamadas de 100 ms cada. Nenhuma thread
+        // fica parada esperando, então todas terminam em pouco mais de 300 ms
+        Duration latencia = Duration.ofMillis(100);
+        when(estoqueExternal.reservar(any(LoteEstoque.class))).thenAnswer(
+                chamada -> Mono.delay(latencia).thenReturn(Reserva.efetuada(chamada.getArgument(0))));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble()))
+                .thenReturn(Mono.delay(latencia).thenReturn(new PagamentoDTO(true, 555L)));
+        when(estoqueExternal.confirmar(any(Reserva.class)))
+                .thenReturn(Mono.delay(latencia).thenReturn(new EstoqueBaixaDTO(true)));
+
+        List<CompletableFuture<CompraDTO>> compras = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            compras.add(compraReativaService.finalizarCompra(CARRINHO_ID, CLIENTE_ID).toFuture());
+        }
+        CompletableFuture.allOf(compras.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        for (CompletableFuture<CompraDTO> compra : compras) {
+            assertTrue(compra.join().sucesso());
+        }
+    }
+
+    private static Answer<Mono<Reserva>> reservada() {
+        return chamada -> Mono.just(Reserva.efetuada(chamada.getArgument(0)));
+    }
+
+    private CompraReativaService comVendaRelampago(VendaRelampago venda) {
+        CompraService compraService = new CompraService(carrinhoService, clienteService, null, null,
+                MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, Runnable::run, null,
+                null, null, null);
+        return new CompraReativaService(compraService, carrinhoService, estoqueExternal, pagamentoExternal,
+                Schedulers.immediate(), transactionManager, MetricasDeCompra.desligadas(), venda);
+    }
+}
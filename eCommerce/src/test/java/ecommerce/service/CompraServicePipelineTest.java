@@ -0,0 +1,157 @@
+package ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+
+public class CompraServicePipelineTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 1L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    // reservar e confirmar são métodos padrão sobre verificarDisponibilidade e darBaixa
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private IEstoqueExternal estoqueExternal;
+
+    @Mock
+    private IPagamentoExternal pagamentoExternal;
+
+    private ExecutorService executor;
+    private CompraService compraService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        executor = Executors.newSingleThreadExecutor();
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.PIPELINE, executor, null, null,
+                null, null);
+
+        Cliente cliente = new Cliente(CLIENTE_ID, "Cliente Teste", "Endereço Teste", TipoCliente.PRATA);
+        Produto produto = new Produto(1L, "Produto 1", "Descrição do Produto 1", new BigDecimal("200.00"), 1, null);
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setId(CARRINHO_ID);
+        carrinho.setCliente(cliente);
+        carrinho.setItens(Collections.singletonList(new ItemCompra(1L, produto, 1L)));
+
+        when(clienteService.buscarPorId(CLIENTE_ID)).thenReturn(cliente);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(CARRINHO_ID, cliente)).thenReturn(carrinho);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFinalizarCompra_Sucesso() {
+        when(estoqueExternal.verificarDisponibilidade(LoteEstoque.de(List.of(1L), List.of(1L))))
+                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00)).thenReturn(new PagamentoDTO(true, 555L));
+        when(estoqueExternal.darBaixa(LoteEstoque.de(List.of(1L), List.of(1L)))).thenReturn(new EstoqueBaixaDTO(true));
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertTrue(resultado.sucesso());
+        assertEquals(555L, resultado.transacaoPagamentoId());
+        verify(pagamentoExternal, never()).cancelarPagamento(anyLong(), any());
+    }
+
+    @Test
+    public void testFinalizarCompra_IndisponivelAposAutorizacao_EstornaPagamento() {
+        // O estoque só responde depois que a autorização do pagamento começou
+        CountDownLatch pagamentoIniciado = new CountDownLatch(1);
+        when(estoqueExternal.verificarDisponibilidade(any(LoteEstoque.class))).thenAnswer(invocacao -> {
+            pagamentoIniciado.await(5, TimeUnit.SECONDS);
+            return new DisponibilidadeDTO(false, new long[] { 1L });
+        });
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenAnswer(invocacao -> {
+            pagamentoIniciado.countDown();
+            return new PagamentoDTO(true, 555L);
+        });
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertFalse(resultado.sucesso());
+        assertEquals("Itens fora de estoque.", resultado.mensagem());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 555L);
+        verify(estoqueExternal, never()).darBaixa(any(LoteEstoque.class));
+    }
+
+    @Test
+    public void testFinalizarCompra_IndisponivelAntesDaAutorizacao_NaoAutorizaPagamento() {
+        // Executor no próprio thread: o estoque responde antes do cálculo do preço terminar
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.PIPELINE, Runnable::run,
+                null, null, null, null);
+        when(estoqueExternal.verificarDisponibilidade(any(LoteEstoque.class)))
+                .thenReturn(new DisponibilidadeDTO(false, new long[] { 1L }));
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertFalse(resultado.sucesso());
+        assertEquals("Itens fora de estoque.", resultado.mensagem());
+        verify(pagamentoExternal, never()).autorizarPagamento(anyLong(), anyDouble());
+    }
+
+    @Test
+    public void testFinalizarCompra_FalhaNaVerificacao_EstornaEPropagaErro() {
+        CountDownLatch pagamentoIniciado = new CountDownLatch(1);
+        when(estoqueExternal.verificarDisponibilidade(any(LoteEstoque.class))).thenAnswer(invocacao -> {
+            pagamentoIniciado.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("Estoque indisponível");
+        });
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenAnswer(invocacao -> {
+            pagamentoIniciado.countDown();
+            return new PagamentoDTO(true, 555L);
+        });
+
+        IllegalStateException erro = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Estoque indisponível", erro.getMessage());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 555L);
+    }
+}
@@ -0,0 +1,139 @@
+package ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.util.unit.DataSize;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.registro.PedidoRegistrado;
+import ecommerce.registro.PedidoRegistrado.Situacao;
+import ecommerce.registro.RegistroDePedidos;
+
+public class CompraServiceRegistroTest {
+
+    private static final Long CARRINHO_ID = 7L;
+    private static final Long CLIENTE_ID = 3L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    // reservar e confirmar são métodos padrão sobre verificarDisponibilidade e darBaixa
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private IEstoqueExternal estoqueExternal;
+
+    @Mock
+    private IPagamentoExternal pagamentoExternal;
+
+    @TempDir
+    Path diretorio;
+
+    private RegistroDePedidos registro;
+    private CompraService compraService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registro = new RegistroDePedidos(diretorio, DataSize.ofKilobytes(64), Duration.ofMillis(10));
+        registro.iniciar();
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, null, null, null,
+                registro, null);
+
+        // 2 x 300,00 com peso 5: 10% de desconto e frete de 40,00 pela metade para PRATA
+        Cliente cliente = new Cliente(CLIENTE_ID, "Cliente Teste", "Endereço Teste", TipoCliente.PRATA);
+        Produto produto = new Produto(11L, "Produto 11", "Descrição do Produto 11", new BigDecimal("300.00"), 5, null);
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setId(CARRINHO_ID);
+        carrinho.setCliente(cliente);
+        carrinho.setItens(Collections.singletonList(new ItemCompra(1L, produto, 2L)));
+
+        when(clienteService.buscarPorId(CLIENTE_ID)).thenReturn(cliente);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(CARRINHO_ID, cliente)).thenReturn(carrinho);
+        when(estoqueExternal.verificarDisponibilidade(LoteEstoque.de(List.of(11L), List.of(2L))))
+                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
+    }
+
+    @AfterEach
+    void tearDown() {
+        registro.close();
+    }
+
+    @Test
+    public void testFinalizarCompra_CompraConcluidaFicaNoRegistro() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 560.00)).thenReturn(new PagamentoDTO(true, 99L));
+        when(estoqueExternal.darBaixa(LoteEstoque.de(List.of(11L), List.of(2L)))).thenReturn(new EstoqueBaixaDTO(true));
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertTrue(resultado.sucesso());
+        List<PedidoRegistrado> pedidos = registro.buscarPorCliente(CLIENTE_ID);
+        assertEquals(1, pedidos.size());
+        PedidoRegistrado pedido = pedidos.get(0);
+        assertEquals(Situacao.CONCLUIDA, pedido.situacao());
+        assertEquals(CARRINHO_ID, pedido.carrinhoId());
+        assertEquals(99L, pedido.transacaoId());
+        assertArrayEquals(new long[] { 11L }, pedido.produtosIds());
+        assertArrayEquals(new long[] { 2L }, pedido.quantidades());
+        assertArrayEquals(new long[] { 30000L }, pedido.precosCentavos());
+        assertEquals(60000L, pedido.subtotalCentavos());
+        assertEquals(6000L, pedido.descontoCentavos());
+        assertEquals(2000L, pedido.freteCentavos());
+        assertEquals(56000L, pedido.totalCentavos());
+        assertEquals("Compra finalizada com sucesso.", pedido.mensagem());
+    }
+
+    @Test
+    public void testFinalizarCompra_PagamentoRecusadoFicaNoRegistro() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 560.00)).thenReturn(new PagamentoDTO(false, null));
+
+        compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        PedidoRegistrado pedido = registro.buscarPorCliente(CLIENTE_ID).get(0);
+        assertEquals(Situacao.RECUSADA, pedido.situacao());
+        assertNull(pedido.transacaoId());
+        assertEquals("Pagamento não autorizado.", pedido.mensagem());
+    }
+
+    @Test
+    public void testFinalizarCompra_ExcecaoFicaNoRegistroESegueParaOChamador() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 560.00)).thenThrow(new IllegalStateException("falhou"));
+
+        assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        PedidoRegistrado pedido = registro.buscarPorCliente(CLIENTE_ID).get(0);
+        assertEquals(Situacao.ERRO, pedido.situacao());
+        assertEquals("falhou", pedido.mensagem());
+    }
+}
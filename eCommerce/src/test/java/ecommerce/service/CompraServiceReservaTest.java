@@ -0,0 +1,124 @@
+package ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.memoria.EstoqueEmMemoria;
+
+public class CompraServiceReservaTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 1L;
+    private static final long PRODUTO_ID = 1L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private IPagamentoExternal pagamentoExternal;
+
+    private EstoqueEmMemoria estoque;
+    private CompraService compraService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Só resta uma unidade do produto
+        estoque = new EstoqueEmMemoria(16, 4, 1);
+        compraService = new CompraService(carrinhoService, clienteService, estoque, pagamentoExternal,
+                MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, null, null, null,
+                null, null);
+
+        Cliente cliente = new Cliente(CLIENTE_ID, "Cliente Teste", "Endereço Teste", TipoCliente.OURO);
+        Produto produto = new Produto(PRODUTO_ID, "Produto 1", "Última unidade", new BigDecimal("200.00"), 1, null);
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setId(CARRINHO_ID);
+        carrinho.setCliente(cliente);
+        carrinho.setItens(Collections.singletonList(new ItemCompra(1L, produto, 1L)));
+
+        when(clienteService.buscarPorId(CLIENTE_ID)).thenReturn(cliente);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(CARRINHO_ID, cliente)).thenReturn(carrinho);
+    }
+
+    @Test
+    public void testFinalizarCompra_UltimaUnidadeReservadaAntesDoPagamento() throws Exception {
+        CountDownLatch pagamentoIniciado = new CountDownLatch(1);
+        CountDownLatch liberarPagamento = new CountDownLatch(1);
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00)).thenAnswer(invocacao -> {
+            pagamentoIniciado.countDown();
+            liberarPagamento.await(5, TimeUnit.SECONDS);
+            return new PagamentoDTO(true, 555L);
+        });
+
+        // A primeira compra fica no pagamento com a unidade reservada
+        CompletableFuture<CompraDTO> primeira = CompletableFuture
+                .supplyAsync(() -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+        assertTrue(pagamentoIniciado.await(5, TimeUnit.SECONDS));
+        assertEquals(0, estoque.disponivel(PRODUTO_ID));
+        assertEquals(1, estoque.reservado(PRODUTO_ID));
+
+        CompraDTO segunda = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+        liberarPagamento.countDown();
+
+        assertFalse(segunda.sucesso());
+        assertEquals("Itens fora de estoque.", segunda.mensagem());
+        assertTrue(primeira.get(5, TimeUnit.SECONDS).sucesso());
+        assertEquals(0, estoque.disponivel(PRODUTO_ID));
+        assertEquals(0, estoque.reservado(PRODUTO_ID));
+        // Só a primeira compra chegou ao pagamento
+        verify(pagamentoExternal).autorizarPagamento(anyLong(), anyDouble());
+    }
+
+    @Test
+    public void testFinalizarCompra_PagamentoRecusadoLiberaReserva() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00)).thenReturn(new PagamentoDTO(false, null));
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertFalse(resultado.sucesso());
+        assertEquals("Pagamento não autorizado.", resultado.mensagem());
+        assertEquals(1, estoque.disponivel(PRODUTO_ID));
+        assertEquals(0, estoque.reservado(PRODUTO_ID));
+    }
+
+    @Test
+    public void testFinalizarCompra_ErroNoPagamentoLiberaReserva() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00))
+                .thenThrow(new IllegalStateException("falha inesperada"));
+
+        assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals(1, estoque.disponivel(PRODUTO_ID));
+        assertEquals(0, estoque.reservado(PRODUTO_ID));
+        verify(pagamentoExternal, never()).cancelarPagamento(anyLong(), anyLong());
+    }
+}
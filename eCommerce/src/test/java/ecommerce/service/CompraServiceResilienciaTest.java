@@ -0,0 +1,101 @@
+package ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.DependenciaIndisponivelException;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+
+public class CompraServiceResilienciaTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 1L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    // reservar e confirmar são métodos padrão sobre verificarDisponibilidade e darBaixa
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private IEstoqueExternal estoqueExternal;
+
+    @Mock
+    private IPagamentoExternal pagamentoExternal;
+
+    private CompraService compraService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, null, null, null,
+                null, null);
+
+        Cliente cliente = new Cliente(CLIENTE_ID, "Cliente Teste", "Endereço Teste", TipoCliente.OURO);
+        Produto produto = new Produto(1L, "Produto 1", "Descrição do Produto 1", new BigDecimal("200.00"), 1, null);
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setId(CARRINHO_ID);
+        carrinho.setCliente(cliente);
+        carrinho.setItens(Collections.singletonList(new ItemCompra(1L, produto, 1L)));
+
+        when(clienteService.buscarPorId(CLIENTE_ID)).thenReturn(cliente);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(CARRINHO_ID, cliente)).thenReturn(carrinho);
+    }
+
+    @Test
+    public void testFinalizarCompra_EstoqueIndisponivelFalhaRapido() {
+        when(estoqueExternal.verificarDisponibilidade(LoteEstoque.de(List.of(1L), List.of(1L)))).thenThrow(
+                new DependenciaIndisponivelException("Serviço de estoque indisponível no momento.", null));
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertFalse(resultado.sucesso());
+        assertEquals("Serviço de estoque indisponível no momento.", resultado.mensagem());
+        assertTrue(resultado.transitoria());
+        verify(pagamentoExternal, never()).autorizarPagamento(anyLong(), anyDouble());
+    }
+
+    @Test
+    public void testFinalizarCompra_BaixaSemRespostaCancelaPagamento() {
+        when(estoqueExternal.verificarDisponibilidade(LoteEstoque.de(List.of(1L), List.of(1L))))
+                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00)).thenReturn(new PagamentoDTO(true, 555L));
+        when(estoqueExternal.darBaixa(LoteEstoque.de(List.of(1L), List.of(1L)))).thenThrow(
+                new DependenciaIndisponivelException("Serviço de estoque não respondeu a tempo.", null));
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertFalse(resultado.sucesso());
+        assertEquals("Serviço de estoque não respondeu a tempo.", resultado.mensagem());
+        assertTrue(resultado.transitoria());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 555L);
+    }
+}
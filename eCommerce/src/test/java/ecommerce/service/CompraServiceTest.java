@@ -23,6 +23,7 @@ import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -31,6 +32,7 @@ import org.springframework.test.context.TestExecutionListeners;
 import ecommerce.dto.CompraDTO;
 import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
 import ecommerce.dto.PagamentoDTO;
 import ecommerce.entity.CarrinhoDeCompras;
 import ecommerce.entity.Cliente;
@@ -68,7 +70,8 @@ public class CompraServiceTest {
         @Mock
         private CarrinhoDeComprasRepository carrinhoRepository;
 
-        @Mock
+        // reservar e confirmar são métodos padrão sobre verificarDisponibilidade e darBaixa
+        @Mock(answer = Answers.CALLS_REAL_METHODS)
         private IEstoqueExternal estoqueExternal;
 
         private EstoqueSimulado estoqueSimulado;
@@ -92,8 +95,8 @@ public class CompraServiceTest {
 
                 // Então deve retornar que o produto está indisponível
                 assertEquals(false, disponibilidade.disponivel());
-                assertEquals(1, disponibilidade.idsProdutosIndisponiveis().size());
-                assertEquals(produtoIndisponivelId, disponibilidade.idsProdutosIndisponiveis().get(0));
+                assertEquals(1, disponibilidade.idsProdutosIndisponiveis().length);
+                assertEquals(produtoIndisponivelId.longValue(), disponibilidade.idsProdutosIndisponiveis()[0]);
         }
 
         @Test
@@ -108,7 +111,7 @@ public class CompraServiceTest {
 
                 // Então deve retornar que não há produtos indisponíveis
                 assertEquals(true, disponibilidade.disponivel());
-                assertEquals(0, disponibilidade.idsProdutosIndisponiveis().size());
+                assertEquals(0, disponibilidade.idsProdutosIndisponiveis().length);
         }
 
         @Test
@@ -134,18 +137,17 @@ public class CompraServiceTest {
                 when(clienteService.buscarPorId(clienteId)).thenReturn(carrinho.getCliente());
 
                 // Mock para verificar a disponibilidade, retornando que está disponível
-                when(estoqueExternal.verificarDisponibilidade(
-                                Collections.singletonList(produto.getId()),
-                                Collections.singletonList(1L)))
-                                .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+                when(estoqueExternal.verificarDisponibilidade(LoteEstoque.de(Collections.singletonList(produto.getId()),
+                                Collections.singletonList(1L))))
+                                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
 
                 // Mock para autorizar o pagamento
                 when(pagamentoExternal.autorizarPagamento(clienteId, produto.getPreco().doubleValue()))
                                 .thenReturn(new PagamentoDTO(true, 12345L)); // Simulando um pagamento autorizado
 
                 // Mock para dar baixa no estoque
-                when(estoqueExternal.darBaixa(Collections.singletonList(produto.getId()),
-                                Collections.singletonList(1L)))
+                when(estoqueExternal.darBaixa(LoteEstoque.de(Collections.singletonList(produto.getId()),
+                                Collections.singletonList(1L))))
                                 .thenReturn(new EstoqueBaixaDTO(true));
 
                 // Act: Chamar o método a ser testado
@@ -159,6 +161,32 @@ public class CompraServiceTest {
                 assertEquals("Compra finalizada com sucesso.", resultado.mensagem(), "A mensagem deve ser a esperada.");
         }
 
+        @Test
+        public void testFinalizarCompra_TotaisMantidosCobramPrecoAtual() {
+                Cliente clienteOuro = new Cliente(1L, "Cliente Teste", "Endereço Teste", TipoCliente.OURO);
+                Produto produto = new Produto(1L, "Produto 1", "Descrição do Produto 1", new BigDecimal("100.00"), 1,
+                                null);
+                CarrinhoDeCompras comTotais = new CarrinhoDeCompras();
+                comTotais.setId(1L);
+                comTotais.setCliente(clienteOuro);
+                comTotais.adicionarItem(produto, 2L);
+                // O preço muda depois de o item entrar no carrinho
+                produto.setPreco(new BigDecimal("150.00"));
+
+                when(clienteService.buscarPorId(1L)).thenReturn(clienteOuro);
+                when(carrinhoService.buscarPorCarrinhoIdEClienteId(1L, clienteOuro)).thenReturn(comTotais);
+                when(estoqueExternal.verificarDisponibilidade(any(LoteEstoque.class)))
+                                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
+                when(estoqueExternal.darBaixa(any(LoteEstoque.class))).thenReturn(new EstoqueBaixaDTO(true));
+                when(pagamentoExternal.autorizarPagamento(anyLong(), anyDouble())).thenReturn(new PagamentoDTO(true, 1L));
+
+                CompraDTO resultado = compraService.finalizarCompra(1L, 1L);
+
+                assertTrue(resultado.sucesso());
+                assertEquals(0, comTotais.getSubtotal().compareTo(new BigDecimal("200.00")));
+                verify(pagamentoExternal).autorizarPagamento(1L, 300.00);
+        }
+
         @Test
         public void testFinalizarCompra_ItensIndisponiveis() {
                 // Arrange: Preparar os dados de teste
@@ -181,10 +209,9 @@ public class CompraServiceTest {
                 when(clienteService.buscarPorId(clienteId)).thenReturn(cliente);
 
                 // Mock para verificar a disponibilidade, retornando que não está disponível
-                when(estoqueExternal.verificarDisponibilidade(
-                                Collections.singletonList(produto.getId()),
-                                Collections.singletonList(1L)))
-                                .thenReturn(new DisponibilidadeDTO(false, Collections.singletonList(produto.getId())));
+                when(estoqueExternal.verificarDisponibilidade(LoteEstoque.de(Collections.singletonList(produto.getId()),
+                                Collections.singletonList(1L))))
+                                .thenReturn(new DisponibilidadeDTO(false, new long[] { produto.getId() }));
 
                 // Act: Chamar o método de finalizar compra
                 CompraDTO resultado = compraService.finalizarCompra(carrinhoId, clienteId);
@@ -217,10 +244,9 @@ public class CompraServiceTest {
                 when(clienteService.buscarPorId(clienteId)).thenReturn(carrinho.getCliente());
 
                 // Mock para verificar disponibilidade, retornando que está disponível
-                when(estoqueExternal.verificarDisponibilidade(
-                                Collections.singletonList(produto.getId()),
-                                Collections.singletonList(1L)))
-                                .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+                when(estoqueExternal.verificarDisponibilidade(LoteEstoque.de(Collections.singletonList(produto.getId()),
+                                Collections.singletonList(1L))))
+                                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
 
                 // Mock para falha na autorização do pagamento usando PagamentoSimulado
                 PagamentoSimulado pagamentoSimulado = new PagamentoSimulado();
@@ -263,19 +289,17 @@ public class CompraServiceTest {
                 when(clienteService.buscarPorId(clienteId)).thenReturn(cliente);
 
                 // Mock para verificar disponibilidade, retornando que está disponível
-                when(estoqueExternal.verificarDisponibilidade(
-                                Collections.singletonList(produto.getId()),
-                                Collections.singletonList(1L)))
-                                .thenReturn(new DisponibilidadeDTO(true, Collections.emptyList()));
+                when(estoqueExternal.verificarDisponibilidade(LoteEstoque.de(Collections.singletonList(produto.getId()),
+                                Collections.singletonList(1L))))
+                                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
 
                 // Mock para autorizar o pagamento com sucesso
                 when(pagamentoExternal.autorizarPagamento(cliente.getId(), 200.00))
                                 .thenReturn(new PagamentoDTO(true, 1L));
 
                 // Mock para simular erro ao dar baixa no estoque
-                when(estoqueExternal.darBaixa(
-                                Collections.singletonList(produto.getId()),
-                                Collections.singletonList(1L)))
+                when(estoqueExternal.darBaixa(LoteEstoque.de(Collections.singletonList(produto.getId()),
+                                Collections.singletonList(1L))))
                                 .thenReturn(new EstoqueBaixaDTO(false));
 
                 // Act: Chamar o método de finalizar compra
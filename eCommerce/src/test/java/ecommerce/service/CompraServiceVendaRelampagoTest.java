@@ -0,0 +1,102 @@
+package ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.memoria.EstoqueEmMemoria;
+import ecommerce.external.promocao.VendaRelampago;
+
+public class CompraServiceVendaRelampagoTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 1L;
+    private static final long PRODUTO_ID = 1L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private IPagamentoExternal pagamentoExternal;
+
+    private EstoqueEmMemoria estoque;
+    private VendaRelampago vendaRelampago;
+    private CompraService compraService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        estoque = new EstoqueEmMemoria(16, 4, 1);
+        vendaRelampago = new VendaRelampago(estoque, Map.of(PRODUTO_ID, 1L), 16);
+        compraService = new CompraService(carrinhoService, clienteService, estoque, pagamentoExternal,
+                MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, null, null, null,
+                null, vendaRelampago);
+
+        Cliente cliente = new Cliente(CLIENTE_ID, "Cliente Teste", "Endereço Teste", TipoCliente.OURO);
+        Produto produto = new Produto(PRODUTO_ID, "Produto 1", "Em promoção", new BigDecimal("200.00"), 1, null);
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setId(CARRINHO_ID);
+        carrinho.setCliente(cliente);
+        carrinho.setItens(Collections.singletonList(new ItemCompra(1L, produto, 1L)));
+
+        when(clienteService.buscarPorId(CLIENTE_ID)).thenReturn(cliente);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(CARRINHO_ID, cliente)).thenReturn(carrinho);
+    }
+
+    @AfterEach
+    void tearDown() {
+        vendaRelampago.close();
+    }
+
+    @Test
+    public void testFinalizarCompra_BaixaPelaFilaEEsgotadoRecusaSemPagamento() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00)).thenReturn(new PagamentoDTO(true, 555L));
+
+        CompraDTO primeira = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+        CompraDTO segunda = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertTrue(primeira.sucesso());
+        assertEquals(0, estoque.disponivel(PRODUTO_ID));
+        assertFalse(segunda.sucesso());
+        assertEquals("Itens fora de estoque.", segunda.mensagem());
+        // Só a primeira compra chegou ao pagamento
+        verify(pagamentoExternal).autorizarPagamento(anyLong(), anyDouble());
+    }
+
+    @Test
+    public void testFinalizarCompra_PagamentoRecusadoDevolveOIngresso() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00)).thenReturn(new PagamentoDTO(false, null));
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertFalse(resultado.sucesso());
+        assertEquals("Pagamento não autorizado.", resultado.mensagem());
+        assertEquals(1, vendaRelampago.ingressos(PRODUTO_ID));
+        assertEquals(1, estoque.disponivel(PRODUTO_ID));
+    }
+}
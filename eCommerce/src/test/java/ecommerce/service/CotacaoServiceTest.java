@@ -0,0 +1,192 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.repository.CarrinhoDeComprasRepository.LinhaDeCotacao;
+import ecommerce.repository.CarrinhoDeComprasRepository.VersaoDeCotacao;
+
+public class CotacaoServiceTest {
+
+    private static final Long CLIENTE_ID = 1L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    private CotacaoService cotacaoService;
+
+    private CatalogoProdutos catalogo;
+
+    // Linha da consulta de cotação; produtoId nulo quando o carrinho está vazio
+    private record Linha(Long produtoId, Long quantidade, BigDecimal preco, Integer peso) implements LinhaDeCotacao {
+
+        static Linha item(long produtoId, long quantidade, String preco, int peso) {
+            return new Linha(produtoId, quantidade, new BigDecimal(preco), peso);
+        }
+
+        @Override
+        public Long getProdutoId() {
+            return produtoId;
+        }
+
+        @Override
+        public Long getQuantidade() {
+            return quantidade;
+        }
+
+        @Override
+        public BigDecimal getPreco() {
+            return preco;
+        }
+
+        @Override
+        public Integer getPeso() {
+            return peso;
+        }
+    }
+
+    private record Versao(Long versao, TipoCliente tipoCliente) implements VersaoDeCotacao {
+
+        @Override
+        public Long getVersao() {
+            return versao;
+        }
+
+        @Override
+        public TipoCliente getTipoCliente() {
+            return tipoCliente;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        catalogo = new CatalogoProdutos();
+        CompraService compraService = new CompraService(carrinhoService, null, null, null,
+                MotorPrecificacao.BIGDECIMAL, catalogo, ModoFinalizacao.SEQUENCIAL, Runnable::run, null,
+                null, null, null);
+        cotacaoService = new CotacaoService(carrinhoService, compraService, catalogo, 100, Duration.ofMinutes(10));
+        versao(1L, 0L, TipoCliente.PRATA);
+    }
+
+    @Test
+    public void testCotar_SubtotalFreteDescontoETotal() {
+        when(carrinhoService.buscarParaCotacao(1L, CLIENTE_ID)).thenReturn(List.of(
+                Linha.item(1L, 2L, "300.00", 3),
+                Linha.item(2L, 1L, "100.00", 6)));
+
+        CotacaoDTO cotacao = cotacaoService.cotar(1L, CLIENTE_ID);
+
+        assertThat(cotacao.carrinhoId()).isEqualTo(1L);
+        assertThat(cotacao.subtotal()).isEqualByComparingTo("700.00");
+        assertThat(cotacao.desconto()).isEqualByComparingTo("70.00"); // 10% acima de 500
+        assertThat(cotacao.frete()).isEqualByComparingTo("24.00"); // 12 x 4,00 pela metade (PRATA)
+        assertThat(cotacao.total()).isEqualByComparingTo("654.00");
+    }
+
+    @Test
+    public void testCotar_CarrinhoInalterado_NaoLeOsItensDeNovo() {
+        when(carrinhoService.buscarParaCotacao(1L, CLIENTE_ID))
+                .thenReturn(List.of(Linha.item(1L, 2L, "10.00", 1)));
+
+        CotacaoDTO primeira = cotacaoService.cotar(1L, CLIENTE_ID);
+        CotacaoDTO segunda = cotacaoService.cotar(1L, CLIENTE_ID);
+
+        assertThat(segunda.total()).isEqualTo(primeira.total());
+        assertThat(cotacaoService.tamanho()).isEqualTo(1);
+        verify(carrinhoService, times(2)).buscarVersaoParaCotacao(1L, CLIENTE_ID);
+        verify(carrinhoService, times(1)).buscarParaCotacao(1L, CLIENTE_ID);
+    }
+
+    @Test
+    public void testCotar_NovaVersaoDoCarrinhoOuOutroTipo_Recalcula() {
+        when(carrinhoService.buscarParaCotacao(1L, CLIENTE_ID))
+                .thenReturn(List.of(Linha.item(1L, 1L, "10.00", 6)))
+                .thenReturn(List.of(Linha.item(1L, 2L, "10.00", 6)))
+                .thenReturn(List.of(Linha.item(1L, 2L, "10.00", 6)));
+
+        assertThat(cotacaoService.cotar(1L, CLIENTE_ID).total()).isEqualByComparingTo("16.00");
+        versao(1L, 1L, TipoCliente.PRATA);
+        assertThat(cotacaoService.cotar(1L, CLIENTE_ID).total()).isEqualByComparingTo("44.00");
+        versao(1L, 1L, TipoCliente.OURO);
+        assertThat(cotacaoService.cotar(1L, CLIENTE_ID).total()).isEqualByComparingTo("20.00");
+        assertThat(cotacaoService.tamanho()).isEqualTo(3);
+    }
+
+    @Test
+    public void testCotar_ProdutoAlteradoNoCatalogo_Recalcula() {
+        when(carrinhoService.buscarParaCotacao(1L, CLIENTE_ID))
+                .thenReturn(List.of(Linha.item(1L, 1L, "10.00", 6)))
+                .thenReturn(List.of(Linha.item(1L, 1L, "12.00", 6)));
+
+        assertThat(cotacaoService.cotar(1L, CLIENTE_ID).total()).isEqualByComparingTo("16.00");
+        catalogo.atualizar(new Produto(1L, "Produto", "", new BigDecimal("12.00"), 6, TipoProduto.ELETRONICO));
+        assertThat(cotacaoService.cotar(1L, CLIENTE_ID).total()).isEqualByComparingTo("18.00");
+        verify(carrinhoService, times(2)).buscarParaCotacao(1L, CLIENTE_ID);
+    }
+
+    @Test
+    public void testCotar_CarrinhoSemVersao_CalculaSemGuardar() {
+        versao(1L, null, TipoCliente.PRATA);
+        when(carrinhoService.buscarParaCotacao(1L, CLIENTE_ID))
+                .thenReturn(List.of(Linha.item(1L, 1L, "10.00", 6)));
+
+        assertThat(cotacaoService.cotar(1L, CLIENTE_ID).total()).isEqualByComparingTo("16.00");
+        assertThat(cotacaoService.tamanho()).isZero();
+    }
+
+    @Test
+    public void testCotar_CobraPrecosAtuais() {
+        // O produto entrou no carrinho a 10,00 e custa 15,00 hoje: a finalização cobra 15,00
+        versao(1L, 0L, TipoCliente.OURO);
+        when(carrinhoService.buscarParaCotacao(1L, CLIENTE_ID))
+                .thenReturn(List.of(Linha.item(1L, 3L, "15.00", 1)));
+
+        CotacaoDTO cotacao = cotacaoService.cotar(1L, CLIENTE_ID);
+
+        assertThat(cotacao.subtotal()).isEqualByComparingTo("45.00");
+        assertThat(cotacao.total()).isEqualByComparingTo("45.00");
+    }
+
+    @Test
+    public void testCotar_CarrinhoVazio() {
+        when(carrinhoService.buscarParaCotacao(1L, CLIENTE_ID)).thenReturn(List.of(
+                new Linha(null, null, null, null)));
+
+        CotacaoDTO cotacao = cotacaoService.cotar(1L, CLIENTE_ID);
+
+        assertThat(cotacao.subtotal()).isEqualByComparingTo("0");
+        assertThat(cotacao.total()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    public void testCotar_CarrinhoNaoEncontrado_Propaga() {
+        when(carrinhoService.buscarVersaoParaCotacao(9L, CLIENTE_ID))
+                .thenThrow(new IllegalArgumentException("Carrinho não encontrado."));
+
+        assertThatThrownBy(() -> cotacaoService.cotar(9L, CLIENTE_ID))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Carrinho não encontrado.");
+        assertThat(cotacaoService.tamanho()).isZero();
+    }
+
+    private void versao(Long carrinhoId, Long versao, TipoCliente tipo) {
+        when(carrinhoService.buscarVersaoParaCotacao(carrinhoId, CLIENTE_ID)).thenReturn(new Versao(versao, tipo));
+    }
+}
@@ -0,0 +1,197 @@
+package ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.CompraDTO;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+public class IdempotenciaDeComprasTest {
+
+    private IdempotenciaDeCompras idempotencia;
+    private AtomicInteger execucoes;
+
+    @BeforeEach
+    public void setup() {
+        idempotencia = new IdempotenciaDeCompras(100, Duration.ofMinutes(10));
+        execucoes = new AtomicInteger();
+    }
+
+    @Test
+    public void testExecutar_RepeticaoDevolveResultadoGuardado() {
+        CompraDTO primeira = idempotencia.executar("chave-1", 1L, 1L, this::compra);
+        CompraDTO repetida = idempotencia.executar("chave-1", 1L, 1L, this::compra);
+
+        assertSame(primeira, repetida);
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    public void testBuscar_SoDevolveCompraConcluidaSemExecutar() {
+        assertNull(idempotencia.buscar("chave-1", 1L, 1L));
+
+        CompraDTO concluida = idempotencia.executar("chave-1", 1L, 1L, this::compra);
+
+        assertSame(concluida, idempotencia.buscar("chave-1", 1L, 1L));
+        assertThrows(IllegalArgumentException.class, () -> idempotencia.buscar("chave-1", 2L, 1L));
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    public void testExecutar_ChavesDiferentesExecutamSeparadamente() {
+        idempotencia.executar("chave-1", 1L, 1L, this::compra);
+        idempotencia.executar("chave-2", 1L, 1L, this::compra);
+
+        assertEquals(2, execucoes.get());
+    }
+
+    @Test
+    public void testExecutar_ChaveReutilizadaComOutroCarrinho() {
+        idempotencia.executar("chave-1", 1L, 1L, this::compra);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> idempotencia.executar("chave-1", 2L, 1L, this::compra));
+        assertEquals("Idempotency-Key já usada para outro carrinho ou cliente.", e.getMessage());
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    public void testExecutar_ChaveInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> idempotencia.executar(" ", 1L, 1L, this::compra));
+        assertThrows(IllegalArgumentException.class, () -> idempotencia.executar(
+                "x".repeat(IdempotenciaDeCompras.TAMANHO_MAXIMO_CHAVE + 1), 1L, 1L, this::compra));
+        assertEquals(0, execucoes.get());
+    }
+
+    @Test
+    public void testExecutar_FalhaNaoEGuardada() {
+        assertThrows(IllegalStateException.class, () -> idempotencia.executar("chave-1", 1L, 1L, () -> {
+            execucoes.incrementAndGet();
+            throw new IllegalStateException("Pagamento não autorizado.");
+        }));
+
+        CompraDTO resultado = idempotencia.executar("chave-1", 1L, 1L, this::compra);
+
+        assertTrue(resultado.sucesso());
+        assertEquals(2, execucoes.get());
+        assertEquals(1, idempotencia.tamanho());
+    }
+
+    @Test
+    public void testExecutar_DependenciaIndisponivelNaoEGuardada() {
+        CompraDTO indisponivel = idempotencia.executar("chave-1", 1L, 1L, () -> {
+            execucoes.incrementAndGet();
+            return CompraDTO.indisponivel("Serviço de pagamento sobrecarregado.");
+        });
+        assertEquals(0, idempotencia.tamanho());
+
+        CompraDTO resultado = idempotencia.executar("chave-1", 1L, 1L, this::compra);
+
+        assertFalse(indisponivel.sucesso());
+        assertTrue(resultado.sucesso());
+        assertEquals(2, execucoes.get());
+    }
+
+    @Test
+    public void testExecutar_RecusaDeNegocioEGuardada() {
+        CompraDTO recusada = idempotencia.executar("chave-1", 1L, 1L, () -> {
+            execucoes.incrementAndGet();
+            return new CompraDTO(false, null, "Itens fora de estoque.");
+        });
+
+        assertSame(recusada, idempotencia.executar("chave-1", 1L, 1L, this::compra));
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    public void testExecutar_RequisicoesSimultaneasCompartilhamUmaExecucao() throws Exception {
+        int requisicoes = 8;
+        CountDownLatch primeiraIniciou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requisicoes);
+        try {
+            List<Future<CompraDTO>> resultados = new ArrayList<>();
+            resultados.add(executor.submit(() -> idempotencia.executar("chave-1", 1L, 1L, () -> {
+                primeiraIniciou.countDown();
+                aguardar(liberar);
+                return compra();
+            })));
+            assertTrue(primeiraIniciou.await(5, TimeUnit.SECONDS));
+
+            for (int i = 1; i < requisicoes; i++) {
+                resultados.add(executor.submit(() -> idempotencia.executar("chave-1", 1L, 1L, this::compra)));
+            }
+            // Dá tempo para as repetições chegarem à espera antes de concluir a primeira
+            Thread.sleep(100);
+            liberar.countDown();
+
+            CompraDTO esperado = resultados.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<CompraDTO> resultado : resultados) {
+                assertSame(esperado, resultado.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, execucoes.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecutarReativo_RequisicoesSimultaneasCompartilhamUmaExecucao() {
+        Sinks.One<CompraDTO> resultado = Sinks.one();
+        Mono<CompraDTO> compra = resultado.asMono().doOnSubscribe(s -> execucoes.incrementAndGet());
+
+        CompletableFuture<CompraDTO> primeira = idempotencia.executar("chave-1", 1L, 1L, compra).toFuture();
+        CompletableFuture<CompraDTO> segunda = idempotencia.executar("chave-1", 1L, 1L, compra).toFuture();
+        // A requisição que iniciou a compra desiste; a compra continua para a outra
+        primeira.cancel(true);
+        CompraDTO esperado = new CompraDTO(true, 101L, "Compra finalizada com sucesso.");
+        resultado.tryEmitValue(esperado);
+
+        assertSame(esperado, segunda.join());
+        assertSame(esperado, idempotencia.executar("chave-1", 1L, 1L, compra).block());
+        assertSame(esperado, idempotencia.executar("chave-1", 1L, 1L, this::compra));
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    public void testExecutarReativo_FalhaNaoEGuardada() {
+        Mono<CompraDTO> falha = Mono.error(new IllegalStateException("Estoque indisponível"));
+
+        assertThrows(IllegalStateException.class, () -> idempotencia.executar("chave-1", 1L, 1L, falha).block());
+
+        assertNull(idempotencia.buscar("chave-1", 1L, 1L));
+        assertEquals(101L, idempotencia.executar("chave-1", 1L, 1L, Mono.fromSupplier(this::compra)).block()
+                .transacaoPagamentoId());
+    }
+
+    private CompraDTO compra() {
+        return new CompraDTO(true, 100L + execucoes.incrementAndGet(), "Compra finalizada com sucesso.");
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.LoteEstoque;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MetricasDeCompraTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 1L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    // reservar e confirmar são métodos padrão sobre verificarDisponibilidade e darBaixa
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private IEstoqueExternal estoqueExternal;
+
+    @Mock
+    private IPagamentoExternal pagamentoExternal;
+
+    private SimpleMeterRegistry registry;
+    private CompraService compraService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new SimpleMeterRegistry();
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, null,
+                new MetricasDeCompra(registry), null, null, null);
+
+        Cliente cliente = new Cliente(CLIENTE_ID, "Cliente Teste", "Endereço Teste", TipoCliente.OURO);
+        Produto produto = new Produto(1L, "Produto 1", "Descrição do Produto 1", new BigDecimal("200.00"), 1, null);
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setId(CARRINHO_ID);
+        carrinho.setCliente(cliente);
+        carrinho.setItens(Collections.singletonList(new ItemCompra(1L, produto, 1L)));
+
+        when(clienteService.buscarPorId(CLIENTE_ID)).thenReturn(cliente);
+        when(carrinhoService.buscarPorCarrinhoIdEClienteId(CARRINHO_ID, cliente)).thenReturn(carrinho);
+        when(estoqueExternal.verificarDisponibilidade(LoteEstoque.de(List.of(1L), List.of(1L))))
+                .thenReturn(new DisponibilidadeDTO(true, DisponibilidadeDTO.SEM_INDISPONIVEIS));
+    }
+
+    @Test
+    public void testFinalizarCompra_SucessoRegistraTodasAsEtapas() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00)).thenReturn(new PagamentoDTO(true, 555L));
+        when(estoqueExternal.darBaixa(LoteEstoque.de(List.of(1L), List.of(1L)))).thenReturn(new EstoqueBaixaDTO(true));
+
+        compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        for (String etapa : List.of("cliente", "carrinho", "disponibilidade", "precificacao", "pagamento",
+                "baixa_estoque")) {
+            assertEquals(1, timerEtapa(etapa, "sucesso").count(), etapa);
+        }
+        assertNull(registry.find("compra.etapa").tag("etapa", "estorno").timer());
+        assertEquals(1, registry.get("compra.finalizacao").tag("resultado", "sucesso")
+                .tag("tipoCliente", "OURO").timer().count());
+        assertNull(registry.find("compra.falhas").counter());
+    }
+
+    @Test
+    public void testFinalizarCompra_PagamentoRecusadoContaFalhaEEstorno() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00)).thenReturn(new PagamentoDTO(false, null));
+
+        compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertEquals(1, timerEtapa("pagamento", "falha").count());
+        assertEquals(1, timerEtapa("estorno", "sucesso").count());
+        assertEquals(1.0, registry.get("compra.falhas").tag("motivo", "Pagamento não autorizado.")
+                .tag("tipoCliente", "OURO").counter().count());
+    }
+
+    @Test
+    public void testFinalizarCompra_ExcecaoRegistraErro() {
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.00)).thenThrow(new RuntimeException("timeout"));
+
+        assertThrows(RuntimeException.class, () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals(1, timerEtapa("pagamento", "erro").count());
+        Timer finalizacao = registry.find("compra.finalizacao").tag("resultado", "erro").timer();
+        assertNotNull(finalizacao);
+        assertEquals(1, finalizacao.count());
+    }
+
+    private Timer timerEtapa(String etapa, String resultado) {
+        return registry.get("compra.etapa").tag("etapa", etapa).tag("resultado", resultado)
+                .tag("tipoCliente", "OURO").timer();
+    }
+}
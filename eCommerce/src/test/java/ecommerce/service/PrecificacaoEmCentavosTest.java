@@ -0,0 +1,89 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+
+public class PrecificacaoEmCentavosTest {
+
+    private final CompraService compraBigDecimal = new CompraService(null, null, null, null,
+            MotorPrecificacao.BIGDECIMAL, new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, null, null, null, null,
+            null);
+    private final CompraService compraCentavos = new CompraService(null, null, null, null,
+            MotorPrecificacao.CENTAVOS, new CatalogoProdutos(), ModoFinalizacao.SEQUENCIAL, null, null, null, null,
+            null);
+
+    private CarrinhoDeCompras carrinho(TipoCliente tipo, ItemCompra... itens) {
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setCliente(new Cliente(tipo));
+        carrinho.setItens(Arrays.asList(itens));
+        return carrinho;
+    }
+
+    private ItemCompra item(long id, String preco, int peso, long quantidade) {
+        Produto produto = new Produto(id, "Produto " + id, "Descrição " + id, new BigDecimal(preco), peso,
+                TipoProduto.ELETRONICO);
+        return new ItemCompra(id, produto, quantidade);
+    }
+
+    private void assertMesmoResultado(CarrinhoDeCompras carrinho, String esperado) {
+        BigDecimal centavos = compraCentavos.calcularCustoTotal(carrinho);
+
+        assertThat(centavos).isEqualByComparingTo(compraBigDecimal.calcularCustoTotal(carrinho));
+        assertThat(centavos).isEqualByComparingTo(esperado);
+    }
+
+    @Test
+    public void testCasosDoCompraServiceTest() {
+        assertMesmoResultado(carrinho(TipoCliente.OURO, item(1, "400.00", 2, 1), item(2, "200.00", 2, 1)), "540.000");
+        assertMesmoResultado(carrinho(TipoCliente.PRATA, item(1, "500.00", 4, 1), item(2, "300.00", 2, 1)), "726.000");
+        assertMesmoResultado(carrinho(TipoCliente.BRONZE, item(1, "800.00", 7, 1), item(2, "400.00", 3, 1)), "960.000");
+        assertMesmoResultado(carrinho(TipoCliente.OURO, item(1, "100.00", 1, 1), item(2, "300.00", 2, 1)), "400.00");
+        assertMesmoResultado(carrinho(TipoCliente.PRATA, item(1, "500.00", 4, 1), item(2, "200.00", 1, 1)), "635.000");
+        assertMesmoResultado(carrinho(TipoCliente.OURO, item(1, "800.00", 30, 1), item(2, "500.00", 30, 1)), "1040.000");
+    }
+
+    @Test
+    public void testFaixasDeFretePrata() {
+        assertMesmoResultado(carrinho(TipoCliente.PRATA, item(1, "10.00", 4, 1)), "10.00"); // sem frete
+        assertMesmoResultado(carrinho(TipoCliente.PRATA, item(1, "10.00", 5, 1)), "15.00"); // 5 x 2,00 / 2
+        assertMesmoResultado(carrinho(TipoCliente.PRATA, item(1, "10.00", 10, 1)), "30.00"); // 10 x 4,00 / 2
+        assertMesmoResultado(carrinho(TipoCliente.PRATA, item(1, "10.00", 50, 1)), "110.00"); // 50 x 4,00 / 2
+        assertMesmoResultado(carrinho(TipoCliente.PRATA, item(1, "10.00", 17, 3)), "208.50"); // 51 x 7,00 / 2
+    }
+
+    @Test
+    public void testLimitesDeDesconto() {
+        assertMesmoResultado(carrinho(TipoCliente.OURO, item(1, "500.00", 1, 1)), "500.00");
+        assertMesmoResultado(carrinho(TipoCliente.OURO, item(1, "500.01", 1, 1)), "450.009");
+        assertMesmoResultado(carrinho(TipoCliente.OURO, item(1, "1000.00", 1, 1)), "900.00");
+        assertMesmoResultado(carrinho(TipoCliente.OURO, item(1, "333.37", 1, 3)), "800.088");
+    }
+
+    @Test
+    public void testPrecoComFracaoDeCentavoUsaBigDecimal() {
+        CarrinhoDeCompras carrinho = carrinho(TipoCliente.OURO, item(1, "10.005", 1, 2));
+
+        assertThat(PrecificacaoEmCentavos.calcularCustoTotal(carrinho, CatalogoSnapshot.VAZIO)).isNull();
+        assertMesmoResultado(carrinho, "20.010");
+    }
+
+    @Test
+    public void testCarrinhoVazio() {
+        CarrinhoDeCompras carrinho = carrinho(TipoCliente.BRONZE);
+        carrinho.setItens(List.of());
+
+        assertMesmoResultado(carrinho, "0");
+    }
+}
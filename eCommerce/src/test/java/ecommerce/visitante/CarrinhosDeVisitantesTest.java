@@ -0,0 +1,238 @@
+package ecommerce.visitante;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CarrinhosDeVisitantesTest {
+
+    // Relógio que só anda quando o teste manda
+    private static class RelogioManual extends Clock {
+        private long millis = 1_700_000_000_000L;
+
+        void avancar(Duration duracao) {
+            millis += duracao.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private RelogioManual relogio;
+    private CarrinhosDeVisitantes carrinhos;
+
+    @BeforeEach
+    void setUp() {
+        relogio = new RelogioManual();
+        carrinhos = new CarrinhosDeVisitantes(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64),
+                Duration.ofMinutes(30), relogio);
+    }
+
+    @AfterEach
+    void tearDown() {
+        carrinhos.close();
+    }
+
+    @Test
+    public void testIniciar_RegistraAsMetricasDepoisDaConstrucao() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (CarrinhosDeVisitantes comMetricas = new CarrinhosDeVisitantes(DataSize.ofKilobytes(4),
+                DataSize.ofKilobytes(64), Duration.ofHours(2), Duration.ofMinutes(1), registry)) {
+            assertNull(registry.find("visitantes.carrinhos.quantidade").gauge());
+
+            comMetricas.iniciar();
+            comMetricas.criar();
+
+            assertEquals(1.0, registry.get("visitantes.carrinhos.quantidade").gauge().value());
+            assertTrue(registry.get("visitantes.carrinhos.memoria").gauge().value() > 0);
+        }
+    }
+
+    @Test
+    public void testItens_GravadosELidosDoSlab() {
+        long id = carrinhos.criar();
+        carrinhos.adicionarItem(id, 7L, 2L, 1990L, 3);
+        carrinhos.adicionarItem(id, 9L, 1L, 50000L, 10);
+        carrinhos.adicionarItem(id, 7L, 1L, 1890L, 3); // mesmo produto: soma e usa o preço novo
+
+        CarrinhoDeVisitante carrinho = carrinhos.buscar(id);
+
+        assertArrayEquals(new long[] { 7L, 9L }, carrinho.produtosIds());
+        assertArrayEquals(new long[] { 3L, 1L }, carrinho.quantidades());
+        assertArrayEquals(new long[] { 1890L, 50000L }, carrinho.precosEmCentavos());
+        assertEquals(3 * 1890L + 50000L, carrinho.subtotalEmCentavos());
+        assertEquals(3 * 3L + 10L, carrinho.pesoTotal());
+    }
+
+    @Test
+    public void testAlterarERemoverItem() {
+        long id = carrinhos.criar();
+        carrinhos.adicionarItem(id, 1L, 1L, 100L, 1);
+        carrinhos.adicionarItem(id, 2L, 1L, 200L, 1);
+        carrinhos.adicionarItem(id, 3L, 1L, 300L, 1);
+
+        carrinhos.alterarQuantidade(id, 2L, 5L, 250L, 2);
+        carrinhos.removerItem(id, 1L);
+
+        CarrinhoDeVisitante carrinho = carrinhos.buscar(id);
+        assertArrayEquals(new long[] { 3L, 2L }, carrinho.produtosIds());
+        assertArrayEquals(new long[] { 1L, 5L }, carrinho.quantidades());
+        assertEquals(300L + 5 * 250L, carrinho.subtotalEmCentavos());
+        assertThrows(IllegalArgumentException.class, () -> carrinhos.removerItem(id, 1L));
+        assertThrows(IllegalArgumentException.class, () -> carrinhos.alterarQuantidade(id, 2L, 0L, 250L, 2));
+    }
+
+    @Test
+    public void testCarrinhoQueEncheOSlot_MudaDeClasseSemMudarOId() {
+        long id = carrinhos.criar();
+        for (long produtoId = 1; produtoId <= 40; produtoId++) {
+            carrinhos.adicionarItem(id, produtoId, produtoId, 100L, 1);
+        }
+
+        CarrinhoDeVisitante carrinho = carrinhos.buscar(id);
+
+        assertEquals(40, carrinho.produtosIds().length);
+        assertEquals(40L, carrinho.produtosIds()[39]);
+        assertEquals(40L, carrinho.quantidades()[39]);
+        assertEquals(100L * (40 * 41 / 2), carrinho.subtotalEmCentavos());
+    }
+
+    @Test
+    public void testCarrinhoCheio_RecusaNovoItem() {
+        long id = carrinhos.criar();
+        for (long produtoId = 1; produtoId <= CarrinhosDeVisitantes.MAXIMO_ITENS; produtoId++) {
+            carrinhos.adicionarItem(id, produtoId, 1L, 100L, 1);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> carrinhos.adicionarItem(id, 999L, 1L, 100L, 1));
+        assertEquals(CarrinhosDeVisitantes.MAXIMO_ITENS, carrinhos.buscar(id).produtosIds().length);
+    }
+
+    @Test
+    public void testExpirar_LiberaSoOsCarrinhosSemAcessoEReusaOsSlots() {
+        long antigo = carrinhos.criar();
+        long ativo = carrinhos.criar();
+        relogio.avancar(Duration.ofMinutes(20));
+        carrinhos.buscar(ativo);
+        relogio.avancar(Duration.ofMinutes(20));
+
+        assertEquals(1, carrinhos.expirar());
+        assertEquals(1, carrinhos.quantidade());
+        assertThrows(IllegalArgumentException.class, () -> carrinhos.buscar(antigo));
+
+        // A posição do expirado é reutilizada, mas o id antigo continua sem acesso
+        long novo = carrinhos.criar();
+        assertNotEquals(antigo, novo);
+        assertThrows(IllegalArgumentException.class, () -> carrinhos.buscar(antigo));
+        assertEquals(0, carrinhos.buscar(novo).produtosIds().length);
+    }
+
+    @Test
+    public void testMemoriaMaxima_RecusaNovosCarrinhosAteLiberar() {
+        // 64 KB em slabs de 4 KB: 16 slabs de 36 carrinhos de até 4 itens (112 bytes)
+        long ultimo = 0;
+        for (int i = 0; i < 16 * 36; i++) {
+            ultimo = carrinhos.criar();
+        }
+        assertEquals(DataSize.ofKilobytes(64).toBytes(), carrinhos.bytesAlocados());
+        assertThrows(IllegalStateException.class, carrinhos::criar);
+
+        carrinhos.remover(ultimo);
+        carrinhos.criar();
+        assertEquals(16 * 36, carrinhos.quantidade());
+    }
+
+    @Test
+    public void testReserva_RecusaOutraReservaEAlteracoesAteCancelar() {
+        long id = carrinhos.criar();
+        carrinhos.adicionarItem(id, 7L, 2L, 1990L, 3);
+
+        CarrinhoDeVisitante reservado = carrinhos.reservar(id);
+
+        assertArrayEquals(new long[] { 7L }, reservado.produtosIds());
+        assertThrows(IllegalArgumentException.class, () -> carrinhos.reservar(id));
+        assertThrows(IllegalArgumentException.class, () -> carrinhos.adicionarItem(id, 9L, 1L, 100L, 1));
+        assertThrows(IllegalArgumentException.class, () -> carrinhos.removerItem(id, 7L));
+        relogio.avancar(Duration.ofHours(1));
+        assertEquals(0, carrinhos.expirar()); // a conversão em andamento não perde o carrinho
+
+        carrinhos.cancelarReserva(id);
+        carrinhos.adicionarItem(id, 9L, 1L, 100L, 1);
+        assertEquals(2, carrinhos.buscar(id).produtosIds().length);
+    }
+
+    @Test
+    public void testListras_OperacoesSimultaneasComExpiracao() throws Exception {
+        int threads = 8;
+        int porThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> criados = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                criados.add(executor.submit(() -> {
+                    List<Long> ids = new ArrayList<>();
+                    for (int i = 0; i < porThread; i++) {
+                        long id = carrinhos.criar();
+                        for (long produtoId = 1; produtoId <= 3; produtoId++) {
+                            carrinhos.adicionarItem(id, produtoId, produtoId, 100L, 1);
+                        }
+                        ids.add(id);
+                    }
+                    return ids;
+                }));
+            }
+            // A varredura passa pelas listras enquanto as outras threads escrevem
+            for (int i = 0; i < 20; i++) {
+                assertEquals(0, carrinhos.expirar());
+            }
+
+            for (Future<List<Long>> ids : criados) {
+                for (long id : ids.get(5, TimeUnit.SECONDS)) {
+                    assertArrayEquals(new long[] { 1L, 2L, 3L }, carrinhos.buscar(id).quantidades());
+                }
+            }
+            assertEquals(threads * porThread, carrinhos.quantidade());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}